@@ -0,0 +1,73 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.jmh;
+
+import java.io.IOException;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Main class of the benchmarks jar. It accepts the command line options of JMH (e.g. a regular expression to select the benchmarks, 
+ * -p target=STUB to execute only on the stub driver, -rf json to write the results in a file) and always enables the GC profiler, 
+ * so that every benchmark reports the bytes allocated per operation (gc.alloc.rate.norm) and the garbage collections besides the time.
+ * As the main class of JMH, it lists the benchmarks (-l, -lp), the profilers (-lprof) and the result formats (-lrf) and shows the help (-h) 
+ * instead of running the benchmarks.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class BenchmarkRunner {
+    
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        
+        if(commandLineOptions.shouldHelp())
+        {
+            commandLineOptions.showHelp();
+            return;
+        }
+        if(commandLineOptions.shouldListProfilers())
+        {
+            commandLineOptions.listProfilers();
+            return;
+        }
+        if(commandLineOptions.shouldListResultFormats())
+        {
+            commandLineOptions.listResultFormats();
+            return;
+        }
+        
+        Options options = new OptionsBuilder()
+            .parent(commandLineOptions)
+            .addProfiler(GCProfiler.class)
+            .build();
+        
+        Runner runner = new Runner(options);
+        
+        if(commandLineOptions.shouldList())
+            runner.list();
+        else if(commandLineOptions.shouldListWithParams())
+            runner.listWithParams(commandLineOptions);
+        else
+            runner.run();
+    }
+    
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.jmh;
+
+import com.vin.dbbenchmark.database.DbHelper.DbEntry;
+import com.vin.dbbenchmark.utils.DataGenerator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the generation of the random values of a batch of records, as done by the insert testers before every batch 
+ * (the entries are reused), compared with the generation of new entries for every batch.
+ * 
+ * @author Vincenzo Micelli
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DataGeneratorBenchmark {
+    
+    private static final long SEED = 42;
+    
+    @Param({"1", "100", "1000"})
+    public int batchSize;
+    
+    private DataGenerator dataGenerator;
+    private final List<DbEntry> entries = new ArrayList<>();
+    
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        dataGenerator = new DataGenerator(SEED);
+        
+        for(int i = 0; i < batchSize; i++)
+            entries.add(new DbEntry());
+    }
+    
+    @Benchmark
+    public List<DbEntry> reusedEntries()
+    {
+        for(DbEntry entry : entries)
+            dataGenerator.nextEntry(entry);
+        
+        return entries;
+    }
+    
+    @Benchmark
+    public void newEntries(Blackhole blackhole)
+    {
+        for(int i = 0; i < batchSize; i++)
+            blackhole.consume(dataGenerator.nextEntry(new DbEntry()));
+    }
+    
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.jmh;
+
+import com.vin.dbbenchmark.database.DbHelper;
+import com.vin.dbbenchmark.database.H2DbHelper;
+
+/**
+ * The database the benchmarks are executed on: the embedded H2 database (client and database in the same JVM) 
+ * or the {@link StubJdbc stub JDBC driver} (client only). The difference of the times on the two targets is the time spent by the database.
+ * 
+ * @author Vincenzo Micelli
+ */
+public enum DatabaseTarget {
+    
+    STUB,
+    H2;
+    
+    /**
+     * Create a helper connected to the target, with an empty test table.
+     * 
+     * @param numOfRows The number of rows of the result sets of the stub (not used by H2)
+     * @return The connected helper
+     */
+    public DbHelper connect(int numOfRows)
+    {
+        DbHelper dbHelper = this == STUB ? new StubDbHelper(numOfRows) : new H2DbHelper();
+        
+        if(dbHelper.connect() != 0 || dbHelper.createTable() != 0)
+            throw new IllegalStateException("Failed to create the test table on " + this);
+        
+        return dbHelper;
+    }
+    
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.jmh;
+
+import com.vin.dbbenchmark.database.DbHelper;
+import com.vin.dbbenchmark.database.DbHelper.DbEntry;
+import com.vin.dbbenchmark.database.InsertStrategy;
+import com.vin.dbbenchmark.utils.DataGenerator;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the insert of a batch of records as executed by the insert testers: binding the values of the records 
+ * to the insert statement ({@link DbHelper#setInsertDataBatch(List) setInsertDataBatch}) and executing the batch. 
+ * On the stub target the execution costs only the client side of the driver, so the time of the batch is the overhead 
+ * of the client that the insert testers add to the time of the database.
+ * 
+ * @author Vincenzo Micelli
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class InsertBatchBenchmark {
+    
+    private static final long SEED = 42;
+    
+    @Param({"STUB", "H2"})
+    public DatabaseTarget target;
+    
+    @Param({"1", "100", "1000"})
+    public int batchSize;
+    
+    @Param({"SINGLE_ROW_BATCH", "MULTI_ROW_VALUES", "UNNEST_ARRAYS"})
+    public InsertStrategy insertStrategy;
+    
+    @Param({"50"})
+    public int rowsPerInsertStatement;
+    
+    private DbHelper dbHelper;
+    private final List<DbEntry> entries = new ArrayList<>();
+    
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        dbHelper = target.connect(0);
+        
+        DataGenerator dataGenerator = new DataGenerator(SEED);
+        for(int i = 0; i < batchSize; i++)
+            entries.add(dataGenerator.nextEntry(new DbEntry()));
+    }
+    
+    /**
+     * Empty the table before every iteration, so that the times of the database do not grow with the inserted records.
+     */
+    @Setup(Level.Iteration)
+    public void emptyTable()
+    {
+        dbHelper.closeInsertStatement();
+        
+        if(dbHelper.createTable() != 0)
+            throw new IllegalStateException("Failed to create the test table on " + target);
+        
+        dbHelper.prepareInsertStatement(insertStrategy, rowsPerInsertStatement);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        dbHelper.closeInsertStatement();
+        dbHelper.closeConnection();
+    }
+    
+    @Benchmark
+    public void bind()
+    {
+        dbHelper.setInsertDataBatch(entries);
+    }
+    
+    @Benchmark
+    public void bindAndExecute() throws SQLException
+    {
+        dbHelper.setInsertDataBatch(entries);
+        dbHelper.execInsertDataBatch();
+    }
+    
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.jmh;
+
+import com.vin.dbbenchmark.database.DbHelper;
+import com.vin.dbbenchmark.database.DbHelper.DbEntry;
+import com.vin.dbbenchmark.database.ScanCursorMode;
+import com.vin.dbbenchmark.utils.DataGenerator;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks reading the records of a range scan as done by the range scan tester: iterating the result set only, 
+ * and iterating it decoding every record in an entry ({@link DbHelper#readEntry(ResultSet, DbEntry) readEntry}). 
+ * The difference of the two benchmarks is the time spent decoding the values.
+ * 
+ * @author Vincenzo Micelli
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ResultSetDecodeBenchmark {
+    
+    private static final long SEED = 42;
+    
+    @Param({"STUB", "H2"})
+    public DatabaseTarget target;
+    
+    @Param({"10", "1000"})
+    public int numOfRows;
+    
+    private DbHelper dbHelper;
+    private final DbEntry entry = new DbEntry();
+    
+    @Setup(Level.Trial)
+    public void setup() throws SQLException
+    {
+        dbHelper = target.connect(numOfRows);
+        
+        // the primary keys of the inserted records are 1..numOfRows
+        DataGenerator dataGenerator = new DataGenerator(SEED);
+        List<DbEntry> entries = new ArrayList<>();
+        for(int i = 0; i < numOfRows; i++)
+            entries.add(dataGenerator.nextEntry(new DbEntry()));
+        
+        dbHelper.prepareInsertStatement();
+        dbHelper.setInsertDataBatch(entries);
+        dbHelper.execInsertDataBatch();
+        dbHelper.closeInsertStatement();
+        
+        dbHelper.prepareRangeScanStatement(ScanCursorMode.CLIENT_BUFFERED, 0);
+        dbHelper.setRangeScanData(1, numOfRows);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        dbHelper.closeRangeScanStatement();
+        dbHelper.closeConnection();
+    }
+    
+    @Benchmark
+    public int iterate() throws SQLException
+    {
+        ResultSet resultSet = dbHelper.execRangeScanData();
+        
+        int rows = 0;
+        while(resultSet.next())
+            rows++;
+        
+        dbHelper.closeRangeScanResult(resultSet);
+        
+        return rows;
+    }
+    
+    @Benchmark
+    public DbEntry iterateAndDecode() throws SQLException
+    {
+        ResultSet resultSet = dbHelper.execRangeScanData();
+        
+        while(resultSet.next())
+            DbHelper.readEntry(resultSet, entry);
+        
+        dbHelper.closeRangeScanResult(resultSet);
+        
+        return entry;
+    }
+    
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.jmh;
+
+import com.vin.dbbenchmark.database.DbHelper;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A {@link DbHelper} connected to the {@link StubJdbc stub JDBC driver}: the statements of the helper are prepared and bound 
+ * as on a real database, but nothing is executed.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class StubDbHelper extends DbHelper {
+    
+    private final int numOfRows;
+
+    /**
+     *
+     * @param numOfRows The number of rows of the result sets returned by the queries
+     */
+    public StubDbHelper(int numOfRows) {
+        this.numOfRows = numOfRows;
+    }
+
+    @Override
+    public Connection createConnection() throws SQLException {
+        return StubJdbc.newConnection(numOfRows);
+    }
+
+    @Override
+    public int connect() {
+        
+        if(connection == null)
+            connection = StubJdbc.newConnection(numOfRows);
+        
+        return 0;
+    }
+
+    @Override
+    public void closeConnection() {
+        connection = null;
+    }
+
+    @Override
+    public int createTable() {
+        return 0;
+    }
+    
+}
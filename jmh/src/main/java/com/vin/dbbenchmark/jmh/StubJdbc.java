@@ -0,0 +1,197 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.jmh;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+
+/**
+ * A JDBC driver that does nothing: the statements accept the parameters and the batches without sending them anywhere, 
+ * and the queries return a result set with a fixed number of rows of constant values (the columns of the test table). 
+ * Benchmarks executed on the stub measure only the client side of the JDBC calls (e.g. preparing the values and binding the parameters), 
+ * plus the small constant cost of the stub itself.
+ * 
+ * The objects are dynamic proxies, so the stub does not depend on the version of the JDBC interfaces.
+ * 
+ * @author Vincenzo Micelli
+ */
+public final class StubJdbc {
+    
+    private static final String VARCHAR_VALUE = "abcdefghijklmnopqrst";
+    private static final BigDecimal DECIMAL_VALUE = BigDecimal.valueOf(1234567, 2);
+    private static final Timestamp DATE_VALUE = new Timestamp(0);
+    
+    private StubJdbc() {
+    }
+    
+    /**
+     *
+     * @param numOfRows The number of rows of the result sets returned by the queries
+     * @return A connection whose statements do nothing
+     */
+    public static Connection newConnection(int numOfRows)
+    {
+        return newProxy(Connection.class, new ConnectionHandler(numOfRows));
+    }
+    
+    private static <T> T newProxy(Class<T> type, InvocationHandler handler)
+    {
+        return type.cast(Proxy.newProxyInstance(StubJdbc.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+    
+    /**
+     * @return The default value of a method that does nothing (null, false or zero)
+     */
+    private static Object getDefaultValue(Class<?> returnType)
+    {
+        if(!returnType.isPrimitive() || returnType == void.class)
+            return null;
+        if(returnType == boolean.class)
+            return false;
+        if(returnType == long.class)
+            return 0L;
+        if(returnType == double.class)
+            return 0.0;
+        if(returnType == float.class)
+            return 0.0f;
+        if(returnType == char.class)
+            return '\0';
+        if(returnType == byte.class)
+            return (byte)0;
+        if(returnType == short.class)
+            return (short)0;
+        
+        return 0;
+    }
+    
+    private static Object invokeObjectMethod(Object proxy, Method method, Object[] args)
+    {
+        switch(method.getName())
+        {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return "Stub" + method.getDeclaringClass().getSimpleName();
+        }
+    }
+    
+    private static class ConnectionHandler implements InvocationHandler {
+        
+        private final int numOfRows;
+        private boolean autoCommit = true;
+
+        private ConnectionHandler(int numOfRows) {
+            this.numOfRows = numOfRows;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            
+            if(method.getDeclaringClass() == Object.class)
+                return invokeObjectMethod(proxy, method, args);
+            
+            switch(method.getName())
+            {
+                case "prepareStatement":
+                    return newProxy(PreparedStatement.class, new StatementHandler(numOfRows));
+                case "setAutoCommit":
+                    autoCommit = (Boolean)args[0];
+                    return null;
+                case "getAutoCommit":
+                    return autoCommit;
+                default:
+                    return getDefaultValue(method.getReturnType());
+            }
+        }
+    }
+    
+    private static class StatementHandler implements InvocationHandler {
+        
+        private final int numOfRows;
+        private int batchSize;
+
+        private StatementHandler(int numOfRows) {
+            this.numOfRows = numOfRows;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            
+            if(method.getDeclaringClass() == Object.class)
+                return invokeObjectMethod(proxy, method, args);
+            
+            switch(method.getName())
+            {
+                case "addBatch":
+                    batchSize++;
+                    return null;
+                case "clearBatch":
+                    batchSize = 0;
+                    return null;
+                case "executeBatch":
+                    int[] updateCounts = new int[batchSize];
+                    batchSize = 0;
+                    return updateCounts;
+                case "executeQuery":
+                    return newProxy(ResultSet.class, new ResultSetHandler(numOfRows));
+                default:
+                    return getDefaultValue(method.getReturnType());
+            }
+        }
+    }
+    
+    private static class ResultSetHandler implements InvocationHandler {
+        
+        private final int numOfRows;
+        private int row;
+
+        private ResultSetHandler(int numOfRows) {
+            this.numOfRows = numOfRows;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            
+            if(method.getDeclaringClass() == Object.class)
+                return invokeObjectMethod(proxy, method, args);
+            
+            switch(method.getName())
+            {
+                case "next":
+                    return ++row <= numOfRows;
+                case "getInt":
+                    return row;
+                case "getString":
+                    return VARCHAR_VALUE;
+                case "getBigDecimal":
+                    return DECIMAL_VALUE;
+                case "getTimestamp":
+                    return DATE_VALUE;
+                default:
+                    return getDefaultValue(method.getReturnType());
+            }
+        }
+    }
+    
+}
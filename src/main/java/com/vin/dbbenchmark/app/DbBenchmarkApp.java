@@ -28,6 +28,10 @@ public class DbBenchmarkApp {
     public static void main( String[] args )
     {
         BenchmarkManager manager = new DbBenchmarkManager();
-        manager.execTests();
+        int status = manager.execTests();
+        
+        // a non-zero exit code lets scripts detect a failed run (e.g. a performance regression)
+        if(status != 0)
+            System.exit(status);
     }
 }
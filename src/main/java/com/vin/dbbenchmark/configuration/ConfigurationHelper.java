@@ -15,10 +15,33 @@
  */
 package com.vin.dbbenchmark.configuration;
 
+import com.vin.dbbenchmark.database.CommitMode;
 import com.vin.dbbenchmark.database.DBMSName;
+import com.vin.dbbenchmark.database.H2DbHelper;
+import com.vin.dbbenchmark.database.InsertStrategy;
+import com.vin.dbbenchmark.database.IsolationLevel;
+import com.vin.dbbenchmark.database.LockingMode;
+import com.vin.dbbenchmark.database.MultiKeySelectMode;
+import com.vin.dbbenchmark.database.ScanCursorMode;
+import com.vin.dbbenchmark.test.BaseTester;
+import com.vin.dbbenchmark.test.BatchSizeSweepTester;
+import com.vin.dbbenchmark.test.DbTransactionTester;
+import com.vin.dbbenchmark.test.Workload;
+import com.vin.dbbenchmark.utils.HotspotKeyGenerator;
+import com.vin.dbbenchmark.utils.KeyDistribution;
+import com.vin.dbbenchmark.utils.KeyGenerator;
+import com.vin.dbbenchmark.utils.LatestKeyGenerator;
+import com.vin.dbbenchmark.utils.UniformKeyGenerator;
+import com.vin.dbbenchmark.utils.ZipfianKeyGenerator;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -32,6 +55,32 @@ public class ConfigurationHelper {
     private static final int DEFAULT_NUM_OF_INSERT_PER_TRANSACTION = 10;
     private static final int DEFAULT_NUM_OF_SELECT_EXECUTIONS = 100;
     private static final int DEFAULT_NUM_OF_WARMUP_EXECUTIONS = 5;
+    private static final int DEFAULT_WARMUP_TOLERANCE_PERCENT = 5;
+    private static final int DEFAULT_MAX_WARMUP_EXECUTIONS = 100000;
+    private static final int DEFAULT_NUM_OF_THREADS = 1;
+    private static final int DEFAULT_NUM_OF_TRIALS = 1;
+    private static final int DEFAULT_ROWS_PER_INSERT_STATEMENT = 100;
+    private static final int DEFAULT_BATCH_SIZE_SWEEP_MIN = 1;
+    private static final int DEFAULT_BATCH_SIZE_SWEEP_FACTOR = 2;
+    private static final int DEFAULT_BATCH_SIZE_SWEEP_MIN_GAIN_PERCENT = (int)Math.round(BatchSizeSweepTester.DEFAULT_MIN_THROUGHPUT_GAIN * 100);
+    private static final int DEFAULT_NUM_OF_COPY_EXECUTIONS = 100;
+    private static final int DEFAULT_NUM_OF_BULK_INSERT_EXECUTIONS = 100;
+    private static final int DEFAULT_BULK_INSERT_BATCH_SIZE = 500;
+    private static final int DEFAULT_NUM_OF_SCAN_EXECUTIONS = 100;
+    private static final int DEFAULT_NUM_OF_WORKLOAD_EXECUTIONS = 10000;
+    private static final int DEFAULT_NUM_OF_UPDATES_PER_TRANSACTION = 1;
+    private static final int DEFAULT_NUM_OF_DELETES_PER_TRANSACTION = 1;
+    private static final int DEFAULT_WORKLOAD_INSERT_BATCH_SIZE = 1;
+    private static final int DEFAULT_WORKLOAD_SCAN_LENGTH = 100;
+    private static final int DEFAULT_ZIPFIAN_THETA_PERCENT = (int)Math.round(ZipfianKeyGenerator.DEFAULT_THETA * 100);
+    private static final int DEFAULT_HOTSPOT_KEYS_PERCENT = 20;
+    private static final int DEFAULT_HOTSPOT_ACCESSES_PERCENT = 80;
+    private static final int DEFAULT_HISTOGRAM_HIGHEST_TRACKABLE_TIME_MILLIS = (int)(BaseTester.DEFAULT_HISTOGRAM_HIGHEST_TRACKABLE_TIME / 1000000);
+    
+    private static final int DEFAULT_REGRESSION_THRESHOLD_PERCENT = 5;
+    private static final List<String> DEFAULT_REGRESSION_METRICS = Arrays.asList("throughput", "p50", "p99");
+    
+    private static final String DEFAULT_H2_DIRECTORY = "h2";
     
     private static final String CONFIGURATION_FILE = "configuration.properties";
     
@@ -178,6 +227,611 @@ public class ConfigurationHelper {
         return numOfExecutions;
     }
     
+    /**
+     *
+     * @return The number of warmup executions of a window of the adaptive warmup. 
+     * If the property has not been set, return 0 (the fixed number of warmup executions is performed).
+     */
+    public int getWarmupWindowSize()
+    {
+        return getIntProperty(ConfigurationProperties.WARMUP_WINDOW_SIZE, 0, 0);
+    }
+    
+    /**
+     *
+     * @return The max difference (in percent of their mean) of the avg times of the last windows for the adaptive warmup to stop. 
+     * If the property has not been set, return 5.
+     */
+    public int getWarmupTolerancePercent()
+    {
+        return getPercentProperty(ConfigurationProperties.WARMUP_TOLERANCE_PERCENT, DEFAULT_WARMUP_TOLERANCE_PERCENT, 1, 100);
+    }
+    
+    /**
+     *
+     * @return The max number of warmup executions of the adaptive warmup. 
+     * If the property has not been set, return default value.
+     */
+    public int getMaxWarmupExecutions()
+    {
+        return getPositiveIntProperty(ConfigurationProperties.MAX_WARMUP_EXECUTIONS, DEFAULT_MAX_WARMUP_EXECUTIONS);
+    }
+    
+    /**
+     *
+     * @return The num of threads that execute each test concurrently. 
+     * If the property has not been set, return default value (a single thread).
+     */
+    public int getNumberOfThreads()
+    {
+        return getPositiveIntProperty(ConfigurationProperties.NUM_OF_THREADS, DEFAULT_NUM_OF_THREADS);
+    }
+    
+    /**
+     *
+     * @return The number of times the tests of every tester are executed (trials). 
+     * If the property has not been set, return default value (a single trial).
+     */
+    public int getNumberOfTrials()
+    {
+        return getPositiveIntProperty(ConfigurationProperties.NUM_OF_TRIALS, DEFAULT_NUM_OF_TRIALS);
+    }
+    
+    /**
+     *
+     * @return The highest time (in milliseconds) recorded with the requested precision by the histograms of the testers. 
+     * If the property has not been set, return default value.
+     */
+    public int getHistogramHighestTrackableTimeMillis()
+    {
+        return getPositiveIntProperty(ConfigurationProperties.HISTOGRAM_HIGHEST_TRACKABLE_TIME_MILLIS, DEFAULT_HISTOGRAM_HIGHEST_TRACKABLE_TIME_MILLIS);
+    }
+    
+    /**
+     *
+     * @return The number of significant digits (between 1 and 5) of the times recorded by the histograms of the testers. 
+     * If the property has not been set or it is out of range, return default value.
+     */
+    public int getHistogramSignificantDigits()
+    {
+        int digits = getPositiveIntProperty(ConfigurationProperties.HISTOGRAM_SIGNIFICANT_DIGITS, BaseTester.DEFAULT_HISTOGRAM_SIGNIFICANT_DIGITS);
+        
+        if(digits > 5)
+        {
+            String warning = "Invalid input for property " + ConfigurationProperties.HISTOGRAM_SIGNIFICANT_DIGITS + ".\n" +
+                             "Input value is greater than 5: " + digits + ".\n" +
+                             "Using default value " + BaseTester.DEFAULT_HISTOGRAM_SIGNIFICANT_DIGITS + "\n\n";
+            
+            Logger.getLogger(ConfigurationHelper.class.getName()).log(Level.WARNING, warning);
+            
+            digits = BaseTester.DEFAULT_HISTOGRAM_SIGNIFICANT_DIGITS;
+        }
+        
+        return digits;
+    }
+    
+    /**
+     *
+     * @return The duration (in seconds) of the test executions of each tester. 
+     * If the property has not been set, return 0 (the testers execute a fixed number of executions).
+     */
+    public int getTestDurationSeconds()
+    {
+        return getIntProperty(ConfigurationProperties.TEST_DURATION_SECONDS, 0, 0);
+    }
+    
+    /**
+     *
+     * @return The number of executions to start per second by each tester (all threads together). 
+     * If the property has not been set, return 0 (the testers run in closed loop).
+     */
+    public int getTargetThroughput()
+    {
+        return getIntProperty(ConfigurationProperties.TARGET_THROUGHPUT, 0, 0);
+    }
+    
+    /**
+     *
+     * @return The length (in milliseconds) of the intervals whose throughput and percentiles are reported while every tester is running. 
+     * If the property has not been set, return 0 (the intervals are not reported).
+     */
+    public int getIntervalReportMillis()
+    {
+        return getIntProperty(ConfigurationProperties.INTERVAL_REPORT_MILLIS, 0, 0);
+    }
+    
+    /**
+     *
+     * @return The max number of connections of the pool shared by the threads of each tester. 
+     * If the property has not been set, return 0 (every thread opens its own connection without a pool).
+     */
+    public int getConnectionPoolSize()
+    {
+        return getIntProperty(ConfigurationProperties.CONNECTION_POOL_SIZE, 0, 0);
+    }
+    
+    /**
+     *
+     * @return true if the threads of each tester have to be virtual threads (Java 21 or later). 
+     * If the property has not been set, return false.
+     */
+    public boolean getVirtualThreads()
+    {
+        return getBooleanProperty(ConfigurationProperties.VIRTUAL_THREADS, false);
+    }
+    
+    /**
+     *
+     * @return The number of COPY operations executed by the bulk load testers to compute the statistics.
+     */
+    public int getNumberOfCopyExecutions()
+    {
+        return getPositiveIntProperty(ConfigurationProperties.NUM_OF_COPY_EXECUTIONS, DEFAULT_NUM_OF_COPY_EXECUTIONS);
+    }
+    
+    /**
+     *
+     * @return The number of rows loaded by each COPY operation. 
+     * If the property has not been set, return 0 (the bulk load tests are not executed).
+     */
+    public int getNumberOfRowsPerCopy()
+    {
+        return getIntProperty(ConfigurationProperties.NUM_OF_ROWS_PER_COPY, 0, 0);
+    }
+    
+    /**
+     *
+     * @return The number of bulk inserts executed by the SQL Server bulk insert testers to compute the statistics.
+     */
+    public int getNumberOfBulkInsertExecutions()
+    {
+        return getPositiveIntProperty(ConfigurationProperties.NUM_OF_BULK_INSERT_EXECUTIONS, DEFAULT_NUM_OF_BULK_INSERT_EXECUTIONS);
+    }
+    
+    /**
+     *
+     * @return The number of rows inserted and committed by each bulk insert. 
+     * If the property has not been set, return 0 (the bulk insert tests are not executed).
+     */
+    public int getNumberOfRowsPerBulkInsert()
+    {
+        return getIntProperty(ConfigurationProperties.NUM_OF_ROWS_PER_BULK_INSERT, 0, 0);
+    }
+    
+    /**
+     *
+     * @return The number of rows sent to the database together by the bulk inserts.
+     */
+    public int getBulkInsertBatchSize()
+    {
+        return getPositiveIntProperty(ConfigurationProperties.BULK_INSERT_BATCH_SIZE, DEFAULT_BULK_INSERT_BATCH_SIZE);
+    }
+    
+    /**
+     *
+     * @return The seed of the random data generated by the testers. 
+     * If the property has not been set (or it is not valid), return null (a random seed is used).
+     */
+    public Long getRandomSeed()
+    {
+        if(properties == null)
+            return null;
+        
+        String prop = properties.getProperty(ConfigurationProperties.RANDOM_SEED);
+        
+        if(prop == null || prop.trim().isEmpty())
+            return null;
+        
+        try {
+            return Long.parseLong(prop.trim());
+        } catch (NumberFormatException numberFormatException) {
+            String warning = "Invalid input for property " + ConfigurationProperties.RANDOM_SEED + ".\n" +
+                             "Input value is not a number: " + prop + ".\n" +
+                             "Using a random seed\n\n";
+            
+            Logger.getLogger(ConfigurationHelper.class.getName()).log(Level.WARNING, warning);
+            
+            return null;
+        }
+    }
+    
+    /**
+     *
+     * @return The strategies used by the insert tests (a test is executed for each strategy). 
+     * If the property has not been set, return SINGLE_ROW_BATCH.
+     */
+    public List<InsertStrategy> getInsertStrategies()
+    {
+        List<InsertStrategy> defaultStrategies = Collections.singletonList(InsertStrategy.SINGLE_ROW_BATCH);
+        
+        if(properties == null)
+            return defaultStrategies;
+        
+        String prop = properties.getProperty(ConfigurationProperties.INSERT_STRATEGIES, "");
+        
+        List<InsertStrategy> strategies = new ArrayList<>();
+        for(String strategyName : prop.split(","))
+        {
+            if(strategyName.trim().isEmpty())
+                continue;
+            
+            try {
+                InsertStrategy strategy = InsertStrategy.valueOf(strategyName.trim());
+                if(!strategies.contains(strategy))
+                    strategies.add(strategy);
+            } catch (IllegalArgumentException e) {
+                String warning = "Invalid input for property " + ConfigurationProperties.INSERT_STRATEGIES + ": " + strategyName + ".\n" +
+                                 "The value is ignored\n\n";
+                Logger.getLogger(ConfigurationHelper.class.getName()).log(Level.WARNING, warning);
+            }
+        }
+        
+        return strategies.isEmpty() ? defaultStrategies : strategies;
+    }
+    
+    /**
+     *
+     * @return The number of records in the VALUES clause of the insert statements of the MULTI_ROW_VALUES strategy.
+     */
+    public int getRowsPerInsertStatement()
+    {
+        return getPositiveIntProperty(ConfigurationProperties.ROWS_PER_INSERT_STATEMENT, DEFAULT_ROWS_PER_INSERT_STATEMENT);
+    }
+    
+    /**
+     *
+     * @return true if the select test has to be executed also reading and decoding the selected records. 
+     * If the property has not been set, return false.
+     */
+    public boolean getMaterializeSelectResults()
+    {
+        return getBooleanProperty(ConfigurationProperties.MATERIALIZE_SELECT_RESULTS, false);
+    }
+    
+    /**
+     *
+     * @return true if the insert and select tests have to be executed for every combination of isolation level and commit mode. 
+     * If the property has not been set, return false.
+     */
+    public boolean getTransactionMatrix()
+    {
+        return getBooleanProperty(ConfigurationProperties.TRANSACTION_MATRIX, false);
+    }
+    
+    /**
+     *
+     * @return The isolation levels of the transaction matrix. If the property has not been set, return all the levels.
+     */
+    public List<IsolationLevel> getTransactionMatrixIsolationLevels()
+    {
+        return getEnumListProperty(ConfigurationProperties.TRANSACTION_MATRIX_ISOLATION_LEVELS, IsolationLevel.class);
+    }
+    
+    /**
+     *
+     * @return The commit modes of the transaction matrix. If the property has not been set, return all the modes.
+     */
+    public List<CommitMode> getTransactionMatrixCommitModes()
+    {
+        return getEnumListProperty(ConfigurationProperties.TRANSACTION_MATRIX_COMMIT_MODES, CommitMode.class);
+    }
+    
+    /**
+     *
+     * @return The number of keys selected by every execution of the multi-key select tests. 
+     * If the property has not been set, return 0 (the multi-key select tests are not executed).
+     */
+    public int getNumberOfKeysPerSelect()
+    {
+        return getIntProperty(ConfigurationProperties.NUM_OF_KEYS_PER_SELECT, 0, 0);
+    }
+    
+    /**
+     *
+     * @return The modes used by the multi-key select tests (a test is executed for each mode). 
+     * If the property has not been set, return all the modes.
+     */
+    public List<MultiKeySelectMode> getMultiKeySelectModes()
+    {
+        List<MultiKeySelectMode> defaultModes = Arrays.asList(MultiKeySelectMode.values());
+        
+        if(properties == null)
+            return defaultModes;
+        
+        String prop = properties.getProperty(ConfigurationProperties.MULTI_KEY_SELECT_MODES, "");
+        
+        List<MultiKeySelectMode> modes = new ArrayList<>();
+        for(String modeName : prop.split(","))
+        {
+            if(modeName.trim().isEmpty())
+                continue;
+            
+            try {
+                MultiKeySelectMode mode = MultiKeySelectMode.valueOf(modeName.trim());
+                if(!modes.contains(mode))
+                    modes.add(mode);
+            } catch (IllegalArgumentException e) {
+                String warning = "Invalid input for property " + ConfigurationProperties.MULTI_KEY_SELECT_MODES + ": " + modeName + ".\n" +
+                                 "The value is ignored\n\n";
+                Logger.getLogger(ConfigurationHelper.class.getName()).log(Level.WARNING, warning);
+            }
+        }
+        
+        return modes.isEmpty() ? defaultModes : modes;
+    }
+    
+    /**
+     *
+     * @return The number of range scans executed by each range scan test.
+     */
+    public int getNumberOfScanExecutions()
+    {
+        return getPositiveIntProperty(ConfigurationProperties.NUM_OF_SCAN_EXECUTIONS, DEFAULT_NUM_OF_SCAN_EXECUTIONS);
+    }
+    
+    /**
+     *
+     * @return The number of records read by each range scan. 
+     * If the property has not been set, return 0 (the range scan tests are not executed).
+     */
+    public int getNumberOfRowsPerScan()
+    {
+        return getIntProperty(ConfigurationProperties.NUM_OF_ROWS_PER_SCAN, 0, 0);
+    }
+    
+    /**
+     *
+     * @return The fetch sizes used by the range scan tests (a test is executed for each fetch size and cursor mode). 
+     * If the property has not been set, return 0 (the driver default).
+     */
+    public List<Integer> getScanFetchSizes()
+    {
+        return getIntListProperty(ConfigurationProperties.SCAN_FETCH_SIZES, 0, Collections.singletonList(0));
+    }
+    
+    /**
+     *
+     * @return The pipeline depths of the pipelined select tests (a test is executed for each depth). 
+     * If the property has not been set, return an empty list (the pipelined select tests are not executed).
+     */
+    public List<Integer> getPipelineDepths()
+    {
+        return getIntListProperty(ConfigurationProperties.PIPELINE_DEPTHS, 1, Collections.emptyList());
+    }
+    
+    /**
+     *
+     * @return The cursor modes used by the range scan tests (a test is executed for each fetch size and cursor mode). 
+     * If the property has not been set, return all the modes.
+     */
+    public List<ScanCursorMode> getScanCursorModes()
+    {
+        List<ScanCursorMode> defaultModes = Arrays.asList(ScanCursorMode.values());
+        
+        if(properties == null)
+            return defaultModes;
+        
+        String prop = properties.getProperty(ConfigurationProperties.SCAN_CURSOR_MODES, "");
+        
+        List<ScanCursorMode> modes = new ArrayList<>();
+        for(String modeName : prop.split(","))
+        {
+            if(modeName.trim().isEmpty())
+                continue;
+            
+            try {
+                ScanCursorMode mode = ScanCursorMode.valueOf(modeName.trim());
+                if(!modes.contains(mode))
+                    modes.add(mode);
+            } catch (IllegalArgumentException e) {
+                String warning = "Invalid input for property " + ConfigurationProperties.SCAN_CURSOR_MODES + ": " + modeName + ".\n" +
+                                 "The value is ignored\n\n";
+                Logger.getLogger(ConfigurationHelper.class.getName()).log(Level.WARNING, warning);
+            }
+        }
+        
+        return modes.isEmpty() ? defaultModes : modes;
+    }
+    
+    /**
+     *
+     * @return The number of transactions executed by each update test. 
+     * If the property has not been set, return 0 (the update tests are not executed).
+     */
+    public int getNumberOfUpdateExecutions()
+    {
+        return getIntProperty(ConfigurationProperties.NUM_OF_UPDATE_EXECUTIONS, 0, 0);
+    }
+    
+    /**
+     *
+     * @return The number of records updated by each transaction of the update tests.
+     */
+    public int getNumberOfUpdatesPerTransaction()
+    {
+        return getPositiveIntProperty(ConfigurationProperties.NUM_OF_UPDATES_PER_TRANSACTION, DEFAULT_NUM_OF_UPDATES_PER_TRANSACTION);
+    }
+    
+    /**
+     *
+     * @return The locking modes used by the update tests (a test is executed for each mode). 
+     * If the property has not been set, return all the modes.
+     */
+    public List<LockingMode> getUpdateLockingModes()
+    {
+        return getEnumListProperty(ConfigurationProperties.UPDATE_LOCKING_MODES, LockingMode.class);
+    }
+    
+    /**
+     *
+     * @return The number of transactions executed by the delete test. 
+     * If the property has not been set, return 0 (the delete test is not executed).
+     */
+    public int getNumberOfDeleteExecutions()
+    {
+        return getIntProperty(ConfigurationProperties.NUM_OF_DELETE_EXECUTIONS, 0, 0);
+    }
+    
+    /**
+     *
+     * @return The number of records deleted by each transaction of the delete test.
+     */
+    public int getNumberOfDeletesPerTransaction()
+    {
+        return getPositiveIntProperty(ConfigurationProperties.NUM_OF_DELETES_PER_TRANSACTION, DEFAULT_NUM_OF_DELETES_PER_TRANSACTION);
+    }
+    
+    /**
+     *
+     * @return The max number of times that the update and delete tests retry a transaction that failed because of concurrent transactions.
+     */
+    public int getMaxTransactionRetries()
+    {
+        return getIntProperty(ConfigurationProperties.MAX_TRANSACTION_RETRIES, DbTransactionTester.DEFAULT_MAX_RETRIES, 0);
+    }
+    
+    /**
+     *
+     * @return The workloads of the mixed workload tests (a test is executed for each workload). 
+     * The workloads are separated by semicolons, each one is the letter of a YCSB core workload (A-F) or a list of operations with their weights 
+     * (see {@link Workload#parse(String) parse}). If the property has not been set, return an empty list (the workload tests are not executed).
+     */
+    public List<Workload> getWorkloads()
+    {
+        List<Workload> workloads = new ArrayList<>();
+        
+        if(properties == null)
+            return workloads;
+        
+        String prop = properties.getProperty(ConfigurationProperties.WORKLOADS, "");
+        
+        for(String workloadValue : prop.split(";"))
+        {
+            if(workloadValue.trim().isEmpty())
+                continue;
+            
+            try {
+                workloads.add(Workload.parse(workloadValue));
+            } catch (IllegalArgumentException e) {
+                String warning = "Invalid input for property " + ConfigurationProperties.WORKLOADS + ": " + workloadValue + ".\n" +
+                                 "The value is ignored\n\n";
+                Logger.getLogger(ConfigurationHelper.class.getName()).log(Level.WARNING, warning);
+            }
+        }
+        
+        return workloads;
+    }
+    
+    /**
+     *
+     * @return The number of operations executed by each workload test.
+     */
+    public int getNumberOfWorkloadExecutions()
+    {
+        return getPositiveIntProperty(ConfigurationProperties.NUM_OF_WORKLOAD_EXECUTIONS, DEFAULT_NUM_OF_WORKLOAD_EXECUTIONS);
+    }
+    
+    /**
+     *
+     * @return The number of records inserted by an INSERT operation of the workload tests.
+     */
+    public int getWorkloadInsertBatchSize()
+    {
+        return getPositiveIntProperty(ConfigurationProperties.WORKLOAD_INSERT_BATCH_SIZE, DEFAULT_WORKLOAD_INSERT_BATCH_SIZE);
+    }
+    
+    /**
+     *
+     * @return The number of primary keys read by a SCAN operation of the workload tests.
+     */
+    public int getWorkloadScanLength()
+    {
+        return getPositiveIntProperty(ConfigurationProperties.WORKLOAD_SCAN_LENGTH, DEFAULT_WORKLOAD_SCAN_LENGTH);
+    }
+    
+    /**
+     *
+     * @return The generator of the keys accessed by the select, scan and workload tests, built from the key distribution and its parameters. 
+     * If the property has not been set, return a uniform generator.
+     */
+    public KeyGenerator getKeyGenerator()
+    {
+        KeyDistribution keyDistribution = KeyDistribution.UNIFORM;
+        
+        String prop = properties != null ? properties.getProperty(ConfigurationProperties.KEY_DISTRIBUTION, "").trim() : "";
+        
+        if(!prop.isEmpty())
+        {
+            try {
+                keyDistribution = KeyDistribution.valueOf(prop);
+            } catch (IllegalArgumentException e) {
+                String warning = "Invalid input for property " + ConfigurationProperties.KEY_DISTRIBUTION + ": " + prop + ".\n" +
+                                 "Using default value " + KeyDistribution.UNIFORM + "\n\n";
+                Logger.getLogger(ConfigurationHelper.class.getName()).log(Level.WARNING, warning);
+            }
+        }
+        
+        switch(keyDistribution)
+        {
+            case ZIPFIAN:
+                return new ZipfianKeyGenerator(getPercentProperty(ConfigurationProperties.ZIPFIAN_THETA_PERCENT, DEFAULT_ZIPFIAN_THETA_PERCENT, 1, 99) / 100.0);
+            case LATEST:
+                return new LatestKeyGenerator(getPercentProperty(ConfigurationProperties.ZIPFIAN_THETA_PERCENT, DEFAULT_ZIPFIAN_THETA_PERCENT, 1, 99) / 100.0);
+            case HOTSPOT:
+                return new HotspotKeyGenerator(getPercentProperty(ConfigurationProperties.HOTSPOT_KEYS_PERCENT, DEFAULT_HOTSPOT_KEYS_PERCENT, 0, 100) / 100.0, 
+                                               getPercentProperty(ConfigurationProperties.HOTSPOT_ACCESSES_PERCENT, DEFAULT_HOTSPOT_ACCESSES_PERCENT, 0, 100) / 100.0);
+            default:
+                return new UniformKeyGenerator();
+        }
+    }
+    
+    /**
+     *
+     * @return The min number of records inserted by the insert tests before a commit. 
+     * If the property has not been set, return 0 (commit after every batch).
+     */
+    public int getRowsPerCommit()
+    {
+        return getIntProperty(ConfigurationProperties.ROWS_PER_COMMIT, 0, 0);
+    }
+    
+    /**
+     *
+     * @return The first batch size of the batch size sweep.
+     */
+    public int getBatchSizeSweepMin()
+    {
+        return getPositiveIntProperty(ConfigurationProperties.BATCH_SIZE_SWEEP_MIN, DEFAULT_BATCH_SIZE_SWEEP_MIN);
+    }
+    
+    /**
+     *
+     * @return The last batch size of the batch size sweep. 
+     * If the property has not been set, return 0 (the sweep is not executed).
+     */
+    public int getBatchSizeSweepMax()
+    {
+        return getIntProperty(ConfigurationProperties.BATCH_SIZE_SWEEP_MAX, 0, 0);
+    }
+    
+    /**
+     *
+     * @return The ratio between consecutive batch sizes of the batch size sweep.
+     */
+    public int getBatchSizeSweepFactor()
+    {
+        return getIntProperty(ConfigurationProperties.BATCH_SIZE_SWEEP_FACTOR, DEFAULT_BATCH_SIZE_SWEEP_FACTOR, 2);
+    }
+    
+    /**
+     *
+     * @return The min throughput improvement (in percent) for a larger batch size to be considered worth it by the batch size sweep.
+     */
+    public int getBatchSizeSweepMinGainPercent()
+    {
+        return getIntProperty(ConfigurationProperties.BATCH_SIZE_SWEEP_MIN_GAIN_PERCENT, DEFAULT_BATCH_SIZE_SWEEP_MIN_GAIN_PERCENT, 0);
+    }
+    
     public DBMSName getDbmsName()
     {
         if(properties == null)
@@ -196,6 +850,108 @@ public class ConfigurationHelper {
         return dbmsName;
     }
     
+    /**
+     *
+     * @return The path of the file where the results are written in JSON Lines format. 
+     * If the property has not been set or it is empty, return null (the file is not written).
+     */
+    public String getJsonResultFile()
+    {
+        return getFileProperty(ConfigurationProperties.JSON_RESULT_FILE);
+    }
+    
+    /**
+     *
+     * @return The path of the file where the results are written in CSV format. 
+     * If the property has not been set or it is empty, return null (the file is not written).
+     */
+    public String getCsvResultFile()
+    {
+        return getFileProperty(ConfigurationProperties.CSV_RESULT_FILE);
+    }
+    
+    /**
+     *
+     * @return true if the result files have to contain also the histograms of the execution times. 
+     * If the property has not been set, return false.
+     */
+    public boolean getReportHistograms()
+    {
+        return getBooleanProperty(ConfigurationProperties.REPORT_HISTOGRAMS, false);
+    }
+    
+    /**
+     *
+     * @return The path of a CSV result file written by a previous run, that the results of the run are compared with. 
+     * If the property has not been set or it is empty, return null (the results are not compared).
+     */
+    public String getBaselineResultFile()
+    {
+        return getFileProperty(ConfigurationProperties.BASELINE_RESULT_FILE);
+    }
+    
+    /**
+     *
+     * @return The max change (in percent of the baseline value) a metric can get worse without being considered a regression. 
+     * If the property has not been set, return 5.
+     */
+    public int getRegressionThresholdPercent()
+    {
+        return getIntProperty(ConfigurationProperties.REGRESSION_THRESHOLD_PERCENT, DEFAULT_REGRESSION_THRESHOLD_PERCENT, 0);
+    }
+    
+    /**
+     *
+     * @return The keys of the metrics that are compared with the baseline (a key also selects the keys that start with it followed by a space). 
+     * If the property has not been set, return throughput, p50 and p99.
+     */
+    public List<String> getRegressionMetrics()
+    {
+        if(properties == null)
+            return DEFAULT_REGRESSION_METRICS;
+        
+        String prop = properties.getProperty(ConfigurationProperties.REGRESSION_METRICS, "");
+        
+        List<String> metrics = new ArrayList<>();
+        for(String metric : prop.split(","))
+        {
+            if(!metric.trim().isEmpty() && !metrics.contains(metric.trim()))
+                metrics.add(metric.trim());
+        }
+        
+        return metrics.isEmpty() ? DEFAULT_REGRESSION_METRICS : metrics;
+    }
+    
+    /**
+     *
+     * @return All the properties of the configuration file, sorted by name. The values of the passwords are masked.
+     */
+    public Map<String,String> getConfigurationProperties()
+    {
+        Map<String,String> configurationProperties = new TreeMap<>();
+        
+        if(properties == null)
+            return configurationProperties;
+        
+        for(String propertyName : properties.stringPropertyNames())
+        {
+            String value = properties.getProperty(propertyName).trim();
+            configurationProperties.put(propertyName, propertyName.toLowerCase().contains("password") ? "****" : value);
+        }
+        
+        return configurationProperties;
+    }
+    
+    private String getFileProperty(String propertyName)
+    {
+        if(properties == null)
+            return null;
+        
+        String prop = properties.getProperty(propertyName, "").trim();
+        
+        return prop.isEmpty() ? null : prop;
+    }
+    
     public String getDbServerName()
     {
         if(properties == null)
@@ -246,4 +1002,212 @@ public class ConfigurationHelper {
         return prop;
     }
     
+    /**
+     *
+     * @return The storage of the embedded H2 database. 
+     * If the property has not been set or has an invalid value, return {@code MEMORY}.
+     */
+    public H2DbHelper.Mode getH2Mode()
+    {
+        if(properties == null)
+            return H2DbHelper.Mode.MEMORY;
+        
+        String modeProp = properties.getProperty(ConfigurationProperties.H2_MODE, H2DbHelper.Mode.MEMORY.name());
+        
+        H2DbHelper.Mode mode;
+        try {
+            mode = H2DbHelper.Mode.valueOf(modeProp.trim());
+        } catch (IllegalArgumentException e) {
+            String warning = "Invalid input for property " + ConfigurationProperties.H2_MODE + ": " + modeProp + ".\n" +
+                             "Using default value " + H2DbHelper.Mode.MEMORY + "\n\n";
+            Logger.getLogger(ConfigurationHelper.class.getName()).log(Level.WARNING, warning);
+            
+            mode = H2DbHelper.Mode.MEMORY;
+        }
+        
+        return mode;
+    }
+    
+    /**
+     *
+     * @return The directory of the files of the embedded H2 database (used when the database is not kept in memory).
+     */
+    public String getH2Directory()
+    {
+        if(properties == null)
+            return DEFAULT_H2_DIRECTORY;
+        
+        String prop = properties.getProperty(ConfigurationProperties.H2_DIRECTORY, DEFAULT_H2_DIRECTORY);
+
+        return prop;
+    }
+    
+    /**
+     * Read an optional positive int property. 
+     * If the property has not been set, return default value. If it has an invalid value, log a warning and return default value.
+     */
+    private int getPositiveIntProperty(String propertyName, int defaultValue)
+    {
+        return getIntProperty(propertyName, defaultValue, 1);
+    }
+    
+    /**
+     * Read an optional int property that has to be between minValue and maxValue (e.g. a percentage). 
+     * If the property has not been set, return default value. If it has an invalid value, log a warning and return default value.
+     */
+    private int getPercentProperty(String propertyName, int defaultValue, int minValue, int maxValue)
+    {
+        int value = getIntProperty(propertyName, defaultValue, minValue);
+        
+        if(value > maxValue)
+        {
+            String warning = "Invalid input for property " + propertyName + ".\n" +
+                             "Input value is greater than " + maxValue + ": " + value + ".\n" +
+                             "Using default value " + defaultValue + "\n\n";
+            
+            Logger.getLogger(ConfigurationHelper.class.getName()).log(Level.WARNING, warning);
+            
+            value = defaultValue;
+        }
+        
+        return value;
+    }
+    
+    /**
+     * Read an optional int property. 
+     * If the property has not been set, return default value. If it is not a number or it is less than minValue, log a warning and return default value.
+     */
+    private int getIntProperty(String propertyName, int defaultValue, int minValue)
+    {
+        if(properties == null)
+            return defaultValue;
+        
+        String prop = properties.getProperty(propertyName);
+        
+        if(prop == null)
+            return defaultValue;
+        
+        int value;
+        
+        try {
+            value = Integer.parseInt(prop.trim());
+        } catch (NumberFormatException numberFormatException) {
+            value = minValue - 1;
+        }
+        
+        if(value < minValue)
+        {
+            String warning = "Invalid input for property " + propertyName + ".\n" +
+                             "Input value is not a number greater than or equal to " + minValue + ": " + prop + ".\n" +
+                             "Using default value " + defaultValue + "\n\n";
+            
+            Logger.getLogger(ConfigurationHelper.class.getName()).log(Level.WARNING, warning);
+            
+            value = defaultValue;
+        }
+        
+        return value;
+    }
+    
+    /**
+     * Read an optional boolean property (true or false). 
+     * If the property has not been set, return default value. If it has an invalid value, log a warning and return default value.
+     */
+    private boolean getBooleanProperty(String propertyName, boolean defaultValue)
+    {
+        if(properties == null)
+            return defaultValue;
+        
+        String prop = properties.getProperty(propertyName);
+        
+        if(prop == null)
+            return defaultValue;
+        
+        if(prop.trim().equalsIgnoreCase("true"))
+            return true;
+        
+        if(prop.trim().equalsIgnoreCase("false"))
+            return false;
+        
+        String warning = "Invalid input for property " + propertyName + ".\n" +
+                         "Input value is not true or false: " + prop + ".\n" +
+                         "Using default value " + defaultValue + "\n\n";
+        Logger.getLogger(ConfigurationHelper.class.getName()).log(Level.WARNING, warning);
+        
+        return defaultValue;
+    }
+    
+    /**
+     * Read an optional comma-separated list of int values. The values less than minValue are ignored (with a warning), the duplicated values are ignored. 
+     * If the property has not been set or it has no valid values, return the default values.
+     */
+    private List<Integer> getIntListProperty(String propertyName, int minValue, List<Integer> defaultValues)
+    {
+        if(properties == null)
+            return defaultValues;
+        
+        String prop = properties.getProperty(propertyName, "");
+        
+        List<Integer> values = new ArrayList<>();
+        for(String valueName : prop.split(","))
+        {
+            if(valueName.trim().isEmpty())
+                continue;
+            
+            int value;
+            
+            try {
+                value = Integer.parseInt(valueName.trim());
+            } catch (NumberFormatException numberFormatException) {
+                value = minValue - 1;
+            }
+            
+            if(value < minValue)
+            {
+                String warning = "Invalid input for property " + propertyName + ": " + valueName + ".\n" +
+                                 "The value is ignored\n\n";
+                Logger.getLogger(ConfigurationHelper.class.getName()).log(Level.WARNING, warning);
+            }
+            else if(!values.contains(value))
+            {
+                values.add(value);
+            }
+        }
+        
+        return values.isEmpty() ? defaultValues : values;
+    }
+    
+    /**
+     * Read an optional comma-separated list of enum values. The invalid and duplicated values are ignored (with a warning for the invalid ones). 
+     * If the property has not been set or it has no valid values, return all the values of the enum.
+     */
+    private <E extends Enum<E>> List<E> getEnumListProperty(String propertyName, Class<E> enumType)
+    {
+        List<E> defaultValues = Arrays.asList(enumType.getEnumConstants());
+        
+        if(properties == null)
+            return defaultValues;
+        
+        String prop = properties.getProperty(propertyName, "");
+        
+        List<E> values = new ArrayList<>();
+        for(String valueName : prop.split(","))
+        {
+            if(valueName.trim().isEmpty())
+                continue;
+            
+            try {
+                E value = Enum.valueOf(enumType, valueName.trim());
+                if(!values.contains(value))
+                    values.add(value);
+            } catch (IllegalArgumentException e) {
+                String warning = "Invalid input for property " + propertyName + ": " + valueName + ".\n" +
+                                 "The value is ignored\n\n";
+                Logger.getLogger(ConfigurationHelper.class.getName()).log(Level.WARNING, warning);
+            }
+        }
+        
+        return values.isEmpty() ? defaultValues : values;
+    }
+    
 }
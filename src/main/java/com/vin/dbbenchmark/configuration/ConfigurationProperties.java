@@ -24,6 +24,62 @@ public class ConfigurationProperties {
     public final static String NUM_OF_INSERTS_PER_TRANSACTION= "com.vin.dbbenchmark.manager.DbBenchmarkManager.numOfInsertStatementsPerTransaction"; 
     public final static String NUM_OF_SELECT_EXECUTIONS = "com.vin.dbbenchmark.manager.DbBenchmarkManager.numOfSelectExecutions"; 
     public final static String NUM_OF_WARMUP_EXECUTIONS = "com.vin.dbbenchmark.manager.DbBenchmarkManager.numOfWarmupExecutions"; 
+    public final static String WARMUP_WINDOW_SIZE = "com.vin.dbbenchmark.manager.DbBenchmarkManager.warmupWindowSize";
+    public final static String WARMUP_TOLERANCE_PERCENT = "com.vin.dbbenchmark.manager.DbBenchmarkManager.warmupTolerancePercent";
+    public final static String MAX_WARMUP_EXECUTIONS = "com.vin.dbbenchmark.manager.DbBenchmarkManager.maxWarmupExecutions";
+    public final static String INSERT_STRATEGIES = "com.vin.dbbenchmark.manager.DbBenchmarkManager.insertStrategies"; 
+    public final static String ROWS_PER_INSERT_STATEMENT = "com.vin.dbbenchmark.manager.DbBenchmarkManager.rowsPerInsertStatement"; 
+    public final static String MATERIALIZE_SELECT_RESULTS = "com.vin.dbbenchmark.manager.DbBenchmarkManager.materializeSelectResults";
+    public final static String TRANSACTION_MATRIX = "com.vin.dbbenchmark.manager.DbBenchmarkManager.transactionMatrix";
+    public final static String TRANSACTION_MATRIX_ISOLATION_LEVELS = "com.vin.dbbenchmark.manager.DbBenchmarkManager.transactionMatrixIsolationLevels";
+    public final static String TRANSACTION_MATRIX_COMMIT_MODES = "com.vin.dbbenchmark.manager.DbBenchmarkManager.transactionMatrixCommitModes"; 
+    public final static String NUM_OF_KEYS_PER_SELECT = "com.vin.dbbenchmark.manager.DbBenchmarkManager.numOfKeysPerSelect"; 
+    public final static String MULTI_KEY_SELECT_MODES = "com.vin.dbbenchmark.manager.DbBenchmarkManager.multiKeySelectModes"; 
+    public final static String ROWS_PER_COMMIT = "com.vin.dbbenchmark.manager.DbBenchmarkManager.rowsPerCommit"; 
+    public final static String BATCH_SIZE_SWEEP_MIN = "com.vin.dbbenchmark.manager.DbBenchmarkManager.batchSizeSweepMin"; 
+    public final static String BATCH_SIZE_SWEEP_MAX = "com.vin.dbbenchmark.manager.DbBenchmarkManager.batchSizeSweepMax"; 
+    public final static String BATCH_SIZE_SWEEP_FACTOR = "com.vin.dbbenchmark.manager.DbBenchmarkManager.batchSizeSweepFactor"; 
+    public final static String BATCH_SIZE_SWEEP_MIN_GAIN_PERCENT = "com.vin.dbbenchmark.manager.DbBenchmarkManager.batchSizeSweepMinGainPercent"; 
+    public final static String NUM_OF_THREADS = "com.vin.dbbenchmark.manager.DbBenchmarkManager.numOfThreads"; 
+    public final static String NUM_OF_TRIALS = "com.vin.dbbenchmark.manager.DbBenchmarkManager.numOfTrials";
+    public final static String HISTOGRAM_HIGHEST_TRACKABLE_TIME_MILLIS = "com.vin.dbbenchmark.manager.DbBenchmarkManager.histogramHighestTrackableTimeMillis"; 
+    public final static String HISTOGRAM_SIGNIFICANT_DIGITS = "com.vin.dbbenchmark.manager.DbBenchmarkManager.histogramSignificantDigits"; 
+    public final static String TEST_DURATION_SECONDS = "com.vin.dbbenchmark.manager.DbBenchmarkManager.testDurationSeconds"; 
+    public final static String TARGET_THROUGHPUT = "com.vin.dbbenchmark.manager.DbBenchmarkManager.targetThroughput"; 
+    public final static String INTERVAL_REPORT_MILLIS = "com.vin.dbbenchmark.manager.DbBenchmarkManager.intervalReportMillis"; 
+    public final static String CONNECTION_POOL_SIZE = "com.vin.dbbenchmark.manager.DbBenchmarkManager.connectionPoolSize"; 
+    public final static String VIRTUAL_THREADS = "com.vin.dbbenchmark.manager.DbBenchmarkManager.virtualThreads";
+    public final static String JSON_RESULT_FILE = "com.vin.dbbenchmark.manager.DbBenchmarkManager.jsonResultFile";
+    public final static String CSV_RESULT_FILE = "com.vin.dbbenchmark.manager.DbBenchmarkManager.csvResultFile";
+    public final static String REPORT_HISTOGRAMS = "com.vin.dbbenchmark.manager.DbBenchmarkManager.reportHistograms";
+    public final static String BASELINE_RESULT_FILE = "com.vin.dbbenchmark.manager.DbBenchmarkManager.baselineResultFile";
+    public final static String REGRESSION_THRESHOLD_PERCENT = "com.vin.dbbenchmark.manager.DbBenchmarkManager.regressionThresholdPercent";
+    public final static String REGRESSION_METRICS = "com.vin.dbbenchmark.manager.DbBenchmarkManager.regressionMetrics";
+    public final static String NUM_OF_COPY_EXECUTIONS = "com.vin.dbbenchmark.manager.DbBenchmarkManager.numOfCopyExecutions"; 
+    public final static String NUM_OF_ROWS_PER_COPY = "com.vin.dbbenchmark.manager.DbBenchmarkManager.numOfRowsPerCopy"; 
+    public final static String NUM_OF_BULK_INSERT_EXECUTIONS = "com.vin.dbbenchmark.manager.DbBenchmarkManager.numOfBulkInsertExecutions"; 
+    public final static String NUM_OF_ROWS_PER_BULK_INSERT = "com.vin.dbbenchmark.manager.DbBenchmarkManager.numOfRowsPerBulkInsert"; 
+    public final static String BULK_INSERT_BATCH_SIZE = "com.vin.dbbenchmark.manager.DbBenchmarkManager.bulkInsertBatchSize"; 
+    public final static String NUM_OF_SCAN_EXECUTIONS = "com.vin.dbbenchmark.manager.DbBenchmarkManager.numOfScanExecutions"; 
+    public final static String NUM_OF_ROWS_PER_SCAN = "com.vin.dbbenchmark.manager.DbBenchmarkManager.numOfRowsPerScan"; 
+    public final static String PIPELINE_DEPTHS = "com.vin.dbbenchmark.manager.DbBenchmarkManager.pipelineDepths";
+    public final static String SCAN_FETCH_SIZES = "com.vin.dbbenchmark.manager.DbBenchmarkManager.scanFetchSizes"; 
+    public final static String SCAN_CURSOR_MODES = "com.vin.dbbenchmark.manager.DbBenchmarkManager.scanCursorModes"; 
+    public final static String NUM_OF_UPDATE_EXECUTIONS = "com.vin.dbbenchmark.manager.DbBenchmarkManager.numOfUpdateExecutions"; 
+    public final static String NUM_OF_UPDATES_PER_TRANSACTION = "com.vin.dbbenchmark.manager.DbBenchmarkManager.numOfUpdatesPerTransaction"; 
+    public final static String UPDATE_LOCKING_MODES = "com.vin.dbbenchmark.manager.DbBenchmarkManager.updateLockingModes"; 
+    public final static String NUM_OF_DELETE_EXECUTIONS = "com.vin.dbbenchmark.manager.DbBenchmarkManager.numOfDeleteExecutions"; 
+    public final static String NUM_OF_DELETES_PER_TRANSACTION = "com.vin.dbbenchmark.manager.DbBenchmarkManager.numOfDeletesPerTransaction"; 
+    public final static String MAX_TRANSACTION_RETRIES = "com.vin.dbbenchmark.manager.DbBenchmarkManager.maxTransactionRetries"; 
+    public final static String WORKLOADS = "com.vin.dbbenchmark.manager.DbBenchmarkManager.workloads"; 
+    public final static String NUM_OF_WORKLOAD_EXECUTIONS = "com.vin.dbbenchmark.manager.DbBenchmarkManager.numOfWorkloadExecutions"; 
+    public final static String WORKLOAD_INSERT_BATCH_SIZE = "com.vin.dbbenchmark.manager.DbBenchmarkManager.workloadInsertBatchSize"; 
+    public final static String WORKLOAD_SCAN_LENGTH = "com.vin.dbbenchmark.manager.DbBenchmarkManager.workloadScanLength"; 
+    public final static String KEY_DISTRIBUTION = "com.vin.dbbenchmark.manager.DbBenchmarkManager.keyDistribution"; 
+    public final static String ZIPFIAN_THETA_PERCENT = "com.vin.dbbenchmark.manager.DbBenchmarkManager.zipfianThetaPercent"; 
+    public final static String HOTSPOT_KEYS_PERCENT = "com.vin.dbbenchmark.manager.DbBenchmarkManager.hotspotKeysPercent"; 
+    public final static String HOTSPOT_ACCESSES_PERCENT = "com.vin.dbbenchmark.manager.DbBenchmarkManager.hotspotAccessesPercent"; 
+    public final static String RANDOM_SEED = "com.vin.dbbenchmark.manager.DbBenchmarkManager.randomSeed"; 
     public final static String DBMS_NAME = "com.vin.dbbenchmark.manager.DbBenchmarkManager.dbmsName";
     
     public final static String DB_SERVER_NAME = "com.vin.dbbenchmark.database.BaseDbHelper.serverName";
@@ -31,4 +87,7 @@ public class ConfigurationProperties {
     public final static String DATABASE_NAME = "com.vin.dbbenchmark.database.BaseDbHelper.databaseName";
     public final static String USERNAME = "com.vin.dbbenchmark.database.BaseDbHelper.username";
     public final static String PASSWORD = "com.vin.dbbenchmark.database.BaseDbHelper.password";
+    
+    public final static String H2_MODE = "com.vin.dbbenchmark.database.H2DbHelper.mode";
+    public final static String H2_DIRECTORY = "com.vin.dbbenchmark.database.H2DbHelper.directory";
 }
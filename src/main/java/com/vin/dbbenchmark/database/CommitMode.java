@@ -0,0 +1,41 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.database;
+
+/**
+ * The ways the statements executed by the insert and select testers can be committed (see {@link DbHelper#setCommitMode(CommitMode) setCommitMode}). 
+ * By default the inserts are committed explicitly and the selects are executed in auto-commit.
+ * 
+ * @author Vincenzo Micelli
+ */
+public enum CommitMode {
+
+    /**
+     * Every statement is committed by the driver (auto-commit)
+     */
+    AUTOCOMMIT,
+
+    /**
+     * The statements are executed in a transaction that is committed explicitly, waiting for the commit to be durable
+     */
+    EXPLICIT,
+
+    /**
+     * Like EXPLICIT, but the commits do not wait for the transaction log to be flushed to disk 
+     * (synchronous_commit off, PostgreSQL only): a crash can lose the last transactions
+     */
+    ASYNC
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.database;
+
+import com.vin.dbbenchmark.utils.LatencyHistogram;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A lightweight pool of connections shared by testers running concurrently.
+ * The pool creates connections on demand (through {@link DbHelper#createConnection() createConnection}) up to a maximum size. 
+ * When all the connections are in use, the threads that acquire a connection wait until another thread releases one.
+ * The threads wait on a {@link ReentrantLock} condition instead of a monitor, so that waiting virtual threads release their carrier threads 
+ * (a virtual thread waiting inside a synchronized block pins its carrier, and with many more threads than connections the waiting threads 
+ * could occupy all the carriers, leaving none to the threads that have to release the connections).
+ * 
+ * The pool collects statistics about its usage: the times needed to acquire a connection (including the time to create 
+ * new connections and the time spent waiting for a free connection), the number of connections created, 
+ * the number of acquires that had to wait and the max number of connections in use and of waiting threads. 
+ * The statistics can be reset with {@link #resetStatistics() resetStatistics}, e.g. at the start of every trial of the testers that use the pool.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class ConnectionPool {
+    
+    private final DbHelper dbHelper;
+    private final int maxPoolSize;
+    private final Deque<Connection> idleConnections;
+    private final LatencyHistogram acquireTimeHistogram;
+    
+    // guards all the fields below, the threads waiting for a connection are signalled when a connection (or a slot for a new one) is available
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition connectionAvailable = lock.newCondition();
+    
+    private boolean closed;
+    private int numOfConnections;
+    private int numOfConnectionsInUse;
+    private int numOfWaitingThreads;
+    
+    private long numOfCreatedConnections;
+    private long numOfWaitingAcquires;
+    private int maxNumOfConnectionsInUse;
+    private int maxNumOfWaitingThreads;
+
+    /**
+     *
+     * @param dbHelper The helper used to create the connections of the pool
+     * @param maxPoolSize The max number of connections of the pool
+     */
+    public ConnectionPool(DbHelper dbHelper, int maxPoolSize) {
+        
+        if(maxPoolSize <= 0)
+            throw new IllegalArgumentException("maxPoolSize must be a positive number");
+        
+        this.dbHelper = dbHelper;
+        this.maxPoolSize = maxPoolSize;
+        this.idleConnections = new ArrayDeque<>();
+        this.acquireTimeHistogram = new LatencyHistogram(TimeUnit.MINUTES.toNanos(10), 3);
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+    
+    /**
+     * Acquire a connection from the pool. If there are no idle connections and the pool has reached its max size, wait for a connection to be released.
+     * 
+     * @return A connection. The connection has to be returned to the pool calling {@link #release(Connection) release}.
+     * @throws SQLException If a new connection cannot be created, or if the pool has been closed.
+     */
+    public Connection acquire() throws SQLException
+    {
+        long startTime = System.nanoTime();
+        boolean createConnection = false;
+        Connection connection;
+        
+        lock.lock();
+        try {
+            boolean waited = false;
+            
+            while(!closed && idleConnections.isEmpty() && numOfConnections >= maxPoolSize)
+            {
+                if(!waited)
+                {
+                    waited = true;
+                    numOfWaitingAcquires++;
+                }
+                
+                numOfWaitingThreads++;
+                maxNumOfWaitingThreads = Math.max(maxNumOfWaitingThreads, numOfWaitingThreads);
+                try {
+                    connectionAvailable.await();
+                } catch (InterruptedException ex) {
+                    // the signal received by this thread (if any) goes to another waiting thread
+                    connectionAvailable.signal();
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a connection", ex);
+                } finally {
+                    numOfWaitingThreads--;
+                }
+            }
+            
+            if(closed)
+                throw new SQLException("The connection pool has been closed");
+            
+            connection = idleConnections.pollFirst();
+            
+            // reserve the slot of the connection that is going to be created (outside the lock)
+            if(connection == null)
+            {
+                createConnection = true;
+                numOfConnections++;
+            }
+            
+            numOfConnectionsInUse++;
+            maxNumOfConnectionsInUse = Math.max(maxNumOfConnectionsInUse, numOfConnectionsInUse);
+        } finally {
+            lock.unlock();
+        }
+        
+        if(createConnection)
+        {
+            try {
+                connection = dbHelper.createConnection();
+            } catch (SQLException ex) {
+                lock.lock();
+                try {
+                    numOfConnections--;
+                    numOfConnectionsInUse--;
+                    connectionAvailable.signal();
+                } finally {
+                    lock.unlock();
+                }
+                throw ex;
+            }
+        }
+        
+        long acquireTime = System.nanoTime() - startTime;
+        
+        lock.lock();
+        try {
+            if(createConnection)
+                numOfCreatedConnections++;
+            
+            acquireTimeHistogram.recordValue(acquireTime);
+        } finally {
+            lock.unlock();
+        }
+        
+        return connection;
+    }
+    
+    /**
+     * Return a connection to the pool.
+     * 
+     * @param connection A connection obtained by {@link #acquire() acquire}.
+     */
+    public void release(Connection connection)
+    {
+        boolean closeConnection;
+        
+        lock.lock();
+        try {
+            numOfConnectionsInUse--;
+            closeConnection = closed;
+            
+            if(closed)
+                numOfConnections--;
+            else
+                idleConnections.addFirst(connection);
+            
+            // a single connection is available, so a single thread is woken up
+            connectionAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        
+        if(closeConnection)
+            closeQuietly(connection);
+    }
+    
+    /**
+     * Close the idle connections of the pool. Connections in use are closed when they are released.
+     */
+    public void close()
+    {
+        Connection[] connections;
+        
+        lock.lock();
+        try {
+            closed = true;
+            connections = idleConnections.toArray(new Connection[idleConnections.size()]);
+            numOfConnections -= connections.length;
+            idleConnections.clear();
+            
+            connectionAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        
+        for(Connection connection : connections)
+            closeQuietly(connection);
+    }
+    
+    /**
+     * Reset the statistics of the pool, so that they include only the acquires done from now on. 
+     * The max numbers of connections in use and of waiting threads restart from the current numbers.
+     */
+    public void resetStatistics()
+    {
+        lock.lock();
+        try {
+            acquireTimeHistogram.reset();
+            numOfCreatedConnections = 0;
+            numOfWaitingAcquires = 0;
+            maxNumOfConnectionsInUse = numOfConnectionsInUse;
+            maxNumOfWaitingThreads = numOfWaitingThreads;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void closeQuietly(Connection connection)
+    {
+        try {
+            connection.close();
+        } catch (SQLException ex) {
+            Logger.getLogger(ConnectionPool.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    /**
+     *
+     * @return A copy of the histogram of the times (in nanoseconds) needed to acquire a connection.
+     */
+    public LatencyHistogram getAcquireTimeHistogram() {
+        lock.lock();
+        try {
+            LatencyHistogram histogram = acquireTimeHistogram.copyEmpty();
+            histogram.add(acquireTimeHistogram);
+            
+            return histogram;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     *
+     * @return The number of connections created by the pool.
+     */
+    public long getNumOfCreatedConnections() {
+        lock.lock();
+        try {
+            return numOfCreatedConnections;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     *
+     * @return The number of acquires that had to wait for a connection to be released.
+     */
+    public long getNumOfWaitingAcquires() {
+        lock.lock();
+        try {
+            return numOfWaitingAcquires;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     *
+     * @return The max number of connections that have been in use at the same time.
+     */
+    public int getMaxNumOfConnectionsInUse() {
+        lock.lock();
+        try {
+            return maxNumOfConnectionsInUse;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     *
+     * @return The max number of threads that have been waiting for a connection at the same time.
+     */
+    public int getMaxNumOfWaitingThreads() {
+        lock.lock();
+        try {
+            return maxNumOfWaitingThreads;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.database;
+
+/**
+ * The errors caused by concurrent transactions on the same records (see {@link DbHelper#getContentionError(java.sql.SQLException) getContentionError}). 
+ * The transactions that fail with these errors can be retried.
+ * 
+ * @author Vincenzo Micelli
+ */
+public enum ContentionError {
+
+    /**
+     * The transaction has been chosen as the victim of a deadlock
+     */
+    DEADLOCK,
+
+    /**
+     * The transaction cannot be serialized with the concurrent ones (e.g. in SERIALIZABLE or REPEATABLE READ isolation)
+     */
+    SERIALIZATION_FAILURE,
+
+    /**
+     * The transaction waited for a lock longer than the lock timeout
+     */
+    LOCK_TIMEOUT
+}
@@ -21,5 +21,6 @@ package com.vin.dbbenchmark.database;
  */
 public enum DBMSName {
     SQL_SERVER,
-    POSTGRE_SQL
+    POSTGRE_SQL,
+    H2
 }
@@ -17,6 +17,7 @@ package com.vin.dbbenchmark.database;
 
 import com.vin.dbbenchmark.configuration.ConfigurationHelper;
 import java.math.BigDecimal;
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -29,8 +30,9 @@ import java.util.logging.Logger;
 /**
  * This is a helper abstract class that implements the main methods to exec statements on both PostgreSQL and SQL Server.
  * The helper can open/close connection to a database, create a test table, exec insert batch and select statements by pk.
- * The method {@link #connect() connect}, {@link #createTable() createTable} and {@link #closeConnection() closeConnection} 
+ * The method {@link #createConnection() createConnection}, {@link #connect() connect}, {@link #createTable() createTable} and {@link #closeConnection() closeConnection} 
  * has to be implemented to complete the helper for a specific database.
+ * The helper can also execute the statements on a connection obtained elsewhere (e.g. from a {@link ConnectionPool}), see {@link #setConnection(Connection) setConnection}.
  * 
  * In order to execute the statements, the helper provides 4 methods per statement. One to prepare the statement, one to set the data,
  * one to exec the statement and commit, and one to close the statement. This is done so that the db tester objects can decide whether
@@ -81,9 +83,55 @@ public abstract class DbHelper{
     protected String databaseName;
     protected String portNumber;
     
+    /**
+     * if true, the connections are created asking the driver to rewrite the batches of inserts (see {@link InsertStrategy#REWRITE_BATCHED_INSERTS})
+     */
+    protected boolean rewriteBatchedInserts;
+    
+    // transaction settings of the connection (null to use the defaults)
+    private IsolationLevel isolationLevel;
+    private CommitMode commitMode;
+    
     private PreparedStatement insertDataBatchPreparedStatement;
     private PreparedStatement selectDataPreparedStatement;
     
+    private InsertStrategy insertStrategy = InsertStrategy.SINGLE_ROW_BATCH;
+    private int rowsPerInsertStatement = 1;
+    // statement for the last records of a batch, when the number of records is not a multiple of rowsPerInsertStatement
+    private PreparedStatement remainderInsertPreparedStatement;
+    private int remainderInsertStatementRows;
+    private boolean remainderInsertPending;
+    // column values of the records for the UNNEST_ARRAYS strategy (reused for batches of the same size)
+    private String[] varcharValues;
+    private Integer[] intValues;
+    private BigDecimal[] decimalValues;
+    private Timestamp[] dateValues;
+    // arrays bound to the insert statement, freed when they are replaced by the arrays of the next batch or when the statement is closed
+    private final Array[] insertDataArrays = new Array[4];
+    
+    private PreparedStatement multiKeySelectPreparedStatement;
+    private MultiKeySelectMode multiKeySelectMode;
+    private int numOfMultiKeySelectKeys;
+    private final int[] emptyKeys = new int[0];
+    private int[] multiKeySelectKeys = emptyKeys;
+    private Integer[] multiKeySelectKeyValues;
+    // array bound to the multi-key select statement in mode ANY_ARRAY, freed when it is replaced or when the statement is closed
+    private final Array[] multiKeySelectArray = new Array[1];
+    // entry reused to read the selected records
+    private final DbEntry selectedEntry = new DbEntry();
+    
+    private PreparedStatement pipelinedSelectPreparedStatement;
+    private int pipelineDepth;
+    private int[] pipelinedSelectKeys = emptyKeys;
+    
+    private PreparedStatement rangeScanPreparedStatement;
+    private ScanCursorMode scanCursorMode;
+    
+    private PreparedStatement updateDataPreparedStatement;
+    private boolean optimisticUpdate;
+    private PreparedStatement deleteDataPreparedStatement;
+    private PreparedStatement readForUpdatePreparedStatement;
+    
     public DbHelper()
     {
         //get parameters for connection from configuration file
@@ -150,13 +198,204 @@ public abstract class DbHelper{
     }
     
     
+    /**
+     * Open a new connection to the database. The connection is not used by the helper (see {@link #connect() connect}).
+     * 
+     * @return A new connection to the database.
+     * @throws SQLException Throws sql exceptions (also if the jdbc driver is not available)
+     */
+    public abstract Connection createConnection() throws SQLException;
+    
     /**
      * Connect to the database.
      * 
      * @return 0 if the connection has been established. A negative number if an error has occurred.
      */
     public abstract int connect();
+    
+    /**
+     * Set the connection used by the helper to execute the statements. 
+     * The helper does not close the connection set by this method, the caller has to close the prepared statements 
+     * before setting another connection.
+     * 
+     * @param connection The connection to use (null to detach the current connection).
+     */
+    public void setConnection(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     *
+     * @return The connection used by the helper (null if the helper is not connected).
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Ask the driver to rewrite the batches of single-row inserts in multi-row statements. 
+     * It has to be set before the connection is created, and only if {@link #supportsInsertStrategy(InsertStrategy) supported}.
+     * 
+     * @param rewriteBatchedInserts true to rewrite the batches of inserts
+     */
+    public void setRewriteBatchedInserts(boolean rewriteBatchedInserts) {
+        this.rewriteBatchedInserts = rewriteBatchedInserts;
+    }
+    
+    /**
+     * Subclasses have to override this method if the database supports more strategies than SINGLE_ROW_BATCH and MULTI_ROW_VALUES.
+     * 
+     * @param insertStrategy The insert strategy
+     * @return true if the strategy can be used with the database
+     */
+    public boolean supportsInsertStrategy(InsertStrategy insertStrategy) {
+        return insertStrategy == InsertStrategy.SINGLE_ROW_BATCH || insertStrategy == InsertStrategy.MULTI_ROW_VALUES;
+    }
+    
+    public IsolationLevel getIsolationLevel() {
+        return isolationLevel;
+    }
+
+    /**
+     * Set the isolation level of the transactions. It is applied to the connection by {@link #applyTransactionSettings() applyTransactionSettings}, 
+     * and only if {@link #supportsIsolationLevel(IsolationLevel) supported}.
+     * 
+     * @param isolationLevel The isolation level (null to keep the default of the connection)
+     */
+    public void setIsolationLevel(IsolationLevel isolationLevel) {
+        this.isolationLevel = isolationLevel;
+    }
 
+    public CommitMode getCommitMode() {
+        return commitMode;
+    }
+
+    /**
+     * Set the way the inserts and the selects are committed (see {@link CommitMode}). It has to be set only if {@link #supportsCommitMode(CommitMode) supported}.
+     * 
+     * @param commitMode The commit mode (null to commit the inserts explicitly and to execute the selects in auto-commit)
+     */
+    public void setCommitMode(CommitMode commitMode) {
+        this.commitMode = commitMode;
+    }
+    
+    /**
+     * Subclasses have to override this method if the database supports SNAPSHOT isolation.
+     * 
+     * @param isolationLevel The isolation level
+     * @return true if the isolation level can be used with the database
+     */
+    public boolean supportsIsolationLevel(IsolationLevel isolationLevel) {
+        return isolationLevel != IsolationLevel.SNAPSHOT;
+    }
+    
+    /**
+     * Subclasses have to override this method if the database supports asynchronous commits.
+     * 
+     * @param commitMode The commit mode
+     * @return true if the commit mode can be used with the database
+     */
+    public boolean supportsCommitMode(CommitMode commitMode) {
+        return commitMode != CommitMode.ASYNC;
+    }
+    
+    /**
+     * Apply the isolation level and the commit mode to the connection. It has to be called after the connection is opened (or set).
+     * 
+     * @return 0 if the settings have been applied, a negative value otherwise
+     */
+    public int applyTransactionSettings() {
+        try {
+            if(isolationLevel != null)
+                connection.setTransactionIsolation(isolationLevel.getJdbcLevel());
+            
+            if(commitMode == CommitMode.ASYNC)
+                enableAsynchronousCommit();
+            
+            return 0;
+        } catch (SQLException ex) {
+            Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+            
+            return -1;
+        }
+    }
+    
+    /**
+     * Subclasses that support the ASYNC {@link CommitMode} have to override this method to make the commits of the connection asynchronous.
+     * 
+     * @throws SQLException Throws sql exceptions
+     */
+    protected void enableAsynchronousCommit() throws SQLException {
+        throw new SQLException("Asynchronous commits are not supported");
+    }
+    
+    /**
+     * Subclasses have to override this method if the database does not support all the modes.
+     * 
+     * @param multiKeySelectMode The multi-key select mode
+     * @return true if the mode can be used with the database
+     */
+    public boolean supportsMultiKeySelectMode(MultiKeySelectMode multiKeySelectMode) {
+        return true;
+    }
+    
+    /**
+     * Subclasses have to override this method if the database cannot execute many statements in a single prepared statement.
+     * 
+     * @return true if the selects of {@link #preparePipelinedSelectStatement(int) preparePipelinedSelectStatement} are sent in a single round trip
+     */
+    public boolean supportsPipelinedSelect() {
+        return true;
+    }
+    
+    /**
+     * Subclasses have to override this method if the database needs a specific result set type to read the records through a server cursor.
+     * 
+     * @param scanCursorMode The cursor mode of the range scan
+     * @return The type of the result sets of the range scan statement (one of the ResultSet.TYPE_XXX constants or a driver specific type)
+     */
+    protected int getScanResultSetType(ScanCursorMode scanCursorMode) {
+        return ResultSet.TYPE_FORWARD_ONLY;
+    }
+    
+    /**
+     * Get the type of an error caused by concurrent transactions. This implementation checks the standard SQLState values 
+     * (and the ones of PostgreSQL), subclasses can override it to check the vendor error codes.
+     * 
+     * @param ex An exception thrown by the execution of a statement
+     * @return The type of contention error, or null if the error is not caused by concurrent transactions
+     */
+    public ContentionError getContentionError(SQLException ex) {
+        
+        String sqlState = ex.getSQLState();
+        
+        if(sqlState == null)
+            return null;
+        
+        switch(sqlState)
+        {
+            case "40001":
+                return ContentionError.SERIALIZATION_FAILURE;
+            case "40P01":
+                return ContentionError.DEADLOCK;
+            case "55P03":
+                return ContentionError.LOCK_TIMEOUT;
+            default:
+                return null;
+        }
+    }
+    
+    /**
+     * Get the statement that reads a record by primary key and locks it until the end of the transaction. 
+     * Subclasses have to override this method if the database does not support SELECT ... FOR UPDATE.
+     * 
+     * @return The sql of the statement
+     */
+    protected String getSelectForUpdateSQL() {
+        return "SELECT " + COLUMN_PK_NAME + ", " + COLUMN_VARCHAR_NAME + ", " + COLUMN_INT_NAME + ", " + COLUMN_DECIMAL_NAME + ", " + COLUMN_DATE_NAME 
+             + " FROM " + TABLE_NAME + " WHERE " + COLUMN_PK_NAME + " = ? FOR UPDATE";
+    }
+    
     /**
      * Close the connection to the database
      */
@@ -180,20 +419,55 @@ public abstract class DbHelper{
      * Prepare a statement to insert records in the table created by {@link #createTable() createTable} method.
      */
     public void prepareInsertStatement() {
+        prepareInsertStatement(InsertStrategy.SINGLE_ROW_BATCH, 1);
+    }
+    
+    /**
+     * Prepare the statement to insert records in the table created by {@link #createTable() createTable} method with the given strategy.
+     * 
+     * @param insertStrategy The shape of the insert statements
+     * @param rowsPerInsertStatement The number of records in a statement (used only by the MULTI_ROW_VALUES strategy)
+     */
+    public void prepareInsertStatement(InsertStrategy insertStrategy, int rowsPerInsertStatement) {
         
         if(insertDataBatchPreparedStatement != null)
             closeInsertStatement();
         
+        this.insertStrategy = insertStrategy;
+        this.rowsPerInsertStatement = insertStrategy == InsertStrategy.MULTI_ROW_VALUES ? Math.max(rowsPerInsertStatement, 1) : 1;
+        
         try {
-            String insertTableSQL = "INSERT INTO " + TABLE_NAME 
-                    + "(" + COLUMN_VARCHAR_NAME + ", " + COLUMN_INT_NAME + ", " + COLUMN_DECIMAL_NAME + ", " + COLUMN_DATE_NAME + ") VALUES"
-                    + "(?,?,?,?)";
+            String insertTableSQL;
+            
+            if(insertStrategy == InsertStrategy.UNNEST_ARRAYS)
+                insertTableSQL = "INSERT INTO " + TABLE_NAME 
+                    + "(" + COLUMN_VARCHAR_NAME + ", " + COLUMN_INT_NAME + ", " + COLUMN_DECIMAL_NAME + ", " + COLUMN_DATE_NAME + ") "
+                    + "SELECT * FROM UNNEST(?,?,?,?)";
+            else
+                insertTableSQL = getMultiRowInsertSQL(this.rowsPerInsertStatement);
             
             insertDataBatchPreparedStatement = connection.prepareStatement(insertTableSQL);
         } catch (SQLException ex) {
             Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
         }
     }
+    
+    /**
+     * Get an INSERT statement on the test table with the given number of records in the VALUES clause.
+     * 
+     * @param numOfRows The number of records
+     * @return The sql of the statement
+     */
+    public static String getMultiRowInsertSQL(int numOfRows)
+    {
+        StringBuilder insertTableSQL = new StringBuilder("INSERT INTO " + TABLE_NAME 
+                    + "(" + COLUMN_VARCHAR_NAME + ", " + COLUMN_INT_NAME + ", " + COLUMN_DECIMAL_NAME + ", " + COLUMN_DATE_NAME + ") VALUES");
+        
+        for(int i = 0; i < numOfRows; i++)
+            insertTableSQL.append(i == 0 ? "(?,?,?,?)" : ",(?,?,?,?)");
+        
+        return insertTableSQL.toString();
+    }
 
     /**
      *
@@ -207,36 +481,203 @@ public abstract class DbHelper{
         }
         
         try {
-            connection.setAutoCommit(false);
+            connection.setAutoCommit(commitMode == CommitMode.AUTOCOMMIT);
             
             //just in case we end up in some dirty state (this should not be needed).
             insertDataBatchPreparedStatement.clearBatch();
+            remainderInsertPending = false;
             
-            for(DbEntry entry : entries)
+            if(insertStrategy == InsertStrategy.UNNEST_ARRAYS)
             {
-                insertDataBatchPreparedStatement.setString(1, entry.getVarcharField());
-                insertDataBatchPreparedStatement.setInt(2, entry.getIntField());
-                insertDataBatchPreparedStatement.setBigDecimal(3, entry.getDecimalField());
-                insertDataBatchPreparedStatement.setTimestamp(4, entry.getDateField());
+                setInsertDataArrays(entries);
+                return;
+            }
+            
+            //with MULTI_ROW_VALUES every statement of the batch inserts rowsPerInsertStatement records, the last records are inserted by another statement
+            int numOfFullStatementRows = entries.size() - entries.size() % rowsPerInsertStatement;
+            
+            for(int i = 0; i < numOfFullStatementRows; i += rowsPerInsertStatement)
+            {
+                setInsertData(insertDataBatchPreparedStatement, entries, i, rowsPerInsertStatement);
                 insertDataBatchPreparedStatement.addBatch();
             }
+            
+            if(numOfFullStatementRows < entries.size())
+            {
+                PreparedStatement remainderStatement = getRemainderInsertStatement(entries.size() - numOfFullStatementRows);
+                setInsertData(remainderStatement, entries, numOfFullStatementRows, entries.size() - numOfFullStatementRows);
+                remainderStatement.addBatch();
+                remainderInsertPending = true;
+            }
         } catch (SQLException ex) {
             Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
         }
 
     }
     
+    private static void setInsertData(PreparedStatement statement, List<DbEntry> entries, int fromIndex, int numOfRows) throws SQLException
+    {
+        int parameterIndex = 1;
+        
+        for(int i = fromIndex; i < fromIndex + numOfRows; i++)
+        {
+            DbEntry entry = entries.get(i);
+            statement.setString(parameterIndex++, entry.getVarcharField());
+            statement.setInt(parameterIndex++, entry.getIntField());
+            statement.setBigDecimal(parameterIndex++, entry.getDecimalField());
+            statement.setTimestamp(parameterIndex++, entry.getDateField());
+        }
+    }
+    
+    private PreparedStatement getRemainderInsertStatement(int numOfRows) throws SQLException
+    {
+        // the size of the last statement is usually the same for all the batches, so the statement is kept
+        if(remainderInsertPreparedStatement == null || remainderInsertStatementRows != numOfRows)
+        {
+            if(remainderInsertPreparedStatement != null)
+                remainderInsertPreparedStatement.close();
+            
+            remainderInsertPreparedStatement = connection.prepareStatement(getMultiRowInsertSQL(numOfRows));
+            remainderInsertStatementRows = numOfRows;
+        }
+        
+        return remainderInsertPreparedStatement;
+    }
+    
+    private void setInsertDataArrays(List<DbEntry> entries) throws SQLException
+    {
+        if(varcharValues == null || varcharValues.length != entries.size())
+        {
+            varcharValues = new String[entries.size()];
+            intValues = new Integer[entries.size()];
+            decimalValues = new BigDecimal[entries.size()];
+            dateValues = new Timestamp[entries.size()];
+        }
+        
+        // createArrayOf takes the values as objects, so the ints are boxed (the values of the other columns are already objects)
+        for(int i = 0; i < entries.size(); i++)
+        {
+            DbEntry entry = entries.get(i);
+            varcharValues[i] = entry.getVarcharField();
+            intValues[i] = entry.getIntField();
+            decimalValues[i] = entry.getDecimalField();
+            dateValues[i] = entry.getDateField();
+        }
+        
+        // the arrays of the previous batch have already been executed
+        freeArrays(insertDataArrays);
+        
+        insertDataArrays[0] = connection.createArrayOf("varchar", varcharValues);
+        insertDataArrays[1] = connection.createArrayOf("int4", intValues);
+        insertDataArrays[2] = connection.createArrayOf("numeric", decimalValues);
+        insertDataArrays[3] = connection.createArrayOf("timestamp", dateValues);
+        
+        for(int i = 0; i < insertDataArrays.length; i++)
+            insertDataBatchPreparedStatement.setArray(i + 1, insertDataArrays[i]);
+        
+        insertDataBatchPreparedStatement.addBatch();
+    }
+    
+    /**
+     * Free the arrays created for the parameters of a statement, so that the driver can release their resources. 
+     * The freed elements are set to null.
+     */
+    private static void freeArrays(Array[] arrays) throws SQLException
+    {
+        for(int i = 0; i < arrays.length; i++)
+        {
+            if(arrays[i] != null)
+            {
+                arrays[i].free();
+                arrays[i] = null;
+            }
+        }
+    }
+    
     /**
      * Exec the insert batch and commit.
      * 
      * @throws SQLException Throws sql exceptions
      */
     public void execInsertDataBatch() throws SQLException  {
+        execInsertDataBatch(true);
+    }
+    
+    /**
+     * Exec the insert batch and, if requested, commit. If the batch fails, the transaction is rolled back 
+     * (including the batches executed since the last commit). With the AUTOCOMMIT {@link CommitMode} the statements are committed by the driver.
+     * 
+     * @param commit true to commit after the batch, false to leave the transaction open (it can be committed later with {@link #commit() commit})
+     * @throws SQLException Throws sql exceptions
+     */
+    public void execInsertDataBatch(boolean commit) throws SQLException  {
+        try {
+            execInsertDataBatchOrThrow(commit);
+        } catch (SQLException ex) {
+            Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    /**
+     * Exec the insert batch and, if requested, commit, as {@link #execInsertDataBatch(boolean) execInsertDataBatch} does, 
+     * but if the batch fails the exception is thrown to the caller (after the rollback) instead of being logged, so that the caller can count the failure.
+     * 
+     * @param commit true to commit after the batch, false to leave the transaction open (it can be committed later with {@link #commit() commit})
+     * @throws SQLException If the batch or the commit fail
+     */
+    public void execInsertDataBatchOrThrow(boolean commit) throws SQLException  {
         try {
             insertDataBatchPreparedStatement.executeBatch();
-            connection.commit();
+            if(remainderInsertPending)
+                remainderInsertPreparedStatement.executeBatch();
+            if(commit && !connection.getAutoCommit())
+                connection.commit();
+        } catch (SQLException ex) {
+            if(!connection.getAutoCommit())
+                connection.rollback();
+            throw ex;
+        }
+    }
+    
+    /**
+     * Start a transaction (the statements are executed without auto-commit until {@link #commit() commit} or {@link #rollback() rollback}).
+     * 
+     * @throws SQLException Throws sql exceptions
+     */
+    public void beginTransaction() throws SQLException {
+        connection.setAutoCommit(false);
+    }
+    
+    /**
+     * Commit the transaction started by {@link #beginTransaction() beginTransaction}. 
+     * Unlike {@link #commit() commit}, the errors are thrown (e.g. a serialization failure detected at commit time).
+     * 
+     * @throws SQLException Throws sql exceptions
+     */
+    public void commitTransaction() throws SQLException {
+        connection.commit();
+    }
+    
+    /**
+     * Roll back the current transaction.
+     */
+    public void rollback() {
+        try {
+            if(!connection.getAutoCommit())
+                connection.rollback();
+        } catch (SQLException ex) {
+            Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    /**
+     * Commit the current transaction.
+     */
+    public void commit() {
+        try {
+            if(!connection.getAutoCommit())
+                connection.commit();
         } catch (SQLException ex) {
-            connection.rollback();
             Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
         }
     }
@@ -245,9 +686,20 @@ public abstract class DbHelper{
      * Close the prepared statement for insert.
      */
     public void closeInsertStatement() {
+        if(insertDataBatchPreparedStatement == null)
+            return;
+        
         try {
+            freeArrays(insertDataArrays);
+            
             insertDataBatchPreparedStatement.close();
             insertDataBatchPreparedStatement = null;
+            
+            if(remainderInsertPreparedStatement != null)
+            {
+                remainderInsertPreparedStatement.close();
+                remainderInsertPreparedStatement = null;
+            }
         } catch (SQLException ex) {
             Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
         }
@@ -304,7 +756,8 @@ public abstract class DbHelper{
      */
     public void setSelectDataPK(int primaryKey) {
         try {
-            connection.setAutoCommit(true);
+            // with an explicit commit mode the select is committed by the caller (see commit)
+            connection.setAutoCommit(commitMode == null || commitMode == CommitMode.AUTOCOMMIT);
             selectDataPreparedStatement.setInt(1, primaryKey);
         } catch (SQLException ex) {
             Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
@@ -331,6 +784,9 @@ public abstract class DbHelper{
      * Close the prepared statement for select.
      */
     public void closeSelectStatement() {
+        if(selectDataPreparedStatement == null)
+            return;
+        
         try {
             selectDataPreparedStatement.close();
             selectDataPreparedStatement = null;
@@ -338,4 +794,604 @@ public abstract class DbHelper{
             Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
         }
     }
+    
+    /**
+     * Prepare a statement to select the records of multiple primary keys.
+     * 
+     * @param multiKeySelectMode The shape of the statement
+     * @param numOfKeys The number of keys selected by each execution
+     */
+    public void prepareMultiKeySelectStatement(MultiKeySelectMode multiKeySelectMode, int numOfKeys) {
+        if(multiKeySelectPreparedStatement != null)
+            closeMultiKeySelectStatement();
+        
+        this.multiKeySelectMode = multiKeySelectMode;
+        this.numOfMultiKeySelectKeys = numOfKeys;
+        this.multiKeySelectKeyValues = new Integer[numOfKeys];
+        
+        try {
+            String selectSQL = "SELECT " + COLUMN_PK_NAME + ", " + COLUMN_VARCHAR_NAME + ", " + COLUMN_INT_NAME + ", " + COLUMN_DECIMAL_NAME + ", " + COLUMN_DATE_NAME 
+                             + " FROM " + TABLE_NAME + " WHERE " + COLUMN_PK_NAME;
+            
+            switch(multiKeySelectMode)
+            {
+                case IN_LIST:
+                    StringBuilder inList = new StringBuilder(" IN (");
+                    for(int i = 0; i < numOfKeys; i++)
+                        inList.append(i == 0 ? "?" : ",?");
+                    selectSQL += inList.append(")");
+                    break;
+                case ANY_ARRAY:
+                    selectSQL += " = ANY(?)";
+                    break;
+                default:
+                    selectSQL += " = ?";
+            }
+            
+            multiKeySelectPreparedStatement = connection.prepareStatement(selectSQL);
+        } catch (SQLException ex) {
+            Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    /**
+     *
+     * @param primaryKeys The primary keys to select (as many as the keys given to {@link #prepareMultiKeySelectStatement(MultiKeySelectMode, int) prepareMultiKeySelectStatement}). 
+     * The array is used by {@link #execMultiKeySelectData() execMultiKeySelectData}, so it must not be modified before.
+     */
+    public void setMultiKeySelectData(int[] primaryKeys) {
+        
+        if(primaryKeys == null || primaryKeys.length != numOfMultiKeySelectKeys)
+        {
+            throw new IllegalArgumentException("primaryKeys parameter has to contain " + numOfMultiKeySelectKeys + " keys");
+        }
+        
+        try {
+            connection.setAutoCommit(true);
+            multiKeySelectKeys = primaryKeys;
+            
+            if(multiKeySelectMode == MultiKeySelectMode.IN_LIST)
+            {
+                for(int i = 0; i < primaryKeys.length; i++)
+                    multiKeySelectPreparedStatement.setInt(i + 1, primaryKeys[i]);
+            }
+            else if(multiKeySelectMode == MultiKeySelectMode.ANY_ARRAY)
+            {
+                for(int i = 0; i < primaryKeys.length; i++)
+                    multiKeySelectKeyValues[i] = primaryKeys[i];
+                
+                // the array of the previous select has already been executed
+                freeArrays(multiKeySelectArray);
+                multiKeySelectArray[0] = connection.createArrayOf("int4", multiKeySelectKeyValues);
+                multiKeySelectPreparedStatement.setArray(1, multiKeySelectArray[0]);
+            }
+        } catch (SQLException ex) {
+            Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    /**
+     * Exec the multi-key select statement (once per key in mode SINGLE_KEY_LOOP) and read all the selected records.
+     * 
+     * @return The number of records read
+     * @throws SQLException Throws sql exceptions
+     */
+    public int execMultiKeySelectData() throws SQLException {
+        
+        if(multiKeySelectMode != MultiKeySelectMode.SINGLE_KEY_LOOP)
+            return readMultiKeySelectData();
+        
+        int numOfRecords = 0;
+        
+        for(int primaryKey : multiKeySelectKeys)
+        {
+            multiKeySelectPreparedStatement.setInt(1, primaryKey);
+            numOfRecords += readMultiKeySelectData();
+        }
+        
+        return numOfRecords;
+    }
+    
+    private int readMultiKeySelectData() throws SQLException {
+        
+        int numOfRecords = 0;
+        
+        try (ResultSet rs = multiKeySelectPreparedStatement.executeQuery()) {
+            while(rs.next())
+            {
+                readEntry(rs, selectedEntry);
+                numOfRecords++;
+            }
+        }
+        
+        return numOfRecords;
+    }
+    
+    /**
+     * Read the columns of the current record of a result set (with the columns of the select statements of the helper) in an entry.
+     * 
+     * @param rs The result set
+     * @param entry The entry where the values are stored
+     * @return The entry
+     * @throws SQLException Throws sql exceptions
+     */
+    public static DbEntry readEntry(ResultSet rs, DbEntry entry) throws SQLException {
+        entry.setPrimaryKey(rs.getInt(1));
+        entry.setVarcharField(rs.getString(2));
+        entry.setIntField(rs.getInt(3));
+        entry.setDecimalField(rs.getBigDecimal(4));
+        entry.setDateField(rs.getTimestamp(5));
+        
+        return entry;
+    }
+    
+    /**
+     * Close the prepared statement for multi-key select.
+     */
+    public void closeMultiKeySelectStatement() {
+        if(multiKeySelectPreparedStatement == null)
+            return;
+        
+        try {
+            freeArrays(multiKeySelectArray);
+            
+            multiKeySelectPreparedStatement.close();
+            multiKeySelectPreparedStatement = null;
+            multiKeySelectKeys = emptyKeys;
+        } catch (SQLException ex) {
+            Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    /**
+     * Prepare a statement that selects the records of pipelineDepth primary keys with pipelineDepth selects by PK, 
+     * sent to the database in a single round trip (the driver sends all the statements before reading the results). 
+     * If the database does not {@link #supportsPipelinedSelect() support} it, the selects are executed one after the other.
+     * 
+     * @param pipelineDepth The number of selects sent together
+     */
+    public void preparePipelinedSelectStatement(int pipelineDepth) {
+        if(pipelinedSelectPreparedStatement != null)
+            closePipelinedSelectStatement();
+        
+        this.pipelineDepth = pipelineDepth;
+        
+        try {
+            String selectSQL = "SELECT " + COLUMN_PK_NAME + ", " + COLUMN_VARCHAR_NAME + ", " + COLUMN_INT_NAME + ", " + COLUMN_DECIMAL_NAME + ", " + COLUMN_DATE_NAME 
+                             + " FROM " + TABLE_NAME + " WHERE " + COLUMN_PK_NAME + " = ?";
+            
+            StringBuilder pipelineSQL = new StringBuilder(selectSQL);
+            if(supportsPipelinedSelect())
+            {
+                for(int i = 1; i < pipelineDepth; i++)
+                    pipelineSQL.append(";\n").append(selectSQL);
+            }
+            
+            pipelinedSelectPreparedStatement = connection.prepareStatement(pipelineSQL.toString());
+        } catch (SQLException ex) {
+            Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    /**
+     *
+     * @param primaryKeys The primary keys to select (as many as the pipeline depth given to {@link #preparePipelinedSelectStatement(int) preparePipelinedSelectStatement}). 
+     * The array is used by {@link #execPipelinedSelectData() execPipelinedSelectData}, so it must not be modified before.
+     */
+    public void setPipelinedSelectData(int[] primaryKeys) {
+        
+        if(primaryKeys == null || primaryKeys.length != pipelineDepth)
+        {
+            throw new IllegalArgumentException("primaryKeys parameter has to contain " + pipelineDepth + " keys");
+        }
+        
+        try {
+            connection.setAutoCommit(true);
+            pipelinedSelectKeys = primaryKeys;
+            
+            if(supportsPipelinedSelect())
+            {
+                for(int i = 0; i < primaryKeys.length; i++)
+                    pipelinedSelectPreparedStatement.setInt(i + 1, primaryKeys[i]);
+            }
+        } catch (SQLException ex) {
+            Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    /**
+     * Exec the pipelined selects and read all the selected records (the result sets are read in the order of the selects).
+     * 
+     * @return The number of records read
+     * @throws SQLException Throws sql exceptions
+     */
+    public int execPipelinedSelectData() throws SQLException {
+        
+        int numOfRecords = 0;
+        
+        if(!supportsPipelinedSelect())
+        {
+            // a round trip for each select
+            for(int primaryKey : pipelinedSelectKeys)
+            {
+                pipelinedSelectPreparedStatement.setInt(1, primaryKey);
+                try (ResultSet rs = pipelinedSelectPreparedStatement.executeQuery()) {
+                    numOfRecords += readPipelinedResult(rs);
+                }
+            }
+            
+            return numOfRecords;
+        }
+        
+        boolean isResultSet = pipelinedSelectPreparedStatement.execute();
+        
+        while(isResultSet || pipelinedSelectPreparedStatement.getUpdateCount() != -1)
+        {
+            if(isResultSet)
+            {
+                try (ResultSet rs = pipelinedSelectPreparedStatement.getResultSet()) {
+                    numOfRecords += readPipelinedResult(rs);
+                }
+            }
+            
+            isResultSet = pipelinedSelectPreparedStatement.getMoreResults();
+        }
+        
+        return numOfRecords;
+    }
+    
+    private int readPipelinedResult(ResultSet rs) throws SQLException {
+        
+        int numOfRecords = 0;
+        
+        while(rs.next())
+        {
+            readEntry(rs, selectedEntry);
+            numOfRecords++;
+        }
+        
+        return numOfRecords;
+    }
+    
+    /**
+     * Close the prepared statement for pipelined selects.
+     */
+    public void closePipelinedSelectStatement() {
+        if(pipelinedSelectPreparedStatement == null)
+            return;
+        
+        try {
+            pipelinedSelectPreparedStatement.close();
+            pipelinedSelectPreparedStatement = null;
+            pipelinedSelectKeys = emptyKeys;
+        } catch (SQLException ex) {
+            Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    /**
+     * Prepare a statement to read a range of consecutive primary keys (ordered by primary key).
+     * 
+     * @param scanCursorMode The way used to read the records
+     * @param fetchSize The number of records that the driver should read from the database at a time (0 to use the driver default)
+     */
+    public void prepareRangeScanStatement(ScanCursorMode scanCursorMode, int fetchSize) {
+        if(rangeScanPreparedStatement != null)
+            closeRangeScanStatement();
+        
+        this.scanCursorMode = scanCursorMode;
+        
+        try {
+            String selectSQL = "SELECT " + COLUMN_PK_NAME + ", " + COLUMN_VARCHAR_NAME + ", " + COLUMN_INT_NAME + ", " + COLUMN_DECIMAL_NAME + ", " + COLUMN_DATE_NAME 
+                             + " FROM " + TABLE_NAME + " WHERE " + COLUMN_PK_NAME + " >= ? AND " + COLUMN_PK_NAME + " < ? ORDER BY " + COLUMN_PK_NAME;
+            
+            rangeScanPreparedStatement = connection.prepareStatement(selectSQL, getScanResultSetType(scanCursorMode), ResultSet.CONCUR_READ_ONLY);
+            rangeScanPreparedStatement.setFetchSize(fetchSize);
+        } catch (SQLException ex) {
+            Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    /**
+     *
+     * @param firstPrimaryKey The first primary key of the range
+     * @param numOfRecords The number of primary keys in the range
+     */
+    public void setRangeScanData(int firstPrimaryKey, int numOfRecords) {
+        try {
+            // the server cursors are kept open only inside a transaction (e.g. on PostgreSQL)
+            connection.setAutoCommit(scanCursorMode != ScanCursorMode.SERVER_CURSOR);
+            rangeScanPreparedStatement.setInt(1, firstPrimaryKey);
+            rangeScanPreparedStatement.setInt(2, firstPrimaryKey + numOfRecords);
+        } catch (SQLException ex) {
+            Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    /**
+     * Exec the range scan statement. The result set has to be closed by {@link #closeRangeScanResult(ResultSet) closeRangeScanResult}.
+     * @return The result of the select query.
+     */
+    public ResultSet execRangeScanData() {
+        try {
+            return rangeScanPreparedStatement.executeQuery();
+        } catch (SQLException ex) {
+            Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Close the result set of a range scan and end the transaction of the scan (if any).
+     * 
+     * @param rs The result set returned by {@link #execRangeScanData() execRangeScanData} (can be null)
+     */
+    public void closeRangeScanResult(ResultSet rs) {
+        try {
+            if(rs != null)
+                rs.close();
+            
+            if(!connection.getAutoCommit())
+                connection.commit();
+        } catch (SQLException ex) {
+            Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    /**
+     * Close the prepared statement for range scan.
+     */
+    public void closeRangeScanStatement() {
+        if(rangeScanPreparedStatement == null)
+            return;
+        
+        try {
+            rangeScanPreparedStatement.close();
+            rangeScanPreparedStatement = null;
+        } catch (SQLException ex) {
+            Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    /**
+     * Prepare a statement to update all the columns (except the primary key) of a record of the table created by {@link #createTable() createTable} method.
+     */
+    public void prepareUpdateStatement() {
+        prepareUpdateStatement(false);
+    }
+    
+    /**
+     * Prepare a statement to update all the columns (except the primary key) of a record of the table created by {@link #createTable() createTable} method.
+     * 
+     * @param optimistic true to update the record only if its int column still has the value read before the update 
+     * (the int column is used as the version of the record, see {@link #addUpdateDataBatch(int, DbEntry, int) addUpdateDataBatch})
+     */
+    public void prepareUpdateStatement(boolean optimistic) {
+        if(updateDataPreparedStatement != null)
+            closeUpdateStatement();
+        
+        this.optimisticUpdate = optimistic;
+        
+        try {
+            String updateSQL = "UPDATE " + TABLE_NAME + " SET " + COLUMN_VARCHAR_NAME + " = ?, " + COLUMN_INT_NAME + " = ?, " 
+                             + COLUMN_DECIMAL_NAME + " = ?, " + COLUMN_DATE_NAME + " = ? WHERE " + COLUMN_PK_NAME + " = ?"
+                             + (optimistic ? " AND " + COLUMN_INT_NAME + " = ?" : "");
+            
+            updateDataPreparedStatement = connection.prepareStatement(updateSQL);
+        } catch (SQLException ex) {
+            Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    /**
+     *
+     * @param primaryKey The primary key of the record to update
+     * @param entry The new values of the record (the primary key of the entry is ignored)
+     */
+    public void setUpdateData(int primaryKey, DbEntry entry) {
+        try {
+            connection.setAutoCommit(true);
+            setUpdateParameters(primaryKey, entry, entry.getIntField());
+        } catch (SQLException ex) {
+            Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    /**
+     * Add an update to the batch of the update statement. The batch is executed in the current transaction by {@link #execUpdateDataBatch() execUpdateDataBatch}.
+     * 
+     * @param primaryKey The primary key of the record to update
+     * @param entry The new values of the record (the primary key of the entry is ignored)
+     * @param expectedIntField The value of the int column read before the update (used only by the optimistic update statement)
+     * @throws SQLException Throws sql exceptions
+     */
+    public void addUpdateDataBatch(int primaryKey, DbEntry entry, int expectedIntField) throws SQLException {
+        setUpdateParameters(primaryKey, entry, expectedIntField);
+        updateDataPreparedStatement.addBatch();
+    }
+    
+    private void setUpdateParameters(int primaryKey, DbEntry entry, int expectedIntField) throws SQLException {
+        updateDataPreparedStatement.setString(1, entry.getVarcharField());
+        updateDataPreparedStatement.setInt(2, entry.getIntField());
+        updateDataPreparedStatement.setBigDecimal(3, entry.getDecimalField());
+        updateDataPreparedStatement.setTimestamp(4, entry.getDateField());
+        updateDataPreparedStatement.setInt(5, primaryKey);
+        if(optimisticUpdate)
+            updateDataPreparedStatement.setInt(6, expectedIntField);
+    }
+    
+    /**
+     * Exec the batch of the update statement (without commit).
+     * 
+     * @return The number of records updated by every update of the batch (as returned by the driver)
+     * @throws SQLException Throws sql exceptions
+     */
+    public int[] execUpdateDataBatch() throws SQLException {
+        try {
+            return updateDataPreparedStatement.executeBatch();
+        } finally {
+            updateDataPreparedStatement.clearBatch();
+        }
+    }
+    
+    /**
+     * Exec the update statement (committed if the connection is in auto-commit mode).
+     * 
+     * @return The number of updated records
+     * @throws SQLException Throws sql exceptions
+     */
+    public int execUpdateData() throws SQLException {
+        return updateDataPreparedStatement.executeUpdate();
+    }
+    
+    /**
+     * Close the prepared statement for update.
+     */
+    public void closeUpdateStatement() {
+        if(updateDataPreparedStatement == null)
+            return;
+        
+        try {
+            updateDataPreparedStatement.close();
+            updateDataPreparedStatement = null;
+        } catch (SQLException ex) {
+            Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    /**
+     * Prepare a statement to delete a record of the table created by {@link #createTable() createTable} method by its primary key.
+     */
+    public void prepareDeleteStatement() {
+        if(deleteDataPreparedStatement != null)
+            closeDeleteStatement();
+        
+        try {
+            String deleteSQL = "DELETE FROM " + TABLE_NAME + " WHERE " + COLUMN_PK_NAME + " = ?";
+            
+            deleteDataPreparedStatement = connection.prepareStatement(deleteSQL);
+        } catch (SQLException ex) {
+            Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    /**
+     *
+     * @param primaryKey The primary key of the record to delete
+     */
+    public void setDeleteDataPK(int primaryKey) {
+        try {
+            connection.setAutoCommit(true);
+            deleteDataPreparedStatement.setInt(1, primaryKey);
+        } catch (SQLException ex) {
+            Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    /**
+     * Add a delete to the batch of the delete statement. The batch is executed in the current transaction by {@link #execDeleteDataBatch() execDeleteDataBatch}.
+     * 
+     * @param primaryKey The primary key of the record to delete
+     * @throws SQLException Throws sql exceptions
+     */
+    public void addDeleteDataBatch(int primaryKey) throws SQLException {
+        deleteDataPreparedStatement.setInt(1, primaryKey);
+        deleteDataPreparedStatement.addBatch();
+    }
+    
+    /**
+     * Exec the batch of the delete statement (without commit).
+     * 
+     * @return The number of records deleted by every delete of the batch (as returned by the driver)
+     * @throws SQLException Throws sql exceptions
+     */
+    public int[] execDeleteDataBatch() throws SQLException {
+        try {
+            return deleteDataPreparedStatement.executeBatch();
+        } finally {
+            deleteDataPreparedStatement.clearBatch();
+        }
+    }
+    
+    /**
+     * Exec the delete statement (committed if the connection is in auto-commit mode).
+     * 
+     * @return The number of deleted records
+     * @throws SQLException Throws sql exceptions
+     */
+    public int execDeleteData() throws SQLException {
+        return deleteDataPreparedStatement.executeUpdate();
+    }
+    
+    /**
+     * Close the prepared statement for delete.
+     */
+    public void closeDeleteStatement() {
+        if(deleteDataPreparedStatement == null)
+            return;
+        
+        try {
+            deleteDataPreparedStatement.close();
+            deleteDataPreparedStatement = null;
+        } catch (SQLException ex) {
+            Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    /**
+     * Prepare a statement to read a record by primary key before updating it in the same transaction.
+     * 
+     * @param lock true to lock the record until the end of the transaction (see {@link #getSelectForUpdateSQL() getSelectForUpdateSQL}), false to read it without locks
+     */
+    public void prepareReadForUpdateStatement(boolean lock) {
+        if(readForUpdatePreparedStatement != null)
+            closeReadForUpdateStatement();
+        
+        try {
+            String selectSQL = lock ? getSelectForUpdateSQL() 
+                             : "SELECT " + COLUMN_PK_NAME + ", " + COLUMN_VARCHAR_NAME + ", " + COLUMN_INT_NAME + ", " + COLUMN_DECIMAL_NAME + ", " + COLUMN_DATE_NAME 
+                             + " FROM " + TABLE_NAME + " WHERE " + COLUMN_PK_NAME + " = ?";
+            
+            readForUpdatePreparedStatement = connection.prepareStatement(selectSQL);
+        } catch (SQLException ex) {
+            Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    /**
+     * Read a record in the current transaction (see {@link #beginTransaction() beginTransaction}).
+     * 
+     * @param primaryKey The primary key of the record
+     * @param entry The entry where the values are stored
+     * @return true if the record exists
+     * @throws SQLException Throws sql exceptions
+     */
+    public boolean execReadForUpdate(int primaryKey, DbEntry entry) throws SQLException {
+        
+        readForUpdatePreparedStatement.setInt(1, primaryKey);
+        
+        try (ResultSet rs = readForUpdatePreparedStatement.executeQuery()) {
+            if(!rs.next())
+                return false;
+            
+            readEntry(rs, entry);
+            return true;
+        }
+    }
+    
+    /**
+     * Close the prepared statement for read for update.
+     */
+    public void closeReadForUpdateStatement() {
+        if(readForUpdatePreparedStatement == null)
+            return;
+        
+        try {
+            readForUpdatePreparedStatement.close();
+            readForUpdatePreparedStatement = null;
+        } catch (SQLException ex) {
+            Logger.getLogger(DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
 }
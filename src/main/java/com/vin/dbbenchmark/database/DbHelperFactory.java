@@ -38,9 +38,13 @@ public class DbHelperFactory {
                 dbHelper = new PostgreSqlDbHelper();
                 break;
                 
+            case H2: 
+                dbHelper = new H2DbHelper();
+                break;
+                
             default: 
                 dbHelper = null;
-                Logger.getLogger(DbHelperFactory.class.getName()).log(Level.SEVERE, "database must be one between sql server and postgre sql.");
+                Logger.getLogger(DbHelperFactory.class.getName()).log(Level.SEVERE, "database must be one among sql server, postgre sql and h2.");
                 break;
         }
         
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.database;
+
+import com.vin.dbbenchmark.configuration.ConfigurationHelper;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This helper class extends {@link DbHelper} to implement methods to open and close a connection to an embedded H2 database and create a test table.
+ * The database runs in the same process of the benchmark, so no database server is needed. 
+ * The database can be kept in memory (it lives until the JVM exits) or stored in files in a local directory.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class H2DbHelper extends DbHelper {
+    
+    /**
+     * Storage of the embedded database
+     */
+    public enum Mode {
+        MEMORY,
+        FILE
+    }
+    
+    private final Mode mode;
+    private final String directory;
+
+    public H2DbHelper() {
+        //get the storage of the database from configuration file
+        ConfigurationHelper helper = new ConfigurationHelper();
+        mode = helper.getH2Mode();
+        directory = helper.getH2Directory();
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    @Override
+    public Connection createConnection() throws SQLException {
+        
+        try {
+            // Create a variable for the connection string.
+            // (an in memory database is kept open until the JVM exits, so that all the connections see the same data)
+            String connectionUrl;
+            if(mode == Mode.FILE)
+                connectionUrl = "jdbc:h2:file:" + directory + "/" + databaseName;
+            else
+                connectionUrl = "jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1";
+            
+            // Establish the connection.
+            Class.forName("org.h2.Driver");  
+            return DriverManager.getConnection(connectionUrl,username,password);
+            
+        } catch (ClassNotFoundException ex) {
+            throw new SQLException("H2 jdbc driver not found", ex);
+        }
+    }
+
+    @Override
+    public int connect() {
+        
+        if(connection != null)
+            return 0;
+        
+        try {
+            connection = createConnection();
+            
+            return 0;
+ 
+        } catch (SQLException ex) {
+            Logger.getLogger(H2DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+            
+            return - 1;
+        }
+
+    }
+
+    @Override
+    public ContentionError getContentionError(SQLException ex) {
+        
+        // H2 error codes: DEADLOCK_1 (40001) for deadlocks and LOCK_TIMEOUT_1 (50200) for lock timeouts,
+        // reported with the SQLStates 40001 and HYT00
+        switch(ex.getErrorCode())
+        {
+            case 40001:
+                return ContentionError.DEADLOCK;
+            case 50200:
+                return ContentionError.LOCK_TIMEOUT;
+            default:
+                return super.getContentionError(ex);
+        }
+    }
+
+    @Override
+    public boolean supportsInsertStrategy(InsertStrategy insertStrategy) {
+        // H2 supports UNNEST with an array per column, there is no batch rewriting in the driver
+        return insertStrategy != InsertStrategy.REWRITE_BATCHED_INSERTS;
+    }
+
+    @Override
+    public boolean supportsPipelinedSelect() {
+        // the H2 driver returns only the result of the first statement of a prepared statement
+        return false;
+    }
+
+    @Override
+    public int createTable() {
+        int result = 0;
+        
+        String dropTableSQL = "  DROP TABLE IF EXISTS " + TABLE_NAME;
+                
+        try (PreparedStatement dropTablePreparedStatement = connection.prepareStatement(dropTableSQL)) {
+
+            connection.setAutoCommit(true);
+            // execute drop SQL stetement
+            dropTablePreparedStatement.executeUpdate();
+            
+        } catch (SQLException  ex) {
+            Logger.getLogger(H2DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+            result = -1;
+        }
+        
+        if(result < 0)
+            return result;
+        
+        String createTableSQL = "CREATE TABLE " + TABLE_NAME + "("
+                    + COLUMN_PK_NAME + " INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                    + COLUMN_VARCHAR_NAME + " VARCHAR(20) NOT NULL, "
+                    + COLUMN_INT_NAME + " INTEGER NOT NULL, "
+                    + COLUMN_DECIMAL_NAME + " DECIMAL(9,2) NOT NULL, "
+                    + COLUMN_DATE_NAME + " DATE NOT NULL "
+                    + ")";
+        
+        try (PreparedStatement createTablePreparedStatement = connection.prepareStatement(createTableSQL)) {
+
+            // execute create SQL stetement
+            createTablePreparedStatement.executeUpdate();
+            
+        } catch (SQLException ex) {
+            Logger.getLogger(H2DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+            result = -1;
+        }
+        
+        return result;
+    }
+
+    @Override
+    public void closeConnection() {
+        try {
+            
+            if(connection != null)
+            {
+                connection.close();
+                connection = null;
+            }
+
+        } catch (SQLException ex) {
+            Logger.getLogger(H2DbHelper.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.database;
+
+/**
+ * The shapes of the statements used by {@link DbHelper} to insert a batch of records.
+ * 
+ * @author Vincenzo Micelli
+ */
+public enum InsertStrategy {
+
+    /**
+     * A single-row INSERT statement executed for every record in a jdbc batch
+     */
+    SINGLE_ROW_BATCH,
+
+    /**
+     * INSERT statements with N records in the VALUES clause (executed in a jdbc batch)
+     */
+    MULTI_ROW_VALUES,
+
+    /**
+     * A single-row INSERT statement in a jdbc batch, rewritten by the driver in multi-row statements 
+     * (reWriteBatchedInserts connection property of the PostgreSQL driver)
+     */
+    REWRITE_BATCHED_INSERTS,
+
+    /**
+     * A single INSERT ... SELECT FROM unnest(...) statement with an array parameter per column
+     */
+    UNNEST_ARRAYS
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.database;
+
+import java.sql.Connection;
+
+/**
+ * The transaction isolation levels that can be set on the connections of the testers (see {@link DbHelper#setIsolationLevel(IsolationLevel) setIsolationLevel}).
+ * 
+ * @author Vincenzo Micelli
+ */
+public enum IsolationLevel {
+
+    /**
+     * Every statement sees only the data committed before it started
+     */
+    READ_COMMITTED(Connection.TRANSACTION_READ_COMMITTED),
+
+    /**
+     * The records read by a transaction do not change until the end of the transaction
+     */
+    REPEATABLE_READ(Connection.TRANSACTION_REPEATABLE_READ),
+
+    /**
+     * The transactions behave as if they were executed one after the other
+     */
+    SERIALIZABLE(Connection.TRANSACTION_SERIALIZABLE),
+
+    /**
+     * Every transaction sees the data committed before it started, without locking the records it reads (SQL Server only, 
+     * the database must allow snapshot isolation)
+     */
+    SNAPSHOT(4096); // SQLServerConnection.TRANSACTION_SNAPSHOT
+    
+    private final int jdbcLevel;
+
+    private IsolationLevel(int jdbcLevel) {
+        this.jdbcLevel = jdbcLevel;
+    }
+
+    /**
+     *
+     * @return The value of the level to pass to {@link Connection#setTransactionIsolation(int) setTransactionIsolation}
+     */
+    public int getJdbcLevel() {
+        return jdbcLevel;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.database;
+
+/**
+ * The ways used by the update testers to protect a read-modify-write of a record from concurrent writers.
+ * 
+ * @author Vincenzo Micelli
+ */
+public enum LockingMode {
+
+    /**
+     * The record is updated without reading it (blind write)
+     */
+    NONE,
+
+    /**
+     * The record is read without locks and updated only if it has not been changed in the meantime (the update checks the value read), 
+     * otherwise the transaction is retried
+     */
+    OPTIMISTIC,
+
+    /**
+     * The record is read with SELECT ... FOR UPDATE (or the equivalent of the database), that locks it until the end of the transaction
+     */
+    PESSIMISTIC
+}
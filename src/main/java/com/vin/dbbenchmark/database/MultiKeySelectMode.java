@@ -0,0 +1,40 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.database;
+
+/**
+ * The shapes of the statements used by {@link DbHelper} to select the records of multiple primary keys.
+ * 
+ * @author Vincenzo Micelli
+ */
+public enum MultiKeySelectMode {
+
+    /**
+     * A single statement with a parameter per key in an IN list
+     */
+    IN_LIST,
+
+    /**
+     * A single statement with an array parameter (WHERE pk = ANY(?))
+     */
+    ANY_ARRAY,
+
+    /**
+     * The single-key select statement executed once per key (one round trip per key). 
+     * Jdbc batches cannot return rows, so this is the baseline of the round trip amortization.
+     */
+    SINGLE_KEY_LOOP
+}
@@ -0,0 +1,499 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.database;
+
+import com.vin.dbbenchmark.database.DbHelper.DbEntry;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.TimeZone;
+import org.postgresql.copy.CopyIn;
+
+/**
+ * This class streams {@link DbEntry} rows to a PostgreSQL COPY FROM STDIN operation (see {@link PostgreSqlDbHelper#beginCopy(PostgreSqlDbHelper.CopyFormat) beginCopy}).
+ * The rows are encoded (in text or binary COPY format) in a reusable buffer that is sent to the driver every time it is full, 
+ * so the rows never have to be materialized all together and encoding a row does not allocate objects in the common cases.
+ * The writer can be reused for many COPY operations calling {@link #start(CopyIn) start}.
+ * 
+ * The columns written for each row are (in order) the varchar, int, decimal and date columns of the test table. 
+ * The primary key is generated by the database.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class PostgreSqlCopyWriter {
+    
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    // large enough for the longest field encoded without checking the capacity at each byte
+    private static final int MIN_BUFFER_SIZE = 256;
+    
+    // PGCOPY\n\377\r\n\0 followed by flags field and header extension length
+    private static final byte[] BINARY_HEADER = {'P','G','C','O','P','Y','\n',(byte)0xFF,'\r','\n',0, 0,0,0,0, 0,0,0,0};
+    
+    private static final int NUM_OF_COLUMNS = 4;
+    private static final long MILLIS_PER_DAY = 86400000L;
+    private static final long POSTGRES_EPOCH_DAY = LocalDate.of(2000, 1, 1).toEpochDay();
+    private static final short NUMERIC_POSITIVE = 0x0000;
+    private static final short NUMERIC_NEGATIVE = 0x4000;
+    private static final long[] POWERS_OF_TEN = new long[19];
+    
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for(int i = 1; i < POWERS_OF_TEN.length; i++)
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i-1] * 10;
+    }
+    
+    private final PostgreSqlDbHelper.CopyFormat format;
+    private final byte[] buffer;
+    private final TimeZone timeZone;
+    // base 10000 digits of the numeric value being encoded
+    private final short[] numericDigits = new short[64];
+    
+    private CopyIn copyIn;
+    private int position;
+    private long bytesWritten;
+    private long rowsWritten;
+    
+    // the date of consecutive rows is usually the same, so its encoding is cached
+    private long cachedDateMillis = Long.MIN_VALUE;
+    private long cachedEpochDay;
+    private long cachedTextEpochDay = Long.MIN_VALUE;
+    private byte[] cachedDateText;
+
+    /**
+     *
+     * @param format The format of the COPY operations
+     */
+    public PostgreSqlCopyWriter(PostgreSqlDbHelper.CopyFormat format) {
+        this(format, DEFAULT_BUFFER_SIZE);
+    }
+    
+    /**
+     *
+     * @param format The format of the COPY operations
+     * @param bufferSize The size of the buffer sent to the driver
+     */
+    public PostgreSqlCopyWriter(PostgreSqlDbHelper.CopyFormat format, int bufferSize) {
+        this.format = format;
+        this.buffer = new byte[Math.max(bufferSize, MIN_BUFFER_SIZE)];
+        this.timeZone = TimeZone.getDefault();
+    }
+    
+    /**
+     * Start writing the rows of a new COPY operation.
+     * 
+     * @param copyIn The COPY operation
+     * @throws SQLException Throws sql exceptions
+     */
+    public void start(CopyIn copyIn) throws SQLException
+    {
+        this.copyIn = copyIn;
+        this.position = 0;
+        this.bytesWritten = 0;
+        this.rowsWritten = 0;
+        
+        if(format == PostgreSqlDbHelper.CopyFormat.BINARY)
+            writeBytes(BINARY_HEADER, 0, BINARY_HEADER.length);
+    }
+    
+    /**
+     * Encode a row. The row is sent to the database when the buffer is full or when the operation is {@link #finish() finished}.
+     * 
+     * @param entry The row to write
+     * @throws SQLException Throws sql exceptions
+     */
+    public void writeRow(DbEntry entry) throws SQLException
+    {
+        if(format == PostgreSqlDbHelper.CopyFormat.BINARY)
+            writeBinaryRow(entry);
+        else
+            writeTextRow(entry);
+        
+        rowsWritten++;
+    }
+    
+    /**
+     * Send the remaining encoded rows (and the trailer of the binary format) to the database. 
+     * The COPY operation has to be ended by the caller.
+     * 
+     * @throws SQLException Throws sql exceptions
+     */
+    public void finish() throws SQLException
+    {
+        if(format == PostgreSqlDbHelper.CopyFormat.BINARY)
+        {
+            ensureCapacity(2);
+            putShort((short)-1);
+        }
+        
+        flush();
+        copyIn = null;
+    }
+
+    /**
+     *
+     * @return The number of bytes of the last COPY operation (including the bytes still in the buffer).
+     */
+    public long getBytesWritten() {
+        return bytesWritten + position;
+    }
+
+    /**
+     *
+     * @return The number of rows of the last COPY operation.
+     */
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+    
+    private void writeTextRow(DbEntry entry) throws SQLException
+    {
+        writeTextString(entry.getVarcharField());
+        put((byte)'\t');
+        writeTextLong(entry.getIntField());
+        put((byte)'\t');
+        writeTextDecimal(entry.getDecimalField());
+        put((byte)'\t');
+        writeTextDate(entry.getDateField().getTime());
+        put((byte)'\n');
+    }
+    
+    private void writeBinaryRow(DbEntry entry) throws SQLException
+    {
+        ensureCapacity(2);
+        putShort((short)NUM_OF_COLUMNS);
+        
+        writeBinaryString(entry.getVarcharField());
+        
+        ensureCapacity(8);
+        putInt(4);
+        putInt(entry.getIntField());
+        
+        writeBinaryDecimal(entry.getDecimalField());
+        
+        ensureCapacity(8);
+        putInt(4);
+        putInt((int)(getEpochDay(entry.getDateField().getTime()) - POSTGRES_EPOCH_DAY));
+    }
+    
+    private void writeTextString(String value) throws SQLException
+    {
+        for(int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            
+            // backslash and the column/row delimiters have to be escaped
+            switch(c)
+            {
+                case '\\': put((byte)'\\'); put((byte)'\\'); break;
+                case '\t': put((byte)'\\'); put((byte)'t'); break;
+                case '\n': put((byte)'\\'); put((byte)'n'); break;
+                case '\r': put((byte)'\\'); put((byte)'r'); break;
+                default: i = putUtf8(value, i);
+            }
+        }
+    }
+    
+    private void writeBinaryString(String value) throws SQLException
+    {
+        int length = 0;
+        for(int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            if(c < 0x80)
+                length += 1;
+            else if(c < 0x800)
+                length += 2;
+            else if(Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1)))
+            {
+                length += 4;
+                i++;
+            }
+            else
+                length += 3;
+        }
+        
+        ensureCapacity(4);
+        putInt(length);
+        
+        for(int i = 0; i < value.length(); i++)
+            i = putUtf8(value, i);
+    }
+    
+    /**
+     * Encode in UTF-8 the char at the given index (and the following one if they are a surrogate pair).
+     * 
+     * @return The index of the last encoded char.
+     */
+    private int putUtf8(String value, int index) throws SQLException
+    {
+        char c = value.charAt(index);
+        
+        if(c < 0x80)
+        {
+            put((byte)c);
+        }
+        else if(c < 0x800)
+        {
+            put((byte)(0xC0 | (c >> 6)));
+            put((byte)(0x80 | (c & 0x3F)));
+        }
+        else if(Character.isHighSurrogate(c) && index + 1 < value.length() && Character.isLowSurrogate(value.charAt(index + 1)))
+        {
+            int codePoint = Character.toCodePoint(c, value.charAt(index + 1));
+            put((byte)(0xF0 | (codePoint >> 18)));
+            put((byte)(0x80 | ((codePoint >> 12) & 0x3F)));
+            put((byte)(0x80 | ((codePoint >> 6) & 0x3F)));
+            put((byte)(0x80 | (codePoint & 0x3F)));
+            return index + 1;
+        }
+        else
+        {
+            put((byte)(0xE0 | (c >> 12)));
+            put((byte)(0x80 | ((c >> 6) & 0x3F)));
+            put((byte)(0x80 | (c & 0x3F)));
+        }
+        
+        return index;
+    }
+    
+    private void writeTextLong(long value) throws SQLException
+    {
+        ensureCapacity(20);
+        
+        if(value < 0)
+        {
+            put((byte)'-');
+            
+            if(value == Long.MIN_VALUE)
+            {
+                byte[] digits = "9223372036854775808".getBytes(StandardCharsets.US_ASCII);
+                writeBytes(digits, 0, digits.length);
+                return;
+            }
+            
+            value = -value;
+        }
+        
+        // write the digits from the end
+        int numOfDigits = 1;
+        while(numOfDigits < 19 && value >= POWERS_OF_TEN[numOfDigits])
+            numOfDigits++;
+        
+        for(int i = numOfDigits - 1; i >= 0; i--)
+        {
+            buffer[position + i] = (byte)('0' + value % 10);
+            value /= 10;
+        }
+        position += numOfDigits;
+    }
+    
+    private void writeTextDecimal(BigDecimal value) throws SQLException
+    {
+        int scale = value.scale();
+        
+        if(scale < 0 || scale > 18 || value.unscaledValue().bitLength() > 62)
+        {
+            byte[] digits = value.toPlainString().getBytes(StandardCharsets.US_ASCII);
+            writeBytes(digits, 0, digits.length);
+            return;
+        }
+        
+        long unscaledValue = value.unscaledValue().longValue();
+        
+        if(unscaledValue < 0)
+        {
+            put((byte)'-');
+            unscaledValue = -unscaledValue;
+        }
+        
+        writeTextLong(unscaledValue / POWERS_OF_TEN[scale]);
+        
+        if(scale > 0)
+        {
+            long fraction = unscaledValue % POWERS_OF_TEN[scale];
+            
+            ensureCapacity(scale + 1);
+            put((byte)'.');
+            for(int i = scale - 1; i >= 0; i--)
+            {
+                buffer[position + i] = (byte)('0' + fraction % 10);
+                fraction /= 10;
+            }
+            position += scale;
+        }
+    }
+    
+    private void writeTextDate(long millis) throws SQLException
+    {
+        long epochDay = getEpochDay(millis);
+        
+        if(epochDay != cachedTextEpochDay)
+        {
+            // ISO format yyyy-MM-dd
+            byte[] text = LocalDate.ofEpochDay(epochDay).toString().getBytes(StandardCharsets.US_ASCII);
+            cachedDateText = text;
+            cachedTextEpochDay = epochDay;
+        }
+        
+        writeBytes(cachedDateText, 0, cachedDateText.length);
+    }
+    
+    private long getEpochDay(long millis)
+    {
+        if(millis != cachedDateMillis)
+        {
+            // the date is the local date of the timestamp (as for the dates set through the PreparedStatement API)
+            cachedEpochDay = Math.floorDiv(millis + timeZone.getOffset(millis), MILLIS_PER_DAY);
+            cachedDateMillis = millis;
+        }
+        
+        return cachedEpochDay;
+    }
+    
+    /**
+     * Encode a decimal in the binary format of the PostgreSQL numeric type:
+     * number of base 10000 digits, weight of the first digit, sign, display scale and the base 10000 digits.
+     */
+    private void writeBinaryDecimal(BigDecimal value) throws SQLException
+    {
+        int numOfDigits;
+        int weight;
+        int displayScale = Math.max(value.scale(), 0);
+        short sign = value.signum() < 0 ? NUMERIC_NEGATIVE : NUMERIC_POSITIVE;
+        
+        if(value.scale() >= 0 && value.scale() <= 14 && value.unscaledValue().bitLength() <= 62)
+        {
+            long unscaledValue = Math.abs(value.unscaledValue().longValue());
+            int scale = value.scale();
+            
+            long integerPart = unscaledValue / POWERS_OF_TEN[scale];
+            int numOfFractionDigits = (scale + 3) / 4;
+            // pad the fraction to a multiple of 4 decimal digits
+            long fractionPart = (unscaledValue % POWERS_OF_TEN[scale]) * POWERS_OF_TEN[numOfFractionDigits * 4 - scale];
+            
+            int numOfIntegerDigits = 0;
+            for(long v = integerPart; v > 0; v /= 10000)
+                numOfIntegerDigits++;
+            
+            numOfDigits = numOfIntegerDigits + numOfFractionDigits;
+            weight = numOfIntegerDigits - 1;
+            
+            for(int i = numOfIntegerDigits - 1; i >= 0; i--)
+            {
+                numericDigits[i] = (short)(integerPart % 10000);
+                integerPart /= 10000;
+            }
+            for(int i = numOfDigits - 1; i >= numOfIntegerDigits; i--)
+            {
+                numericDigits[i] = (short)(fractionPart % 10000);
+                fractionPart /= 10000;
+            }
+        }
+        else
+        {
+            // uncommon values: compute the digits from the plain string representation
+            String plain = value.abs().setScale(displayScale).toPlainString();
+            int pointIndex = plain.indexOf('.');
+            String integerDigits = pointIndex < 0 ? plain : plain.substring(0, pointIndex);
+            String fractionDigits = pointIndex < 0 ? "" : plain.substring(pointIndex + 1);
+            
+            int integerPadding = (4 - integerDigits.length() % 4) % 4;
+            int numOfIntegerDigits = (integerDigits.length() + integerPadding) / 4;
+            int numOfFractionDigits = (fractionDigits.length() + 3) / 4;
+            
+            numOfDigits = numOfIntegerDigits + numOfFractionDigits;
+            weight = numOfIntegerDigits - 1;
+            
+            if(numOfDigits > numericDigits.length)
+                throw new SQLException("Decimal value too large for COPY: " + plain);
+            
+            for(int i = 0; i < numOfDigits; i++)
+            {
+                int digit = 0;
+                for(int j = 0; j < 4; j++)
+                {
+                    int index = i * 4 + j - integerPadding;
+                    char c;
+                    if(index < 0)
+                        c = '0';
+                    else if(index < integerDigits.length())
+                        c = integerDigits.charAt(index);
+                    else if(index - integerDigits.length() < fractionDigits.length())
+                        c = fractionDigits.charAt(index - integerDigits.length());
+                    else
+                        c = '0';
+                    digit = digit * 10 + (c - '0');
+                }
+                numericDigits[i] = (short)digit;
+            }
+        }
+        
+        ensureCapacity(4 + 8 + 2 * numOfDigits);
+        putInt(8 + 2 * numOfDigits);
+        putShort((short)numOfDigits);
+        putShort((short)weight);
+        putShort(sign);
+        putShort((short)displayScale);
+        for(int i = 0; i < numOfDigits; i++)
+            putShort(numericDigits[i]);
+    }
+    
+    private void put(byte b) throws SQLException
+    {
+        if(position == buffer.length)
+            flush();
+        
+        buffer[position++] = b;
+    }
+    
+    private void putShort(short value)
+    {
+        buffer[position++] = (byte)(value >> 8);
+        buffer[position++] = (byte)value;
+    }
+    
+    private void putInt(int value)
+    {
+        buffer[position++] = (byte)(value >> 24);
+        buffer[position++] = (byte)(value >> 16);
+        buffer[position++] = (byte)(value >> 8);
+        buffer[position++] = (byte)value;
+    }
+    
+    private void writeBytes(byte[] bytes, int offset, int length) throws SQLException
+    {
+        for(int i = 0; i < length; i++)
+            put(bytes[offset + i]);
+    }
+    
+    private void ensureCapacity(int length) throws SQLException
+    {
+        if(position + length > buffer.length)
+            flush();
+    }
+    
+    private void flush() throws SQLException
+    {
+        if(position > 0)
+        {
+            copyIn.writeToCopy(buffer, 0, position);
+            bytesWritten += position;
+            position = 0;
+        }
+    }
+    
+}
@@ -15,11 +15,16 @@
  */
 package com.vin.dbbenchmark.database;
 
+import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
 
 /**
  * This helper class extends {@link DbHelper} to implement methods to open and close a connection to PostgreSql and create a test table.
@@ -28,23 +33,60 @@ import java.util.logging.Logger;
  */
 public class PostgreSqlDbHelper extends DbHelper {
 
+    /**
+     * The formats of the COPY FROM STDIN operations.
+     */
+    public enum CopyFormat {
+
+        /**
+         * Tab separated text rows
+         */
+        TEXT,
+
+        /**
+         * PostgreSQL binary rows
+         */
+        BINARY
+    }
+
     @Override
-    public int connect() {
-        
-        if(connection != null)
-            return 0;
+    public Connection createConnection() throws SQLException {
         
         try {
             // Create a variable for the connection string.
             String connectionUrl = "jdbc:postgresql://" + serverName + ":" + portNumber + "/" + databaseName;
             
+            Properties connectionProperties = new Properties();
+            if(username != null)
+                connectionProperties.setProperty("user", username);
+            if(password != null)
+                connectionProperties.setProperty("password", password);
+            
+            // the driver rewrites the batches of single-row inserts in multi-row statements
+            if(rewriteBatchedInserts)
+                connectionProperties.setProperty("reWriteBatchedInserts", "true");
+            
             // Establish the connection.
             Class.forName("org.postgresql.Driver");  
-            connection = DriverManager.getConnection(connectionUrl,username,password);
+            return DriverManager.getConnection(connectionUrl,connectionProperties);
+            
+        } catch (ClassNotFoundException ex) {
+            throw new SQLException("PostgreSQL jdbc driver not found", ex);
+        }
+    }
+
+    @Override
+    public int connect() {
+        
+        if(connection != null)
+            return 0;
+        
+        try {
+            connection = createConnection();
             
             return 0;
  
-        } catch (ClassNotFoundException | SQLException ex) {
+        } catch (SQLException ex) {
             Logger.getLogger(PostgreSqlDbHelper.class.getName()).log(Level.SEVERE, null, ex);
             
             return - 1;
@@ -52,6 +94,24 @@ public class PostgreSqlDbHelper extends DbHelper {
 
     }
 
+    @Override
+    public boolean supportsInsertStrategy(InsertStrategy insertStrategy) {
+        return true;
+    }
+
+    @Override
+    public boolean supportsCommitMode(CommitMode commitMode) {
+        return true;
+    }
+
+    @Override
+    protected void enableAsynchronousCommit() throws SQLException {
+        // the commits return before the WAL records are flushed (only for the transactions of this connection)
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET synchronous_commit TO OFF");
+        }
+    }
+
     @Override
     public int createTable() {
         int result = 0;
@@ -93,6 +153,69 @@ public class PostgreSqlDbHelper extends DbHelper {
         return result;
     }
 
+    /**
+     * Start a COPY FROM STDIN operation on the test table in a new transaction. 
+     * The rows can be written using a {@link PostgreSqlCopyWriter} and the operation has to be ended with {@link #endCopy(CopyIn) endCopy}.
+     * 
+     * @param format The format of the rows
+     * @return The COPY operation
+     * @throws SQLException Throws sql exceptions
+     */
+    public CopyIn beginCopy(CopyFormat format) throws SQLException {
+        
+        String copySQL = "COPY " + TABLE_NAME + " (" 
+                + COLUMN_VARCHAR_NAME + ", " 
+                + COLUMN_INT_NAME + ", " 
+                + COLUMN_DECIMAL_NAME + ", " 
+                + COLUMN_DATE_NAME + ") FROM STDIN"
+                + (format == CopyFormat.BINARY ? " WITH (FORMAT binary)" : "");
+        
+        connection.setAutoCommit(false);
+        
+        return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copySQL);
+    }
+    
+    /**
+     * End a COPY operation started with {@link #beginCopy(CopyFormat) beginCopy} and commit the transaction.
+     * If the operation fails it is cancelled and the transaction rolled back.
+     * 
+     * @param copyIn The COPY operation
+     * @return The number of rows copied
+     * @throws SQLException Throws sql exceptions
+     */
+    public long endCopy(CopyIn copyIn) throws SQLException {
+        
+        try {
+            long rows = copyIn.endCopy();
+            connection.commit();
+            
+            return rows;
+            
+        } catch (SQLException ex) {
+            cancelCopy(copyIn);
+            
+            throw ex;
+        }
+    }
+    
+    /**
+     * Cancel a COPY operation and roll back the transaction.
+     * 
+     * @param copyIn The COPY operation
+     */
+    public void cancelCopy(CopyIn copyIn) {
+        
+        try {
+            if(copyIn.isActive())
+                copyIn.cancelCopy();
+            
+            connection.rollback();
+            
+        } catch (SQLException ex) {
+            Logger.getLogger(PostgreSqlDbHelper.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
     @Override
     public void closeConnection() {
         try {
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.database;
+
+/**
+ * The ways used by {@link DbHelper} to read the records of a range scan.
+ * 
+ * @author Vincenzo Micelli
+ */
+public enum ScanCursorMode {
+
+    /**
+     * The statement is executed in auto-commit mode with a default (forward only) result set. 
+     * Some drivers (e.g. PostgreSQL) read all the records in memory before returning the result set, whatever the fetch size is
+     */
+    CLIENT_BUFFERED,
+
+    /**
+     * The statement is executed in a transaction with a forward only result set backed by a cursor on the server, 
+     * so that the records are read in blocks of fetch size records (on SQL Server the result set is a server cursor)
+     */
+    SERVER_CURSOR
+}
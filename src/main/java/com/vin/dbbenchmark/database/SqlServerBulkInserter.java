@@ -0,0 +1,393 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.database;
+
+import com.vin.dbbenchmark.database.DbHelper.DbEntry;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class inserts blocks of rows in the test table of SQL Server, reading the rows from a streaming source (an {@code Iterator}) and committing each block.
+ * The rows can be inserted:
+ *  - with the bulk copy API of the driver (SQLServerBulkCopy, available in the Microsoft jdbc drivers newer than the one in folder lib). 
+ *    The driver classes are accessed through reflection, so the application can be compiled and executed with older drivers.
+ *  - with INSERT statements having multiple rows in the VALUES clause, supported by all the drivers (and by the other databases).
+ * In both cases the rows are sent to the database in batches of {@code batchSize} rows.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class SqlServerBulkInserter {
+    
+    /**
+     * The ways to insert the rows.
+     */
+    public enum Mode {
+
+        /**
+         * Bulk copy API of the driver
+         */
+        BULK_COPY,
+
+        /**
+         * INSERT statements with multiple rows in the VALUES clause
+         */
+        MULTI_ROW_VALUES
+    }
+    
+    /**
+     * Max number of rows of an INSERT statement with multiple rows in the VALUES clause 
+     * (SQL Server accepts up to 1000 rows and 2100 parameters per statement).
+     */
+    public static final int MAX_ROWS_PER_VALUES_STATEMENT = 500;
+    
+    private static final String BULK_COPY_CLASS = "com.microsoft.sqlserver.jdbc.SQLServerBulkCopy";
+    private static final String BULK_COPY_OPTIONS_CLASS = "com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions";
+    private static final String BULK_RECORD_CLASS = "com.microsoft.sqlserver.jdbc.ISQLServerBulkRecord";
+    
+    private static final String[] COLUMN_NAMES = {DbHelper.COLUMN_VARCHAR_NAME, DbHelper.COLUMN_INT_NAME, DbHelper.COLUMN_DECIMAL_NAME, DbHelper.COLUMN_DATE_NAME};
+    private static final int[] COLUMN_TYPES = {Types.VARCHAR, Types.INTEGER, Types.DECIMAL, Types.DATE};
+    private static final int[] COLUMN_PRECISIONS = {20, 10, 9, 10};
+    private static final int[] COLUMN_SCALES = {0, 0, 2, 0};
+    
+    private final Connection connection;
+    private final Mode mode;
+    private final int batchSize;
+    
+    private PreparedStatement valuesStatement;
+    private PreparedStatement remainderValuesStatement;
+    private int remainderValuesStatementRows;
+    
+    private BulkCopyRecord bulkCopyRecord;
+    private Object bulkCopyRecordProxy;
+    private Method writeToServerMethod;
+    private Method closeBulkCopyMethod;
+    
+    /**
+     *
+     * @param connection The connection used to insert the rows
+     * @param mode The way to insert the rows
+     * @param batchSize The number of rows sent to the database together (for MULTI_ROW_VALUES it is limited to {@link #MAX_ROWS_PER_VALUES_STATEMENT})
+     * @throws SQLException Throws sql exceptions (also if BULK_COPY is not supported by the driver)
+     */
+    public SqlServerBulkInserter(Connection connection, Mode mode, int batchSize) throws SQLException {
+        this.connection = connection;
+        this.mode = mode;
+        
+        if(mode == Mode.BULK_COPY)
+        {
+            this.batchSize = Math.max(batchSize, 1);
+            initBulkCopy();
+        }
+        else
+        {
+            this.batchSize = Math.max(Math.min(batchSize, MAX_ROWS_PER_VALUES_STATEMENT), 1);
+            valuesStatement = connection.prepareStatement(DbHelper.getMultiRowInsertSQL(this.batchSize));
+        }
+    }
+    
+    /**
+     *
+     * @return true if the jdbc driver provides the bulk copy API.
+     */
+    public static boolean isBulkCopySupported()
+    {
+        try {
+            Class.forName(BULK_COPY_CLASS);
+            
+            return true;
+        } catch (ClassNotFoundException ex) {
+            return false;
+        }
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+    
+    /**
+     * Insert rows taken from a source and commit them. If the insert fails the transaction is rolled back.
+     * 
+     * @param rows The source of the rows (it has to provide at least {@code numOfRows} rows)
+     * @param numOfRows The number of rows to insert
+     * @return The number of rows inserted
+     * @throws SQLException Throws sql exceptions
+     */
+    public long insert(Iterator<DbEntry> rows, int numOfRows) throws SQLException
+    {
+        connection.setAutoCommit(false);
+        
+        try {
+            long insertedRows = mode == Mode.BULK_COPY ? insertWithBulkCopy(rows, numOfRows) : insertWithValues(rows, numOfRows);
+            connection.commit();
+            
+            return insertedRows;
+            
+        } catch (SQLException ex) {
+            connection.rollback();
+            
+            throw ex;
+        }
+    }
+    
+    /**
+     * Close the statements used to insert the rows. The connection is not closed.
+     */
+    public void close()
+    {
+        try {
+            if(valuesStatement != null)
+                valuesStatement.close();
+            if(remainderValuesStatement != null)
+                remainderValuesStatement.close();
+        } catch (SQLException ex) {
+            Logger.getLogger(SqlServerBulkInserter.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        
+        valuesStatement = null;
+        remainderValuesStatement = null;
+    }
+    
+    private long insertWithValues(Iterator<DbEntry> rows, int numOfRows) throws SQLException
+    {
+        long insertedRows = 0;
+        
+        for(int remainingRows = numOfRows; remainingRows > 0; )
+        {
+            int statementRows = Math.min(batchSize, remainingRows);
+            PreparedStatement statement = statementRows == batchSize ? valuesStatement : getRemainderValuesStatement(statementRows);
+            
+            int parameterIndex = 1;
+            for(int i = 0; i < statementRows; i++)
+            {
+                DbEntry entry = rows.next();
+                statement.setString(parameterIndex++, entry.getVarcharField());
+                statement.setInt(parameterIndex++, entry.getIntField());
+                statement.setBigDecimal(parameterIndex++, entry.getDecimalField());
+                statement.setTimestamp(parameterIndex++, entry.getDateField());
+            }
+            
+            insertedRows += statement.executeUpdate();
+            remainingRows -= statementRows;
+        }
+        
+        return insertedRows;
+    }
+    
+    private PreparedStatement getRemainderValuesStatement(int numOfRows) throws SQLException
+    {
+        // the statement for the last (smaller) batch is kept, since usually the size of the last batch is always the same
+        if(remainderValuesStatement == null || remainderValuesStatementRows != numOfRows)
+        {
+            if(remainderValuesStatement != null)
+                remainderValuesStatement.close();
+            
+            remainderValuesStatement = connection.prepareStatement(DbHelper.getMultiRowInsertSQL(numOfRows));
+            remainderValuesStatementRows = numOfRows;
+        }
+        
+        return remainderValuesStatement;
+    }
+    
+    private void initBulkCopy() throws SQLException
+    {
+        try {
+            Class<?> recordClass = Class.forName(BULK_RECORD_CLASS);
+            Class<?> bulkCopyClass = Class.forName(BULK_COPY_CLASS);
+            
+            writeToServerMethod = bulkCopyClass.getMethod("writeToServer", recordClass);
+            closeBulkCopyMethod = bulkCopyClass.getMethod("close");
+            
+            // the rows are read by the driver through an ISQLServerBulkRecord that takes them from the source
+            bulkCopyRecord = new BulkCopyRecord();
+            bulkCopyRecordProxy = Proxy.newProxyInstance(recordClass.getClassLoader(), new Class<?>[]{recordClass}, bulkCopyRecord);
+            
+        } catch (ClassNotFoundException | NoSuchMethodException ex) {
+            throw new SQLException("Bulk copy is not supported by the SQL Server jdbc driver", ex);
+        }
+    }
+    
+    private long insertWithBulkCopy(Iterator<DbEntry> rows, int numOfRows) throws SQLException
+    {
+        bulkCopyRecord.reset(rows, numOfRows);
+        
+        Object bulkCopy = newBulkCopy();
+        
+        try {
+            writeToServerMethod.invoke(bulkCopy, bulkCopyRecordProxy);
+        } catch (IllegalAccessException | InvocationTargetException ex) {
+            throw toSQLException(ex);
+        } finally {
+            try {
+                closeBulkCopyMethod.invoke(bulkCopy);
+            } catch (IllegalAccessException | InvocationTargetException ex) {
+                Logger.getLogger(SqlServerBulkInserter.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+        
+        return bulkCopyRecord.getNumOfReadRows();
+    }
+    
+    private Object newBulkCopy() throws SQLException
+    {
+        try {
+            Class<?> bulkCopyClass = Class.forName(BULK_COPY_CLASS);
+            Class<?> optionsClass = Class.forName(BULK_COPY_OPTIONS_CLASS);
+            
+            Object bulkCopy = bulkCopyClass.getConstructor(Connection.class).newInstance(connection);
+            
+            // the rows are committed with the transaction of the connection
+            Object options = optionsClass.getConstructor().newInstance();
+            optionsClass.getMethod("setBatchSize", int.class).invoke(options, batchSize);
+            optionsClass.getMethod("setUseInternalTransaction", boolean.class).invoke(options, false);
+            bulkCopyClass.getMethod("setBulkCopyOptions", optionsClass).invoke(bulkCopy, options);
+            
+            bulkCopyClass.getMethod("setDestinationTableName", String.class).invoke(bulkCopy, DbHelper.TABLE_NAME);
+            Method addColumnMappingMethod = bulkCopyClass.getMethod("addColumnMapping", int.class, String.class);
+            for(int i = 0; i < COLUMN_NAMES.length; i++)
+                addColumnMappingMethod.invoke(bulkCopy, i + 1, COLUMN_NAMES[i]);
+            
+            return bulkCopy;
+            
+        } catch (ClassNotFoundException | NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException ex) {
+            throw toSQLException(ex);
+        }
+    }
+    
+    private static SQLException toSQLException(Exception ex)
+    {
+        Throwable cause = ex instanceof InvocationTargetException ? ((InvocationTargetException)ex).getTargetException() : ex;
+        
+        return cause instanceof SQLException ? (SQLException)cause : new SQLException("Bulk copy failed", cause);
+    }
+    
+    /**
+     * Implementation of the methods of ISQLServerBulkRecord: the columns are the ones of the test table (without the primary key) 
+     * and the rows are taken from the source. The array of the values of the current row is reused.
+     */
+    private static class BulkCopyRecord implements InvocationHandler {
+        
+        private final Object[] rowData = new Object[COLUMN_NAMES.length];
+        private final Set<Integer> columnOrdinals = new LinkedHashSet<>(Arrays.asList(1, 2, 3, 4));
+        
+        private Iterator<DbEntry> rows;
+        private int numOfRows;
+        private int numOfReadRows;
+        
+        private long cachedDateMillis = Long.MIN_VALUE;
+        private Date cachedDate;
+        
+        void reset(Iterator<DbEntry> rows, int numOfRows)
+        {
+            this.rows = rows;
+            this.numOfRows = numOfRows;
+            this.numOfReadRows = 0;
+        }
+
+        int getNumOfReadRows() {
+            return numOfReadRows;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            
+            switch(method.getName())
+            {
+                case "next":
+                    return next();
+                case "getRowData":
+                    return rowData;
+                case "getColumnOrdinals":
+                    return columnOrdinals;
+                case "getColumnName":
+                    return COLUMN_NAMES[(Integer)args[0] - 1];
+                case "getColumnType":
+                    return COLUMN_TYPES[(Integer)args[0] - 1];
+                case "getPrecision":
+                    return COLUMN_PRECISIONS[(Integer)args[0] - 1];
+                case "getScale":
+                    return COLUMN_SCALES[(Integer)args[0] - 1];
+                case "isAutoIncrement":
+                    return false;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return BulkCopyRecord.class.getName();
+                default:
+                    // methods added by newer drivers (e.g. date time formatters) are not used
+                    return getDefaultValue(method.getReturnType());
+            }
+        }
+        
+        private boolean next()
+        {
+            if(numOfReadRows >= numOfRows)
+                return false;
+            
+            DbEntry entry = rows.next();
+            rowData[0] = entry.getVarcharField();
+            rowData[1] = entry.getIntField();
+            rowData[2] = entry.getDecimalField();
+            rowData[3] = getDate(entry.getDateField().getTime());
+            numOfReadRows++;
+            
+            return true;
+        }
+        
+        private Date getDate(long millis)
+        {
+            // consecutive rows usually have the same date
+            if(millis != cachedDateMillis)
+            {
+                cachedDate = new Date(millis);
+                cachedDateMillis = millis;
+            }
+            
+            return cachedDate;
+        }
+        
+        private static Object getDefaultValue(Class<?> type)
+        {
+            if(type == boolean.class)
+                return false;
+            if(type == int.class)
+                return 0;
+            if(type == long.class)
+                return 0L;
+            
+            return null;
+        }
+    }
+    
+}
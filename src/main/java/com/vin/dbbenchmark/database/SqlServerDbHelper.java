@@ -15,6 +15,7 @@
  */
 package com.vin.dbbenchmark.database;
 
+import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
@@ -28,11 +29,11 @@ import java.util.logging.Logger;
  */
 public class SqlServerDbHelper extends DbHelper {
 
+    // value of SQLServerResultSet.TYPE_SS_SERVER_CURSOR_FORWARD_ONLY (the driver is not needed at compile time)
+    private static final int TYPE_SS_SERVER_CURSOR_FORWARD_ONLY = 2004;
+
     @Override
-    public int connect() {
-        
-        if(connection != null)
-            return 0;
+    public Connection createConnection() throws SQLException {
         
         try {
             // Create a variable for the connection string.
@@ -40,11 +41,25 @@ public class SqlServerDbHelper extends DbHelper {
             
             // Establish the connection.
             Class.forName("com.microsoft.sqlserver.jdbc.SQLServerDriver");  
-            connection = DriverManager.getConnection(connectionUrl);
+            return DriverManager.getConnection(connectionUrl);
+            
+        } catch (ClassNotFoundException ex) {
+            throw new SQLException("SQL Server jdbc driver not found", ex);
+        }
+    }
+
+    @Override
+    public int connect() {
+        
+        if(connection != null)
+            return 0;
+        
+        try {
+            connection = createConnection();
             
             return 0;
  
-        } catch (ClassNotFoundException | SQLException ex) {
+        } catch (SQLException ex) {
             Logger.getLogger(SqlServerDbHelper.class.getName()).log(Level.SEVERE, null, ex);
             
             return -1;
@@ -52,6 +67,47 @@ public class SqlServerDbHelper extends DbHelper {
 
     }
 
+    @Override
+    public boolean supportsMultiKeySelectMode(MultiKeySelectMode multiKeySelectMode) {
+        // SQL Server does not support array parameters
+        return multiKeySelectMode != MultiKeySelectMode.ANY_ARRAY;
+    }
+
+    @Override
+    public boolean supportsIsolationLevel(IsolationLevel isolationLevel) {
+        return true;
+    }
+
+    @Override
+    public ContentionError getContentionError(SQLException ex) {
+        
+        // SQL Server reports deadlocks and lock timeouts with its own error codes
+        switch(ex.getErrorCode())
+        {
+            case 1205:
+                return ContentionError.DEADLOCK;
+            case 1222:
+                return ContentionError.LOCK_TIMEOUT;
+            case 3960:
+                return ContentionError.SERIALIZATION_FAILURE;
+            default:
+                return super.getContentionError(ex);
+        }
+    }
+
+    @Override
+    protected String getSelectForUpdateSQL() {
+        // SQL Server does not support FOR UPDATE on plain selects, the update lock is requested with a table hint
+        return "SELECT " + COLUMN_PK_NAME + ", " + COLUMN_VARCHAR_NAME + ", " + COLUMN_INT_NAME + ", " + COLUMN_DECIMAL_NAME + ", " + COLUMN_DATE_NAME 
+             + " FROM " + TABLE_NAME + " WITH (UPDLOCK, ROWLOCK) WHERE " + COLUMN_PK_NAME + " = ?";
+    }
+
+    @Override
+    protected int getScanResultSetType(ScanCursorMode scanCursorMode) {
+        // by default the driver reads the records as they arrive (adaptive buffering), the cursor mode uses a forward only server cursor
+        return scanCursorMode == ScanCursorMode.SERVER_CURSOR ? TYPE_SS_SERVER_CURSOR_FORWARD_ONLY : super.getScanResultSetType(scanCursorMode);
+    }
+
     @Override
     public int createTable(){
         
@@ -15,9 +15,19 @@
  */
 package com.vin.dbbenchmark.manager;
 
+import com.vin.dbbenchmark.report.ConsoleResultReporter;
+import com.vin.dbbenchmark.report.ResultReporter;
+import com.vin.dbbenchmark.test.IntervalRecorder;
+import com.vin.dbbenchmark.test.RepeatedTrialsTester;
 import com.vin.dbbenchmark.test.Tester;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -27,15 +37,27 @@ import java.util.logging.Logger;
  * Subclasses have to init the manager (implementing the function init()) adding {@link Tester} instances to the list 
  * and initializing the resources that are needed.
  * In addition subclasses, if needed, have to free resources after tests completion (implementing the function finish()). 
+ * The results of the testers are output by a list of {@link ResultReporter} instances (by default the results are printed on the console), 
+ * as soon as every tester completes.
  * 
  * @author Vincenzo Micelli
  */
 public abstract class BenchmarkManager {
     
+    /**
+     * The status returned by {@link #execTests() execTests} when the initialization failed
+     */
+    public static final int INIT_FAILED_STATUS = 1;
+    
     private final List<Tester> testers;
+    private final List<ResultReporter> reporters;
+    private long runStartTime;
+    private int numOfTrials = 1;
 
     public BenchmarkManager() {
         this.testers = new ArrayList<>();
+        this.reporters = new ArrayList<>();
+        this.reporters.add(new ConsoleResultReporter());
     }
     
     /**
@@ -62,23 +84,90 @@ public abstract class BenchmarkManager {
     }
 
     /**
-     * Use this function to add a {@link Tester} that has to be executed by the manager.
+     * Use this function to add a {@link Tester} that has to be executed by the manager. 
+     * If the number of trials is greater than 1, the tester is executed by a {@link RepeatedTrialsTester}.
      * 
      * @param tester An implementation of {@link Tester} to add to the manager.
      */
     protected void addTester(Tester tester)
     {
-        testers.add(tester);
+        testers.add(numOfTrials > 1 ? new RepeatedTrialsTester(tester, numOfTrials) : tester);
+    }
+
+    public int getNumOfTrials() {
+        return numOfTrials;
+    }
+
+    /**
+     * Set the number of times the tests of every tester are executed (see {@link RepeatedTrialsTester}). 
+     * It applies to the testers added after the call.
+     * 
+     * @param numOfTrials The number of trials (default 1)
+     */
+    protected void setNumOfTrials(int numOfTrials) {
+        this.numOfTrials = numOfTrials;
+    }
+    
+    /**
+     * Get the reporters that output the results of the testers.
+     * 
+     * @return The list of {@link ResultReporter} instances (the first one prints the results on the console).
+     */
+    public List<ResultReporter> getReporters() {
+        return reporters;
+    }
+    
+    /**
+     * Use this function to add a {@link ResultReporter} that has to output the results of the testers (e.g. in a file).
+     * 
+     * @param reporter An implementation of {@link ResultReporter} to add to the manager.
+     */
+    protected void addReporter(ResultReporter reporter)
+    {
+        reporters.add(reporter);
+    }
+    
+    /**
+     * Get the metadata of the run, passed to the reporters when the run starts. 
+     * Subclasses can override this method to add their metadata (e.g. the configuration of the tests) to the metadata of the JVM and of the host.
+     * 
+     * @return The metadata (names and values), in the order they have to be reported
+     */
+    protected Map<String,String> getRunMetadata()
+    {
+        Map<String,String> metadata = new LinkedHashMap<>();
+        
+        metadata.put("start time", Instant.ofEpochMilli(runStartTime).toString());
+        
+        try {
+            metadata.put("host", InetAddress.getLocalHost().getHostName());
+        } catch (UnknownHostException ex) {
+            metadata.put("host", "unknown");
+        }
+        
+        metadata.put("os", System.getProperty("os.name") + " " + System.getProperty("os.version") + " (" + System.getProperty("os.arch") + ")");
+        metadata.put("available processors", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        metadata.put("java version", System.getProperty("java.version"));
+        metadata.put("java vm", System.getProperty("java.vm.name") + " " + System.getProperty("java.vm.version") + " (" + System.getProperty("java.vm.vendor") + ")");
+        metadata.put("max heap (MB)", String.valueOf(Runtime.getRuntime().maxMemory() / (1024 * 1024)));
+        metadata.put("jvm arguments", String.join(" ", ManagementFactory.getRuntimeMXBean().getInputArguments()));
+        
+        return metadata;
     }
     
     /**
      * Call this method to execute the tests. This method:<br>
      * - calls init() to init the tests<br>
-     * - for each {@link Tester} that has been added to the manager executes its tests and prints the perfomance results.<br>
+     * - for each {@link Tester} that has been added to the manager executes its tests and passes the perfomance results to the reporters.<br>
      * - calls finish() to free the resources
+     * 
+     * @return 0 if the run succeeded, {@link #INIT_FAILED_STATUS} if the initialization failed, 
+     * otherwise the status of the first reporter that considers the run failed (see {@link ResultReporter#getStatus() getStatus})
      */
-    public void execTests()
+    public int execTests()
     {
+        runStartTime = System.currentTimeMillis();
+        
         int initResult = init();
         
         if(initResult != 0)
@@ -86,17 +175,50 @@ public abstract class BenchmarkManager {
             String error = "BenchmarkManager initialization failed.\n\n";
             Logger.getLogger(BenchmarkManager.class.getName()).log(Level.SEVERE, error);
             
-            return;
+            return INIT_FAILED_STATUS;
         }
         
+        Map<String,String> runMetadata = getRunMetadata();
+        for(ResultReporter reporter : reporters)
+            reporter.startRun(runMetadata);
+        
         for(Tester tester : testers)
         { 
             printTesterStart(tester);
+            long testerStartTime = System.currentTimeMillis();
             tester.execTests();
-            printTesterResult(tester);
+            long testerEndTime = System.currentTimeMillis();
+            
+            for(ResultReporter reporter : reporters)
+                reporter.reportTester(tester, testerStartTime, testerEndTime);
         }
         
         finish();
+        
+        for(ResultReporter reporter : reporters)
+            reporter.endRun();
+        
+        for(ResultReporter reporter : reporters)
+        {
+            if(reporter.getStatus() != 0)
+                return reporter.getStatus();
+        }
+        
+        return 0;
+    }
+    
+    /**
+     * Get a listener that passes the intervals recorded while a tester is running to the reporters. 
+     * Subclasses set it to the {@link IntervalRecorder} of the testers that record intervals.
+     * 
+     * @return The listener of the intervals
+     */
+    protected IntervalRecorder.Listener getIntervalListener()
+    {
+        return (testName, interval) -> {
+            for(ResultReporter reporter : reporters)
+                reporter.reportInterval(testName, interval);
+        };
     }
     
     private void printTesterStart(Tester tester)
@@ -105,21 +227,4 @@ public abstract class BenchmarkManager {
             System.out.print(testerStart);
     }
     
-    private void printTesterResult(Tester tester)
-    {
-
-        System.out.print("-----------------------------------------------------\n");
-
-        String testerTitle = "Result for tester: " + tester.getTestName() + "\n";
-        System.out.print(testerTitle);
-
-        String testInfo = "\n" + tester.getTestInfo() + "\n";
-        System.out.print(testInfo);
-
-        tester.getResult().print();
-
-        System.out.print("-----------------------------------------------------\n");
-        System.out.print("\n\n");
-        
-    }
 }
@@ -16,11 +16,52 @@
 package com.vin.dbbenchmark.manager;
 
 import com.vin.dbbenchmark.configuration.ConfigurationHelper;
+import com.vin.dbbenchmark.database.CommitMode;
+import com.vin.dbbenchmark.database.ConnectionPool;
 import com.vin.dbbenchmark.database.DBMSName;
 import com.vin.dbbenchmark.database.DbHelper;
 import com.vin.dbbenchmark.database.DbHelperFactory;
+import com.vin.dbbenchmark.database.InsertStrategy;
+import com.vin.dbbenchmark.database.IsolationLevel;
+import com.vin.dbbenchmark.database.LockingMode;
+import com.vin.dbbenchmark.database.MultiKeySelectMode;
+import com.vin.dbbenchmark.database.PostgreSqlDbHelper;
+import com.vin.dbbenchmark.database.ScanCursorMode;
+import com.vin.dbbenchmark.database.SqlServerBulkInserter;
+import com.vin.dbbenchmark.report.BaselineComparisonReporter;
+import com.vin.dbbenchmark.report.BaselineResults;
+import com.vin.dbbenchmark.report.CsvResultReporter;
+import com.vin.dbbenchmark.report.JsonResultReporter;
+import com.vin.dbbenchmark.test.BaseTester;
+import com.vin.dbbenchmark.test.BatchSizeSweepTester;
+import com.vin.dbbenchmark.test.ConcurrentTester;
+import com.vin.dbbenchmark.test.DbBulkInsertTester;
+import com.vin.dbbenchmark.test.DbCopyTester;
+import com.vin.dbbenchmark.test.DbDeleteTester;
 import com.vin.dbbenchmark.test.DbInsertTester;
+import com.vin.dbbenchmark.test.DbMultiKeySelectTester;
+import com.vin.dbbenchmark.test.DbPipelinedSelectTester;
+import com.vin.dbbenchmark.test.DbRangeScanTester;
 import com.vin.dbbenchmark.test.DbSelectTester;
+import com.vin.dbbenchmark.test.DbTester;
+import com.vin.dbbenchmark.test.DbTransactionTester;
+import com.vin.dbbenchmark.test.DbUpdateTester;
+import com.vin.dbbenchmark.test.DbWorkloadTester;
+import com.vin.dbbenchmark.test.IntervalRecorder;
+import com.vin.dbbenchmark.test.Tester;
+import com.vin.dbbenchmark.test.TransactionMatrixTester;
+import com.vin.dbbenchmark.test.Workload;
+import com.vin.dbbenchmark.utils.DataGenerator;
+import com.vin.dbbenchmark.utils.KeyGenerator;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * This class is an implementation of a {@link BenchmarkManager} that executes insert and select tests on a database.
@@ -29,6 +70,24 @@ import com.vin.dbbenchmark.test.DbSelectTester;
  */
 public class DbBenchmarkManager extends BenchmarkManager{
 
+    private int warmupWindowSize;
+    private int warmupTolerancePercent;
+    private int maxWarmupExecutions;
+    private int numOfThreads;
+    private long histogramHighestTrackableTime;
+    private int histogramSignificantDigits;
+    private long testDuration;
+    private int targetThroughput;
+    private long intervalLength;
+    private int connectionPoolSize;
+    private boolean virtualThreads;
+    private DBMSName dbmsName;
+    private long randomSeed;
+    private int numOfCreatedTesters;
+    private KeyGenerator keyGenerator;
+    private final List<ConnectionPool> connectionPools = new ArrayList<>();
+    private Map<String,String> configurationProperties;
+    
     @Override
     protected int init() {
         
@@ -36,9 +95,95 @@ public class DbBenchmarkManager extends BenchmarkManager{
         ConfigurationHelper helper = new ConfigurationHelper();
         int numOfBatchInsertExecutions = helper.getNumberOfBatchInsertExecutions();
         int numOfInsertStatementsPerTransaction = helper.getNumberOfInsertsPerTransaction();
+        List<InsertStrategy> insertStrategies = helper.getInsertStrategies();
+        int rowsPerInsertStatement = helper.getRowsPerInsertStatement();
+        int configuredRowsPerCommit = helper.getRowsPerCommit();
+        int batchSizeSweepMax = helper.getBatchSizeSweepMax();
         int numOfSelectExecutions = helper.getNumberOfSelectExecutions();
+        boolean materializeSelectResults = helper.getMaterializeSelectResults();
+        boolean transactionMatrix = helper.getTransactionMatrix();
+        List<IsolationLevel> isolationLevels = helper.getTransactionMatrixIsolationLevels();
+        List<CommitMode> commitModes = helper.getTransactionMatrixCommitModes();
+        List<Integer> pipelineDepths = helper.getPipelineDepths();
+        int numOfKeysPerSelect = helper.getNumberOfKeysPerSelect();
+        List<MultiKeySelectMode> multiKeySelectModes = helper.getMultiKeySelectModes();
+        int numOfScanExecutions = helper.getNumberOfScanExecutions();
+        int numOfRowsPerScan = helper.getNumberOfRowsPerScan();
+        List<Integer> scanFetchSizes = helper.getScanFetchSizes();
+        List<ScanCursorMode> scanCursorModes = helper.getScanCursorModes();
+        int numOfUpdateExecutions = helper.getNumberOfUpdateExecutions();
+        int numOfUpdatesPerTransaction = helper.getNumberOfUpdatesPerTransaction();
+        List<LockingMode> updateLockingModes = helper.getUpdateLockingModes();
+        int numOfDeleteExecutions = helper.getNumberOfDeleteExecutions();
+        int numOfDeletesPerTransaction = helper.getNumberOfDeletesPerTransaction();
+        int maxTransactionRetries = helper.getMaxTransactionRetries();
+        List<Workload> workloads = helper.getWorkloads();
+        int numOfWorkloadExecutions = helper.getNumberOfWorkloadExecutions();
+        int workloadInsertBatchSize = helper.getWorkloadInsertBatchSize();
+        int workloadScanLength = helper.getWorkloadScanLength();
         int numOfWarmupExecutions = helper.getNumberOfWarmupExecutions();
-        DBMSName dbmsName = helper.getDbmsName();
+        int numOfCopyExecutions = helper.getNumberOfCopyExecutions();
+        int numOfRowsPerCopy = helper.getNumberOfRowsPerCopy();
+        int numOfBulkInsertExecutions = helper.getNumberOfBulkInsertExecutions();
+        int numOfRowsPerBulkInsert = helper.getNumberOfRowsPerBulkInsert();
+        int bulkInsertBatchSize = helper.getBulkInsertBatchSize();
+        warmupWindowSize = helper.getWarmupWindowSize();
+        warmupTolerancePercent = helper.getWarmupTolerancePercent();
+        maxWarmupExecutions = helper.getMaxWarmupExecutions();
+        numOfThreads = helper.getNumberOfThreads();
+        histogramHighestTrackableTime = TimeUnit.MILLISECONDS.toNanos(helper.getHistogramHighestTrackableTimeMillis());
+        histogramSignificantDigits = helper.getHistogramSignificantDigits();
+        testDuration = TimeUnit.SECONDS.toNanos(helper.getTestDurationSeconds());
+        targetThroughput = helper.getTargetThroughput();
+        intervalLength = TimeUnit.MILLISECONDS.toNanos(helper.getIntervalReportMillis());
+        connectionPoolSize = helper.getConnectionPoolSize();
+        virtualThreads = helper.getVirtualThreads();
+        dbmsName = helper.getDbmsName();
+        keyGenerator = helper.getKeyGenerator();
+        
+        configurationProperties = helper.getConfigurationProperties();
+        
+        // every tester added from now on is executed in the configured number of trials
+        setNumOfTrials(helper.getNumberOfTrials());
+        
+        // the results are also written in the result files (if any)
+        if(helper.getJsonResultFile() != null)
+            addReporter(new JsonResultReporter(helper.getJsonResultFile(), helper.getReportHistograms()));
+        if(helper.getCsvResultFile() != null)
+            addReporter(new CsvResultReporter(helper.getCsvResultFile(), helper.getReportHistograms()));
+        
+        // the results are compared with the results of a previous run (if any)
+        String baselineResultFile = helper.getBaselineResultFile();
+        if(baselineResultFile != null)
+        {
+            try {
+                BaselineResults baseline = BaselineResults.load(baselineResultFile);
+                addReporter(new BaselineComparisonReporter(baseline, baselineResultFile, helper.getRegressionThresholdPercent(), helper.getRegressionMetrics()));
+            } catch (IOException ex) {
+                Logger.getLogger(DbBenchmarkManager.class.getName()).log(Level.SEVERE, "Failed to read the baseline result file " + baselineResultFile, ex);
+                return -4;
+            }
+        }
+        
+        // the seed is printed so that the same data can be generated in another run
+        Long configuredRandomSeed = helper.getRandomSeed();
+        randomSeed = configuredRandomSeed != null ? configuredRandomSeed : DataGenerator.newSeed();
+        System.out.print("Random seed: " + randomSeed + "\n\n");
+        
+        // thousands of virtual threads are supposed to share a bounded pool of connections
+        if(virtualThreads && numOfThreads > 1 && connectionPoolSize == 0)
+        {
+            String warning = "Virtual threads are used without a connection pool: every thread opens its own connection.\n\n";
+            Logger.getLogger(DbBenchmarkManager.class.getName()).log(Level.WARNING, warning);
+        }
+        
+        // with a pool a connection is acquired for every batch and the records are committed before it is released
+        if(configuredRowsPerCommit > 0 && connectionPoolSize > 0)
+        {
+            String warning = "Rows per commit cannot be used with a connection pool: the records are committed after every batch.\n\n";
+            Logger.getLogger(DbBenchmarkManager.class.getName()).log(Level.WARNING, warning);
+        }
+        int rowsPerCommit = connectionPoolSize > 0 ? 0 : configuredRowsPerCommit;
         
         // if dbms has not been properly specified in the configuration file it is not possible to execute the tests.
         if(dbmsName == null)
@@ -60,19 +205,300 @@ public class DbBenchmarkManager extends BenchmarkManager{
         if(createTableResult != 0)
             return -3;
         
-        // add the tester the will perform insert statements tests
-        DbInsertTester insertTester = new DbInsertTester(dbmsName,numOfBatchInsertExecutions,numOfInsertStatementsPerTransaction,numOfWarmupExecutions);
-        addTester(insertTester);
+        // add the testers the will perform insert statements tests (one for each insert strategy)
+        for(InsertStrategy insertStrategy : insertStrategies)
+        {
+            if(!dbHelper.supportsInsertStrategy(insertStrategy))
+            {
+                String warning = "Insert strategy " + insertStrategy + " is not supported by " + dbmsName + ". The test is not executed.\n\n";
+                Logger.getLogger(DbBenchmarkManager.class.getName()).log(Level.WARNING, warning);
+                continue;
+            }
+            
+            addTester(makeTester(() -> configureInsertTester(new DbInsertTester(dbmsName,numOfBatchInsertExecutions,numOfInsertStatementsPerTransaction,insertStrategy,rowsPerInsertStatement,numOfWarmupExecutions), rowsPerCommit), 
+                                 insertStrategy == InsertStrategy.REWRITE_BATCHED_INSERTS));
+        }
+        
+        // add the tester that will execute the insert test for a range of batch sizes (with the first insert strategy)
+        if(batchSizeSweepMax > 0 && dbHelper.supportsInsertStrategy(insertStrategies.get(0)))
+        {
+            InsertStrategy insertStrategy = insertStrategies.get(0);
+            int[] batchSizes = BatchSizeSweepTester.getGeometricBatchSizes(helper.getBatchSizeSweepMin(), batchSizeSweepMax, helper.getBatchSizeSweepFactor());
+            
+            // every batch size inserts about the same number of records of the insert test
+            long numOfInsertedRecords = (long)numOfBatchInsertExecutions * numOfInsertStatementsPerTransaction;
+            long numOfWarmupRecords = (long)numOfWarmupExecutions * numOfInsertStatementsPerTransaction;
+            
+            addTester(new BatchSizeSweepTester(batchSizes, batchSize -> makeTester(() -> configureInsertTester(new DbInsertTester(dbmsName,
+                                                                                                   (int)Math.max(1, numOfInsertedRecords / batchSize),
+                                                                                                   batchSize,insertStrategy,rowsPerInsertStatement,
+                                                                                                   (int)Math.max(1, numOfWarmupRecords / batchSize)), rowsPerCommit), 
+                                                                            insertStrategy == InsertStrategy.REWRITE_BATCHED_INSERTS), 
+                                               DbInsertTester.THROUGHPUT_RECORDS_KEY, helper.getBatchSizeSweepMinGainPercent() / 100.0));
+        }
+        
+        // the isolation levels and the commit modes of the matrix that are supported by the database
+        List<IsolationLevel> matrixIsolationLevels = new ArrayList<>();
+        for(IsolationLevel isolationLevel : isolationLevels)
+        {
+            if(dbHelper.supportsIsolationLevel(isolationLevel))
+            {
+                matrixIsolationLevels.add(isolationLevel);
+            }
+            else if(transactionMatrix)
+            {
+                String warning = "Isolation level " + isolationLevel + " is not supported by " + dbmsName + ". The level is not tested.\n\n";
+                Logger.getLogger(DbBenchmarkManager.class.getName()).log(Level.WARNING, warning);
+            }
+        }
+        
+        List<CommitMode> matrixCommitModes = new ArrayList<>();
+        for(CommitMode commitMode : commitModes)
+        {
+            if(dbHelper.supportsCommitMode(commitMode))
+            {
+                matrixCommitModes.add(commitMode);
+            }
+            else if(transactionMatrix)
+            {
+                String warning = "Commit mode " + commitMode + " is not supported by " + dbmsName + ". The mode is not tested.\n\n";
+                Logger.getLogger(DbBenchmarkManager.class.getName()).log(Level.WARNING, warning);
+            }
+        }
+        
+        // add the tester that will execute the insert test for every isolation level and commit mode (with the first insert strategy)
+        if(transactionMatrix && dbHelper.supportsInsertStrategy(insertStrategies.get(0)))
+        {
+            InsertStrategy insertStrategy = insertStrategies.get(0);
+            
+            addTester(new TransactionMatrixTester(matrixIsolationLevels, matrixCommitModes, 
+                                                  (isolationLevel, commitMode) -> makeTester(() -> configureTransactionSettings(configureInsertTester(new DbInsertTester(dbmsName,numOfBatchInsertExecutions,numOfInsertStatementsPerTransaction,insertStrategy,rowsPerInsertStatement,numOfWarmupExecutions), rowsPerCommit), 
+                                                                                                                                isolationLevel, commitMode), 
+                                                                                                       insertStrategy == InsertStrategy.REWRITE_BATCHED_INSERTS), 
+                                                  DbInsertTester.THROUGHPUT_RECORDS_KEY, " (to insert a batch of records)"));
+        }
+        
+        // add the testers that will perform bulk loads (COPY is available only on PostgreSQL)
+        if(dbmsName == DBMSName.POSTGRE_SQL && numOfRowsPerCopy > 0)
+        {
+            addTester(makeTester(() -> new DbCopyTester(numOfCopyExecutions,numOfRowsPerCopy,PostgreSqlDbHelper.CopyFormat.TEXT,numOfWarmupExecutions)));
+            addTester(makeTester(() -> new DbCopyTester(numOfCopyExecutions,numOfRowsPerCopy,PostgreSqlDbHelper.CopyFormat.BINARY,numOfWarmupExecutions)));
+        }
+        
+        // add the testers that will perform bulk inserts on SQL Server (the bulk copy API is not provided by older drivers)
+        if(dbmsName == DBMSName.SQL_SERVER && numOfRowsPerBulkInsert > 0)
+        {
+            if(SqlServerBulkInserter.isBulkCopySupported())
+                addTester(makeTester(() -> new DbBulkInsertTester(dbmsName,numOfBulkInsertExecutions,numOfRowsPerBulkInsert,bulkInsertBatchSize,SqlServerBulkInserter.Mode.BULK_COPY,numOfWarmupExecutions)));
+            
+            addTester(makeTester(() -> new DbBulkInsertTester(dbmsName,numOfBulkInsertExecutions,numOfRowsPerBulkInsert,bulkInsertBatchSize,SqlServerBulkInserter.Mode.MULTI_ROW_VALUES,numOfWarmupExecutions)));
+        }
 
         // add the tester the will perform select statements tests
-        DbSelectTester selectTester = new DbSelectTester(dbmsName,numOfSelectExecutions,numOfWarmupExecutions);
-        addTester(selectTester);
+        addTester(makeTester(() -> new DbSelectTester(dbmsName,numOfSelectExecutions,numOfWarmupExecutions)));
+        
+        // add the tester that will also read and decode the selected records (with the times of the execute, fetch and decode phases)
+        if(materializeSelectResults)
+            addTester(makeTester(() -> configureSelectTester(new DbSelectTester(dbmsName,numOfSelectExecutions,numOfWarmupExecutions), true)));
+        
+        // add the tester that will execute the select test for every isolation level and commit mode
+        if(transactionMatrix)
+        {
+            addTester(new TransactionMatrixTester(matrixIsolationLevels, matrixCommitModes, 
+                                                  (isolationLevel, commitMode) -> makeTester(() -> configureTransactionSettings(new DbSelectTester(dbmsName,numOfSelectExecutions,numOfWarmupExecutions), isolationLevel, commitMode)), 
+                                                  "throughput", ""));
+        }
+        
+        // add the testers that will keep many selects in flight (one for each pipeline depth, every depth executes about the same number of selects)
+        if(!pipelineDepths.isEmpty() && !dbHelper.supportsPipelinedSelect())
+        {
+            String warning = "Pipelined statements are not supported by " + dbmsName + ". The pipelined select tests are not executed.\n\n";
+            Logger.getLogger(DbBenchmarkManager.class.getName()).log(Level.WARNING, warning);
+        }
+        else
+        {
+            for(int pipelineDepth : pipelineDepths)
+                addTester(makeTester(() -> new DbPipelinedSelectTester(dbmsName,Math.max(1, numOfSelectExecutions / pipelineDepth),pipelineDepth,Math.max(1, numOfWarmupExecutions / pipelineDepth))));
+        }
+        
+        // add the testers that will select many keys per execution (one for each multi-key select mode)
+        if(numOfKeysPerSelect > 0)
+        {
+            for(MultiKeySelectMode multiKeySelectMode : multiKeySelectModes)
+            {
+                if(!dbHelper.supportsMultiKeySelectMode(multiKeySelectMode))
+                {
+                    String warning = "Multi-key select mode " + multiKeySelectMode + " is not supported by " + dbmsName + ". The test is not executed.\n\n";
+                    Logger.getLogger(DbBenchmarkManager.class.getName()).log(Level.WARNING, warning);
+                    continue;
+                }
+                
+                addTester(makeTester(() -> new DbMultiKeySelectTester(dbmsName,numOfSelectExecutions,numOfKeysPerSelect,multiKeySelectMode,numOfWarmupExecutions)));
+            }
+        }
+        
+        // add the testers that will read ranges of records (one for each cursor mode and fetch size)
+        if(numOfRowsPerScan > 0)
+        {
+            for(ScanCursorMode scanCursorMode : scanCursorModes)
+            {
+                for(int scanFetchSize : scanFetchSizes)
+                    addTester(makeTester(() -> new DbRangeScanTester(dbmsName,numOfScanExecutions,numOfRowsPerScan,scanCursorMode,scanFetchSize,numOfWarmupExecutions)));
+            }
+        }
+        
+        // add the testers that will update records (one for each locking mode)
+        if(numOfUpdateExecutions > 0)
+        {
+            for(LockingMode lockingMode : updateLockingModes)
+                addTester(makeTester(() -> configureTransactionTester(new DbUpdateTester(dbmsName,numOfUpdateExecutions,numOfUpdatesPerTransaction,lockingMode,numOfWarmupExecutions), maxTransactionRetries)));
+        }
+        
+        // add the testers that will execute the mixed workloads (after the other tests, because the workloads can update and delete the records)
+        for(Workload workload : workloads)
+        {
+            // the threads of a workload share the max primary key, so that they access also the records inserted by the other threads
+            AtomicInteger maxPrimaryKeyValue = new AtomicInteger();
+            addTester(makeTester(() -> configureWorkloadTester(new DbWorkloadTester(dbmsName,numOfWorkloadExecutions,workload,workloadInsertBatchSize,workloadScanLength,numOfWarmupExecutions), maxPrimaryKeyValue)));
+        }
+        
+        // add the tester that will delete records (last)
+        if(numOfDeleteExecutions > 0)
+            addTester(makeTester(() -> configureTransactionTester(new DbDeleteTester(dbmsName,numOfDeleteExecutions,numOfDeletesPerTransaction,numOfWarmupExecutions), maxTransactionRetries)));
 
         return 0;
     }
 
+    /**
+     * Create the tester to add to the manager, configured with the settings common to all the testers. 
+     * With a single thread the tester is used directly, otherwise it is executed by a {@link ConcurrentTester} 
+     * where every thread has its own tester (and its own connection, unless the threads share a connection pool).
+     */
+    private Tester makeTester(ConcurrentTester.TesterFactory testerFactory)
+    {
+        return makeTester(testerFactory, false);
+    }
+    
+    /**
+     * Create the tester to add to the manager (see {@link #makeTester(ConcurrentTester.TesterFactory) makeTester}).
+     * 
+     * @param rewriteBatchedInserts true if the connections of the pool (if any) have to be opened asking the driver to rewrite the batches of inserts
+     */
+    private Tester makeTester(ConcurrentTester.TesterFactory testerFactory, boolean rewriteBatchedInserts)
+    {
+        // the threads of a tester share the same pool
+        final ConnectionPool connectionPool;
+        if(connectionPoolSize > 0)
+        {
+            DbHelper poolDbHelper = DbHelperFactory.getDbHelper(dbmsName);
+            poolDbHelper.setRewriteBatchedInserts(rewriteBatchedInserts);
+            
+            connectionPool = new ConnectionPool(poolDbHelper, connectionPoolSize);
+            connectionPools.add(connectionPool);
+        }
+        else
+        {
+            connectionPool = null;
+        }
+        
+        // the threads of a tester record the same intervals
+        IntervalRecorder intervalRecorder = intervalLength > 0 ? new IntervalRecorder(intervalLength, getIntervalListener()) : null;
+        
+        ConcurrentTester.TesterFactory configuredTesterFactory = () -> configureTester(testerFactory.createTester(), connectionPool, intervalRecorder);
+        
+        if(numOfThreads > 1)
+        {
+            ConcurrentTester concurrentTester = new ConcurrentTester(configuredTesterFactory, numOfThreads);
+            concurrentTester.setVirtualThreads(virtualThreads);
+            
+            return concurrentTester;
+        }
+        
+        return configuredTesterFactory.createTester();
+    }
+    
+    private DbInsertTester configureInsertTester(DbInsertTester tester, int rowsPerCommit)
+    {
+        tester.setRowsPerCommit(rowsPerCommit);
+        
+        return tester;
+    }
+    
+    private DbSelectTester configureSelectTester(DbSelectTester tester, boolean materializeResults)
+    {
+        tester.setMaterializeResults(materializeResults);
+        
+        return tester;
+    }
+    
+    private DbTester configureTransactionSettings(DbTester tester, IsolationLevel isolationLevel, CommitMode commitMode)
+    {
+        tester.setIsolationLevel(isolationLevel);
+        tester.setCommitMode(commitMode);
+        
+        return tester;
+    }
+    
+    private DbWorkloadTester configureWorkloadTester(DbWorkloadTester tester, AtomicInteger maxPrimaryKeyValue)
+    {
+        tester.setMaxPrimaryKeyValue(maxPrimaryKeyValue);
+        
+        return tester;
+    }
+    
+    private DbTransactionTester configureTransactionTester(DbTransactionTester tester, int maxRetries)
+    {
+        tester.setMaxRetries(maxRetries);
+        
+        return tester;
+    }
+    
+    private BaseTester configureTester(BaseTester tester, ConnectionPool connectionPool, IntervalRecorder intervalRecorder)
+    {
+        if(tester instanceof DbTester)
+        {
+            ((DbTester)tester).setConnectionPool(connectionPool);
+            
+            // every tester (thread) generates its own stream of data, the testers are always created in the same order
+            ((DbTester)tester).setRandomSeed(DataGenerator.getStreamSeed(randomSeed, numOfCreatedTesters++));
+            
+            // the key generator is thread safe, so it is shared by all the testers
+            ((DbTester)tester).setKeyGenerator(keyGenerator);
+        }
+        
+        tester.setHistogramPrecision(histogramHighestTrackableTime, histogramSignificantDigits);
+        tester.setTestDuration(testDuration);
+        tester.setAdaptiveWarmup(warmupWindowSize, warmupTolerancePercent / 100.0, maxWarmupExecutions);
+        tester.setIntervalRecorder(intervalRecorder);
+        
+        // the target throughput is shared by the threads executing the test
+        tester.setTargetThroughput((double)targetThroughput / numOfThreads);
+        
+        return tester;
+    }
+
+    @Override
+    protected Map<String,String> getRunMetadata() {
+        
+        Map<String,String> metadata = new LinkedHashMap<>();
+        metadata.put("dbms", String.valueOf(dbmsName));
+        metadata.put("random seed", String.valueOf(randomSeed));
+        metadata.put("threads", String.valueOf(numOfThreads));
+        metadata.put("trials", String.valueOf(getNumOfTrials()));
+        metadata.putAll(super.getRunMetadata());
+        
+        // the whole configuration, so that the run can be repeated
+        for(Map.Entry<String,String> property : configurationProperties.entrySet())
+            metadata.put("config " + property.getKey(), property.getValue());
+        
+        return metadata;
+    }
+
     @Override
     protected void finish() {
+        for(ConnectionPool connectionPool : connectionPools)
+            connectionPool.close();
+        
         // we could drop the table here but we are not doing it so that users can check out the records that have been inserted
     }
     
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.report;
+
+import com.vin.dbbenchmark.test.RepeatedTrialsTester;
+import com.vin.dbbenchmark.test.Result;
+import com.vin.dbbenchmark.test.Tester;
+import com.vin.dbbenchmark.utils.Statistics;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This {@link ResultReporter} compares the results of the run with the results of a previous run (the baseline) and, 
+ * when the run ends, prints a report with the change of every compared metric. 
+ * A metric regresses when it gets worse (a lower throughput or a higher time) by more than a threshold, in percent of the baseline value. 
+ * If the baseline or the run have more than one sample of a metric (e.g. from {@link RepeatedTrialsTester repeated trials}), the metric is considered regressed 
+ * only if the whole confidence interval of the change is beyond the threshold, so that the run-to-run noise does not fail the run. 
+ * With a single sample on both sides the change is compared with the threshold directly.
+ * The testers of the run are matched with the testers of the baseline by name and order of appearance (see {@link BaselineResults}).
+ * The reporter returns {@link #REGRESSION_STATUS} from {@link #getStatus() getStatus} if at least one metric regressed.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class BaselineComparisonReporter implements ResultReporter {
+    
+    /**
+     * The status returned when at least one metric regressed
+     */
+    public static final int REGRESSION_STATUS = 2;
+    
+    /**
+     * The verdict of the comparison of a metric
+     */
+    public enum Verdict {
+        
+        /**
+         * The change is within the threshold (or it is not significant)
+         */
+        OK, 
+        
+        /**
+         * The metric got better by more than the threshold
+         */
+        IMPROVED, 
+        
+        /**
+         * The metric got worse by more than the threshold
+         */
+        REGRESSION, 
+        
+        /**
+         * The metric is not in the baseline (or its baseline value is 0), so it cannot be compared
+         */
+        NOT_IN_BASELINE
+    }
+    
+    /**
+     * The comparison of a metric of a tester with the baseline
+     */
+    public static class Comparison {
+        
+        private final String testerName;
+        private final String key;
+        private final String unit;
+        private final double baselineValue;
+        private final double currentValue;
+        private final double change;
+        private final double changeHalfWidth;
+        private final Verdict verdict;
+
+        Comparison(String testerName, String key, String unit, double baselineValue, double currentValue, 
+                   double change, double changeHalfWidth, Verdict verdict) {
+            this.testerName = testerName;
+            this.key = key;
+            this.unit = unit;
+            this.baselineValue = baselineValue;
+            this.currentValue = currentValue;
+            this.change = change;
+            this.changeHalfWidth = changeHalfWidth;
+            this.verdict = verdict;
+        }
+
+        public String getTesterName() {
+            return testerName;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getUnit() {
+            return unit;
+        }
+
+        /**
+         *
+         * @return The mean of the baseline samples (NaN if the metric is not in the baseline)
+         */
+        public double getBaselineValue() {
+            return baselineValue;
+        }
+
+        /**
+         *
+         * @return The mean of the samples of the run
+         */
+        public double getCurrentValue() {
+            return currentValue;
+        }
+
+        /**
+         *
+         * @return The change of the mean, in percent of the baseline value (positive if the value increased)
+         */
+        public double getChange() {
+            return change;
+        }
+
+        /**
+         *
+         * @return The half width of the confidence interval of the change (in percent of the baseline value), 
+         * or NaN if both the baseline and the run have a single sample
+         */
+        public double getChangeHalfWidth() {
+            return changeHalfWidth;
+        }
+
+        public Verdict getVerdict() {
+            return verdict;
+        }
+        
+    }
+    
+    private final BaselineResults baseline;
+    private final String baselineName;
+    private final double threshold;
+    private final List<String> metrics;
+    
+    private BaselineResults current;
+    private final Map<String,Integer> occurrences = new HashMap<>();
+    private List<Comparison> comparisons = Collections.emptyList();
+
+    /**
+     *
+     * @param baseline The results of the previous run
+     * @param baselineName The name of the baseline in the report (e.g. the path of its file)
+     * @param threshold The max change (in percent of the baseline value) a metric can get worse without being considered a regression
+     * @param metrics The keys of the compared metrics. A metric is compared if its key is one of them or it starts with one of them 
+     * followed by a space (e.g. {@code p99} selects also {@code p99 service time})
+     */
+    public BaselineComparisonReporter(BaselineResults baseline, String baselineName, double threshold, List<String> metrics) {
+        this.baseline = baseline;
+        this.baselineName = baselineName;
+        this.threshold = threshold;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void startRun(Map<String, String> runMetadata) {
+        current = new BaselineResults();
+        occurrences.clear();
+        comparisons = Collections.emptyList();
+    }
+
+    @Override
+    public void reportTester(Tester tester, long startTime, long endTime) {
+        
+        // every trial of a tester executed in repeated trials is a sample of its metrics
+        List<Result> results = tester instanceof RepeatedTrialsTester ? ((RepeatedTrialsTester)tester).getTrialResults() : Collections.singletonList(tester.getResult());
+        
+        // the testers with the same name are distinguished by their order
+        String testerKey = BaselineResults.getTesterKey(tester.getTestName(), occurrences.merge(tester.getTestName(), 1, Integer::sum));
+        
+        for(Result result : results)
+        {
+            for(Map.Entry<String,Long> entry : result.entrySet())
+            {
+                if(isCompared(entry.getKey()))
+                    current.add(testerKey, entry.getKey(), entry.getValue(), result.getUnit(entry.getKey()));
+            }
+        }
+    }
+
+    @Override
+    public void endRun() {
+        
+        comparisons = compare();
+        
+        System.out.print(getReport());
+    }
+
+    @Override
+    public int getStatus() {
+        
+        for(Comparison comparison : comparisons)
+        {
+            if(comparison.getVerdict() == Verdict.REGRESSION)
+                return REGRESSION_STATUS;
+        }
+        
+        return 0;
+    }
+    
+    /**
+     *
+     * @return The comparisons of the metrics of the run, available when the run has ended
+     */
+    public List<Comparison> getComparisons() {
+        return comparisons;
+    }
+    
+    private boolean isCompared(String key)
+    {
+        for(String metric : metrics)
+        {
+            if(key.equals(metric) || key.startsWith(metric + " "))
+                return true;
+        }
+        
+        return false;
+    }
+    
+    private List<Comparison> compare()
+    {
+        List<Comparison> result = new ArrayList<>();
+        
+        for(String testerName : current.getTesterNames())
+        {
+            for(String key : current.getKeys(testerName))
+            {
+                String unit = current.getUnit(testerName, key);
+                double[] currentValues = current.getValues(testerName, key);
+                double[] baselineValues = baseline.getValues(testerName, key);
+                double currentValue = Statistics.mean(currentValues);
+                
+                if(baselineValues == null || Statistics.mean(baselineValues) == 0 || !unit.equals(baseline.getUnit(testerName, key)))
+                {
+                    result.add(new Comparison(testerName, key, unit, Double.NaN, currentValue, Double.NaN, Double.NaN, Verdict.NOT_IN_BASELINE));
+                    continue;
+                }
+                
+                double baselineValue = Statistics.mean(baselineValues);
+                double change = (currentValue - baselineValue) * 100 / baselineValue;
+                double changeHalfWidth = Statistics.differenceConfidenceHalfWidth(baselineValues, currentValues) * 100 / Math.abs(baselineValue);
+                
+                // the times get worse when they increase, the throughputs (per second) when they decrease
+                double worsening = isHigherBetter(unit) ? -change : change;
+                double margin = Double.isNaN(changeHalfWidth) ? 0 : changeHalfWidth;
+                
+                Verdict verdict = Verdict.OK;
+                if(worsening - margin > threshold)
+                    verdict = Verdict.REGRESSION;
+                else if(worsening + margin < -threshold)
+                    verdict = Verdict.IMPROVED;
+                
+                result.add(new Comparison(testerName, key, unit, baselineValue, currentValue, change, changeHalfWidth, verdict));
+            }
+        }
+        
+        return result;
+    }
+    
+    private static boolean isHigherBetter(String unit)
+    {
+        return unit.endsWith("/s");
+    }
+    
+    /**
+     *
+     * @return The report of the comparison, with a row for every compared metric
+     */
+    public String getReport()
+    {
+        StringBuilder report = new StringBuilder();
+        
+        report.append("-----------------------------------------------------\n");
+        report.append("Comparison with baseline: ").append(baselineName).append("\n");
+        report.append("Regression threshold: ").append(String.format("%.1f", threshold)).append("%\n");
+        report.append("Confidence intervals: ").append(Math.round(Statistics.CONFIDENCE_LEVEL * 100)).append("% (only if there are repeated samples)\n\n");
+        
+        report.append(String.format("%-60s %-32s %16s %16s %10s %10s  %s%n", "tester", "metric", "baseline", "current", "change", "+/-", "verdict"));
+        
+        int numOfRegressions = 0;
+        for(Comparison comparison : comparisons)
+        {
+            boolean inBaseline = comparison.getVerdict() != Verdict.NOT_IN_BASELINE;
+            
+            report.append(String.format("%-60s %-32s %16s %16s %10s %10s  %s%n", 
+                                        comparison.getTesterName(), comparison.getKey() + " (" + comparison.getUnit() + ")", 
+                                        inBaseline ? String.format("%.0f", comparison.getBaselineValue()) : "-", 
+                                        String.format("%.0f", comparison.getCurrentValue()), 
+                                        inBaseline ? String.format("%+.1f%%", comparison.getChange()) : "-", 
+                                        inBaseline && !Double.isNaN(comparison.getChangeHalfWidth()) ? String.format("%.1f%%", comparison.getChangeHalfWidth()) : "-", 
+                                        comparison.getVerdict().name().toLowerCase().replace('_', ' ')));
+            
+            if(comparison.getVerdict() == Verdict.REGRESSION)
+                numOfRegressions++;
+        }
+        
+        report.append("\n").append(comparisons.size()).append(" metrics compared, ").append(numOfRegressions).append(" regressions\n");
+        if(numOfRegressions > 0)
+            report.append("PERFORMANCE REGRESSION DETECTED\n");
+        report.append("-----------------------------------------------------\n\n");
+        
+        return report.toString();
+    }
+    
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.report;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The results of a previous run, loaded from a result file written by {@link CsvResultReporter}, used as the baseline 
+ * the current run is compared with (see {@link BaselineComparisonReporter}). 
+ * The values are grouped by tester and metric key. The testers are identified by name and order of appearance, 
+ * so that different testers with the same name (e.g. the same test with different settings) are not merged: 
+ * the second tester with a name is identified as "name #2", the third one as "name #3" and so on (see {@link #getTesterKey(String, int) getTesterKey}).
+ * For the testers executed in {@link com.vin.dbbenchmark.test.RepeatedTrialsTester repeated trials} the samples are the values of the trials, 
+ * not their mean.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class BaselineResults {
+    
+    private final Map<String,Map<String,List<Double>>> values = new LinkedHashMap<>();
+    private final Map<String,String> units = new LinkedHashMap<>();
+    private final Map<String,String> metadata = new LinkedHashMap<>();
+    
+    /**
+     * Load the results from a CSV result file.
+     * 
+     * @param fileName The path of the file
+     * @return The results of the file
+     * @throws IOException If the file cannot be read or it is not a CSV result file
+     */
+    public static BaselineResults load(String fileName) throws IOException
+    {
+        String content = new String(Files.readAllBytes(Paths.get(fileName)), StandardCharsets.UTF_8);
+        
+        List<List<String>> rows = parse(content);
+        
+        if(rows.isEmpty() || !String.join(",", rows.get(0)).equals(CsvResultReporter.HEADER))
+            throw new IOException(fileName + " is not a CSV result file: the header is missing");
+        
+        BaselineResults results = new BaselineResults();
+        
+        // the testers executed in repeated trials have a sample for every trial, instead of the mean of the trials
+        Set<String> repeatedTesterIndexes = new HashSet<>();
+        for(List<String> row : rows.subList(1, rows.size()))
+        {
+            if(row.size() != 6)
+                throw new IOException(fileName + " is not a CSV result file: invalid row " + row);
+            
+            if(row.get(0).startsWith(CsvResultReporter.TRIAL_RECORD + " "))
+                repeatedTesterIndexes.add(row.get(1));
+        }
+        
+        // the key of every tester (by tester index) and the number of testers found with every name
+        Map<String,String> testerKeys = new HashMap<>();
+        Map<String,Integer> occurrences = new HashMap<>();
+        
+        for(List<String> row : rows.subList(1, rows.size()))
+        {
+            String record = row.get(0);
+            boolean repeated = repeatedTesterIndexes.contains(row.get(1));
+            
+            if(record.equals("metadata") && row.get(2).isEmpty())
+                results.metadata.put(row.get(3), row.get(4));
+            else if(record.equals("metric") && !repeated || record.startsWith(CsvResultReporter.TRIAL_RECORD + " ") && repeated)
+            {
+                String testerKey = testerKeys.computeIfAbsent(row.get(1), index -> getTesterKey(row.get(2), occurrences.merge(row.get(2), 1, Integer::sum)));
+                
+                try {
+                    results.add(testerKey, row.get(3), Double.parseDouble(row.get(4)), row.get(5));
+                } catch (NumberFormatException ex) {
+                    throw new IOException(fileName + " is not a CSV result file: invalid value in row " + row, ex);
+                }
+            }
+        }
+        
+        return results;
+    }
+    
+    /**
+     * The key that identifies a tester in the results: its name, followed by its position among the testers with the same name 
+     * (from the second one on).
+     * 
+     * @param testerName The name of the tester
+     * @param occurrence The position of the tester among the testers with the same name (1 for the first one)
+     * @return The key of the tester
+     */
+    public static String getTesterKey(String testerName, int occurrence)
+    {
+        return occurrence > 1 ? testerName + " #" + occurrence : testerName;
+    }
+    
+    /**
+     * Add a sample of a metric.
+     * 
+     * @param testerName The key of the tester (see {@link #getTesterKey(String, int) getTesterKey})
+     * @param key The key of the metric in the result of the tester
+     * @param value The value
+     * @param unit The unit of the value
+     */
+    public void add(String testerName, String key, double value, String unit)
+    {
+        values.computeIfAbsent(testerName, name -> new LinkedHashMap<>()).computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+        units.put(testerName + "\n" + key, unit);
+    }
+    
+    /**
+     *
+     * @param testerName The key of a tester
+     * @param key The key of a metric
+     * @return The samples of the metric (one for every trial of the tester), or null if the metric is not in the results
+     */
+    public double[] getValues(String testerName, String key)
+    {
+        Map<String,List<Double>> testerValues = values.get(testerName);
+        List<Double> samples = testerValues != null ? testerValues.get(key) : null;
+        
+        if(samples == null)
+            return null;
+        
+        double[] array = new double[samples.size()];
+        for(int i = 0; i < array.length; i++)
+            array[i] = samples.get(i);
+        
+        return array;
+    }
+    
+    /**
+     *
+     * @param testerName The key of a tester
+     * @param key The key of a metric
+     * @return The unit of the metric, or null if the metric is not in the results
+     */
+    public String getUnit(String testerName, String key)
+    {
+        return units.get(testerName + "\n" + key);
+    }
+    
+    /**
+     *
+     * @return The keys of the testers, in the order they have been executed
+     */
+    public List<String> getTesterNames()
+    {
+        return new ArrayList<>(values.keySet());
+    }
+    
+    /**
+     *
+     * @param testerName The key of a tester
+     * @return The keys of the metrics of the tester, in the order of its result
+     */
+    public List<String> getKeys(String testerName)
+    {
+        Map<String,List<Double>> testerValues = values.get(testerName);
+        
+        return testerValues != null ? new ArrayList<>(testerValues.keySet()) : new ArrayList<>();
+    }
+    
+    /**
+     *
+     * @return The metadata of the run (e.g. the start time and the configuration)
+     */
+    public Map<String,String> getMetadata() {
+        return metadata;
+    }
+    
+    /**
+     * Split CSV content in rows and fields. Quoted fields can contain commas, quotes (doubled) and line breaks.
+     */
+    static List<List<String>> parse(String content)
+    {
+        List<List<String>> rows = new ArrayList<>();
+        List<String> row = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        
+        for(int i = 0; i < content.length(); i++)
+        {
+            char c = content.charAt(i);
+            
+            if(quoted)
+            {
+                if(c != '"')
+                    field.append(c);
+                else if(i + 1 < content.length() && content.charAt(i + 1) == '"')
+                    field.append(content.charAt(++i));
+                else
+                    quoted = false;
+            }
+            else if(c == '"')
+                quoted = true;
+            else if(c == ',')
+            {
+                row.add(field.toString());
+                field.setLength(0);
+            }
+            else if(c == '\n')
+            {
+                row.add(field.toString());
+                field.setLength(0);
+                rows.add(row);
+                row = new ArrayList<>();
+            }
+            else if(c != '\r')
+                field.append(c);
+        }
+        
+        if(field.length() > 0 || !row.isEmpty())
+        {
+            row.add(field.toString());
+            rows.add(row);
+        }
+        
+        return rows;
+    }
+    
+}
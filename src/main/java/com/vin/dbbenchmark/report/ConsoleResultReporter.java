@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.report;
+
+import com.vin.dbbenchmark.test.Interval;
+import com.vin.dbbenchmark.test.Result;
+import com.vin.dbbenchmark.test.Tester;
+import java.util.Map;
+
+/**
+ * This {@link ResultReporter} prints the name, the info and the result of every tester on the standard output, in a human readable format. 
+ * The statistics of every interval are printed on a single line.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class ConsoleResultReporter implements ResultReporter {
+
+    @Override
+    public void startRun(Map<String, String> runMetadata) {
+    }
+
+    @Override
+    public void reportTester(Tester tester, long startTime, long endTime) {
+
+        System.out.print("-----------------------------------------------------\n");
+
+        String testerTitle = "Result for tester: " + tester.getTestName() + "\n";
+        System.out.print(testerTitle);
+
+        String testInfo = "\n" + tester.getTestInfo() + "\n";
+        System.out.print(testInfo);
+
+        tester.getResult().print();
+
+        System.out.print("-----------------------------------------------------\n");
+        System.out.print("\n\n");
+        
+    }
+
+    @Override
+    public void reportInterval(String testName, Interval interval) {
+        
+        Result result = interval.getResult();
+        
+        StringBuilder line = new StringBuilder("Interval ").append(interval.getIndex()).append(" of ").append(testName)
+            .append(" [").append(result.get("start")).append("-").append(result.get("end")).append(" ms]:");
+        
+        boolean first = true;
+        for(Map.Entry<String,Long> entry : result.entrySet())
+        {
+            if(entry.getKey().equals("start") || entry.getKey().equals("end"))
+                continue;
+            
+            line.append(first ? " " : ", ").append(entry.getKey()).append(" ").append(entry.getValue()).append(" ").append(result.getUnit(entry.getKey()));
+            first = false;
+        }
+        
+        System.out.print(line.append("\n"));
+    }
+
+    @Override
+    public void endRun() {
+    }
+    
+}
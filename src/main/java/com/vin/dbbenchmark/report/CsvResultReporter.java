@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.report;
+
+import com.vin.dbbenchmark.test.Interval;
+import com.vin.dbbenchmark.test.RepeatedTrialsTester;
+import com.vin.dbbenchmark.test.Result;
+import com.vin.dbbenchmark.test.Tester;
+import com.vin.dbbenchmark.utils.LatencyHistogram;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This {@link ResultReporter} writes the results in CSV format, a value per row, with the columns:<br>
+ * - record: metadata (a metadata of the run), metric (a value of the result of a tester), trial N (a value of the result of the trial N of a tester 
+ * executed in {@link RepeatedTrialsTester repeated trials}), interval N (a value of the interval N of a running tester, if the intervals are recorded) 
+ * or histogram (a bucket of the histogram of the execution times of a tester)<br>
+ * - tester index and tester name (empty for the metadata)<br>
+ * - key: the name of the metadata, the key of the value in the result, or the range of the bucket in nanoseconds ("lowest-highest")<br>
+ * - value: the metadata, the value or the number of executions in the bucket<br>
+ * - unit: the unit of the value (empty for the metadata)<br>
+ * The start and the end times of every tester are written as metadata rows of the tester (keys "start time" and "end time").
+ * 
+ * @author Vincenzo Micelli
+ */
+public class CsvResultReporter extends FileResultReporter {
+    
+    /**
+     * The header of the file
+     */
+    public static final String HEADER = "record,tester index,tester,key,value,unit";
+    
+    /**
+     * The record of the values of a trial of a tester executed in repeated trials (followed by the number of the trial)
+     */
+    public static final String TRIAL_RECORD = "trial";
+    
+    /**
+     * The record of the values of an interval of a tester (followed by the position of the interval)
+     */
+    public static final String INTERVAL_RECORD = "interval";
+
+    /**
+     *
+     * @param fileName The path of the file (it is overwritten)
+     * @param includeHistograms true to write also the buckets of the histogram of the execution times of every tester
+     */
+    public CsvResultReporter(String fileName, boolean includeHistograms) {
+        super(fileName, includeHistograms);
+    }
+
+    @Override
+    protected void writeRunStart(Map<String, String> runMetadata) throws IOException {
+        
+        getWriter().write(HEADER + "\n");
+        
+        for(Map.Entry<String,String> entry : runMetadata.entrySet())
+            writeRow("metadata", "", "", entry.getKey(), entry.getValue(), "");
+    }
+
+    @Override
+    protected void writeTester(int index, Tester tester, long startTime, long endTime) throws IOException {
+        
+        String testerIndex = String.valueOf(index);
+        String testerName = tester.getTestName();
+        Result result = tester.getResult();
+        
+        writeRow("metadata", testerIndex, testerName, "start time", formatTime(startTime), "");
+        writeRow("metadata", testerIndex, testerName, "end time", formatTime(endTime), "");
+        
+        for(Map.Entry<String,Long> entry : result.entrySet())
+            writeRow("metric", testerIndex, testerName, entry.getKey(), String.valueOf(entry.getValue()), result.getUnit(entry.getKey()));
+        
+        if(tester instanceof RepeatedTrialsTester)
+        {
+            List<Result> trialResults = ((RepeatedTrialsTester)tester).getTrialResults();
+            
+            for(int i = 0; i < trialResults.size(); i++)
+            {
+                for(Map.Entry<String,Long> entry : trialResults.get(i).entrySet())
+                    writeRow(TRIAL_RECORD + " " + (i + 1), testerIndex, testerName, entry.getKey(), String.valueOf(entry.getValue()), trialResults.get(i).getUnit(entry.getKey()));
+            }
+        }
+        
+        LatencyHistogram histogram = isIncludeHistograms() ? getHistogram(tester) : null;
+        
+        if(histogram != null)
+        {
+            StringBuilder rows = new StringBuilder();
+            histogram.forEachRecordedValue((lowestValue, highestValue, count) -> 
+                rows.append(toRow("histogram", testerIndex, testerName, lowestValue + "-" + highestValue, String.valueOf(count), "executions")));
+            getWriter().write(rows.toString());
+        }
+    }
+
+    @Override
+    protected void writeInterval(int index, String testName, Interval interval) throws IOException {
+        
+        Result result = interval.getResult();
+        
+        for(Map.Entry<String,Long> entry : result.entrySet())
+            writeRow(INTERVAL_RECORD + " " + interval.getIndex(), String.valueOf(index), testName, entry.getKey(), String.valueOf(entry.getValue()), result.getUnit(entry.getKey()));
+    }
+
+    @Override
+    protected void writeRunEnd(int numOfTesters) throws IOException {
+        
+        writeRow("metadata", "", "", "end time", formatTime(System.currentTimeMillis()), "");
+    }
+    
+    private void writeRow(String... fields) throws IOException
+    {
+        getWriter().write(toRow(fields));
+    }
+    
+    private static String toRow(String... fields)
+    {
+        StringBuilder row = new StringBuilder();
+        
+        for(int i = 0; i < fields.length; i++)
+            row.append(i == 0 ? "" : ",").append(escape(fields[i]));
+        
+        return row.append("\n").toString();
+    }
+    
+    /**
+     *
+     * @param field The value of a field
+     * @return The field quoted if it contains commas, quotes or line breaks
+     */
+    static String escape(String field)
+    {
+        if(field == null)
+            return "";
+        
+        if(field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0)
+            return field;
+        
+        return "\"" + field.replace("\"", "\"\"") + "\"";
+    }
+    
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.report;
+
+import com.vin.dbbenchmark.test.BaseTester;
+import com.vin.dbbenchmark.test.ConcurrentTester;
+import com.vin.dbbenchmark.test.Interval;
+import com.vin.dbbenchmark.test.RepeatedTrialsTester;
+import com.vin.dbbenchmark.test.Tester;
+import com.vin.dbbenchmark.utils.LatencyHistogram;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link ResultReporter} that writes the results in a file, in a machine readable format implemented by subclasses. 
+ * Every tester is written (and flushed) as soon as it is reported, so that the file contains the results of the completed testers also if the run is interrupted. 
+ * If the file cannot be written, the error is logged and the following results are not written.
+ * 
+ * @author Vincenzo Micelli
+ */
+public abstract class FileResultReporter implements ResultReporter {
+    
+    private final String fileName;
+    private final boolean includeHistograms;
+    
+    private Writer writer;
+    private int numOfReportedTesters;
+
+    /**
+     *
+     * @param fileName The path of the file (it is overwritten)
+     * @param includeHistograms true to write also the buckets of the histogram of the execution times of every tester
+     */
+    public FileResultReporter(String fileName, boolean includeHistograms) {
+        this.fileName = fileName;
+        this.includeHistograms = includeHistograms;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public boolean isIncludeHistograms() {
+        return includeHistograms;
+    }
+    
+    @Override
+    public void startRun(Map<String, String> runMetadata) {
+        
+        numOfReportedTesters = 0;
+        
+        try {
+            writer = Files.newBufferedWriter(Paths.get(fileName), StandardCharsets.UTF_8);
+            writeRunStart(runMetadata);
+            writer.flush();
+        } catch (IOException ex) {
+            handleError(ex);
+        }
+    }
+
+    @Override
+    public void reportTester(Tester tester, long startTime, long endTime) {
+        
+        if(writer == null)
+            return;
+        
+        try {
+            writeTester(++numOfReportedTesters, tester, startTime, endTime);
+            writer.flush();
+        } catch (IOException ex) {
+            handleError(ex);
+        }
+    }
+
+    @Override
+    public void reportInterval(String testName, Interval interval) {
+        
+        if(writer == null)
+            return;
+        
+        try {
+            // the interval belongs to the tester that is running
+            writeInterval(numOfReportedTesters + 1, testName, interval);
+            writer.flush();
+        } catch (IOException ex) {
+            handleError(ex);
+        }
+    }
+
+    @Override
+    public void endRun() {
+        
+        if(writer == null)
+            return;
+        
+        try {
+            writeRunEnd(numOfReportedTesters);
+            writer.close();
+        } catch (IOException ex) {
+            Logger.getLogger(FileResultReporter.class.getName()).log(Level.SEVERE, "Failed to write the results in " + fileName, ex);
+        }
+        
+        writer = null;
+    }
+    
+    private void handleError(IOException ex)
+    {
+        Logger.getLogger(FileResultReporter.class.getName()).log(Level.SEVERE, "Failed to write the results in " + fileName + ". The following results are not written.", ex);
+        
+        if(writer != null)
+        {
+            try {
+                writer.close();
+            } catch (IOException closeException) {
+                Logger.getLogger(FileResultReporter.class.getName()).log(Level.SEVERE, null, closeException);
+            }
+        }
+        
+        writer = null;
+    }
+    
+    /**
+     *
+     * @return The writer of the file, that subclasses use to write the records
+     */
+    protected Writer getWriter() {
+        return writer;
+    }
+    
+    /**
+     * Subclasses have to implement this method to write the metadata of the run.
+     * 
+     * @param runMetadata The metadata of the run
+     * @throws IOException Throws I/O exceptions
+     */
+    protected abstract void writeRunStart(Map<String,String> runMetadata) throws IOException;
+    
+    /**
+     * Subclasses have to implement this method to write the result of a tester.
+     * 
+     * @param index The position of the tester in the run (starting from 1)
+     * @param tester The tester
+     * @param startTime The time the tester started (in milliseconds since the epoch)
+     * @param endTime The time the tester completed (in milliseconds since the epoch)
+     * @throws IOException Throws I/O exceptions
+     */
+    protected abstract void writeTester(int index, Tester tester, long startTime, long endTime) throws IOException;
+    
+    /**
+     * Subclasses have to implement this method to write the statistics of an interval of the running tester.
+     * 
+     * @param index The position of the tester in the run (starting from 1)
+     * @param testName The name of the tester
+     * @param interval The interval
+     * @throws IOException Throws I/O exceptions
+     */
+    protected abstract void writeInterval(int index, String testName, Interval interval) throws IOException;
+    
+    /**
+     * Subclasses have to implement this method to write the end of the run.
+     * 
+     * @param numOfTesters The number of reported testers
+     * @throws IOException Throws I/O exceptions
+     */
+    protected abstract void writeRunEnd(int numOfTesters) throws IOException;
+    
+    /**
+     *
+     * @param tester A tester
+     * @return The histogram of the execution times of the test iterations of the tester (the aggregate histogram for concurrent testers), 
+     * or null if the tester does not have a single histogram. For repeated trials, the histogram of the last trial.
+     */
+    protected static LatencyHistogram getHistogram(Tester tester)
+    {
+        if(tester instanceof RepeatedTrialsTester)
+            return getHistogram(((RepeatedTrialsTester)tester).getTester());
+        
+        if(tester instanceof ConcurrentTester)
+            return ((ConcurrentTester)tester).getAggregateTester().getHistogram();
+        
+        if(tester instanceof BaseTester)
+            return ((BaseTester)tester).getHistogram();
+        
+        return null;
+    }
+    
+    /**
+     *
+     * @param time A time in milliseconds since the epoch
+     * @return The time in ISO-8601 format (UTC)
+     */
+    protected static String formatTime(long time)
+    {
+        return Instant.ofEpochMilli(time).toString();
+    }
+    
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.report;
+
+import com.vin.dbbenchmark.test.Interval;
+import com.vin.dbbenchmark.test.RepeatedTrialsTester;
+import com.vin.dbbenchmark.test.Result;
+import com.vin.dbbenchmark.test.Tester;
+import com.vin.dbbenchmark.utils.LatencyHistogram;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This {@link ResultReporter} writes the results in JSON Lines format: a JSON object per line, so that every record is complete when it is written. 
+ * The first line is the run (type "run", with the metadata), then there is a line for every tester (type "tester", with name, info, 
+ * start and end time, the values of the result with their units, the values of every trial for the testers executed in 
+ * {@link RepeatedTrialsTester repeated trials} and, optionally, the buckets of the histogram of the execution times) 
+ * and the last line is the end of the run (type "end"). If the intervals are recorded, the lines of the tester are preceded by a line 
+ * for every interval of its test (type "interval", with the index and the name of the tester, the position of the interval and its values).
+ * 
+ * @author Vincenzo Micelli
+ */
+public class JsonResultReporter extends FileResultReporter {
+
+    /**
+     *
+     * @param fileName The path of the file (it is overwritten)
+     * @param includeHistograms true to write also the buckets of the histogram of the execution times of every tester
+     */
+    public JsonResultReporter(String fileName, boolean includeHistograms) {
+        super(fileName, includeHistograms);
+    }
+
+    @Override
+    protected void writeRunStart(Map<String, String> runMetadata) throws IOException {
+        
+        Writer writer = getWriter();
+        
+        writer.write("{\"type\":\"run\",\"metadata\":{");
+        boolean first = true;
+        for(Map.Entry<String,String> entry : runMetadata.entrySet())
+        {
+            writer.write(first ? "" : ",");
+            writer.write(quote(entry.getKey()) + ":" + quote(entry.getValue()));
+            first = false;
+        }
+        writer.write("}}\n");
+    }
+
+    @Override
+    protected void writeTester(int index, Tester tester, long startTime, long endTime) throws IOException {
+        
+        Writer writer = getWriter();
+        Result result = tester.getResult();
+        
+        writer.write("{\"type\":\"tester\",\"index\":" + index + 
+                     ",\"name\":" + quote(tester.getTestName()) + 
+                     ",\"startTime\":" + quote(formatTime(startTime)) + 
+                     ",\"endTime\":" + quote(formatTime(endTime)) + 
+                     ",\"info\":" + quote(tester.getTestInfo()) + 
+                     ",\"metrics\":[");
+        
+        writeMetrics(writer, result);
+        writer.write("]");
+        
+        if(tester instanceof RepeatedTrialsTester)
+        {
+            RepeatedTrialsTester repeatedTrialsTester = (RepeatedTrialsTester)tester;
+            List<Result> trialResults = repeatedTrialsTester.getTrialResults();
+            List<List<String>> outlierKeys = repeatedTrialsTester.getOutlierKeys();
+            
+            writer.write(",\"trials\":[");
+            for(int i = 0; i < trialResults.size(); i++)
+            {
+                writer.write((i == 0 ? "" : ",") + "{\"trial\":" + (i + 1) + ",\"outlierMetrics\":[");
+                for(int j = 0; j < outlierKeys.get(i).size(); j++)
+                    writer.write((j == 0 ? "" : ",") + quote(outlierKeys.get(i).get(j)));
+                writer.write("],\"metrics\":[");
+                writeMetrics(writer, trialResults.get(i));
+                writer.write("]}");
+            }
+            writer.write("]");
+        }
+        
+        LatencyHistogram histogram = isIncludeHistograms() ? getHistogram(tester) : null;
+        
+        if(histogram != null)
+        {
+            // every bucket is [lowest value, highest value, count], the values are in nanoseconds
+            StringBuilder buckets = new StringBuilder();
+            histogram.forEachRecordedValue((lowestValue, highestValue, count) -> 
+                buckets.append(buckets.length() == 0 ? "" : ",").append('[').append(lowestValue).append(',').append(highestValue).append(',').append(count).append(']'));
+            
+            writer.write(",\"histogram\":{\"unit\":\"ns\",\"significantDigits\":" + histogram.getNumberOfSignificantValueDigits() + 
+                         ",\"totalCount\":" + histogram.getTotalCount() + ",\"buckets\":[" + buckets + "]}");
+        }
+        
+        writer.write("}\n");
+    }
+
+    @Override
+    protected void writeInterval(int index, String testName, Interval interval) throws IOException {
+        
+        Writer writer = getWriter();
+        
+        writer.write("{\"type\":\"interval\",\"index\":" + index + 
+                     ",\"name\":" + quote(testName) + 
+                     ",\"interval\":" + interval.getIndex() + 
+                     ",\"metrics\":[");
+        writeMetrics(writer, interval.getResult());
+        writer.write("]}\n");
+    }
+
+    private static void writeMetrics(Writer writer, Result result) throws IOException
+    {
+        boolean first = true;
+        for(Map.Entry<String,Long> entry : result.entrySet())
+        {
+            writer.write(first ? "" : ",");
+            writer.write("{\"name\":" + quote(entry.getKey()) + ",\"value\":" + entry.getValue() + ",\"unit\":" + quote(result.getUnit(entry.getKey())) + "}");
+            first = false;
+        }
+    }
+
+    @Override
+    protected void writeRunEnd(int numOfTesters) throws IOException {
+        
+        getWriter().write("{\"type\":\"end\",\"endTime\":" + quote(formatTime(System.currentTimeMillis())) + ",\"testers\":" + numOfTesters + "}\n");
+    }
+    
+    /**
+     *
+     * @param value A string (null is written as null)
+     * @return The string as a JSON string literal
+     */
+    static String quote(String value)
+    {
+        if(value == null)
+            return "null";
+        
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        
+        for(int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            switch(c)
+            {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if(c < 0x20)
+                        quoted.append(String.format("\\u%04x", (int)c));
+                    else
+                        quoted.append(c);
+            }
+        }
+        
+        return quoted.append('"').toString();
+    }
+    
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.report;
+
+import com.vin.dbbenchmark.test.Interval;
+import com.vin.dbbenchmark.test.Tester;
+import java.util.Map;
+
+/**
+ * Interface implemented to output the results of a benchmark run (e.g. on the console or in a file), as soon as every {@link Tester} completes. 
+ * A reporter receives the metadata of the run when the run starts, then every executed tester and finally the end of the run, 
+ * so it does not need to keep the results of the previous testers in memory. While a tester is running, the reporter can also receive 
+ * the statistics of every interval of its test.
+ * 
+ * @author Vincenzo Micelli
+ */
+public interface ResultReporter {
+    
+    /**
+     * Called when the run starts, before the first tester is executed.
+     * 
+     * @param runMetadata The metadata of the run (e.g. database, configuration, JVM, host and start time), in the order they have to be reported
+     */
+    void startRun(Map<String,String> runMetadata);
+    
+    /**
+     * Called after every tester has executed its tests.
+     * 
+     * @param tester The tester (its result, info and name refer to the last execution)
+     * @param startTime The time the tester started (in milliseconds since the epoch)
+     * @param endTime The time the tester completed (in milliseconds since the epoch)
+     */
+    void reportTester(Tester tester, long startTime, long endTime);
+    
+    /**
+     * Called while a tester is running, when the test iterations of an interval are completed (only if the intervals are recorded). 
+     * The method is called by the thread that collects the intervals, never concurrently and before the tester is reported.
+     * 
+     * @param testName The name of the tester (or of the tester of the step, for testers that execute other testers)
+     * @param interval The interval
+     */
+    default void reportInterval(String testName, Interval interval) {
+    }
+    
+    /**
+     * Called when the run ends, after the last tester has been reported. The reporter has to release its resources.
+     */
+    void endRun();
+    
+    /**
+     * Called after the end of the run, to know if the reporter considers the run failed (e.g. because a performance regression has been detected).
+     * 
+     * @return 0 if the run is not failed, otherwise a positive status that is used as the exit code of the application
+     */
+    default int getStatus() {
+        return 0;
+    }
+}
@@ -15,8 +15,12 @@
  */
 package com.vin.dbbenchmark.test;
 
+import com.vin.dbbenchmark.utils.LatencyHistogram;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -25,21 +29,71 @@ import java.util.logging.Logger;
  * and evaluate the min, max and average times (in nanoseconds). In addition, before starting the actual tests, the tester performs a specific number 
  * of warmup iterations to provide more reliable results for the actual iterations.
  * 
+ * Execution times are recorded in {@link LatencyHistogram} objects, so the memory used by the tester does not depend on the number 
+ * of iterations and no object is allocated to record a time. Besides min, max and avg times, the tester provides the percentiles of the times.
+ * 
+ * By default the test iterations are executed one after the other for a fixed number of times (closed loop). 
+ * The tester can also run the test iterations for a fixed duration (see {@link #setTestDuration(long) setTestDuration}) 
+ * and/or start them at a fixed rate (open loop, see {@link #setTargetThroughput(double) setTargetThroughput}). 
+ * In open loop the execution time of an iteration is measured from the time the iteration was supposed to start, 
+ * so when the tested system stalls the delay of the following iterations is part of their times (no coordinated omission).
+ * Instead of a fixed number of warmup iterations, the tester can warm up until the avg time of the iterations is stable 
+ * (see {@link #setAdaptiveWarmup(int, double, int) setAdaptiveWarmup}). The throughput and the percentiles of the times can also be 
+ * reported for every interval of the test while it is running (see {@link #setIntervalRecorder(IntervalRecorder) setIntervalRecorder}).
+ * 
  * @author Vincenzo Micelli
  */
 public abstract class BaseTester implements Tester{
 
+    /**
+     * Default highest time (in nanoseconds) tracked by the histograms with the requested precision 
+     */
+    public static final long DEFAULT_HISTOGRAM_HIGHEST_TRACKABLE_TIME = TimeUnit.MINUTES.toNanos(10);
+    
+    /**
+     * Default number of significant digits of the times recorded by the histograms
+     */
+    public static final int DEFAULT_HISTOGRAM_SIGNIFICANT_DIGITS = 3;
+    
+    /**
+     * Percentiles provided in the result of the tester
+     */
+    protected static final double[] RESULT_PERCENTILES = {50, 90, 99, 99.9, 99.99};
+    
+    /**
+     * Number of consecutive windows of warmup iterations whose avg times have to be within the tolerance for the adaptive warmup to stop
+     */
+    public static final int STEADY_STATE_WINDOWS = 3;
+    
+    // waits longer than this time are done parking the thread, the rest of the wait is done spinning
+    private static final long MIN_PARK_TIME = TimeUnit.MICROSECONDS.toNanos(100);
+    
+    // max number of points of the warmup curve in the info of the tester (consecutive windows are averaged)
+    private static final int MAX_WARMUP_CURVE_POINTS = 40;
+    
     private final int numOfExecutions;
     private final int numOfWarmupExecutions;
-    private List<Long> warmupExecutionTimes;
-    private List<Long> executionTimes;
+    private LatencyHistogram warmupHistogram;
+    private LatencyHistogram histogram;
+    private LatencyHistogram serviceTimeHistogram;
+    
+    private long testDuration;
+    private double targetThroughput;
+    
+    private int warmupWindowSize;
+    private double warmupTolerance;
+    private int maxWarmupExecutions;
+    private int executedWarmupExecutions;
+    private long warmupTime;
+    private int steadyStateExecution;
+    private final List<Long> warmupCurve = new ArrayList<>();
    
-    private long warmupMinTime;
-    private long warmupMaxTime;
-    private long warmupAvgTime;
-    private long minTime;
-    private long maxTime;
-    private long avgTime;
+    private long testStartTime;
+    private long testEndTime;
+    private boolean aborted;
+    
+    private Phaser startPhaser;
+    private IntervalRecorder intervalRecorder;
     
     public enum IterationType{
         WARMUP,
@@ -53,21 +107,166 @@ public abstract class BaseTester implements Tester{
      */
     public BaseTester(int numOfExecutions,int numOfWarmupExecutions)
     {
-        initTimeProperties();
+        setHistogramPrecision(DEFAULT_HISTOGRAM_HIGHEST_TRACKABLE_TIME, DEFAULT_HISTOGRAM_SIGNIFICANT_DIGITS);
         this.numOfExecutions = numOfExecutions;
         this.numOfWarmupExecutions = numOfWarmupExecutions;
     }
     
+    /**
+     * Set the precision of the histograms that record the execution times. 
+     * The memory used by each histogram grows with the highest trackable time and (much faster) with the number of significant digits.
+     * 
+     * @param highestTrackableTime The highest time (in nanoseconds) that is recorded with the requested precision. Greater times are recorded as this value, but the max time is always exact.
+     * @param numberOfSignificantDigits The number of significant digits of the recorded times (between 0 and 5).
+     */
+    public final void setHistogramPrecision(long highestTrackableTime, int numberOfSignificantDigits)
+    {
+        this.histogram = new LatencyHistogram(highestTrackableTime, numberOfSignificantDigits);
+        this.warmupHistogram = histogram.copyEmpty();
+        // allocated with the precision of the other histograms by the next execution in open loop
+        this.serviceTimeHistogram = null;
+    }
+    
+    /**
+     * Run the test iterations for a fixed duration instead of a fixed number of executions.
+     * 
+     * @param testDuration The duration (in nanoseconds) of the test iterations. 0 to execute the number of executions passed to the constructor.
+     */
+    public void setTestDuration(long testDuration)
+    {
+        this.testDuration = testDuration;
+    }
+    
+    /**
+     * Start the test iterations at a fixed rate (open loop) instead of starting every iteration as soon as the previous one completes (closed loop).
+     * In open loop the time of an iteration is measured from its intended start time and includes the {@link #beforeTest(State) beforeTest} method.
+     * The time from the actual start of {@link #execTest(State) execTest} is recorded as service time. Warmup iterations are always executed in closed loop.
+     * 
+     * @param targetThroughput The number of iterations to start per second. 0 to run in closed loop.
+     */
+    public void setTargetThroughput(double targetThroughput)
+    {
+        this.targetThroughput = targetThroughput;
+    }
+
+    /**
+     * Warm up until the avg time of the iterations is stable, instead of executing the fixed number of warmup iterations passed to the constructor. 
+     * The warmup iterations are grouped in windows of windowSize iterations: the warmup stops when the avg times of the last 
+     * {@link #STEADY_STATE_WINDOWS} windows differ by at most the tolerance (in proportion to their mean), but not before the number of 
+     * warmup iterations passed to the constructor and not after maxWarmupExecutions iterations. 
+     * The avg time of every window (the warmup curve) is provided by {@link #getWarmupCurve() getWarmupCurve}.
+     * 
+     * @param windowSize The number of iterations of a window. 0 to execute the fixed number of warmup iterations passed to the constructor.
+     * @param tolerance The max difference of the avg times of the last windows (e.g. 0.05 for 5%)
+     * @param maxWarmupExecutions The max number of warmup iterations (the warmup stops also if the times are not stable)
+     */
+    public void setAdaptiveWarmup(int windowSize, double tolerance, int maxWarmupExecutions)
+    {
+        this.warmupWindowSize = windowSize;
+        this.warmupTolerance = tolerance;
+        this.maxWarmupExecutions = maxWarmupExecutions;
+    }
+    
+    /**
+     *
+     * @return true if the tester warms up until the avg time of the iterations is stable (see {@link #setAdaptiveWarmup(int, double, int) setAdaptiveWarmup})
+     */
+    public boolean isAdaptiveWarmup() {
+        return warmupWindowSize > 0;
+    }
+
+    public int getWarmupWindowSize() {
+        return warmupWindowSize;
+    }
+
+    public double getWarmupTolerance() {
+        return warmupTolerance;
+    }
+
+    public int getMaxWarmupExecutions() {
+        return maxWarmupExecutions;
+    }
+
+    /**
+     *
+     * @return The number of warmup iterations executed by the last execution of the tests
+     */
+    public int getExecutedWarmupExecutions() {
+        return executedWarmupExecutions;
+    }
+
+    /**
+     *
+     * @return The time (in nanoseconds) spent in the warmup iterations by the last execution of the tests
+     */
+    public long getWarmupTime() {
+        return warmupTime;
+    }
+
+    /**
+     *
+     * @return The number of warmup iterations after which the avg time became stable, or 0 if it did not become stable 
+     * (or the warmup is not adaptive)
+     */
+    public int getSteadyStateExecution() {
+        return steadyStateExecution;
+    }
+
+    /**
+     *
+     * @return The avg time (in nanoseconds) of every window of warmup iterations, in the order they have been executed (empty if the warmup is not adaptive)
+     */
+    public List<Long> getWarmupCurve() {
+        return warmupCurve;
+    }
+
+    /**
+     * Record the times of the test iterations also in intervals of fixed length, whose statistics are reported while the test is running. 
+     * The same recorder has to be set to all the testers that execute the test concurrently, so that the intervals include the times of all the threads. 
+     * Recording the times of an interval does not require any synchronization: the iterations are slowed down only by recording every time in a second histogram.
+     * 
+     * @param intervalRecorder The recorder of the intervals (null to not record the intervals)
+     */
+    public void setIntervalRecorder(IntervalRecorder intervalRecorder)
+    {
+        this.intervalRecorder = intervalRecorder;
+    }
+
+    public IntervalRecorder getIntervalRecorder() {
+        return intervalRecorder;
+    }
+
+    public long getTestDuration() {
+        return testDuration;
+    }
+
+    public double getTargetThroughput() {
+        return targetThroughput;
+    }
+    
     private void initTimeProperties()
     {
-        this.avgTime = 0;
-        this.maxTime = 0;
-        this.minTime = Long.MAX_VALUE;
-        this.warmupAvgTime = 0;
-        this.warmupMaxTime = 0;
-        this.warmupMinTime = Long.MAX_VALUE;
-        this.executionTimes = new ArrayList<>();
-        this.warmupExecutionTimes = new ArrayList<>();
+        this.testStartTime = 0;
+        this.testEndTime = 0;
+        this.executedWarmupExecutions = 0;
+        this.warmupTime = 0;
+        this.steadyStateExecution = 0;
+        this.warmupCurve.clear();
+        this.histogram.reset();
+        this.warmupHistogram.reset();
+        
+        // the service times are recorded only in open loop, so closed-loop testers (e.g. thousands of concurrent workers) do not allocate their histogram
+        if(targetThroughput > 0)
+        {
+            if(serviceTimeHistogram == null)
+                serviceTimeHistogram = histogram.copyEmpty();
+            
+            serviceTimeHistogram.reset();
+        }
+        else
+        {
+            serviceTimeHistogram = null;
+        }
     }
 
     public int getNumOfExecutions() {
@@ -78,36 +277,81 @@ public abstract class BaseTester implements Tester{
         return numOfWarmupExecutions;
     }
 
-    public List<Long> getWarmupExecutionTimes() {
-        return warmupExecutionTimes;
+    /**
+     *
+     * @return The histogram of the times of the warmup iterations.
+     */
+    public LatencyHistogram getWarmupHistogram() {
+        return warmupHistogram;
     }
 
-    public List<Long> getExecutionTimes() {
-        return executionTimes;
+    /**
+     *
+     * @return The histogram of the times of the test iterations.
+     */
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    /**
+     *
+     * @return The histogram of the service times of the test iterations (only recorded in open loop, see {@link #setTargetThroughput(double) setTargetThroughput}, 
+     * null if the last execution of the tests was not in open loop).
+     */
+    public LatencyHistogram getServiceTimeHistogram() {
+        return serviceTimeHistogram;
     }
 
     public long getWarmupMinTime() {
-        return warmupMinTime;
+        return warmupHistogram.getMinValue();
     }
 
     public long getWarmupMaxTime() {
-        return warmupMaxTime;
+        return warmupHistogram.getMaxValue();
     }
 
     public long getWarmupAvgTime() {
-        return warmupAvgTime;
+        return Math.round(warmupHistogram.getMean());
     }
 
     public long getMinTime() {
-        return minTime;
+        return histogram.getMinValue();
     }
 
     public long getMaxTime() {
-        return maxTime;
+        return histogram.getMaxValue();
     }
 
     public long getAvgTime() {
-        return avgTime;
+        return Math.round(histogram.getMean());
+    }
+    
+    /**
+     *
+     * @param percentile The percentile (between 0 and 100)
+     * @return The execution time at the given percentile.
+     */
+    public long getTimeAtPercentile(double percentile) {
+        return histogram.getValueAtPercentile(percentile);
+    }
+
+    /**
+     *
+     * @return The wall clock time (in nanoseconds) elapsed from the start of the first test iteration to the end of the last one.
+     */
+    public long getTestElapsedTime() {
+        return testEndTime - testStartTime;
+    }
+    
+    /**
+     * Set a {@link Phaser} shared with other testers running concurrently. 
+     * When a phaser is set, the tester waits for all the registered parties after the initialization and after the warmup iterations, 
+     * so that warmup and test iterations of all the testers start together.
+     * 
+     * @param startPhaser The phaser shared by the testers (null to run without synchronization).
+     */
+    void setStartPhaser(Phaser startPhaser) {
+        this.startPhaser = startPhaser;
     }
     
     /**
@@ -131,6 +375,25 @@ public abstract class BaseTester implements Tester{
      */
     protected abstract void beforeTest(State state);
     
+    /**
+     * Subclasses can call this method (e.g. from {@link #beforeTest(State) beforeTest}) to stop the tester when the tests cannot be executed 
+     * (e.g. because a resource needed by the tests is not available). 
+     * The current iteration is not executed nor measured ({@link #afterTest(State) afterTest} is not called), 
+     * no other iterations are executed and the tester finishes.
+     */
+    protected void abort()
+    {
+        aborted = true;
+    }
+    
+    /**
+     *
+     * @return true if the tester has been aborted during the last call to {@link #execTests() execTests} (see {@link #abort() abort})
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
+    
     /**
      * The code executed by this method represents the piece of code that is being tested. The tester measures the execution times of this method and provide statistical results. 
      * 
@@ -145,10 +408,37 @@ public abstract class BaseTester implements Tester{
      */
     protected abstract void afterTest(State state);
     
+    /**
+     * This method can be overridden to execute some operations before the warmup iterations and before the test iterations.
+     * It is executed before waiting for the other testers running concurrently (if any).
+     * 
+     * @param iterationType The type of the iterations that are going to be executed.
+     */
+    protected void beforeIterations(IterationType iterationType)
+    {
+    }
+    
+    /**
+     * This method can be overridden to execute some operations after the warmup iterations and after the test iterations 
+     * (e.g. to complete the work left pending by the iterations).
+     * Its time is included in the elapsed time of the iterations (and so in the throughput), not in the time of any iteration.
+     * 
+     * @param iterationType The type of the iterations that have been executed.
+     */
+    protected void afterIterations(IterationType iterationType)
+    {
+    }
+    
     
     @Override
     public void execTests()  {    
         
+        aborted = false;
+        
+        // the statistics shared with concurrent testers are reset once for all of them, before they start (so they include the initialization)
+        if(startPhaser == null)
+            resetSharedStatistics();
+        
         // try to init the tester
         int initResult = init();
         
@@ -160,22 +450,32 @@ public abstract class BaseTester implements Tester{
             return;
         }
         
-        //init times
+        //init times and the statistics of the subclasses (the same tester can execute the tests more than once, e.g. in repeated trials)
         initTimeProperties();
+        resetStatistics();
 
         State state = makeState();
         
-        long totalWarmupTime = 0;
         state.setIterationType(IterationType.WARMUP);
+        beforeIterations(IterationType.WARMUP);
         
-        // exec warmup iterations
-        for(int i=0; i< numOfWarmupExecutions; i++)
+        // wait for the other testers (if any) to complete their initialization
+        awaitStart();
+        
+        // exec warmup iterations (with adaptive warmup, until the times are stable)
+        long warmupStartTime = System.nanoTime();
+        long windowTime = 0;
+        
+        while(!aborted && isWarmupRunning())
         {
-            state.setIterationNumber(i+1);
+            state.setIterationNumber(executedWarmupExecutions+1);
             
             //code to be executed before every test implemented by subclasses 
             beforeTest(state);
             
+            if(aborted)
+                break;
+            
             
             // exec test and measure execution time
             long startTime = System.nanoTime();
@@ -185,33 +485,88 @@ public abstract class BaseTester implements Tester{
             //code to be executed after every test implemented by subclasses 
             afterTest(state);
             
-            // add execution time to warm up execution times
-            warmupExecutionTimes.add(executionTime);
+            // add execution time to warm up execution times (min, max and avg are computed by the histogram)
+            warmupHistogram.recordValue(executionTime);
+            executedWarmupExecutions++;
             
-            // check if the time of the current execution is a min or max time
-            if(executionTime < warmupMinTime) 
-                warmupMinTime = executionTime;
-            if(executionTime > warmupMaxTime)
-                warmupMaxTime = executionTime;
+            // the avg time of every window is a point of the warmup curve
+            if(isAdaptiveWarmup())
+            {
+                windowTime += executionTime;
                 
-            // add current execution time to total warmup time
-            totalWarmupTime += executionTime;
+                if(executedWarmupExecutions % warmupWindowSize == 0)
+                {
+                    warmupCurve.add(Math.round((double)windowTime / warmupWindowSize));
+                    windowTime = 0;
+                    
+                    if(executedWarmupExecutions >= numOfWarmupExecutions && isSteadyState(warmupCurve, warmupTolerance))
+                        steadyStateExecution = executedWarmupExecutions;
+                }
+            }
         }
         
-        // compute average execution time for warm up iterations
-        if(numOfWarmupExecutions > 0)
-            warmupAvgTime = totalWarmupTime/numOfWarmupExecutions;
+        afterIterations(IterationType.WARMUP);
+        
+        warmupTime = System.nanoTime() - warmupStartTime;
 
-        long totalIterationsTime = 0;
         state.setIterationType(IterationType.TEST_EXECUTION);
+        beforeIterations(IterationType.TEST_EXECUTION);
+        
+        // the threads executing the test concurrently register before any of them starts
+        IntervalRecorder.ThreadRecorder threadIntervalRecorder = intervalRecorder != null ? intervalRecorder.register(getTestName(), histogram) : null;
+        
+        // wait for the other testers (if any) to complete their warmup
+        awaitStart();
+        
+        // in open loop, iterations are supposed to start every intervalTime nanoseconds
+        double intervalTime = targetThroughput > 0 ? 1000000000.0 / targetThroughput : 0;
+        
+        testStartTime = System.nanoTime();
         
-        for(int i=0; i< numOfExecutions; i++)
+        if(threadIntervalRecorder != null)
+            threadIntervalRecorder.start(testStartTime);
+        
+        try {
+            execTestIterations(state, intervalTime, threadIntervalRecorder);
+            afterIterations(IterationType.TEST_EXECUTION);
+        } finally {
+            testEndTime = System.nanoTime();
+            
+            // report the last interval and wait for the intervals of the other threads, so that they are reported before the result
+            if(threadIntervalRecorder != null)
+                threadIntervalRecorder.finish(testEndTime);
+        }
+
+        if(aborted)
         {
+            String error = "The tester has been aborted after " + executedWarmupExecutions + " warmup iterations and " + histogram.getTotalCount() + " test iterations.\n\n";
+            Logger.getLogger(BaseTester.class.getName()).log(Level.SEVERE, error);
+        }
+
+        // free resources
+        finish();        
+    }
+    
+    private void execTestIterations(State state, double intervalTime, IntervalRecorder.ThreadRecorder threadIntervalRecorder)
+    {
+        for(int i=0; !aborted && (testDuration > 0 || i < numOfExecutions); i++)
+        {
+            long intendedStartTime = testStartTime + (long)(i * intervalTime);
+            
+            if(testDuration > 0 && Math.max(intendedStartTime, System.nanoTime()) - testStartTime >= testDuration)
+                break;
+            
+            if(intervalTime > 0)
+                waitUntil(intendedStartTime);
+            
             state.setIterationNumber(i+1);
             
             //code to be executed before every test implemented by subclasses  
             beforeTest(state);
             
+            if(aborted)
+                break;
+            
             // exec test and measure execution time
             long startTime = System.nanoTime();    
             execTest(state);
@@ -221,43 +576,36 @@ public abstract class BaseTester implements Tester{
             //code to be executed after every test implemented by subclasses
             afterTest(state);
             
-            // add execution to the list
-            executionTimes.add(executionTime);
+            // add execution time to the histogram (min, max and avg are computed by the histogram)
+            // in open loop the time is measured from the intended start time
+            long recordedTime = intervalTime > 0 ? end - intendedStartTime : executionTime;
+            histogram.recordValue(recordedTime);
+            if(intervalTime > 0)
+                serviceTimeHistogram.recordValue(executionTime);
             
-            // check if the time of the current execution is a min or max time
-            if(executionTime < minTime) 
-                minTime = executionTime;
-            if(executionTime > maxTime)
-                maxTime = executionTime;
-                
-            // add current execution time to total iterations time
-            totalIterationsTime += executionTime;
+            if(threadIntervalRecorder != null)
+                threadIntervalRecorder.recordValue(recordedTime, end);
         }
-        
-        // compute average execution time
-        if(numOfExecutions > 0)
-            avgTime = totalIterationsTime/numOfExecutions;
-
-        // free resources
-        finish();        
     }
 
     @Override
     public Result getResult() {
         Result result = new Result();
         
-        if(numOfWarmupExecutions > 0)
+        if(warmupHistogram.getTotalCount() > 0)
         {
-            result.put("min-warmup", warmupMinTime);
-            result.put("max-warmup", warmupMaxTime);
-            result.put("avg-warmup", warmupAvgTime);
+            result.put("min-warmup", getWarmupMinTime());
+            result.put("max-warmup", getWarmupMaxTime());
+            result.put("avg-warmup", getWarmupAvgTime());
         }
         
         if(numOfExecutions > 0)
         {
-            result.put("min", minTime);
-            result.put("max", maxTime);
-            result.put("avg", avgTime);
+            result.put("min", getMinTime());
+            result.put("max", getMaxTime());
+            result.put("avg", getAvgTime());
+            putPercentiles(result, "");
+            putRunStatistics(result, "");
         }
 
         return result;
@@ -267,11 +615,236 @@ public abstract class BaseTester implements Tester{
     public String getTestInfo() {
         
         String info = "Warmup Executions: " + numOfWarmupExecutions + "\n" + 
-                      "Executions: " + numOfExecutions + "\n";
+                      "Executions: " + numOfExecutions + "\n" + 
+                      getRunModeInfo();
         
         return info;
     }
     
+    /**
+     *
+     * @return A string with the info about test duration and target throughput (empty if the tester executes a fixed number of executions in closed loop).
+     */
+    protected String getRunModeInfo() {
+        
+        String info = "";
+        
+        if(testDuration > 0)
+            info += "Test duration: " + TimeUnit.NANOSECONDS.toSeconds(testDuration) + " s (executions are not limited)\n";
+        if(targetThroughput > 0)
+            info += "Target throughput: " + targetThroughput + " ops/s (open loop, times measured from the intended start)\n";
+        if(isAdaptiveWarmup())
+            info += getAdaptiveWarmupInfo();
+        
+        return info;
+    }
+    
+    private String getAdaptiveWarmupInfo()
+    {
+        StringBuilder info = new StringBuilder();
+        
+        info.append("Adaptive warmup: until the avg times of ").append(STEADY_STATE_WINDOWS).append(" consecutive windows of ").append(warmupWindowSize)
+            .append(" executions differ by at most ").append(String.format("%.1f", warmupTolerance * 100)).append("% (max ")
+            .append(Math.max(maxWarmupExecutions, getNumOfWarmupExecutions())).append(" executions)\n");
+        
+        info.append("Warmup: ").append(executedWarmupExecutions).append(" executions in ").append(TimeUnit.NANOSECONDS.toMillis(warmupTime)).append(" ms, ")
+            .append(steadyStateExecution > 0 ? "steady state reached" : "steady state NOT reached").append("\n");
+        
+        if(!warmupCurve.isEmpty())
+        {
+            // long curves are shortened averaging consecutive windows
+            int windowsPerPoint = (warmupCurve.size() + MAX_WARMUP_CURVE_POINTS - 1) / MAX_WARMUP_CURVE_POINTS;
+            
+            info.append("Warmup curve (avg time in ns every ").append(windowsPerPoint * warmupWindowSize).append(" executions):");
+            for(int i = 0; i < warmupCurve.size(); i += windowsPerPoint)
+            {
+                List<Long> windows = warmupCurve.subList(i, Math.min(i + windowsPerPoint, warmupCurve.size()));
+                info.append(i == 0 ? " " : ", ").append(Math.round(windows.stream().mapToLong(Long::longValue).average().getAsDouble()));
+            }
+            info.append("\n");
+        }
+        
+        return info.toString();
+    }
+    
+    /**
+     * Add the percentiles of the execution times to a result. The keys are in the form "p99" + keySuffix.
+     * 
+     * @param result The result where the percentiles have to be added
+     * @param keySuffix The suffix of the keys (e.g. a description of the measured operation)
+     */
+    protected void putPercentiles(Result result, String keySuffix)
+    {
+        for(double percentile : RESULT_PERCENTILES)
+        {
+            String percentileName = percentile == Math.rint(percentile) ? String.valueOf((long)percentile) : String.valueOf(percentile);
+            result.put("p" + percentileName + keySuffix, getTimeAtPercentile(percentile));
+        }
+    }
+    
+    /**
+     * Compute a rate per second. The rate is computed in floating point, since the count multiplied by the nanoseconds of a second 
+     * overflows a long for large counts (e.g. the bytes loaded by a long test).
+     * 
+     * @param count The number of events (e.g. iterations, rows or bytes)
+     * @param elapsedTime The time (in nanoseconds) of the events, positive
+     * @return The events per second
+     */
+    static long perSecond(long count, long elapsedTime)
+    {
+        return Math.round(count * 1e9 / elapsedTime);
+    }
+    
+    /**
+     * Add the actual throughput of the test iterations to a result, in open loop the percentiles of the service times 
+     * and, with adaptive warmup, the number of warmup iterations, their duration and if the steady state has been reached.
+     * 
+     * @param result The result where the statistics have to be added
+     * @param keySuffix The suffix of the keys (e.g. a description of the measured operation)
+     */
+    protected void putRunStatistics(Result result, String keySuffix)
+    {
+        long elapsedTime = getTestElapsedTime();
+        
+        if(elapsedTime > 0)
+            result.put("throughput" + keySuffix, perSecond(histogram.getTotalCount(), elapsedTime), Result.OPERATIONS_PER_SECOND);
+        
+        if(targetThroughput > 0 && serviceTimeHistogram != null)
+        {
+            result.put("avg service time" + keySuffix, Math.round(serviceTimeHistogram.getMean()));
+            result.put("p99 service time" + keySuffix, serviceTimeHistogram.getValueAtPercentile(99));
+            result.put("max service time" + keySuffix, serviceTimeHistogram.getMaxValue());
+        }
+        
+        if(isAdaptiveWarmup())
+        {
+            result.put("warmup executions", (long)executedWarmupExecutions, "executions");
+            result.put("warmup time", TimeUnit.NANOSECONDS.toMillis(warmupTime), "ms");
+            result.put("warmup steady state", steadyStateExecution > 0 ? 1L : 0L, "reached (1) or not (0)");
+        }
+    }
+    
+    private boolean isWarmupRunning()
+    {
+        if(!isAdaptiveWarmup())
+            return executedWarmupExecutions < numOfWarmupExecutions;
+        
+        return steadyStateExecution == 0 && executedWarmupExecutions < Math.max(maxWarmupExecutions, numOfWarmupExecutions);
+    }
+    
+    /**
+     * Check if the avg times of the last {@link #STEADY_STATE_WINDOWS} windows of warmup iterations differ by at most the tolerance.
+     * 
+     * @param warmupCurve The avg times of the windows executed so far
+     * @param warmupTolerance The max difference of the avg times of the last windows (in proportion to their mean)
+     */
+    static boolean isSteadyState(List<Long> warmupCurve, double warmupTolerance)
+    {
+        if(warmupCurve.size() < STEADY_STATE_WINDOWS)
+            return false;
+        
+        List<Long> lastWindows = warmupCurve.subList(warmupCurve.size() - STEADY_STATE_WINDOWS, warmupCurve.size());
+        
+        long minTime = lastWindows.stream().mapToLong(Long::longValue).min().getAsLong();
+        long maxTime = lastWindows.stream().mapToLong(Long::longValue).max().getAsLong();
+        double meanTime = lastWindows.stream().mapToLong(Long::longValue).average().getAsDouble();
+        
+        return maxTime - minTime <= warmupTolerance * meanTime;
+    }
+    
+    private static void waitUntil(long time)
+    {
+        long remainingTime;
+        
+        while((remainingTime = time - System.nanoTime()) > 0)
+        {
+            if(remainingTime > MIN_PARK_TIME)
+                LockSupport.parkNanos(remainingTime - MIN_PARK_TIME);
+        }
+    }
+    
+    private void awaitStart()
+    {
+        if(startPhaser != null)
+            startPhaser.arriveAndAwaitAdvance();
+    }
+    
+    /**
+     * Add the execution times collected by another tester to the times of this tester and update min, max and avg times accordingly.
+     * This is used to aggregate the results of testers that executed the same test concurrently.
+     * 
+     * @param other The tester whose execution times have to be added to the times of this tester.
+     */
+    void merge(BaseTester other)
+    {
+        if(other.histogram.getTotalCount() > 0)
+        {
+            // the elapsed time of the merged tester spans from the first start to the last end
+            if(histogram.getTotalCount() == 0 || other.testStartTime < testStartTime)
+                testStartTime = other.testStartTime;
+            if(histogram.getTotalCount() == 0 || other.testEndTime > testEndTime)
+                testEndTime = other.testEndTime;
+        }
+        
+        // with adaptive warmup the merged tester has the curve of the longest warmup, and the steady state is reached if all the testers reached it
+        boolean firstWarmup = warmupHistogram.getTotalCount() == 0;
+        if(firstWarmup || other.executedWarmupExecutions > executedWarmupExecutions)
+        {
+            executedWarmupExecutions = other.executedWarmupExecutions;
+            warmupCurve.clear();
+            warmupCurve.addAll(other.warmupCurve);
+        }
+        warmupTime = Math.max(warmupTime, other.warmupTime);
+        if(firstWarmup)
+            steadyStateExecution = other.steadyStateExecution;
+        else if(steadyStateExecution == 0 || other.steadyStateExecution == 0)
+            steadyStateExecution = 0;
+        else
+            steadyStateExecution = Math.max(steadyStateExecution, other.steadyStateExecution);
+        
+        warmupHistogram.add(other.warmupHistogram);
+        histogram.add(other.histogram);
+        
+        // the aggregate tester of a concurrent test is not executed, so it does not allocate the histogram of the service times
+        if(other.serviceTimeHistogram != null)
+        {
+            if(serviceTimeHistogram == null)
+                serviceTimeHistogram = other.serviceTimeHistogram.copyEmpty();
+            
+            serviceTimeHistogram.add(other.serviceTimeHistogram);
+        }
+        
+        mergeStatistics(other);
+    }
+    
+    /**
+     * Subclasses that collect statistics in addition to the execution times have to override this method to reset them (calling the method of the superclass). 
+     * It is called by {@link #execTests() execTests} after {@link #init() init}, so that every execution of the tests (e.g. every trial) 
+     * reports only its own statistics.
+     */
+    protected void resetStatistics()
+    {
+    }
+    
+    /**
+     * Reset the statistics of the resources that the tester can share with other testers running concurrently (e.g. a connection pool). 
+     * It is called before {@link #init() init} by {@link #execTests() execTests} when the tester runs alone, and by {@link ConcurrentTester} once before starting its workers, 
+     * so that a worker cannot reset the statistics collected by the others.
+     */
+    void resetSharedStatistics()
+    {
+    }
+    
+    /**
+     * Subclasses that collect statistics in addition to the execution times can override this method to add the statistics of another tester 
+     * (of the same class) when the results of concurrent testers are aggregated.
+     * 
+     * @param other The tester whose statistics have to be added to the statistics of this tester.
+     */
+    protected void mergeStatistics(BaseTester other)
+    {
+    }
+    
     protected State makeState()
     {
         return new State();
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This Tester executes a batch insert test for a range of batch sizes (one {@link Tester} per batch size, created by a {@link StepTesterFactory}) 
+ * and finds the point of diminishing returns: the smallest batch size whose throughput (in records per second) is not improved 
+ * by more than a given percentage by any larger batch size.
+ * The info of the tester contains a table with the throughput of every batch size; the result contains the throughput of every batch size 
+ * and the batch size at the point of diminishing returns.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class BatchSizeSweepTester implements Tester {
+    
+    /**
+     * Default min improvement of the throughput (10%) for a larger batch size to be considered worth it
+     */
+    public static final double DEFAULT_MIN_THROUGHPUT_GAIN = 0.1;
+    
+    private final int[] batchSizes;
+    private final StepTesterFactory stepTesterFactory;
+    private final String throughputKey;
+    private final double minThroughputGain;
+    
+    private final List<Result> stepResults = new ArrayList<>();
+    private String stepTestName = "";
+    private String stepTestInfo = "";
+    
+    /**
+     * Factory used by the {@link BatchSizeSweepTester} to create the tester of every batch size.
+     */
+    public interface StepTesterFactory
+    {
+        /**
+         *
+         * @param batchSize The batch size
+         * @return A new tester that executes the test with the given batch size.
+         */
+        Tester createTester(int batchSize);
+    }
+
+    /**
+     *
+     * @param batchSizes The batch sizes (in increasing order)
+     * @param stepTesterFactory The factory that creates the tester of every batch size
+     * @param throughputKey The key of the throughput in records per second in the results of the testers
+     * @param minThroughputGain The min improvement of the throughput (e.g. 0.1 for 10%) for a larger batch size to be considered worth it
+     */
+    public BatchSizeSweepTester(int[] batchSizes, StepTesterFactory stepTesterFactory, String throughputKey, double minThroughputGain) {
+        this.batchSizes = batchSizes.clone();
+        this.stepTesterFactory = stepTesterFactory;
+        this.throughputKey = throughputKey;
+        this.minThroughputGain = minThroughputGain;
+    }
+    
+    /**
+     * Get a geometric range of batch sizes.
+     * 
+     * @param minBatchSize The first batch size
+     * @param maxBatchSize The last batch size (it is always included)
+     * @param factor The ratio between consecutive batch sizes (at least 2)
+     * @return The batch sizes from minBatchSize to maxBatchSize
+     */
+    public static int[] getGeometricBatchSizes(int minBatchSize, int maxBatchSize, int factor)
+    {
+        List<Integer> batchSizes = new ArrayList<>();
+        
+        for(long batchSize = Math.max(1, minBatchSize); batchSize < maxBatchSize; batchSize *= Math.max(2, factor))
+            batchSizes.add((int)batchSize);
+        batchSizes.add(Math.max(maxBatchSize, Math.max(1, minBatchSize)));
+        
+        return batchSizes.stream().mapToInt(Integer::intValue).toArray();
+    }
+    
+    /**
+     * Find the point of diminishing returns: the first step whose throughput is not improved by more than minThroughputGain by any following step.
+     * 
+     * @param throughputs The throughputs of the steps
+     * @param minThroughputGain The min improvement of the throughput (e.g. 0.1 for 10%)
+     * @return The index of the step at the point of diminishing returns (-1 if there are no steps)
+     */
+    public static int findKnee(long[] throughputs, double minThroughputGain)
+    {
+        for(int i = 0; i < throughputs.length; i++)
+        {
+            long maxFollowingThroughput = 0;
+            for(int j = i + 1; j < throughputs.length; j++)
+                maxFollowingThroughput = Math.max(maxFollowingThroughput, throughputs[j]);
+            
+            if(maxFollowingThroughput <= throughputs[i] * (1 + minThroughputGain))
+                return i;
+        }
+        
+        return -1;
+    }
+
+    @Override
+    public void execTests() {
+        
+        stepResults.clear();
+        
+        for(int batchSize : batchSizes)
+        {
+            Tester stepTester = stepTesterFactory.createTester(batchSize);
+            stepTester.execTests();
+            
+            stepResults.add(stepTester.getResult());
+            stepTestName = stepTester.getTestName();
+            stepTestInfo = stepTester.getTestInfo();
+        }
+    }
+    
+    /**
+     *
+     * @return The throughputs (in records per second) of the batch sizes, measured by the last call to {@link #execTests() execTests}.
+     */
+    public long[] getThroughputs()
+    {
+        long[] throughputs = new long[stepResults.size()];
+        
+        for(int i = 0; i < throughputs.length; i++)
+        {
+            Long throughput = stepResults.get(i).get(throughputKey);
+            throughputs[i] = throughput != null ? throughput : 0;
+        }
+        
+        return throughputs;
+    }
+
+    @Override
+    public Result getResult() {
+        Result result = new Result();
+        
+        long[] throughputs = getThroughputs();
+        
+        for(int i = 0; i < throughputs.length; i++)
+            result.put("throughput (batch size " + batchSizes[i] + ")", throughputs[i], Result.ROWS_PER_SECOND);
+        
+        int knee = findKnee(throughputs, minThroughputGain);
+        
+        if(knee >= 0)
+        {
+            result.put("batch size at the point of diminishing returns", (long)batchSizes[knee], "records per batch");
+            result.put("throughput at the point of diminishing returns", throughputs[knee], Result.ROWS_PER_SECOND);
+        }
+        
+        return result;
+    }
+
+    @Override
+    public String getTestInfo() {
+        
+        StringBuilder info = new StringBuilder();
+        info.append("Batch sizes: ");
+        for(int i = 0; i < batchSizes.length; i++)
+            info.append(i == 0 ? "" : ", ").append(batchSizes[i]);
+        info.append("\n");
+        info.append("Min throughput gain of a larger batch: ").append(Math.round(minThroughputGain * 100)).append("%\n");
+        
+        // info of the last executed step (the common settings are the same for all the steps)
+        info.append("Last step: ").append(stepTestName).append("\n").append(stepTestInfo).append("\n");
+        
+        long[] throughputs = getThroughputs();
+        int knee = findKnee(throughputs, minThroughputGain);
+        
+        info.append(String.format("%12s %16s %20s%n", "batch size", "records/s", "avg per record (ns)"));
+        for(int i = 0; i < throughputs.length; i++)
+        {
+            Long avgPerRecord = stepResults.get(i).get("avg (to insert a record)");
+            info.append(String.format("%12d %16d %20s%s%n", batchSizes[i], throughputs[i], avgPerRecord != null ? avgPerRecord : "-", i == knee ? "  <- point of diminishing returns" : ""));
+        }
+        
+        return info.toString();
+    }
+
+    @Override
+    public String getTestName() {
+        return "Batch Size Sweep";
+    }
+    
+}
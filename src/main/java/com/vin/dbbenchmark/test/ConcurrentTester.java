@@ -0,0 +1,257 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.test;
+
+import com.vin.dbbenchmark.utils.LatencyHistogram;
+import com.vin.dbbenchmark.utils.VirtualThreadPinningMonitor;
+import com.vin.dbbenchmark.utils.VirtualThreads;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This Tester executes the same test with a number of concurrent workers (one thread per worker).
+ * Each worker is a {@link BaseTester} created by a {@link TesterFactory}, so every worker owns its own resources 
+ * (e.g. a {@link DbTester} owns its own connection and prepared statements).
+ * All the workers complete their initialization and their warmup before starting the next phase together. 
+ * At the end of the execution the times collected by the workers are merged into a single result, 
+ * whose throughput is the aggregate throughput of the workers.
+ * 
+ * The workers can run on virtual threads (see {@link #setVirtualThreads(boolean) setVirtualThreads}), so that thousands of logical clients 
+ * can be simulated (usually sharing a bounded {@link com.vin.dbbenchmark.database.ConnectionPool}). In this case the result also contains 
+ * the times that the virtual threads spent pinned to their carrier threads.
+ * 
+ * A worker that fails (its initialization fails, it is aborted or it throws an exception) does not stop the others: the failed workers are counted 
+ * and reported in the result, since the aggregate throughput is then produced by fewer workers than configured.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class ConcurrentTester implements Tester {
+    
+    private final TesterFactory testerFactory;
+    private final int numOfThreads;
+    private BaseTester aggregateTester;
+    
+    private boolean virtualThreads;
+    private boolean virtualThreadsUsed;
+    private LatencyHistogram pinnedTimeHistogram;
+    private int numOfFailedWorkers;
+    
+    /**
+     * Factory used by the {@link ConcurrentTester} to create its workers.
+     */
+    public interface TesterFactory
+    {
+        /**
+         *
+         * @return A new tester. Every call has to return a new instance configured in the same way.
+         */
+        BaseTester createTester();
+    }
+
+    /**
+     *
+     * @param testerFactory The factory that creates the workers
+     * @param numOfThreads It is the number of workers that execute the test concurrently
+     */
+    public ConcurrentTester(TesterFactory testerFactory, int numOfThreads) {
+        this.testerFactory = testerFactory;
+        this.numOfThreads = numOfThreads;
+        this.aggregateTester = testerFactory.createTester();
+    }
+
+    public int getNumOfThreads() {
+        return numOfThreads;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Run every worker on a virtual thread instead of a platform thread. 
+     * Virtual threads are available from Java 21: on older JDKs the workers run on platform threads (with a warning).
+     * 
+     * @param virtualThreads true to run the workers on virtual threads
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+    
+    /**
+     *
+     * @return The times spent blocked by the virtual threads while pinned to their carrier threads during the last call to {@link #execTests() execTests} 
+     * (null if the workers have not run on virtual threads or the pinning could not be recorded).
+     */
+    public LatencyHistogram getPinnedTimeHistogram() {
+        return pinnedTimeHistogram;
+    }
+    
+    /**
+     *
+     * @return The number of workers that failed during the last call to {@link #execTests() execTests}: 
+     * the workers whose initialization failed, the workers that have been aborted and the workers that threw an exception.
+     */
+    public int getNumOfFailedWorkers() {
+        return numOfFailedWorkers;
+    }
+    
+    /**
+     *
+     * @return The tester that holds the times collected by all the workers during the last call to {@link #execTests() execTests}.
+     */
+    public BaseTester getAggregateTester() {
+        return aggregateTester;
+    }
+
+    @Override
+    public void execTests() {
+        
+        // every worker waits for the others after the initialization and after the warmup
+        final Phaser startPhaser = new Phaser(numOfThreads);
+        
+        List<BaseTester> workers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        final boolean[] threwException = new boolean[numOfThreads];
+        
+        ThreadFactory virtualThreadFactory = virtualThreads ? VirtualThreads.newThreadFactory(getTestName() + " worker ") : null;
+        virtualThreadsUsed = virtualThreadFactory != null;
+        
+        if(virtualThreads && !virtualThreadsUsed)
+        {
+            String warning = "Virtual threads are not supported by this JDK (Java 21 or later is needed). The workers run on platform threads.\n\n";
+            Logger.getLogger(ConcurrentTester.class.getName()).log(Level.WARNING, warning);
+        }
+        
+        for(int i = 0; i < numOfThreads; i++)
+        {
+            final BaseTester worker = testerFactory.createTester();
+            final int workerIndex = i;
+            worker.setStartPhaser(startPhaser);
+            workers.add(worker);
+            
+            Runnable workerTask = () -> {
+                try {
+                    worker.execTests();
+                } catch (RuntimeException | Error ex) {
+                    // the thread is joined before its flag is read
+                    threwException[workerIndex] = true;
+                    Logger.getLogger(ConcurrentTester.class.getName()).log(Level.SEVERE, "Worker " + (workerIndex+1) + " failed", ex);
+                } finally {
+                    // a worker that stops (e.g. because its initialization failed) must not block the others
+                    startPhaser.arriveAndDeregister();
+                }
+            };
+            
+            Thread thread = virtualThreadsUsed ? virtualThreadFactory.newThread(workerTask) : new Thread(workerTask, getTestName() + " worker " + (i+1));
+            
+            threads.add(thread);
+        }
+        
+        // the pinning of the virtual threads is recorded for all the phases of the workers
+        VirtualThreadPinningMonitor pinningMonitor = null;
+        pinnedTimeHistogram = null;
+        if(virtualThreadsUsed)
+        {
+            pinningMonitor = new VirtualThreadPinningMonitor(aggregateTester.getHistogram().copyEmpty());
+            if(!pinningMonitor.start())
+                pinningMonitor = null;
+        }
+        
+        // the workers reset only their own statistics, the statistics of the resources they share are reset before any of them starts
+        for(BaseTester worker : workers)
+            worker.resetSharedStatistics();
+        
+        for(Thread thread : threads)
+            thread.start();
+        
+        try {
+            for(Thread thread : threads)
+                thread.join();
+        } catch (InterruptedException ex) {
+            Logger.getLogger(ConcurrentTester.class.getName()).log(Level.SEVERE, null, ex);
+            Thread.currentThread().interrupt();
+            return;
+        } finally {
+            // the recording of the pinning is stopped even if the wait for the workers is interrupted
+            if(pinningMonitor != null)
+            {
+                pinningMonitor.stop();
+                pinnedTimeHistogram = pinningMonitor.getPinnedTimeHistogram();
+            }
+        }
+        
+        // merge the times collected by the workers (also the times collected by a worker before it failed)
+        aggregateTester = testerFactory.createTester();
+        numOfFailedWorkers = 0;
+        for(int i = 0; i < numOfThreads; i++)
+        {
+            BaseTester worker = workers.get(i);
+            
+            // a worker whose initialization failed has not executed any iteration
+            if(threwException[i] || worker.isAborted() || worker.getWarmupHistogram().getTotalCount() + worker.getHistogram().getTotalCount() == 0)
+                numOfFailedWorkers++;
+            
+            aggregateTester.merge(worker);
+        }
+        
+        if(numOfFailedWorkers > 0)
+        {
+            String warning = numOfFailedWorkers + " of " + numOfThreads + " workers failed.\n\n";
+            Logger.getLogger(ConcurrentTester.class.getName()).log(Level.WARNING, warning);
+        }
+    }
+
+    @Override
+    public Result getResult() {
+        // the throughput of the aggregate tester is the throughput of all the threads
+        Result result = aggregateTester.getResult();
+        
+        if(numOfFailedWorkers > 0)
+            result.put("failed workers", (long)numOfFailedWorkers, "workers");
+        
+        if(pinnedTimeHistogram != null)
+        {
+            result.put("virtual thread pinned events", pinnedTimeHistogram.getTotalCount(), "events");
+            result.put("total pinned time", pinnedTimeHistogram.getTotalValue(), "ns");
+            result.put("avg pinned time", Math.round(pinnedTimeHistogram.getMean()));
+            result.put("p99 pinned time", pinnedTimeHistogram.getValueAtPercentile(99));
+            result.put("max pinned time", pinnedTimeHistogram.getMaxValue());
+        }
+        
+        return result;
+    }
+
+    @Override
+    public String getTestInfo() {
+        
+        String info = aggregateTester.getTestInfo() + 
+                      "Threads: " + numOfThreads + " (executions are per thread)\n" + 
+                      (numOfFailedWorkers > 0 ? "Failed workers: " + numOfFailedWorkers + "\n" : "") + 
+                      (virtualThreadsUsed ? "Virtual threads: yes (carrier threads: " + VirtualThreads.getNumOfCarrierThreads() + ")\n" : "");
+        
+        return info;
+    }
+
+    @Override
+    public String getTestName() {
+        return aggregateTester.getTestName();
+    }
+    
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.test;
+
+import com.vin.dbbenchmark.database.DBMSName;
+import com.vin.dbbenchmark.database.DbHelper.DbEntry;
+import com.vin.dbbenchmark.database.SqlServerBulkInserter;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This Tester inserts blocks of rows in the test table through a {@link SqlServerBulkInserter}, with the bulk copy API of the SQL Server driver 
+ * or with INSERT statements having multiple rows in the VALUES clause, so that these ingestion paths can be compared with the batch inserts of {@link DbInsertTester}.
+ * Every execution inserts {@code numOfRowsPerBulkInsert} rows (sent to the database in batches of {@code batchSize} rows) and commits them. 
+ * The rows are streamed to the inserter as they are generated (reusing the same entry), 
+ * so the inserted data never has to be materialized all together in memory.
+ * In addition to the execution times the tester provides the throughput in rows/s.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class DbBulkInsertTester extends DbTester {
+
+    private final int numOfRowsPerBulkInsert;
+    private final int batchSize;
+    private final SqlServerBulkInserter.Mode mode;
+    
+    private Iterator<DbEntry> rows;
+    private SqlServerBulkInserter bulkInserter;
+    
+    private long insertedRows;
+    
+    /**
+     *
+     * @param dbmsName It is the name of the database to be used. The bulk copy mode is supported only by SQL_SERVER (with a driver providing the bulk copy API)
+     * @param numOfBulkInsertExecutions It is the number of times that the bulk insert is executed in order to collect statistical results 
+     * @param numOfRowsPerBulkInsert It is the number of rows that are inserted and committed by a single execution
+     * @param batchSize It is the number of rows sent to the database together
+     * @param mode It is the way to insert the rows. It is an enum and can have values BULK_COPY and MULTI_ROW_VALUES
+     * @param numOfWarmupExecutions It is the number of times that the bulk insert is executed for warmup purposes
+     */
+    public DbBulkInsertTester(DBMSName dbmsName, int numOfBulkInsertExecutions, int numOfRowsPerBulkInsert, int batchSize, SqlServerBulkInserter.Mode mode, int numOfWarmupExecutions) {
+        super(dbmsName,numOfBulkInsertExecutions,numOfWarmupExecutions);
+        this.numOfRowsPerBulkInsert = numOfRowsPerBulkInsert;
+        this.batchSize = batchSize;
+        this.mode = mode;
+    }
+
+    @Override
+    protected int init() {
+        
+        int result = super.init();
+        
+        //source of the rows that are inserted (the data generator is created by super.init())
+        rows = dataGenerator.entries();
+        
+        //without a pool the inserter is created in init (e.g. it fails if the driver does not provide the bulk copy API)
+        if(result == 0 && getConnectionPool() == null && bulkInserter == null)
+        {
+            finish();
+            return -1;
+        }
+        
+        return result;
+    }
+    
+    @Override
+    protected void prepareStatements()
+    {
+        try {
+            bulkInserter = new SqlServerBulkInserter(dbHelper.getConnection(), mode, batchSize);
+        } catch (SQLException ex) {
+            Logger.getLogger(DbBulkInsertTester.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    @Override
+    protected void closeStatements()
+    {
+        if(bulkInserter != null)
+        {
+            bulkInserter.close();
+            bulkInserter = null;
+        }
+    }
+    
+    @Override
+    protected void execTest(State state) {
+        
+        //the inserter is not available if it could not be created on the current connection (the error has been logged)
+        if(bulkInserter == null)
+            return;
+        
+        try {
+            //we evaluate the time needed to send the rows and to commit
+            long rowsInserted = bulkInserter.insert(rows, numOfRowsPerBulkInsert);
+            
+            //only the rows of the test iterations are used for the throughput
+            if(state.getIterationType() == IterationType.TEST_EXECUTION)
+                insertedRows += rowsInserted;
+            
+        } catch (SQLException ex) {
+            Logger.getLogger(DbBulkInsertTester.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    @Override
+    protected void resetStatistics() {
+        
+        super.resetStatistics();
+        
+        insertedRows = 0;
+    }
+    
+    @Override
+    protected void mergeStatistics(BaseTester other) {
+        
+        if(other instanceof DbBulkInsertTester)
+            insertedRows += ((DbBulkInsertTester)other).insertedRows;
+    }
+
+    /**
+     *
+     * @return The number of rows inserted by the test iterations.
+     */
+    public long getInsertedRows() {
+        return insertedRows;
+    }
+
+    @Override
+    public String getTestName() {
+        return "Bulk Insert (" + mode.name().toLowerCase().replace('_', ' ') + ")";
+    }
+    
+    @Override
+    public String getTestInfo() {
+        
+        String info = "Warmup Executions: " + this.getNumOfWarmupExecutions() + "\n" + 
+                      "Bulk Insert Executions: " + this.getNumOfExecutions() + "\n" + 
+                      "Num of rows per bulk insert: " + numOfRowsPerBulkInsert + "\n" + 
+                      "Num of rows per batch: " + (mode == SqlServerBulkInserter.Mode.MULTI_ROW_VALUES ? Math.min(batchSize, SqlServerBulkInserter.MAX_ROWS_PER_VALUES_STATEMENT) : batchSize) + "\n" + 
+                      getRunModeInfo() + 
+                      getConnectionPoolInfo();
+        
+        return info;
+    }
+    
+    @Override
+    public Result getResult() {
+        Result result = new Result();
+        
+        if(this.getWarmupHistogram().getTotalCount() > 0)
+        {
+            result.put("min-warmup (to insert a block of rows)", this.getWarmupMinTime());
+            result.put("max-warmup (to insert a block of rows)", this.getWarmupMaxTime());
+            result.put("avg-warmup (to insert a block of rows)", this.getWarmupAvgTime());
+        }
+        
+        if(this.getNumOfExecutions() > 0)
+        {
+            result.put("min (to insert a block of rows)", this.getMinTime());
+            result.put("max (to insert a block of rows)", this.getMaxTime());
+            result.put("avg (to insert a block of rows)", this.getAvgTime());
+            putPercentiles(result, " (to insert a block of rows)");
+            putRunStatistics(result, " (blocks)");
+            
+            if(numOfRowsPerBulkInsert > 0)
+                result.put("avg (to insert a row)", Math.round(getHistogram().getMean()/numOfRowsPerBulkInsert));
+            
+            long elapsedTime = getTestElapsedTime();
+            
+            if(elapsedTime > 0)
+                result.put("throughput (rows)", perSecond(insertedRows, elapsedTime), Result.ROWS_PER_SECOND);
+        }
+        
+        putConnectionPoolStatistics(result);
+
+        return result;
+    }
+ 
+}
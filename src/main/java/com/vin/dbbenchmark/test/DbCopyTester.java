@@ -0,0 +1,208 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.test;
+
+import com.vin.dbbenchmark.database.DBMSName;
+import com.vin.dbbenchmark.database.DbHelper.DbEntry;
+import com.vin.dbbenchmark.database.PostgreSqlCopyWriter;
+import com.vin.dbbenchmark.database.PostgreSqlDbHelper;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.postgresql.copy.CopyIn;
+
+/**
+ * This Tester loads rows in the test table of PostgreSQL with COPY FROM STDIN operations (in text or binary format), 
+ * so that bulk loads can be compared with the batch inserts of {@link DbInsertTester}.
+ * Every execution copies {@code numOfRowsPerCopy} rows and commits them. The rows are streamed to the database 
+ * through a {@link PostgreSqlCopyWriter} as they are generated (reusing the same entry), 
+ * so the copied data never has to be materialized all together in memory.
+ * In addition to the execution times of the copies the tester provides the throughput in rows/s and MB/s.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class DbCopyTester extends DbTester {
+
+    private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+    
+    private final int numOfRowsPerCopy;
+    private final PostgreSqlDbHelper.CopyFormat copyFormat;
+    
+    private Iterator<DbEntry> rows;
+    private PostgreSqlCopyWriter copyWriter;
+    
+    private long copiedRows;
+    private long copiedBytes;
+    
+    /**
+     *
+     * @param numOfCopyExecutions It is the number of times that the COPY is executed in order to collect statistical results 
+     * @param numOfRowsPerCopy It is the number of rows that are loaded with a single COPY
+     * @param copyFormat It is the format of the rows sent to the database. It is an enum and can have values TEXT and BINARY
+     * @param numOfWarmupExecutions It is the number of times that the COPY is executed for warmup purposes
+     */
+    public DbCopyTester(int numOfCopyExecutions, int numOfRowsPerCopy, PostgreSqlDbHelper.CopyFormat copyFormat, int numOfWarmupExecutions) {
+        super(DBMSName.POSTGRE_SQL,numOfCopyExecutions,numOfWarmupExecutions);
+        this.numOfRowsPerCopy = numOfRowsPerCopy;
+        this.copyFormat = copyFormat;
+    }
+
+    @Override
+    protected int init() {
+        
+        int result = super.init();
+        
+        if(result != 0)
+            return result;
+        
+        if(!(dbHelper instanceof PostgreSqlDbHelper))
+        {
+            Logger.getLogger(DbCopyTester.class.getName()).log(Level.SEVERE, "COPY is supported only by PostgreSQL");
+            finish();
+            return -1;
+        }
+        
+        //source of the rows that are copied
+        rows = dataGenerator.entries();
+        
+        copyWriter = new PostgreSqlCopyWriter(copyFormat);
+        
+        return 0;
+    }
+    
+    @Override
+    protected void execTest(State state) {
+        
+        PostgreSqlDbHelper postgreSqlDbHelper = (PostgreSqlDbHelper)dbHelper;
+        CopyIn copyIn = null;
+        
+        try {
+            //we evaluate the time needed to stream the rows, end the COPY and commit
+            copyIn = postgreSqlDbHelper.beginCopy(copyFormat);
+            copyWriter.start(copyIn);
+            
+            for(int i = 0; i < numOfRowsPerCopy; i++)
+                copyWriter.writeRow(rows.next());
+            
+            copyWriter.finish();
+            long rowsCopied = postgreSqlDbHelper.endCopy(copyIn);
+            
+            //only the rows of the test iterations are used for the throughput
+            if(state.getIterationType() == IterationType.TEST_EXECUTION)
+            {
+                copiedRows += rowsCopied;
+                copiedBytes += copyWriter.getBytesWritten();
+            }
+            
+        } catch (SQLException ex) {
+            Logger.getLogger(DbCopyTester.class.getName()).log(Level.SEVERE, null, ex);
+            
+            if(copyIn != null)
+                postgreSqlDbHelper.cancelCopy(copyIn);
+        }
+    }
+    
+    @Override
+    protected void resetStatistics() {
+        
+        super.resetStatistics();
+        
+        copiedRows = 0;
+        copiedBytes = 0;
+    }
+    
+    @Override
+    protected void mergeStatistics(BaseTester other) {
+        
+        if(other instanceof DbCopyTester)
+        {
+            copiedRows += ((DbCopyTester)other).copiedRows;
+            copiedBytes += ((DbCopyTester)other).copiedBytes;
+        }
+    }
+
+    @Override
+    public String getTestName() {
+        return "Copy Rows (" + copyFormat.name().toLowerCase() + " format)";
+    }
+    
+    @Override
+    public String getTestInfo() {
+        
+        String info = "Warmup Executions: " + this.getNumOfWarmupExecutions() + "\n" + 
+                      "Copy Executions: " + this.getNumOfExecutions() + "\n" + 
+                      "Num of rows per copy: " + numOfRowsPerCopy + "\n" + 
+                      "Copy format: " + copyFormat + "\n" + 
+                      getRunModeInfo() + 
+                      getConnectionPoolInfo();
+        
+        return info;
+    }
+    
+    @Override
+    public Result getResult() {
+        Result result = new Result();
+        
+        if(this.getWarmupHistogram().getTotalCount() > 0)
+        {
+            result.put("min-warmup (to copy a block of rows)", this.getWarmupMinTime());
+            result.put("max-warmup (to copy a block of rows)", this.getWarmupMaxTime());
+            result.put("avg-warmup (to copy a block of rows)", this.getWarmupAvgTime());
+        }
+        
+        if(this.getNumOfExecutions() > 0)
+        {
+            result.put("min (to copy a block of rows)", this.getMinTime());
+            result.put("max (to copy a block of rows)", this.getMaxTime());
+            result.put("avg (to copy a block of rows)", this.getAvgTime());
+            putPercentiles(result, " (to copy a block of rows)");
+            putRunStatistics(result, " (copies)");
+            
+            if(numOfRowsPerCopy > 0)
+                result.put("avg (to copy a row)", Math.round(getHistogram().getMean()/numOfRowsPerCopy));
+            
+            long elapsedTime = getTestElapsedTime();
+            
+            if(elapsedTime > 0)
+            {
+                result.put("throughput (rows)", perSecond(copiedRows, elapsedTime), Result.ROWS_PER_SECOND);
+                result.put("throughput (data)", perSecond(copiedBytes, elapsedTime) / BYTES_PER_MEGABYTE, Result.MEGABYTES_PER_SECOND);
+            }
+        }
+        
+        putConnectionPoolStatistics(result);
+
+        return result;
+    }
+
+    /**
+     *
+     * @return The number of rows copied by the test iterations.
+     */
+    public long getCopiedRows() {
+        return copiedRows;
+    }
+
+    /**
+     *
+     * @return The number of bytes sent to the database by the test iterations.
+     */
+    public long getCopiedBytes() {
+        return copiedBytes;
+    }
+
+}
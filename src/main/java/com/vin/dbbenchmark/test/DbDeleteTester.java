@@ -0,0 +1,195 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.test;
+
+import com.vin.dbbenchmark.database.DBMSName;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * This Tester executes transactions that delete {@code numOfDeletesPerTransaction} records by primary key (single-row transactions or batches of deletes). 
+ * The transactions that fail because of concurrent transactions are retried (see {@link DbTransactionTester}).
+ * The keys are drawn from the keys in the table when the tester starts, so the keys of records already deleted can be drawn again: 
+ * the tester reports the number of keys whose record was not found.
+ * 
+ * The tester evaluates the execution times of the transactions (including retries), the throughput in records and the contention statistics.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class DbDeleteTester extends DbTransactionTester {
+
+    private final int numOfDeletesPerTransaction;
+    
+    private int maxPrimaryKeyValue;
+    private final int[] primaryKeys;
+    
+    // number of keys not found by the committed transactions of the test iterations
+    private long notFoundRecords;
+    
+    /**
+     *
+     * @param dbmsName It is the name of the database to be used. It is an enum and can have values POSTGRE_SQL, SQL_SERVER and H2
+     * @param numOfExecutions It is the number of transactions executed in order to collect statistical results 
+     * @param numOfDeletesPerTransaction It is the number of records deleted by every transaction (in a batch)
+     * @param numOfWarmupExecutions It is the number of transactions executed for warmup purposes
+     */
+    public DbDeleteTester(DBMSName dbmsName, int numOfExecutions, int numOfDeletesPerTransaction, int numOfWarmupExecutions) {
+        super(dbmsName,numOfExecutions,numOfWarmupExecutions);
+        this.numOfDeletesPerTransaction = Math.max(numOfDeletesPerTransaction, 1);
+        this.primaryKeys = new int[this.numOfDeletesPerTransaction];
+    }
+
+    @Override
+    protected int init()
+    {
+        int result = super.init();
+        
+        if(result != 0 )
+            return result;
+        
+        //the helper reads from db the max primary key value in the database (it is used to compute the random keys to delete) 
+        maxPrimaryKeyValue = dbHelper.getMaxPrimaryKeyValue();
+        
+        return result;
+    }
+    
+    @Override
+    protected void prepareStatements()
+    {
+        dbHelper.prepareDeleteStatement();
+    }
+    
+    @Override
+    protected void closeStatements()
+    {
+        dbHelper.closeDeleteStatement();
+    }
+    
+    @Override
+    protected void beforeTest(State state) {
+        
+        //acquire a connection (if the tester uses a connection pool)
+        super.beforeTest(state);
+        
+        nextDistinctPrimaryKeys(primaryKeys, maxPrimaryKeyValue);
+    }
+    
+    @Override
+    protected int execTransaction(State state) throws SQLException {
+        
+        for(int primaryKey : primaryKeys)
+            dbHelper.addDeleteDataBatch(primaryKey);
+        
+        int[] deleteCounts = dbHelper.execDeleteDataBatch();
+        int deletedRecords = 0;
+        
+        for(int deleteCount : deleteCounts)
+        {
+            if(deleteCount > 0)
+                deletedRecords += deleteCount;
+            else if(deleteCount == Statement.SUCCESS_NO_INFO)
+                deletedRecords++;
+        }
+        
+        return deletedRecords;
+    }
+    
+    @Override
+    protected void transactionCommitted(State state, int records) {
+        
+        if(state.getIterationType() == IterationType.TEST_EXECUTION)
+            notFoundRecords += primaryKeys.length - records;
+    }
+    
+    @Override
+    protected void resetStatistics() {
+        
+        super.resetStatistics();
+        
+        notFoundRecords = 0;
+    }
+    
+    @Override
+    protected void mergeStatistics(BaseTester other) {
+        
+        super.mergeStatistics(other);
+        
+        if(other instanceof DbDeleteTester)
+            notFoundRecords += ((DbDeleteTester)other).notFoundRecords;
+    }
+
+    /**
+     *
+     * @return The number of keys whose record was not found by the committed transactions of the test iterations
+     */
+    public long getNotFoundRecords() {
+        return notFoundRecords;
+    }
+
+    @Override
+    public String getTestName() {
+        return "Delete Transactions (" + numOfDeletesPerTransaction + (numOfDeletesPerTransaction == 1 ? " record)" : " records)");
+    }
+    
+    @Override
+    public String getTestInfo() {
+        
+        String info = "Warmup Executions: " + this.getNumOfWarmupExecutions() + "\n" + 
+                      "Executions: " + this.getNumOfExecutions() + "\n" + 
+                      "Num of deletes per transaction: " + numOfDeletesPerTransaction + "\n" + 
+                      "Max retries: " + getMaxRetries() + "\n" + 
+                      getKeyDistributionInfo() + 
+                      getRunModeInfo() + 
+                      getConnectionPoolInfo();
+        
+        return info;
+    }
+    
+    @Override
+    public Result getResult() {
+        Result result = new Result();
+        
+        if(this.getWarmupHistogram().getTotalCount() > 0)
+        {
+            result.put("min-warmup (per transaction)", this.getWarmupMinTime());
+            result.put("max-warmup (per transaction)", this.getWarmupMaxTime());
+            result.put("avg-warmup (per transaction)", this.getWarmupAvgTime());
+        }
+        
+        if(this.getNumOfExecutions() > 0)
+        {
+            result.put("min (per transaction)", this.getMinTime());
+            result.put("max (per transaction)", this.getMaxTime());
+            result.put("avg (per transaction)", this.getAvgTime());
+            putPercentiles(result, " (per transaction)");
+            putRunStatistics(result, " (transactions)");
+            
+            long elapsedTime = getTestElapsedTime();
+            
+            if(elapsedTime > 0)
+                result.put("throughput (records)", perSecond(getWrittenRecords(), elapsedTime), Result.ROWS_PER_SECOND);
+            
+            result.put("keys not found", getNotFoundRecords(), "records");
+            
+            putContentionStatistics(result);
+        }
+        
+        putConnectionPoolStatistics(result);
+
+        return result;
+    }
+    
+}
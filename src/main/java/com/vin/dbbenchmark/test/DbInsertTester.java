@@ -17,7 +17,7 @@ package com.vin.dbbenchmark.test;
 
 import com.vin.dbbenchmark.database.DBMSName;
 import com.vin.dbbenchmark.database.DbHelper.DbEntry;
-import com.vin.dbbenchmark.utils.CommonUtils;
+import com.vin.dbbenchmark.database.InsertStrategy;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
@@ -27,25 +27,62 @@ import java.util.logging.Logger;
 /**
  * This Tester executes insert statements on a database (through the property {@code dbHelper}). 
  * The statements are committed to the database in blocks (Batches) of fixed size. The size of the blocks is given by parameter {@code numInsertsPerTransaction} that is passed to the constructor.
+ * The commits can be decoupled from the batches (see {@link #setRowsPerCommit(int) setRowsPerCommit}): the records left uncommitted 
+ * by the last batch are committed at the end of the iterations, and the time of this commit is included in the throughput.
  * The tester evaluate the min, max and avg execution times of the batches.
  * In addition the tester provides the min, max and avg times to insert a single record.
+ * The shape of the statements that insert the records of a batch is given by an {@link InsertStrategy} (by default SINGLE_ROW_BATCH).
  * 
  * @author Vincenzo Micelli
  */
 public class DbInsertTester extends DbTester {
 
+    /**
+     * Key of the throughput in records per second in the result of the tester
+     */
+    public static final String THROUGHPUT_RECORDS_KEY = "throughput (records)";
+    
+
     private final int numInsertsPerTransaction;
+    private final InsertStrategy insertStrategy;
+    private final int rowsPerInsertStatement;
+    
+    private int rowsPerCommit;
+    private int uncommittedRows;
+    
+    //the entries are reused for every batch (their values are bound to the statement before they are modified)
+    private final List<DbEntry> entries;
     
     /**
      *
-     * @param dbmsName It is the name of the database to be used. It is an enum and can have values POSTGRE_SQL and SQL_SERVER
+     * @param dbmsName It is the name of the database to be used. It is an enum and can have values POSTGRE_SQL, SQL_SERVER and H2
      * @param numOfBatchInsertExecutions It is the number of times that the Batch Insert is executed in order to collect statistical results 
      * @param numInsertsPerTransaction It is the number of inserts that are performed with a single batch
      * @param numOfWarmupExecutions It is the number of times that the Batch Insert is executed for warmup purposes
      */
     public DbInsertTester(DBMSName dbmsName, int numOfBatchInsertExecutions, int numInsertsPerTransaction, int numOfWarmupExecutions) {
+        this(dbmsName,numOfBatchInsertExecutions,numInsertsPerTransaction,InsertStrategy.SINGLE_ROW_BATCH,1,numOfWarmupExecutions);
+    }
+    
+    /**
+     *
+     * @param dbmsName It is the name of the database to be used. It is an enum and can have values POSTGRE_SQL, SQL_SERVER and H2
+     * @param numOfBatchInsertExecutions It is the number of times that the Batch Insert is executed in order to collect statistical results 
+     * @param numInsertsPerTransaction It is the number of inserts that are performed with a single batch
+     * @param insertStrategy It is the shape of the insert statements. It is an enum and can have values SINGLE_ROW_BATCH, MULTI_ROW_VALUES, REWRITE_BATCHED_INSERTS and UNNEST_ARRAYS
+     * @param rowsPerInsertStatement It is the number of records in the VALUES clause of a statement (used only by MULTI_ROW_VALUES)
+     * @param numOfWarmupExecutions It is the number of times that the Batch Insert is executed for warmup purposes
+     */
+    public DbInsertTester(DBMSName dbmsName, int numOfBatchInsertExecutions, int numInsertsPerTransaction, InsertStrategy insertStrategy, int rowsPerInsertStatement, int numOfWarmupExecutions) {
         super(dbmsName,numOfBatchInsertExecutions,numOfWarmupExecutions);
         this.numInsertsPerTransaction = numInsertsPerTransaction;
+        this.insertStrategy = insertStrategy;
+        // a statement does not insert more records than a batch
+        this.rowsPerInsertStatement = insertStrategy == InsertStrategy.MULTI_ROW_VALUES ? Math.max(1, Math.min(rowsPerInsertStatement, numInsertsPerTransaction)) : 1;
+        
+        entries = new ArrayList<>();
+        for(int i = 0; i < numInsertsPerTransaction; i++ )
+            entries.add(new DbEntry());
     }
     
     @Override
@@ -53,11 +90,50 @@ public class DbInsertTester extends DbTester {
     {
         int result = super.init();
         
-        if(result != 0 )
-            return result;
+        if(result == 0 && !dbHelper.supportsInsertStrategy(insertStrategy))
+        {
+            Logger.getLogger(DbInsertTester.class.getName()).log(Level.SEVERE, "Insert strategy {0} is not supported by {1}", new Object[]{insertStrategy, getDbmsName()});
+            finish();
+            return -1;
+        }
+        
+        // with a pool the connection is released (and the records committed) after every batch, so a transaction cannot span more batches
+        if(result == 0 && rowsPerCommit > 0 && getConnectionPool() != null)
+        {
+            Logger.getLogger(DbInsertTester.class.getName()).log(Level.SEVERE, "Rows per commit cannot be used with a connection pool");
+            finish();
+            return -1;
+        }
         
+        return result;
+    }
+    
+    public int getRowsPerCommit() {
+        return rowsPerCommit;
+    }
+
+    /**
+     * Commit after the batch that brings the records inserted since the last commit to at least rowsPerCommit, instead of after every batch. 
+     * It cannot be used with a connection pool (the initialization of the tester fails).
+     * 
+     * @param rowsPerCommit The min number of records in a transaction (0 to commit every batch)
+     */
+    public void setRowsPerCommit(int rowsPerCommit) {
+        this.rowsPerCommit = rowsPerCommit;
+    }
+    
+    @Override
+    protected void configureDbHelper()
+    {
+        //the batches are rewritten by the driver only if requested when the connection is opened
+        dbHelper.setRewriteBatchedInserts(insertStrategy == InsertStrategy.REWRITE_BATCHED_INSERTS);
+    }
+    
+    @Override
+    protected void prepareStatements()
+    {
         //Obtain the prepared statement object from the connection.
-        //This tester obtains the prepared statement object at the beginning and uses it for each test execution.
+        //This tester obtains the prepared statement object at the beginning (or when a connection is acquired from the pool) and uses it for each test execution.
         //(
         // If you want to prepare the statement before every insert you can move the call to prepareInsertStatement to method beforeTest(). 
         // Or, if you want to include the time needed for this operation in the statistics, you can move this to the method execTest().
@@ -71,27 +147,35 @@ public class DbInsertTester extends DbTester {
         //    (.. Step 2 and 3 can be repeated multiple times before closing the statement ..)
         //    4 dbHelper.closeInsertStatement();
         //)
-        dbHelper.prepareInsertStatement();
+        dbHelper.prepareInsertStatement(insertStrategy, rowsPerInsertStatement);
+    }
+    
+    @Override
+    protected void closeStatements()
+    {
+        //commit the records inserted since the last commit (if the commits are decoupled from the batches)
+        if(uncommittedRows > 0)
+        {
+            dbHelper.commit();
+            uncommittedRows = 0;
+        }
         
-        return result;
+        //close the prepared statement
+        dbHelper.closeInsertStatement();
     }
     
     @Override
     protected void beforeTest(State state) {
         
-        List<DbEntry> entries = new ArrayList<>();
+        //acquire a connection (if the tester uses a connection pool)
+        super.beforeTest(state);
+        
+        if(isAborted())
+            return;
         
         //init data for insert batch
-        for(int i = 0; i < numInsertsPerTransaction; i++ )
-        {
-            DbEntry entry = new DbEntry();
-            entry.setVarcharField(CommonUtils.getRandomString(20));
-            entry.setIntField(CommonUtils.getRandomInt(100000));
-            entry.setDecimalField(CommonUtils.getRandomBigDecimal(100000, 2));
-            entry.setDateField(CommonUtils.getCurrentTimeStamp());
-            
-            entries.add(entry);
-        }
+        for(DbEntry entry : entries)
+            dataGenerator.nextEntry(entry);
         
         //set data for the inserts with random values 
         //(if you want to include the time needed for this operation in the statistics, you can move this to the method execTest().
@@ -104,7 +188,13 @@ public class DbInsertTester extends DbTester {
     protected void execTest(State state) {
         try {
             //we evaluate the time needed to execute the batch and to commit (using the PreparedStatement API)
-            dbHelper.execInsertDataBatch();
+            uncommittedRows += numInsertsPerTransaction;
+            boolean commit = rowsPerCommit <= 0 || uncommittedRows >= rowsPerCommit;
+            
+            dbHelper.execInsertDataBatch(commit);
+            
+            if(commit)
+                uncommittedRows = 0;
         } catch (SQLException ex) {
             Logger.getLogger(DbInsertTester.class.getName()).log(Level.SEVERE, null, ex);
         }
@@ -112,20 +202,41 @@ public class DbInsertTester extends DbTester {
 
     @Override
     protected void afterTest(State state) {
+        
+        //release the connection (if the tester uses a connection pool)
+        super.afterTest(state);
     }
     
-     @Override
-    protected void finish()
-    {
-        //close the prepared statement
-        dbHelper.closeInsertStatement();
+    @Override
+    protected void afterIterations(IterationType iterationType) {
         
-        super.finish();
+        //commit the records left by the last batch, so that the commit is measured with the iterations that inserted them
+        //(and the warmup records are not committed during the test iterations)
+        if(uncommittedRows > 0)
+        {
+            dbHelper.commit();
+            uncommittedRows = 0;
+        }
     }
 
     @Override
     public String getTestName() {
-        return "Insert Statements";
+        
+        switch(insertStrategy)
+        {
+            case MULTI_ROW_VALUES:
+                return "Insert Statements (multi-row values, " + rowsPerInsertStatement + " rows per statement)";
+            case REWRITE_BATCHED_INSERTS:
+                return "Insert Statements (rewrite batched inserts)";
+            case UNNEST_ARRAYS:
+                return "Insert Statements (unnest arrays)";
+            default:
+                return "Insert Statements";
+        }
+    }
+
+    public InsertStrategy getInsertStrategy() {
+        return insertStrategy;
     }
     
     @Override
@@ -133,7 +244,12 @@ public class DbInsertTester extends DbTester {
         
         String info = "Warmup Executions: " + this.getNumOfWarmupExecutions() + "\n" + 
                       "Batch Insert Executions: " + this.getNumOfExecutions() + "\n" + 
-                      "Num of inserts per batch: " + numInsertsPerTransaction + "\n";
+                      "Num of inserts per batch: " + numInsertsPerTransaction + "\n" + 
+                      "Insert strategy: " + insertStrategy + "\n" + 
+                      (rowsPerCommit > 0 ? "Commit every " + rowsPerCommit + " records (at least)\n" : "") + 
+                      getRunModeInfo() + 
+                      getTransactionSettingsInfo() + 
+                      getConnectionPoolInfo();
         
         return info;
     }
@@ -142,7 +258,7 @@ public class DbInsertTester extends DbTester {
     public Result getResult() {
         Result result = new Result();
         
-        if(this.getNumOfWarmupExecutions() > 0 && numInsertsPerTransaction > 0)
+        if(this.getWarmupHistogram().getTotalCount() > 0 && numInsertsPerTransaction > 0)
         {
             result.put("min-warmup (to insert a batch of records)", this.getWarmupMinTime());
             result.put("max-warmup (to insert a batch of records)", this.getWarmupMaxTime());
@@ -154,6 +270,13 @@ public class DbInsertTester extends DbTester {
             result.put("min (to insert a batch of records)", this.getMinTime());
             result.put("max (to insert a batch of records)", this.getMaxTime());
             result.put("avg (to insert a batch of records)", this.getAvgTime());
+            putPercentiles(result, " (to insert a batch of records)");
+            putRunStatistics(result, " (batches)");
+            
+            //throughput in rows, comparable with the one of the bulk loads
+            long elapsedTime = getTestElapsedTime();
+            if(elapsedTime > 0)
+                result.put(THROUGHPUT_RECORDS_KEY, perSecond(getHistogram().getTotalCount() * numInsertsPerTransaction, elapsedTime), Result.ROWS_PER_SECOND);
 
             long minTimePerRecord = 0;
             long maxTimePerRecord = 0;
@@ -161,18 +284,22 @@ public class DbInsertTester extends DbTester {
 
             if(numInsertsPerTransaction > 0 && numInsertsPerTransaction > 0)
             {
+                //the divisions are done in floating point, since with large batches the cost per single insert can be 
+                //below 1 microsecond and the integer division would truncate a significant part of it
                 //compute the cost per single insert in the bacth with min time
-                minTimePerRecord = this.getMinTime()/numInsertsPerTransaction;
+                minTimePerRecord = Math.round((double)this.getMinTime()/numInsertsPerTransaction);
                 //compute the cost per single insert in the bacth with max time
-                maxTimePerRecord = this.getMaxTime()/numInsertsPerTransaction;
+                maxTimePerRecord = Math.round((double)this.getMaxTime()/numInsertsPerTransaction);
                 //compute the avarage cost per single insert 
-                avgTimePerRecord = this.getAvgTime()/numInsertsPerTransaction;
+                avgTimePerRecord = Math.round(getHistogram().getMean()/numInsertsPerTransaction);
             }
 
             result.put("time per record in the bacth with min time", minTimePerRecord);
             result.put("time per record in the bacth with max time", maxTimePerRecord);
             result.put("avg (to insert a record)", avgTimePerRecord);
         }
+        
+        putConnectionPoolStatistics(result);
 
         return result;
     }
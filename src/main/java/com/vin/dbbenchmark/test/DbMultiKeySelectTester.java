@@ -0,0 +1,199 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.test;
+
+import com.vin.dbbenchmark.database.DBMSName;
+import com.vin.dbbenchmark.database.MultiKeySelectMode;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This Tester selects the records of {@code numOfKeysPerSelect} random primary keys per execution, 
+ * with an IN list, with an array parameter (= ANY(?)) or with a loop of single-key selects (see {@link MultiKeySelectMode}).
+ * The selected records are fully read. The tester evaluates the execution times of the calls and in addition provides 
+ * the avg times per key and per record read and the throughput in records per second, so that the amortization of the round trips can be compared.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class DbMultiKeySelectTester extends DbTester {
+
+    private final int numOfKeysPerSelect;
+    private final MultiKeySelectMode multiKeySelectMode;
+    
+    private int maxPrimaryKeyValue;
+    private final int[] primaryKeys;
+    private long selectedRecords;
+    
+    /**
+     *
+     * @param dbmsName It is the name of the database to be used. It is an enum and can have values POSTGRE_SQL, SQL_SERVER and H2
+     * @param numOfExecutions It is the number of times that the multi-key select is executed in order to collect statistical results 
+     * @param numOfKeysPerSelect It is the number of keys selected by every execution
+     * @param multiKeySelectMode It is the shape of the select statement. It is an enum and can have values IN_LIST, ANY_ARRAY and SINGLE_KEY_LOOP
+     * @param numOfWarmupExecutions It is the number of times that the multi-key select is executed for warmup purposes
+     */
+    public DbMultiKeySelectTester(DBMSName dbmsName, int numOfExecutions, int numOfKeysPerSelect, MultiKeySelectMode multiKeySelectMode, int numOfWarmupExecutions) {
+        super(dbmsName,numOfExecutions,numOfWarmupExecutions);
+        this.numOfKeysPerSelect = numOfKeysPerSelect;
+        this.multiKeySelectMode = multiKeySelectMode;
+        this.primaryKeys = new int[numOfKeysPerSelect];
+    }
+
+    @Override
+    protected int init()
+    {
+        int result = super.init();
+        
+        if(result != 0 )
+            return result;
+        
+        if(!dbHelper.supportsMultiKeySelectMode(multiKeySelectMode))
+        {
+            Logger.getLogger(DbMultiKeySelectTester.class.getName()).log(Level.SEVERE, "Multi-key select mode {0} is not supported by {1}", new Object[]{multiKeySelectMode, getDbmsName()});
+            finish();
+            return -1;
+        }
+        
+        //the helper reads from db the max primary key value in the database (it is used to compute random keys to select) 
+        maxPrimaryKeyValue = dbHelper.getMaxPrimaryKeyValue();
+        
+        return result;
+    }
+    
+    @Override
+    protected void prepareStatements()
+    {
+        dbHelper.prepareMultiKeySelectStatement(multiKeySelectMode, numOfKeysPerSelect);
+    }
+    
+    @Override
+    protected void closeStatements()
+    {
+        dbHelper.closeMultiKeySelectStatement();
+    }
+    
+    @Override
+    protected void beforeTest(State state) {
+        
+        //acquire a connection (if the tester uses a connection pool)
+        super.beforeTest(state);
+        
+        if(isAborted())
+            return;
+        
+        // here we assume that primary key values currently in the database are all the values from 1 to maxPrimaryKeyValue 
+        // (the same key can be selected more than once)
+        for(int i = 0; i < primaryKeys.length; i++)
+            primaryKeys[i] = nextPrimaryKey(maxPrimaryKeyValue);
+        
+        dbHelper.setMultiKeySelectData(primaryKeys);
+    }
+    
+    @Override
+    protected void execTest(State state) {
+        try {
+            //we evaluate the time needed to exec the select statement(s) and read all the records
+            int records = dbHelper.execMultiKeySelectData();
+            
+            //only the records of the test iterations are used for the statistics
+            if(state.getIterationType() == IterationType.TEST_EXECUTION)
+                selectedRecords += records;
+            
+        } catch (SQLException ex) {
+            Logger.getLogger(DbMultiKeySelectTester.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    @Override
+    protected void resetStatistics() {
+        
+        super.resetStatistics();
+        
+        selectedRecords = 0;
+    }
+    
+    @Override
+    protected void mergeStatistics(BaseTester other) {
+        
+        if(other instanceof DbMultiKeySelectTester)
+            selectedRecords += ((DbMultiKeySelectTester)other).selectedRecords;
+    }
+
+    /**
+     *
+     * @return The number of records read by the test iterations.
+     */
+    public long getSelectedRecords() {
+        return selectedRecords;
+    }
+
+    @Override
+    public String getTestName() {
+        return "Multi-key Select Statements (" + multiKeySelectMode.name().toLowerCase().replace('_', ' ') + ")";
+    }
+    
+    @Override
+    public String getTestInfo() {
+        
+        String info = "Warmup Executions: " + this.getNumOfWarmupExecutions() + "\n" + 
+                      "Executions: " + this.getNumOfExecutions() + "\n" + 
+                      "Num of keys per execution: " + numOfKeysPerSelect + "\n" + 
+                      "Multi-key select mode: " + multiKeySelectMode + "\n" + 
+                      getKeyDistributionInfo() + 
+                      getRunModeInfo() + 
+                      getConnectionPoolInfo();
+        
+        return info;
+    }
+    
+    @Override
+    public Result getResult() {
+        Result result = new Result();
+        
+        if(this.getWarmupHistogram().getTotalCount() > 0)
+        {
+            result.put("min-warmup (per call)", this.getWarmupMinTime());
+            result.put("max-warmup (per call)", this.getWarmupMaxTime());
+            result.put("avg-warmup (per call)", this.getWarmupAvgTime());
+        }
+        
+        if(this.getNumOfExecutions() > 0)
+        {
+            result.put("min (per call)", this.getMinTime());
+            result.put("max (per call)", this.getMaxTime());
+            result.put("avg (per call)", this.getAvgTime());
+            putPercentiles(result, " (per call)");
+            putRunStatistics(result, " (calls)");
+            
+            if(numOfKeysPerSelect > 0)
+                result.put("avg (per key)", Math.round(getHistogram().getMean()/numOfKeysPerSelect));
+            
+            if(selectedRecords > 0)
+                result.put("avg (per record read)", Math.round((double)getHistogram().getTotalValue()/selectedRecords));
+            
+            long elapsedTime = getTestElapsedTime();
+            
+            if(elapsedTime > 0)
+                result.put("throughput (rows)", perSecond(selectedRecords, elapsedTime), Result.ROWS_PER_SECOND);
+        }
+        
+        putConnectionPoolStatistics(result);
+
+        return result;
+    }
+    
+}
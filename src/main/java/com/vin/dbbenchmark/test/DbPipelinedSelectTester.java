@@ -0,0 +1,197 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.test;
+
+import com.vin.dbbenchmark.database.DBMSName;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This Tester keeps {@code pipelineDepth} selects by PK in flight on its connection: every execution sends {@code pipelineDepth} selects of random 
+ * primary keys in a single round trip (a prepared statement with many statements, see {@link com.vin.dbbenchmark.database.DbHelper#preparePipelinedSelectStatement(int) preparePipelinedSelectStatement}) 
+ * and then reads their results. With depth 1 the tester executes the same select of {@link DbSelectTester} (reading the record), 
+ * so the throughput of the depths shows how much of the time of the synchronous selects is spent waiting for the round trips.
+ * If the database does not support pipelined statements the selects are executed one after the other (a round trip per select).
+ * 
+ * @author Vincenzo Micelli
+ */
+public class DbPipelinedSelectTester extends DbTester {
+
+    /**
+     * Key of the throughput of the selects in the result (in selects per second)
+     */
+    public static final String THROUGHPUT_SELECTS_KEY = "throughput (selects)";
+    
+    private final int pipelineDepth;
+    
+    private int maxPrimaryKeyValue;
+    private final int[] primaryKeys;
+    private long selectedRecords;
+    
+    /**
+     *
+     * @param dbmsName It is the name of the database to be used. It is an enum and can have values POSTGRE_SQL, SQL_SERVER and H2
+     * @param numOfExecutions It is the number of pipelines executed in order to collect statistical results 
+     * @param pipelineDepth It is the number of selects sent together by every execution
+     * @param numOfWarmupExecutions It is the number of pipelines executed for warmup purposes
+     */
+    public DbPipelinedSelectTester(DBMSName dbmsName, int numOfExecutions, int pipelineDepth, int numOfWarmupExecutions) {
+        super(dbmsName,numOfExecutions,numOfWarmupExecutions);
+        this.pipelineDepth = pipelineDepth;
+        this.primaryKeys = new int[pipelineDepth];
+    }
+
+    @Override
+    protected int init()
+    {
+        int result = super.init();
+        
+        if(result != 0 )
+            return result;
+        
+        //the helper reads from db the max primary key value in the database (it is used to compute random keys to select) 
+        maxPrimaryKeyValue = dbHelper.getMaxPrimaryKeyValue();
+        
+        return result;
+    }
+    
+    @Override
+    protected void prepareStatements()
+    {
+        dbHelper.preparePipelinedSelectStatement(pipelineDepth);
+    }
+    
+    @Override
+    protected void closeStatements()
+    {
+        dbHelper.closePipelinedSelectStatement();
+    }
+    
+    @Override
+    protected void beforeTest(State state) {
+        
+        //acquire a connection (if the tester uses a connection pool)
+        super.beforeTest(state);
+        
+        if(isAborted())
+            return;
+        
+        // here we assume that primary key values currently in the database are all the values from 1 to maxPrimaryKeyValue 
+        for(int i = 0; i < primaryKeys.length; i++)
+            primaryKeys[i] = nextPrimaryKey(maxPrimaryKeyValue);
+        
+        dbHelper.setPipelinedSelectData(primaryKeys);
+    }
+    
+    @Override
+    protected void execTest(State state) {
+        try {
+            //we evaluate the time needed to send all the selects and read all the records
+            int records = dbHelper.execPipelinedSelectData();
+            
+            //only the records of the test iterations are used for the statistics
+            if(state.getIterationType() == IterationType.TEST_EXECUTION)
+                selectedRecords += records;
+            
+        } catch (SQLException ex) {
+            Logger.getLogger(DbPipelinedSelectTester.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    
+    @Override
+    protected void resetStatistics() {
+        
+        super.resetStatistics();
+        
+        selectedRecords = 0;
+    }
+    
+    @Override
+    protected void mergeStatistics(BaseTester other) {
+        
+        if(other instanceof DbPipelinedSelectTester)
+            selectedRecords += ((DbPipelinedSelectTester)other).selectedRecords;
+    }
+
+    /**
+     *
+     * @return The number of records read by the test iterations.
+     */
+    public long getSelectedRecords() {
+        return selectedRecords;
+    }
+
+    public int getPipelineDepth() {
+        return pipelineDepth;
+    }
+
+    @Override
+    public String getTestName() {
+        return "Pipelined Select Statements by PK (depth " + pipelineDepth + ")";
+    }
+    
+    @Override
+    public String getTestInfo() {
+        
+        String info = "Warmup Executions: " + this.getNumOfWarmupExecutions() + "\n" + 
+                      "Executions: " + this.getNumOfExecutions() + "\n" + 
+                      "Pipeline depth (selects per round trip): " + pipelineDepth + "\n" + 
+                      (dbHelper != null && !dbHelper.supportsPipelinedSelect() ? "Pipelined statements not supported by " + getDbmsName() + ": a round trip per select\n" : "") + 
+                      getKeyDistributionInfo() + 
+                      getRunModeInfo() + 
+                      getConnectionPoolInfo();
+        
+        return info;
+    }
+    
+    @Override
+    public Result getResult() {
+        Result result = new Result();
+        
+        if(this.getWarmupHistogram().getTotalCount() > 0)
+        {
+            result.put("min-warmup (per pipeline)", this.getWarmupMinTime());
+            result.put("max-warmup (per pipeline)", this.getWarmupMaxTime());
+            result.put("avg-warmup (per pipeline)", this.getWarmupAvgTime());
+        }
+        
+        if(this.getNumOfExecutions() > 0)
+        {
+            result.put("min (per pipeline)", this.getMinTime());
+            result.put("max (per pipeline)", this.getMaxTime());
+            result.put("avg (per pipeline)", this.getAvgTime());
+            putPercentiles(result, " (per pipeline)");
+            putRunStatistics(result, " (pipelines)");
+            
+            if(pipelineDepth > 0)
+                result.put("avg (per select)", Math.round(getHistogram().getMean()/pipelineDepth));
+            
+            long elapsedTime = getTestElapsedTime();
+            
+            if(elapsedTime > 0)
+            {
+                result.put(THROUGHPUT_SELECTS_KEY, perSecond(getHistogram().getTotalCount() * pipelineDepth, elapsedTime), Result.OPERATIONS_PER_SECOND);
+                result.put("throughput (rows)", perSecond(selectedRecords, elapsedTime), Result.ROWS_PER_SECOND);
+            }
+        }
+        
+        putConnectionPoolStatistics(result);
+
+        return result;
+    }
+    
+}
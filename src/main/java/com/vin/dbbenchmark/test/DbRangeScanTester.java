@@ -0,0 +1,342 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.test;
+
+import com.vin.dbbenchmark.database.DBMSName;
+import com.vin.dbbenchmark.database.DbHelper;
+import com.vin.dbbenchmark.database.ScanCursorMode;
+import com.vin.dbbenchmark.utils.LatencyHistogram;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This Tester reads ranges of {@code numOfRowsPerScan} consecutive primary keys and decodes all the columns of every record. 
+ * The fetch size and the cursor mode (see {@link ScanCursorMode}) of the statement can be set, so that the streaming of large results can be tuned. 
+ * The tester evaluates the execution times of the scans, the time to the first record and the throughput in records per second. 
+ * It also provides the max heap used at the end of a scan (before the result set is closed) and the bytes allocated per record, 
+ * to check whether the driver keeps the whole result in memory.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class DbRangeScanTester extends DbTester {
+    
+    private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+    
+    private final int numOfRowsPerScan;
+    private final ScanCursorMode scanCursorMode;
+    private final int fetchSize;
+    
+    private int maxPrimaryKeyValue;
+    private final DbHelper.DbEntry entry = new DbHelper.DbEntry();
+    
+    // statistics of the test iterations
+    private LatencyHistogram firstRowHistogram;
+    private long scannedRows;
+    private long maxUsedHeap;
+    private long allocatedBytes;
+    private boolean allocatedBytesSupported;
+    
+    private com.sun.management.ThreadMXBean threadMXBean;
+    private long allocatedBytesBeforeTest;
+    
+    /**
+     *
+     * @param dbmsName It is the name of the database to be used. It is an enum and can have values POSTGRE_SQL, SQL_SERVER and H2
+     * @param numOfExecutions It is the number of range scans executed in order to collect statistical results 
+     * @param numOfRowsPerScan It is the number of primary keys of every range
+     * @param scanCursorMode It is the way used to read the records. It is an enum and can have values CLIENT_BUFFERED and SERVER_CURSOR
+     * @param fetchSize It is the number of records that the driver should read from the database at a time (0 to use the driver default)
+     * @param numOfWarmupExecutions It is the number of range scans executed for warmup purposes
+     */
+    public DbRangeScanTester(DBMSName dbmsName, int numOfExecutions, int numOfRowsPerScan, ScanCursorMode scanCursorMode, int fetchSize, int numOfWarmupExecutions) {
+        super(dbmsName,numOfExecutions,numOfWarmupExecutions);
+        this.numOfRowsPerScan = numOfRowsPerScan;
+        this.scanCursorMode = scanCursorMode;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    protected int init()
+    {
+        int result = super.init();
+        
+        if(result != 0 )
+            return result;
+        
+        //the helper reads from db the max primary key value in the database (it is used to compute the random ranges to read) 
+        maxPrimaryKeyValue = dbHelper.getMaxPrimaryKeyValue();
+        
+        firstRowHistogram = getHistogram().copyEmpty();
+        
+        // the bytes allocated by a thread are provided only by some jvms
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if(bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean)bean).isThreadAllocatedMemorySupported())
+        {
+            threadMXBean = (com.sun.management.ThreadMXBean)bean;
+            threadMXBean.setThreadAllocatedMemoryEnabled(true);
+            allocatedBytesSupported = true;
+        }
+        
+        return result;
+    }
+    
+    @Override
+    protected void prepareStatements()
+    {
+        dbHelper.prepareRangeScanStatement(scanCursorMode, fetchSize);
+    }
+    
+    @Override
+    protected void closeStatements()
+    {
+        dbHelper.closeRangeScanStatement();
+    }
+    
+    @Override
+    protected void beforeTest(State state) {
+        
+        //acquire a connection (if the tester uses a connection pool)
+        super.beforeTest(state);
+        
+        if(isAborted())
+            return;
+        
+        // here we assume that primary key values currently in the database are all the values from 1 to maxPrimaryKeyValue 
+        int numOfFirstKeys = maxPrimaryKeyValue - numOfRowsPerScan + 1;
+        int firstPrimaryKey = numOfFirstKeys > 0 ? nextPrimaryKey(numOfFirstKeys) : 1;
+        
+        dbHelper.setRangeScanData(firstPrimaryKey, numOfRowsPerScan);
+        
+        if(threadMXBean != null)
+            allocatedBytesBeforeTest = threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    
+    @Override
+    protected void execTest(State state) {
+        
+        ScanState scanState = (ScanState)state;
+        long startTime = System.nanoTime();
+        
+        //we evaluate the time needed to exec the select statement and read all the records
+        ResultSet resultSet = dbHelper.execRangeScanData();
+        scanState.setResultSet(resultSet);
+        
+        if(resultSet == null)
+            return;
+        
+        try {
+            int rows = 0;
+            
+            if(resultSet.next())
+            {
+                scanState.setFirstRowTime(System.nanoTime() - startTime);
+                
+                do {
+                    DbHelper.readEntry(resultSet, entry);
+                    rows++;
+                } while(resultSet.next());
+            }
+            
+            scanState.setRows(rows);
+        } catch (SQLException ex) {
+            Logger.getLogger(DbRangeScanTester.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    @Override
+    protected void afterTest(State state) {
+        
+        ScanState scanState = (ScanState)state;
+        
+        if(state.getIterationType() == IterationType.TEST_EXECUTION)
+        {
+            if(threadMXBean != null)
+                allocatedBytes += threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBytesBeforeTest;
+            
+            // the heap is sampled before closing the result set (some drivers keep all the records of the result set in memory)
+            Runtime runtime = Runtime.getRuntime();
+            maxUsedHeap = Math.max(maxUsedHeap, runtime.totalMemory() - runtime.freeMemory());
+            
+            scannedRows += scanState.getRows();
+            if(scanState.getRows() > 0)
+                firstRowHistogram.recordValue(scanState.getFirstRowTime());
+        }
+        
+        // close the result set (and end the transaction of the cursor, if any)
+        dbHelper.closeRangeScanResult(scanState.getResultSet());
+        scanState.setResultSet(null);
+        scanState.setRows(0);
+        
+        //release the connection (if the tester uses a connection pool)
+        super.afterTest(state);
+    }
+    
+    @Override
+    protected void resetStatistics() {
+        
+        super.resetStatistics();
+        
+        scannedRows = 0;
+        maxUsedHeap = 0;
+        allocatedBytes = 0;
+    }
+    
+    @Override
+    protected void mergeStatistics(BaseTester other) {
+        
+        if(!(other instanceof DbRangeScanTester))
+            return;
+        
+        DbRangeScanTester otherTester = (DbRangeScanTester)other;
+        
+        // the aggregate tester of a concurrent test is not initialized
+        if(firstRowHistogram == null)
+        {
+            firstRowHistogram = getHistogram().copyEmpty();
+            allocatedBytesSupported = true;
+        }
+        
+        if(otherTester.firstRowHistogram != null)
+            firstRowHistogram.add(otherTester.firstRowHistogram);
+        scannedRows += otherTester.scannedRows;
+        maxUsedHeap = Math.max(maxUsedHeap, otherTester.maxUsedHeap);
+        allocatedBytes += otherTester.allocatedBytes;
+        allocatedBytesSupported &= otherTester.allocatedBytesSupported;
+    }
+
+    /**
+     *
+     * @return The number of records read by the test iterations.
+     */
+    public long getScannedRows() {
+        return scannedRows;
+    }
+
+    /**
+     *
+     * @return The times from the execution of the statement to the first record read, of the test iterations.
+     */
+    public LatencyHistogram getFirstRowHistogram() {
+        return firstRowHistogram;
+    }
+
+    @Override
+    public String getTestName() {
+        return "Range Scans (" + scanCursorMode.name().toLowerCase().replace('_', ' ') + ", fetch size " + fetchSize + ")";
+    }
+    
+    @Override
+    public String getTestInfo() {
+        
+        String info = "Warmup Executions: " + this.getNumOfWarmupExecutions() + "\n" + 
+                      "Executions: " + this.getNumOfExecutions() + "\n" + 
+                      "Num of records per scan: " + numOfRowsPerScan + "\n" + 
+                      "Cursor mode: " + scanCursorMode + "\n" + 
+                      "Fetch size: " + fetchSize + (fetchSize == 0 ? " (driver default)" : "") + "\n" + 
+                      getKeyDistributionInfo() + 
+                      getRunModeInfo() + 
+                      getConnectionPoolInfo();
+        
+        return info;
+    }
+    
+    @Override
+    public Result getResult() {
+        Result result = new Result();
+        
+        if(this.getWarmupHistogram().getTotalCount() > 0)
+        {
+            result.put("min-warmup (to scan a range)", this.getWarmupMinTime());
+            result.put("max-warmup (to scan a range)", this.getWarmupMaxTime());
+            result.put("avg-warmup (to scan a range)", this.getWarmupAvgTime());
+        }
+        
+        if(this.getNumOfExecutions() > 0)
+        {
+            result.put("min (to scan a range)", this.getMinTime());
+            result.put("max (to scan a range)", this.getMaxTime());
+            result.put("avg (to scan a range)", this.getAvgTime());
+            putPercentiles(result, " (to scan a range)");
+            putRunStatistics(result, " (scans)");
+            
+            if(firstRowHistogram != null && firstRowHistogram.getTotalCount() > 0)
+            {
+                result.put("avg (to the first row)", Math.round(firstRowHistogram.getMean()));
+                result.put("p99 (to the first row)", firstRowHistogram.getValueAtPercentile(99));
+                result.put("max (to the first row)", firstRowHistogram.getMaxValue());
+            }
+            
+            if(scannedRows > 0)
+                result.put("avg (per row read)", Math.round((double)getHistogram().getTotalValue()/scannedRows));
+            
+            long elapsedTime = getTestElapsedTime();
+            
+            if(elapsedTime > 0)
+                result.put("throughput (rows)", perSecond(scannedRows, elapsedTime), Result.ROWS_PER_SECOND);
+            
+            result.put("max heap used (at the end of a scan)", maxUsedHeap / BYTES_PER_MEGABYTE, "MB");
+            
+            if(allocatedBytesSupported && scannedRows > 0)
+                result.put("allocated memory (per row read)", allocatedBytes / scannedRows, "bytes");
+        }
+        
+        putConnectionPoolStatistics(result);
+
+        return result;
+    }
+    
+    @Override
+    public State makeState()
+    {
+        return new ScanState();
+    }
+    
+    private static class ScanState extends State
+    {
+        private ResultSet resultSet;
+        private int rows;
+        private long firstRowTime;
+
+        public ResultSet getResultSet() {
+            return resultSet;
+        }
+
+        public void setResultSet(ResultSet resultSet) {
+            this.resultSet = resultSet;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public void setRows(int rows) {
+            this.rows = rows;
+        }
+
+        public long getFirstRowTime() {
+            return firstRowTime;
+        }
+
+        public void setFirstRowTime(long firstRowTime) {
+            this.firstRowTime = firstRowTime;
+        }
+    }
+    
+}
@@ -16,7 +16,8 @@
 package com.vin.dbbenchmark.test;
 
 import com.vin.dbbenchmark.database.DBMSName;
-import com.vin.dbbenchmark.utils.CommonUtils;
+import com.vin.dbbenchmark.database.DbHelper;
+import com.vin.dbbenchmark.utils.LatencyHistogram;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.logging.Level;
@@ -25,6 +26,8 @@ import java.util.logging.Logger;
 /**
  * This Tester executes select statements on a database (through the property {@code dbHelper}). 
  * The tester evaluate the min, max and avg execution times to select a single record by its primary key.
+ * By default only the execution of the query is measured. If the results are materialized (see {@link #setMaterializeResults(boolean) setMaterializeResults}), 
+ * the measured time also includes reading the record and decoding its columns, and the times of the execute, fetch and decode phases are provided separately.
  * 
  * @author Vincenzo Micelli
  */
@@ -32,9 +35,17 @@ public class DbSelectTester extends DbTester {
 
     private int maxPrimaryKeyValue;
     
+    private boolean materializeResults;
+    private final DbHelper.DbEntry entry = new DbHelper.DbEntry();
+    
+    // times of the phases of the test iterations (when the results are materialized)
+    private LatencyHistogram executeHistogram;
+    private LatencyHistogram fetchHistogram;
+    private LatencyHistogram decodeHistogram;
+    
     /**
      *
-     * @param dbmsName It is the name of the database to be used. It is an enum and can have values POSTGRE_SQL and SQL_SERVER
+     * @param dbmsName It is the name of the database to be used. It is an enum and can have values POSTGRE_SQL, SQL_SERVER and H2
      * @param numOfExecutions It is the number of times that the select statementt is executed in order to collect statistical results 
      * @param numOfWarmupExecutions It is the number of times that select statement is executed for warmup purposes
      */
@@ -42,6 +53,19 @@ public class DbSelectTester extends DbTester {
         super(dbmsName,numOfExecutions,numOfWarmupExecutions);
     }
 
+    /**
+     * Read and decode the selected record in the measured time (by default only the execution of the query is measured).
+     * 
+     * @param materializeResults true to read all the records of the result set and decode their columns in a reused entry
+     */
+    public void setMaterializeResults(boolean materializeResults) {
+        this.materializeResults = materializeResults;
+    }
+
+    public boolean isMaterializeResults() {
+        return materializeResults;
+    }
+
     @Override
     protected int init()
     {
@@ -53,8 +77,20 @@ public class DbSelectTester extends DbTester {
         //(max primary key value is used by the dbHelper to compute a random key to select) 
         maxPrimaryKeyValue = dbHelper.getMaxPrimaryKeyValue();
         
+        // the phases are recorded only if the results are materialized (the histograms are not allocated by the other testers, e.g. by thousands of concurrent workers)
+        if(materializeResults)
+            makePhaseHistograms();
+        else
+            executeHistogram = fetchHistogram = decodeHistogram = null;
+        
+        return result;
+    }
+    
+    @Override
+    protected void prepareStatements()
+    {
         //Obtain the prepared statement object from the connection.
-        //This tester obtains the prepared statement object at the beginning and uses it for each test execution.
+        //This tester obtains the prepared statement object at the beginning (or when a connection is acquired from the pool) and uses it for each test execution.
         //(
         // If you want to prepare the statement before every select you can move the call of prepareSelectStatement to method beforeTest(). 
         // Or, if you want to include the time needed for this operation in the statistics, you can move this to the method execTest().
@@ -69,19 +105,30 @@ public class DbSelectTester extends DbTester {
         //    4 dbHelper.closeSelectStatement();
         //)
         dbHelper.prepareSelectStatement();
-        
-        return result;
+    }
+    
+    @Override
+    protected void closeStatements()
+    {
+        //close the prepared statement
+        dbHelper.closeSelectStatement();
     }
     
     @Override
     protected void beforeTest(State state) {
         
+        //acquire a connection (if the tester uses a connection pool)
+        super.beforeTest(state);
+        
+        if(isAborted())
+            return;
+        
         int primaryKeyValue = 0;
         
         // here we assume that primary key values currently in the database are all the values from 1 to maxPrimaryKeyValue 
         // (they have been inserted during the insert test)
         if(maxPrimaryKeyValue > 0)
-           primaryKeyValue = CommonUtils.getRandomInt(maxPrimaryKeyValue);
+           primaryKeyValue = nextPrimaryKey(maxPrimaryKeyValue);
         
         //set the pk to use for the select statement 
         //(if you want to include the time needed for this operation in the statistics, you can move this to the method execTest()
@@ -93,14 +140,61 @@ public class DbSelectTester extends DbTester {
     @Override
     protected void execTest(State state) {
 
-        //we evaluate the time needed to exec the select statement
+        if(!materializeResults)
+        {
+            //we evaluate the time needed to exec the select statement
+            ResultSet resultSet = dbHelper.execSelectData();
+            ((ResultSetState)state).setResultSet(resultSet);
+            return;
+        }
+        
+        ResultSetState resultSetState = (ResultSetState)state;
+        
+        //we evaluate the time needed to exec the select statement, to fetch the records (next) and to decode their columns
+        long startTime = System.nanoTime();
         ResultSet resultSet = dbHelper.execSelectData();
-        ((ResultSetState)state).setResultSet(resultSet);
+        long phaseEndTime = System.nanoTime();
+        
+        resultSetState.setResultSet(resultSet);
+        resultSetState.setExecuteTime(phaseEndTime - startTime);
+        resultSetState.setFetchTime(0);
+        resultSetState.setDecodeTime(0);
+        
+        if(resultSet == null)
+            return;
+        
+        try {
+            while(true)
+            {
+                long fetchStartTime = phaseEndTime;
+                boolean hasRecord = resultSet.next();
+                phaseEndTime = System.nanoTime();
+                resultSetState.setFetchTime(resultSetState.getFetchTime() + phaseEndTime - fetchStartTime);
+                
+                if(!hasRecord)
+                    break;
+                
+                long decodeStartTime = phaseEndTime;
+                DbHelper.readEntry(resultSet, entry);
+                phaseEndTime = System.nanoTime();
+                resultSetState.setDecodeTime(resultSetState.getDecodeTime() + phaseEndTime - decodeStartTime);
+            }
+        } catch (SQLException ex) {
+            Logger.getLogger(DbSelectTester.class.getName()).log(Level.SEVERE, null, ex);
+        }
     }
 
     @Override
     protected void afterTest(State state) {
         
+        if(materializeResults && state.getIterationType() == IterationType.TEST_EXECUTION)
+        {
+            ResultSetState resultSetState = (ResultSetState)state;
+            executeHistogram.recordValue(resultSetState.getExecuteTime());
+            fetchHistogram.recordValue(resultSetState.getFetchTime());
+            decodeHistogram.recordValue(resultSetState.getDecodeTime());
+        }
+        
         try {
             ResultSet resultSet = ((ResultSetState)state).getResultSet();
             
@@ -108,23 +202,96 @@ public class DbSelectTester extends DbTester {
             if(resultSet != null)
                 resultSet.close();
             
+            // end the read transaction (only with an explicit commit mode, otherwise the select is in auto-commit)
+            dbHelper.commit();
+            
         } catch (SQLException ex) {
             Logger.getLogger(DbSelectTester.class.getName()).log(Level.SEVERE, null, ex);
         }
         
+        //release the connection (if the tester uses a connection pool)
+        super.afterTest(state);
+    }
+
+    @Override
+    protected void mergeStatistics(BaseTester other) {
+        
+        if(!(other instanceof DbSelectTester) || ((DbSelectTester)other).executeHistogram == null)
+            return;
+        
+        DbSelectTester otherTester = (DbSelectTester)other;
+        
+        // the aggregate tester of a concurrent test is not initialized
+        if(executeHistogram == null)
+            makePhaseHistograms();
+        
+        executeHistogram.add(otherTester.executeHistogram);
+        fetchHistogram.add(otherTester.fetchHistogram);
+        decodeHistogram.add(otherTester.decodeHistogram);
     }
     
-     @Override
-    protected void finish()
+    private void makePhaseHistograms()
     {
-        //close the prepared statement
-        dbHelper.closeSelectStatement();    
-        super.finish();
+        executeHistogram = getHistogram().copyEmpty();
+        fetchHistogram = getHistogram().copyEmpty();
+        decodeHistogram = getHistogram().copyEmpty();
+    }
+    
+    @Override
+    public Result getResult() {
+        Result result = super.getResult();
+        
+        if(materializeResults && executeHistogram != null && executeHistogram.getTotalCount() > 0)
+        {
+            putPhaseStatistics(result, "execute", executeHistogram);
+            putPhaseStatistics(result, "fetch", fetchHistogram);
+            putPhaseStatistics(result, "decode", decodeHistogram);
+        }
+        
+        return result;
+    }
+    
+    private static void putPhaseStatistics(Result result, String phase, LatencyHistogram phaseHistogram)
+    {
+        result.put("avg (" + phase + ")", Math.round(phaseHistogram.getMean()));
+        result.put("p50 (" + phase + ")", phaseHistogram.getValueAtPercentile(50));
+        result.put("p99 (" + phase + ")", phaseHistogram.getValueAtPercentile(99));
+        result.put("max (" + phase + ")", phaseHistogram.getMaxValue());
+    }
+
+    /**
+     *
+     * @return The times to execute the query of the test iterations (null if the tester has not been executed or the results are not materialized).
+     */
+    public LatencyHistogram getExecuteHistogram() {
+        return executeHistogram;
+    }
+
+    /**
+     *
+     * @return The times to fetch the records (calls of next) of the test iterations (null if the tester has not been executed or the results are not materialized).
+     */
+    public LatencyHistogram getFetchHistogram() {
+        return fetchHistogram;
+    }
+
+    /**
+     *
+     * @return The times to decode the columns of the records of the test iterations (null if the tester has not been executed or the results are not materialized).
+     */
+    public LatencyHistogram getDecodeHistogram() {
+        return decodeHistogram;
+    }
+
+    @Override
+    public String getTestInfo() {
+        
+        return super.getTestInfo() + getKeyDistributionInfo();
     }
 
     @Override
     public String getTestName() {
-        return "Select Statements by PK";
+        return materializeResults ? "Select Statements by PK (records read and decoded)" : "Select Statements by PK";
     }
     
     @Override
@@ -136,6 +303,9 @@ public class DbSelectTester extends DbTester {
     private static class ResultSetState extends State
     {
         private ResultSet resultSet;
+        private long executeTime;
+        private long fetchTime;
+        private long decodeTime;
 
         public ResultSet getResultSet() {
             return resultSet;
@@ -145,6 +315,30 @@ public class DbSelectTester extends DbTester {
             this.resultSet = resultSet;
         }
 
+        public long getExecuteTime() {
+            return executeTime;
+        }
+
+        public void setExecuteTime(long executeTime) {
+            this.executeTime = executeTime;
+        }
+
+        public long getFetchTime() {
+            return fetchTime;
+        }
+
+        public void setFetchTime(long fetchTime) {
+            this.fetchTime = fetchTime;
+        }
+
+        public long getDecodeTime() {
+            return decodeTime;
+        }
+
+        public void setDecodeTime(long decodeTime) {
+            this.decodeTime = decodeTime;
+        }
+
         
     }
     
@@ -15,28 +15,68 @@
  */
 package com.vin.dbbenchmark.test;
 
+import com.vin.dbbenchmark.database.CommitMode;
+import com.vin.dbbenchmark.database.ConnectionPool;
 import com.vin.dbbenchmark.database.DbHelper;
 import com.vin.dbbenchmark.database.DBMSName;
 import com.vin.dbbenchmark.database.DbHelperFactory;
+import com.vin.dbbenchmark.database.IsolationLevel;
+import com.vin.dbbenchmark.utils.DataGenerator;
+import com.vin.dbbenchmark.utils.KeyGenerator;
+import com.vin.dbbenchmark.utils.LatencyHistogram;
+import com.vin.dbbenchmark.utils.UniformKeyGenerator;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * This is a BaseTester that implements {@link #init() init} and {@link #finish() finish} methods to handle the connection to the database (open/close).
  * This Class can be subclassed to perform generic tests on databases.
  * 
+ * By default the tester opens its own connection in {@link #init() init} and uses it for all the iterations. 
+ * If a {@link ConnectionPool} is set (see {@link #setConnectionPool(ConnectionPool) setConnectionPool}), the tester acquires a connection 
+ * from the pool in {@link #beforeTest(State) beforeTest} and releases it in {@link #afterTest(State) afterTest}, as an application using a pool would do. 
+ * In this case the statements are prepared every time a connection is acquired. Subclasses have to prepare and close their statements 
+ * in {@link #prepareStatements() prepareStatements} and {@link #closeStatements() closeStatements}, and have to call 
+ * {@code super.beforeTest(state)} at the beginning of their {@code beforeTest} and {@code super.afterTest(state)} at the end of their {@code afterTest}.
+ * If a connection cannot be acquired the tester is {@link #abort() aborted}: in this case {@code beforeTest} of the subclasses must return 
+ * without using the connection (see {@link #isAborted() isAborted}).
+ * With a pool the tester also records the end-to-end time of every test iteration, from the request of the connection to its release, 
+ * that includes the time spent queueing for a connection.
+ * 
  * @author Vincenzo Micelli
  */
 public abstract class DbTester extends BaseTester{
     
     private final DBMSName dbmsName;
     
+    private ConnectionPool connectionPool;
+    
+    private long randomSeed = DataGenerator.newSeed();
+    
+    private KeyGenerator keyGenerator = new UniformKeyGenerator();
+    
+    private IsolationLevel isolationLevel;
+    private CommitMode commitMode;
+    
+    // with a pool: times from the request of a connection to its release (queueing for a connection included)
+    private LatencyHistogram endToEndHistogram;
+    private long connectionRequestTime;
+    
     /**
      * This {@link DbHelper} can be used by subclasses to execute statements on the database
      */
     protected DbHelper dbHelper;
     
+    /**
+     * This {@link DataGenerator} can be used by subclasses to generate the data of the statements. It is created in {@link #init() init}
+     */
+    protected DataGenerator dataGenerator;
+    
     /**
      *
-     * @param dbmsName It is the name of the database to be used. It is an enum and can have values POSTGRE_SQL and SQL_SERVER
+     * @param dbmsName It is the name of the database to be used. It is an enum and can have values POSTGRE_SQL, SQL_SERVER and H2
      * @param numOfExecutions It is the number of times that the {@link #execTest(State state) execTest} method is executed in order to collect statistical results
      * @param numOfWarmupExecutions It is the number of times that the {@link #execTest(State state) execTest} method is executed for warmup purposes
      */
@@ -44,20 +84,352 @@ public abstract class DbTester extends BaseTester{
         super(numOfExecutions,numOfWarmupExecutions);
         this.dbmsName = dbmsName;
     }
+
+    public DBMSName getDbmsName() {
+        return dbmsName;
+    }
+
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * Acquire the connections from a pool (shared with other testers) instead of opening a dedicated connection.
+     * 
+     * @param connectionPool The pool of connections (null to open a dedicated connection).
+     */
+    public void setConnectionPool(ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    public long getRandomSeed() {
+        return randomSeed;
+    }
+
+    /**
+     * Set the seed of the random data generated by the tester, to replay the same data in different runs. 
+     * By default a random seed is used.
+     * 
+     * @param randomSeed The seed of the {@link DataGenerator} of the tester
+     */
+    public void setRandomSeed(long randomSeed) {
+        this.randomSeed = randomSeed;
+    }
+    
+    public KeyGenerator getKeyGenerator() {
+        return keyGenerator;
+    }
+
+    /**
+     * Set the distribution of the primary keys accessed by the tester (see {@link #nextPrimaryKey(int) nextPrimaryKey}). 
+     * By default the keys are drawn uniformly.
+     * 
+     * @param keyGenerator The generator of the keys (it can be shared by concurrent testers)
+     */
+    public void setKeyGenerator(KeyGenerator keyGenerator) {
+        this.keyGenerator = keyGenerator;
+    }
+    
+    public IsolationLevel getIsolationLevel() {
+        return isolationLevel;
+    }
+
+    /**
+     * Set the isolation level of the transactions of the tester (see {@link DbHelper#setIsolationLevel(IsolationLevel) setIsolationLevel}). 
+     * It is applied to the connection opened in {@link #init() init} and to every connection acquired from the pool.
+     * 
+     * @param isolationLevel The isolation level (null to keep the default of the connection)
+     */
+    public void setIsolationLevel(IsolationLevel isolationLevel) {
+        this.isolationLevel = isolationLevel;
+    }
+
+    public CommitMode getCommitMode() {
+        return commitMode;
+    }
+
+    /**
+     * Set the way the inserts and the selects of the tester are committed (see {@link DbHelper#setCommitMode(CommitMode) setCommitMode}).
+     * 
+     * @param commitMode The commit mode (null to commit the inserts explicitly and to execute the selects in auto-commit)
+     */
+    public void setCommitMode(CommitMode commitMode) {
+        this.commitMode = commitMode;
+    }
+    
+    /**
+     * Draw a primary key with the {@link KeyGenerator} of the tester. 
+     * Subclasses can use this method to select the records to access.
+     * 
+     * @param maxPrimaryKeyValue The max primary key that can be drawn
+     * @return A key between 1 and maxPrimaryKeyValue (0 if maxPrimaryKeyValue is not positive)
+     */
+    protected int nextPrimaryKey(int maxPrimaryKeyValue)
+    {
+        return keyGenerator.nextKey(dataGenerator, maxPrimaryKeyValue);
+    }
     
     @Override
     protected int init()
     {
         dbHelper = DbHelperFactory.getDbHelper(dbmsName);
-        int connectionResult = dbHelper.connect();
+        dataGenerator = new DataGenerator(randomSeed);
+        endToEndHistogram = null;
+        dbHelper.setIsolationLevel(isolationLevel);
+        dbHelper.setCommitMode(commitMode);
+        configureDbHelper();
+        
+        // with a pool the connection acquired here is used by subclasses for their initialization and then released 
+        int connectionResult = connectionPool != null ? acquireConnection() : dbHelper.connect();
+        
+        if(connectionResult == 0 && connectionPool == null)
+        {
+            connectionResult = dbHelper.applyTransactionSettings();
+            
+            if(connectionResult != 0)
+            {
+                dbHelper.closeConnection();
+                return connectionResult;
+            }
+            
+            prepareStatements();
+        }
         
         return connectionResult;
     }
+    
+    /**
+     * Subclasses can override this method to configure the {@code dbHelper}. 
+     * It is called in {@link #init() init} before the connection is opened.
+     */
+    protected void configureDbHelper()
+    {
+    }
+    
+    /**
+     * Subclasses can override this method to prepare the statements executed by the tester. 
+     * It is called after the connection has been opened (or acquired from the pool).
+     */
+    protected void prepareStatements()
+    {
+    }
+    
+    /**
+     * Subclasses can override this method to close the statements prepared in {@link #prepareStatements() prepareStatements}. 
+     * It is called before the connection is closed (or released to the pool).
+     */
+    protected void closeStatements()
+    {
+    }
+    
+    @Override
+    protected void beforeIterations(IterationType iterationType)
+    {
+        // the connection used for the initialization is not held while waiting for other testers
+        if(connectionPool != null)
+            releaseConnection();
+    }
+    
+    @Override
+    protected void beforeTest(State state)
+    {
+        if(connectionPool == null)
+            return;
+        
+        connectionRequestTime = System.nanoTime();
+        
+        // the iteration cannot be executed without a connection (subclasses do not use the connection if the tester is aborted)
+        if(acquireConnection() != 0)
+        {
+            abort();
+            return;
+        }
+        
+        prepareStatements();
+    }
+
+    @Override
+    protected void afterTest(State state)
+    {
+        if(connectionPool == null)
+            return;
+        
+        releaseConnection();
+        
+        if(state.getIterationType() == IterationType.TEST_EXECUTION)
+        {
+            if(endToEndHistogram == null)
+                endToEndHistogram = getHistogram().copyEmpty();
+            
+            endToEndHistogram.recordValue(System.nanoTime() - connectionRequestTime);
+        }
+    }
+    
+    @Override
+    void resetSharedStatistics()
+    {
+        // the pool statistics of every execution of the tests (e.g. every trial) do not include the acquires of the previous ones
+        if(connectionPool != null)
+            connectionPool.resetStatistics();
+    }
+    
+    @Override
+    void merge(BaseTester other)
+    {
+        super.merge(other);
+        
+        LatencyHistogram otherEndToEndHistogram = ((DbTester)other).endToEndHistogram;
+        
+        if(otherEndToEndHistogram == null)
+            return;
+        
+        if(endToEndHistogram == null)
+            endToEndHistogram = otherEndToEndHistogram.copyEmpty();
+        
+        endToEndHistogram.add(otherEndToEndHistogram);
+    }
+
+    /**
+     *
+     * @return The end-to-end times of the test iterations, from the request of a connection to the pool to its release 
+     * (null if the tester does not use a pool or it has not been executed).
+     */
+    public LatencyHistogram getEndToEndHistogram() {
+        return endToEndHistogram;
+    }
 
     @Override
     protected void finish()
     {
-        dbHelper.closeConnection();
+        if(connectionPool != null)
+        {
+            releaseConnection();
+        }
+        else
+        {
+            closeStatements();
+            dbHelper.closeConnection();
+        }
+    }
+    
+    private int acquireConnection()
+    {
+        try {
+            Connection connection = connectionPool.acquire();
+            dbHelper.setConnection(connection);
+            
+            // the connections of a pool are used by a single tester, so they keep its settings
+            if(isolationLevel != null || commitMode != null)
+            {
+                int result = dbHelper.applyTransactionSettings();
+                
+                // the connection is not used, so it goes back to the pool
+                if(result != 0)
+                {
+                    connectionPool.release(connection);
+                    dbHelper.setConnection(null);
+                }
+                
+                return result;
+            }
+            
+            return 0;
+        } catch (SQLException ex) {
+            Logger.getLogger(DbTester.class.getName()).log(Level.SEVERE, null, ex);
+            
+            return -1;
+        }
+    }
+    
+    private void releaseConnection()
+    {
+        if(dbHelper.getConnection() == null)
+            return;
+        
+        closeStatements();
+        connectionPool.release(dbHelper.getConnection());
+        dbHelper.setConnection(null);
+    }
+    
+    @Override
+    public Result getResult() {
+        Result result = super.getResult();
+        
+        putConnectionPoolStatistics(result);
+        
+        return result;
+    }
+    
+    /**
+     * Add the statistics of the connection pool (if any) to a result. 
+     * The statistics include the acquires done since the start of the tests (the pool statistics are reset at the start of every execution of the tests) 
+     * by all the testers that share the pool, in all the phases of the tests.
+     * 
+     * @param result The result where the statistics have to be added
+     */
+    protected void putConnectionPoolStatistics(Result result)
+    {
+        if(connectionPool == null)
+            return;
+        
+        LatencyHistogram acquireTimeHistogram = connectionPool.getAcquireTimeHistogram();
+        
+        result.put("avg pool acquire time", Math.round(acquireTimeHistogram.getMean()));
+        result.put("p50 pool acquire time", acquireTimeHistogram.getValueAtPercentile(50));
+        result.put("p99 pool acquire time", acquireTimeHistogram.getValueAtPercentile(99));
+        result.put("p99.9 pool acquire time", acquireTimeHistogram.getValueAtPercentile(99.9));
+        result.put("max pool acquire time", acquireTimeHistogram.getMaxValue());
+        result.put("pool acquires", acquireTimeHistogram.getTotalCount(), "acquires");
+        result.put("pool acquires that waited for a connection", connectionPool.getNumOfWaitingAcquires(), "acquires");
+        result.put("pool connections created", connectionPool.getNumOfCreatedConnections(), "connections");
+        result.put("pool max connections in use", (long)connectionPool.getMaxNumOfConnectionsInUse(), "connections (of " + connectionPool.getMaxPoolSize() + ")");
+        result.put("pool max waiting threads", (long)connectionPool.getMaxNumOfWaitingThreads(), "threads");
+        
+        if(endToEndHistogram != null && endToEndHistogram.getTotalCount() > 0)
+        {
+            result.put("avg end-to-end time (connection request to release)", Math.round(endToEndHistogram.getMean()));
+            result.put("p50 end-to-end time (connection request to release)", endToEndHistogram.getValueAtPercentile(50));
+            result.put("p99 end-to-end time (connection request to release)", endToEndHistogram.getValueAtPercentile(99));
+            result.put("p99.9 end-to-end time (connection request to release)", endToEndHistogram.getValueAtPercentile(99.9));
+            result.put("max end-to-end time (connection request to release)", endToEndHistogram.getMaxValue());
+        }
+    }
+    
+    @Override
+    public String getTestInfo() {
+        
+        return super.getTestInfo() + getTransactionSettingsInfo() + getConnectionPoolInfo();
+    }
+    
+    /**
+     *
+     * @return A string with the isolation level and the commit mode of the tester (empty if the defaults are used).
+     */
+    protected String getTransactionSettingsInfo() {
+        
+        return (isolationLevel != null ? "Isolation level: " + isolationLevel + "\n" : "") + 
+               (commitMode != null ? "Commit mode: " + commitMode + "\n" : "");
+    }
+    
+    /**
+     *
+     * @return A string with the distribution of the keys accessed by the tester (for the testers that access existing records).
+     */
+    protected String getKeyDistributionInfo() {
+        
+        return "Key distribution: " + keyGenerator + "\n";
+    }
+    
+    /**
+     *
+     * @return A string with the info about the connection pool (empty if the tester does not use a pool).
+     */
+    protected String getConnectionPoolInfo() {
+        
+        if(connectionPool == null)
+            return "";
+        
+        return "Connection pool size: " + connectionPool.getMaxPoolSize() + " (a connection is acquired for every execution)\n";
     }
     
 }
@@ -0,0 +1,307 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.test;
+
+import com.vin.dbbenchmark.database.ContentionError;
+import com.vin.dbbenchmark.database.DBMSName;
+import com.vin.dbbenchmark.utils.LatencyHistogram;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This is a DbTester that executes every test iteration as a transaction and retries the transactions that fail 
+ * because of concurrent transactions (deadlocks, serialization failures, lock timeouts, see {@link ContentionError}) 
+ * or that detect a conflict themselves (e.g. an optimistic update that finds the record changed).
+ * Subclasses implement {@link #execTransaction(State) execTransaction}, the measured time of an iteration includes all its attempts.
+ * 
+ * The tester counts the contention errors, the conflicts, the retries and the transactions that failed after the max number of retries, 
+ * and records the time spent in retries (from the first failure to the end of the transaction) of the transactions that have been retried.
+ * 
+ * @author Vincenzo Micelli
+ */
+public abstract class DbTransactionTester extends DbTester {
+    
+    /**
+     * The default max number of times that a transaction is retried
+     */
+    public static final int DEFAULT_MAX_RETRIES = 10;
+    
+    /**
+     * Value returned by {@link #execTransaction(State) execTransaction} when the transaction has to be rolled back and retried
+     */
+    protected static final int CONFLICT = -1;
+    
+    // max number of keys drawn to find a key that is not already in a transaction
+    private static final int MAX_DISTINCT_KEY_ATTEMPTS = 100;
+    
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+    
+    // statistics of the test iterations
+    private LatencyHistogram retryHistogram;
+    private final Map<ContentionError,Long> contentionErrors = new EnumMap<>(ContentionError.class);
+    private long conflicts;
+    private long retries;
+    private long failedTransactions;
+    private long writtenRecords;
+    
+    /**
+     *
+     * @param dbmsName It is the name of the database to be used. It is an enum and can have values POSTGRE_SQL, SQL_SERVER and H2
+     * @param numOfExecutions It is the number of transactions executed in order to collect statistical results
+     * @param numOfWarmupExecutions It is the number of transactions executed for warmup purposes
+     */
+    public DbTransactionTester(DBMSName dbmsName, int numOfExecutions, int numOfWarmupExecutions) {
+        super(dbmsName,numOfExecutions,numOfWarmupExecutions);
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Set the max number of times that a failed transaction is retried (immediately, without back off).
+     * 
+     * @param maxRetries The max number of retries (0 to never retry)
+     */
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    @Override
+    protected int init()
+    {
+        int result = super.init();
+        
+        if(result == 0)
+            retryHistogram = getHistogram().copyEmpty();
+        
+        return result;
+    }
+    
+    /**
+     * Draw the primary keys of a transaction with the key generator of the tester, avoiding duplicates 
+     * (a record written twice by the same transaction would be a conflict with itself).
+     * Duplicates are accepted only if the generator keeps drawing the same keys (e.g. if there are less keys than the ones requested).
+     * 
+     * @param primaryKeys The array where the keys are stored (a key for each element)
+     * @param maxPrimaryKeyValue The max primary key that can be drawn
+     */
+    protected void nextDistinctPrimaryKeys(int[] primaryKeys, int maxPrimaryKeyValue)
+    {
+        for(int i = 0; i < primaryKeys.length; i++)
+        {
+            int attempts = 0;
+            boolean duplicate;
+            
+            do {
+                primaryKeys[i] = nextPrimaryKey(maxPrimaryKeyValue);
+                
+                duplicate = false;
+                for(int j = 0; j < i && !duplicate; j++)
+                    duplicate = primaryKeys[j] == primaryKeys[i];
+                
+            } while(duplicate && ++attempts < MAX_DISTINCT_KEY_ATTEMPTS);
+        }
+    }
+    
+    /**
+     * Execute the statements of a transaction. The transaction has already been started and it is committed (or rolled back) by the caller.
+     * 
+     * @param state The state of the iteration
+     * @return The number of records written by the transaction, or {@link #CONFLICT} if the transaction has to be rolled back and retried
+     * @throws SQLException Throws sql exceptions (the transaction is retried if the exception is a contention error)
+     */
+    protected abstract int execTransaction(State state) throws SQLException;
+    
+    /**
+     * Subclasses can override this method to update their statistics when a transaction has been committed 
+     * (the statistics of the attempts that have been rolled back should be discarded).
+     * 
+     * @param state The state of the iteration
+     * @param records The number of records written by the transaction
+     */
+    protected void transactionCommitted(State state, int records)
+    {
+    }
+    
+    @Override
+    protected void execTest(State state) {
+        
+        boolean testExecution = state.getIterationType() == IterationType.TEST_EXECUTION;
+        long firstFailureTime = 0;
+        
+        for(int attempt = 0; attempt <= maxRetries; attempt++)
+        {
+            if(attempt > 0 && testExecution)
+                retries++;
+            
+            try {
+                dbHelper.beginTransaction();
+                int records = execTransaction(state);
+                
+                if(records != CONFLICT)
+                {
+                    dbHelper.commitTransaction();
+                    transactionCommitted(state, records);
+                    
+                    if(testExecution)
+                    {
+                        writtenRecords += records;
+                        if(attempt > 0)
+                            retryHistogram.recordValue(System.nanoTime() - firstFailureTime);
+                    }
+                    return;
+                }
+                
+                if(testExecution)
+                    conflicts++;
+                
+            } catch (SQLException ex) {
+                
+                ContentionError contentionError = dbHelper.getContentionError(ex);
+                
+                if(contentionError == null)
+                {
+                    // the other errors are not retried
+                    dbHelper.rollback();
+                    if(testExecution)
+                        failedTransactions++;
+                    Logger.getLogger(DbTransactionTester.class.getName()).log(Level.SEVERE, null, ex);
+                    return;
+                }
+                
+                if(testExecution)
+                    contentionErrors.merge(contentionError, 1L, Long::sum);
+            }
+            
+            dbHelper.rollback();
+            
+            if(attempt == 0)
+                firstFailureTime = System.nanoTime();
+        }
+        
+        if(testExecution)
+            failedTransactions++;
+    }
+    
+    @Override
+    protected void resetStatistics() {
+        
+        super.resetStatistics();
+        
+        contentionErrors.clear();
+        conflicts = 0;
+        retries = 0;
+        failedTransactions = 0;
+        writtenRecords = 0;
+    }
+    
+    @Override
+    protected void mergeStatistics(BaseTester other) {
+        
+        if(!(other instanceof DbTransactionTester) || ((DbTransactionTester)other).retryHistogram == null)
+            return;
+        
+        DbTransactionTester otherTester = (DbTransactionTester)other;
+        
+        // the aggregate tester of a concurrent test is not initialized
+        if(retryHistogram == null)
+            retryHistogram = getHistogram().copyEmpty();
+        
+        retryHistogram.add(otherTester.retryHistogram);
+        otherTester.contentionErrors.forEach((contentionError, count) -> contentionErrors.merge(contentionError, count, Long::sum));
+        conflicts += otherTester.conflicts;
+        retries += otherTester.retries;
+        failedTransactions += otherTester.failedTransactions;
+        writtenRecords += otherTester.writtenRecords;
+    }
+    
+    /**
+     * Add the contention statistics to a result: the number of contention errors of every type, of conflicts, of retries and of failed transactions, 
+     * and the times spent in retries.
+     * 
+     * @param result The result where the statistics have to be added
+     */
+    protected void putContentionStatistics(Result result)
+    {
+        for(ContentionError contentionError : ContentionError.values())
+            result.put(contentionError.name().toLowerCase().replace('_', ' ') + " errors", getContentionErrors(contentionError), "errors");
+        
+        result.put("conflicts", conflicts, "transactions");
+        result.put("retries", retries, "transactions");
+        result.put("failed transactions", failedTransactions, "transactions");
+        
+        if(retryHistogram != null && retryHistogram.getTotalCount() > 0)
+        {
+            result.put("avg (retry time)", Math.round(retryHistogram.getMean()));
+            result.put("p99 (retry time)", retryHistogram.getValueAtPercentile(99));
+            result.put("max (retry time)", retryHistogram.getMaxValue());
+        }
+    }
+
+    /**
+     *
+     * @param contentionError A type of contention error
+     * @return The number of errors of the type in the test iterations
+     */
+    public long getContentionErrors(ContentionError contentionError) {
+        return contentionErrors.getOrDefault(contentionError, 0L);
+    }
+
+    /**
+     *
+     * @return The number of attempts of the test iterations that detected a conflict (see {@link #CONFLICT})
+     */
+    public long getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     *
+     * @return The number of times that a transaction of the test iterations has been retried
+     */
+    public long getRetries() {
+        return retries;
+    }
+
+    /**
+     *
+     * @return The number of transactions of the test iterations that failed (errors that are not retried or too many retries)
+     */
+    public long getFailedTransactions() {
+        return failedTransactions;
+    }
+
+    /**
+     *
+     * @return The number of records written by the committed transactions of the test iterations
+     */
+    public long getWrittenRecords() {
+        return writtenRecords;
+    }
+
+    /**
+     *
+     * @return The times spent in retries by the transactions of the test iterations that have been retried (null if the tester has not been executed)
+     */
+    public LatencyHistogram getRetryHistogram() {
+        return retryHistogram;
+    }
+    
+}
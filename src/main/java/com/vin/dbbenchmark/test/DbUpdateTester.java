@@ -0,0 +1,239 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.test;
+
+import com.vin.dbbenchmark.database.DBMSName;
+import com.vin.dbbenchmark.database.DbHelper;
+import com.vin.dbbenchmark.database.LockingMode;
+import com.vin.dbbenchmark.utils.LatencyHistogram;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * This Tester executes transactions that update {@code numOfUpdatesPerTransaction} records (single-row transactions or batches of updates). 
+ * The records can be updated without reading them or after reading them with optimistic or pessimistic locking (see {@link LockingMode}): 
+ * with locking the int column of the record is incremented, so it works as the version of the record.
+ * The transactions that fail because of concurrent transactions are retried (see {@link DbTransactionTester}). 
+ * With many threads and a skewed key distribution the tester measures the effects of updates on hot records.
+ * 
+ * The tester evaluates the execution times of the transactions (including retries), the throughput in records, the contention statistics 
+ * and, with pessimistic locking, the times to read and lock the records.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class DbUpdateTester extends DbTransactionTester {
+
+    private final int numOfUpdatesPerTransaction;
+    private final LockingMode lockingMode;
+    
+    private int maxPrimaryKeyValue;
+    private final int[] primaryKeys;
+    private final boolean[] foundRecords;
+    //the entries are reused for every transaction (their values are bound to the statement before they are modified)
+    private final DbHelper.DbEntry[] entries;
+    private final DbHelper.DbEntry readEntry = new DbHelper.DbEntry();
+    
+    // times to read and lock the records of the test iterations (pessimistic locking)
+    private LatencyHistogram lockHistogram;
+    
+    /**
+     *
+     * @param dbmsName It is the name of the database to be used. It is an enum and can have values POSTGRE_SQL, SQL_SERVER and H2
+     * @param numOfExecutions It is the number of transactions executed in order to collect statistical results 
+     * @param numOfUpdatesPerTransaction It is the number of records updated by every transaction (in a batch)
+     * @param lockingMode It is the way used to protect the read-modify-write of the records. It is an enum and can have values NONE, OPTIMISTIC and PESSIMISTIC
+     * @param numOfWarmupExecutions It is the number of transactions executed for warmup purposes
+     */
+    public DbUpdateTester(DBMSName dbmsName, int numOfExecutions, int numOfUpdatesPerTransaction, LockingMode lockingMode, int numOfWarmupExecutions) {
+        super(dbmsName,numOfExecutions,numOfWarmupExecutions);
+        this.numOfUpdatesPerTransaction = Math.max(numOfUpdatesPerTransaction, 1);
+        this.lockingMode = lockingMode;
+        
+        primaryKeys = new int[this.numOfUpdatesPerTransaction];
+        foundRecords = new boolean[this.numOfUpdatesPerTransaction];
+        entries = new DbHelper.DbEntry[this.numOfUpdatesPerTransaction];
+        for(int i = 0; i < entries.length; i++)
+            entries[i] = new DbHelper.DbEntry();
+    }
+
+    @Override
+    protected int init()
+    {
+        int result = super.init();
+        
+        if(result != 0 )
+            return result;
+        
+        //the helper reads from db the max primary key value in the database (it is used to compute the random keys to update) 
+        maxPrimaryKeyValue = dbHelper.getMaxPrimaryKeyValue();
+        
+        lockHistogram = getHistogram().copyEmpty();
+        
+        return result;
+    }
+    
+    @Override
+    protected void prepareStatements()
+    {
+        dbHelper.prepareUpdateStatement(lockingMode == LockingMode.OPTIMISTIC);
+        
+        if(lockingMode != LockingMode.NONE)
+            dbHelper.prepareReadForUpdateStatement(lockingMode == LockingMode.PESSIMISTIC);
+    }
+    
+    @Override
+    protected void closeStatements()
+    {
+        dbHelper.closeUpdateStatement();
+        dbHelper.closeReadForUpdateStatement();
+    }
+    
+    @Override
+    protected void beforeTest(State state) {
+        
+        //acquire a connection (if the tester uses a connection pool)
+        super.beforeTest(state);
+        
+        nextDistinctPrimaryKeys(primaryKeys, maxPrimaryKeyValue);
+        
+        for(DbHelper.DbEntry entry : entries)
+            dataGenerator.nextEntry(entry);
+    }
+    
+    @Override
+    protected int execTransaction(State state) throws SQLException {
+        
+        for(int i = 0; i < primaryKeys.length; i++)
+        {
+            int expectedIntField = 0;
+            
+            if(lockingMode != LockingMode.NONE)
+            {
+                long startTime = System.nanoTime();
+                foundRecords[i] = dbHelper.execReadForUpdate(primaryKeys[i], readEntry);
+                
+                if(lockingMode == LockingMode.PESSIMISTIC && state.getIterationType() == IterationType.TEST_EXECUTION)
+                    lockHistogram.recordValue(System.nanoTime() - startTime);
+                
+                // the new value of the int column is the next version of the record
+                expectedIntField = readEntry.getIntField();
+                entries[i].setIntField(expectedIntField + 1);
+            }
+            
+            dbHelper.addUpdateDataBatch(primaryKeys[i], entries[i], expectedIntField);
+        }
+        
+        int[] updateCounts = dbHelper.execUpdateDataBatch();
+        int updatedRecords = 0;
+        
+        for(int i = 0; i < updateCounts.length; i++)
+        {
+            if(updateCounts[i] > 0)
+                updatedRecords += updateCounts[i];
+            else if(updateCounts[i] == Statement.SUCCESS_NO_INFO)
+                updatedRecords++;
+            else if(lockingMode == LockingMode.OPTIMISTIC && foundRecords[i])
+                // the record has been changed by another transaction after it has been read 
+                return CONFLICT;
+        }
+        
+        return updatedRecords;
+    }
+    
+    @Override
+    protected void mergeStatistics(BaseTester other) {
+        
+        super.mergeStatistics(other);
+        
+        if(!(other instanceof DbUpdateTester) || ((DbUpdateTester)other).lockHistogram == null)
+            return;
+        
+        // the aggregate tester of a concurrent test is not initialized
+        if(lockHistogram == null)
+            lockHistogram = getHistogram().copyEmpty();
+        
+        lockHistogram.add(((DbUpdateTester)other).lockHistogram);
+    }
+
+    /**
+     *
+     * @return The times to read and lock a record of the test iterations, with pessimistic locking (null if the tester has not been executed)
+     */
+    public LatencyHistogram getLockHistogram() {
+        return lockHistogram;
+    }
+
+    @Override
+    public String getTestName() {
+        return "Update Transactions (" + numOfUpdatesPerTransaction + (numOfUpdatesPerTransaction == 1 ? " record" : " records") 
+             + ", " + (lockingMode == LockingMode.NONE ? "no locking" : lockingMode.name().toLowerCase() + " locking") + ")";
+    }
+    
+    @Override
+    public String getTestInfo() {
+        
+        String info = "Warmup Executions: " + this.getNumOfWarmupExecutions() + "\n" + 
+                      "Executions: " + this.getNumOfExecutions() + "\n" + 
+                      "Num of updates per transaction: " + numOfUpdatesPerTransaction + "\n" + 
+                      "Locking mode: " + lockingMode + "\n" + 
+                      "Max retries: " + getMaxRetries() + "\n" + 
+                      getKeyDistributionInfo() + 
+                      getRunModeInfo() + 
+                      getConnectionPoolInfo();
+        
+        return info;
+    }
+    
+    @Override
+    public Result getResult() {
+        Result result = new Result();
+        
+        if(this.getWarmupHistogram().getTotalCount() > 0)
+        {
+            result.put("min-warmup (per transaction)", this.getWarmupMinTime());
+            result.put("max-warmup (per transaction)", this.getWarmupMaxTime());
+            result.put("avg-warmup (per transaction)", this.getWarmupAvgTime());
+        }
+        
+        if(this.getNumOfExecutions() > 0)
+        {
+            result.put("min (per transaction)", this.getMinTime());
+            result.put("max (per transaction)", this.getMaxTime());
+            result.put("avg (per transaction)", this.getAvgTime());
+            putPercentiles(result, " (per transaction)");
+            putRunStatistics(result, " (transactions)");
+            
+            long elapsedTime = getTestElapsedTime();
+            
+            if(elapsedTime > 0)
+                result.put("throughput (records)", perSecond(getWrittenRecords(), elapsedTime), Result.ROWS_PER_SECOND);
+            
+            if(lockHistogram != null && lockHistogram.getTotalCount() > 0)
+            {
+                result.put("avg (to read and lock a record)", Math.round(lockHistogram.getMean()));
+                result.put("p99 (to read and lock a record)", lockHistogram.getValueAtPercentile(99));
+                result.put("max (to read and lock a record)", lockHistogram.getMaxValue());
+            }
+            
+            putContentionStatistics(result);
+        }
+        
+        putConnectionPoolStatistics(result);
+
+        return result;
+    }
+    
+}
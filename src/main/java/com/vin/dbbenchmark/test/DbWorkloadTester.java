@@ -0,0 +1,469 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.test;
+
+import com.vin.dbbenchmark.database.DBMSName;
+import com.vin.dbbenchmark.database.DbHelper;
+import com.vin.dbbenchmark.database.ScanCursorMode;
+import com.vin.dbbenchmark.test.Workload.Operation;
+import com.vin.dbbenchmark.utils.LatencyHistogram;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This Tester executes a mix of operations on the test table (see {@link Workload}): every execution draws an operation at random 
+ * in proportion to the weights of the workload, so that reads and writes are interleaved as in production (and, with many threads, executed concurrently).
+ * The tester evaluates the execution times of all the operations and, for each type of operation, its own times and throughput.
+ * 
+ * The keys of the operations are drawn from 1 to the max primary key with the key generator of the tester (the max grows with the records inserted by the tester, 
+ * or by all the testers that share it, see {@link #setMaxPrimaryKeyValue(AtomicInteger) setMaxPrimaryKeyValue}). 
+ * Records deleted by the workload are not removed from the key space, so reads, updates and deletes can find no record: 
+ * these operations are counted separately.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class DbWorkloadTester extends DbTester {
+    
+    private final Workload workload;
+    private final int numOfInsertsPerBatch;
+    private final int numOfRowsPerScan;
+    
+    private AtomicInteger maxPrimaryKeyValue = new AtomicInteger();
+    
+    //the entries are reused for every operation (their values are bound to the statement before they are modified)
+    private final List<DbHelper.DbEntry> entries = new ArrayList<>();
+    private final DbHelper.DbEntry entry = new DbHelper.DbEntry();
+    
+    // statistics of the test iterations, for each operation
+    private Map<Operation,LatencyHistogram> operationHistograms;
+    private final Map<Operation,Long> missedOperations = new EnumMap<>(Operation.class);
+    private final Map<Operation,Long> failedOperations = new EnumMap<>(Operation.class);
+    
+    /**
+     *
+     * @param dbmsName It is the name of the database to be used. It is an enum and can have values POSTGRE_SQL, SQL_SERVER and H2
+     * @param numOfExecutions It is the number of operations executed in order to collect statistical results 
+     * @param workload It is the mix of operations
+     * @param numOfInsertsPerBatch It is the number of records inserted by an INSERT operation
+     * @param numOfRowsPerScan It is the number of primary keys read by a SCAN operation
+     * @param numOfWarmupExecutions It is the number of operations executed for warmup purposes
+     */
+    public DbWorkloadTester(DBMSName dbmsName, int numOfExecutions, Workload workload, int numOfInsertsPerBatch, int numOfRowsPerScan, int numOfWarmupExecutions) {
+        super(dbmsName,numOfExecutions,numOfWarmupExecutions);
+        this.workload = workload;
+        this.numOfInsertsPerBatch = Math.max(numOfInsertsPerBatch, 1);
+        this.numOfRowsPerScan = Math.max(numOfRowsPerScan, 1);
+        
+        for(int i = 0; i < this.numOfInsertsPerBatch; i++)
+            entries.add(new DbHelper.DbEntry());
+    }
+
+    /**
+     * Share the max primary key with the other testers (threads) that execute the workload, so that the records inserted by a tester 
+     * are accessed also by the others (e.g. with the LATEST key distribution the operations access the latest records inserted in the table, 
+     * not the latest records inserted by the tester). By default every tester has its own max primary key.
+     * 
+     * @param maxPrimaryKeyValue The max primary key shared by the testers (it is initialized by every tester with the max primary key of the table)
+     */
+    public void setMaxPrimaryKeyValue(AtomicInteger maxPrimaryKeyValue) {
+        this.maxPrimaryKeyValue = maxPrimaryKeyValue;
+    }
+
+    @Override
+    protected int init()
+    {
+        int result = super.init();
+        
+        if(result != 0 )
+            return result;
+        
+        //the helper reads from db the max primary key value in the database (it is used to compute the random keys of the operations) 
+        //the testers that share the max primary key are initialized before any of them executes an operation, so they all read the same value
+        maxPrimaryKeyValue.set(dbHelper.getMaxPrimaryKeyValue());
+        
+        makeOperationHistograms();
+        
+        return result;
+    }
+    
+    @Override
+    protected void prepareStatements()
+    {
+        // only the statements used by the workload are prepared
+        if(workload.contains(Operation.READ) || workload.contains(Operation.READ_MODIFY_WRITE))
+            dbHelper.prepareSelectStatement();
+        if(workload.contains(Operation.UPDATE) || workload.contains(Operation.READ_MODIFY_WRITE))
+            dbHelper.prepareUpdateStatement();
+        if(workload.contains(Operation.INSERT))
+            dbHelper.prepareInsertStatement();
+        if(workload.contains(Operation.SCAN))
+            dbHelper.prepareRangeScanStatement(ScanCursorMode.CLIENT_BUFFERED, 0);
+        if(workload.contains(Operation.DELETE))
+            dbHelper.prepareDeleteStatement();
+    }
+    
+    @Override
+    protected void closeStatements()
+    {
+        dbHelper.closeSelectStatement();
+        dbHelper.closeUpdateStatement();
+        dbHelper.closeInsertStatement();
+        dbHelper.closeRangeScanStatement();
+        dbHelper.closeDeleteStatement();
+    }
+    
+    @Override
+    protected void beforeTest(State state) {
+        
+        //acquire a connection (if the tester uses a connection pool)
+        super.beforeTest(state);
+        
+        if(isAborted())
+            return;
+        
+        OperationState operationState = (OperationState)state;
+        Operation operation = workload.nextOperation(dataGenerator);
+        int primaryKeyValue = nextPrimaryKeyValue();
+        
+        operationState.setOperation(operation);
+        operationState.setPrimaryKeyValue(primaryKeyValue);
+        
+        // the data of the operation is set before the operation is measured
+        switch(operation)
+        {
+            case READ:
+                dbHelper.setSelectDataPK(primaryKeyValue);
+                break;
+            case UPDATE:
+                dbHelper.setUpdateData(primaryKeyValue, dataGenerator.nextEntry(entry));
+                break;
+            case INSERT:
+                for(DbHelper.DbEntry insertEntry : entries)
+                    dataGenerator.nextEntry(insertEntry);
+                dbHelper.setInsertDataBatch(entries);
+                break;
+            case SCAN:
+                dbHelper.setRangeScanData(primaryKeyValue, numOfRowsPerScan);
+                break;
+            case READ_MODIFY_WRITE:
+                dbHelper.setSelectDataPK(primaryKeyValue);
+                break;
+            case DELETE:
+                dbHelper.setDeleteDataPK(primaryKeyValue);
+                break;
+        }
+    }
+    
+    /**
+     * Draw the primary key of the next operation.
+     * 
+     * @return A key from 1 to the max primary key value (0 if the table is empty)
+     */
+    protected int nextPrimaryKeyValue() {
+        return nextPrimaryKey(maxPrimaryKeyValue.get());
+    }
+    
+    @Override
+    protected void execTest(State state) {
+        
+        OperationState operationState = (OperationState)state;
+        long startTime = System.nanoTime();
+        
+        try {
+            int records = 0;
+            
+            switch(operationState.getOperation())
+            {
+                case READ:
+                    records = readRecords(dbHelper.execSelectData());
+                    break;
+                case UPDATE:
+                    records = dbHelper.execUpdateData();
+                    break;
+                case INSERT:
+                    // the failed inserts are counted as the other failed operations
+                    dbHelper.execInsertDataBatchOrThrow(true);
+                    records = numOfInsertsPerBatch;
+                    break;
+                case SCAN:
+                    ResultSet resultSet = dbHelper.execRangeScanData();
+                    records = readRecords(resultSet);
+                    dbHelper.closeRangeScanResult(null);
+                    break;
+                case READ_MODIFY_WRITE:
+                    // the new values are computed from the record read
+                    records = readRecords(dbHelper.execSelectData());
+                    if(records > 0)
+                    {
+                        entry.setIntField(entry.getIntField() + 1);
+                        dbHelper.setUpdateData(operationState.getPrimaryKeyValue(), entry);
+                        records = dbHelper.execUpdateData();
+                    }
+                    break;
+                case DELETE:
+                    records = dbHelper.execDeleteData();
+                    break;
+            }
+            
+            operationState.setRecords(records);
+            operationState.setFailed(false);
+            
+        } catch (SQLException ex) {
+            operationState.setFailed(true);
+            Logger.getLogger(DbWorkloadTester.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        
+        operationState.setExecutionTime(System.nanoTime() - startTime);
+    }
+    
+    private int readRecords(ResultSet resultSet) throws SQLException {
+        
+        if(resultSet == null)
+            throw new SQLException("The select statement has not been executed");
+        
+        int records = 0;
+        
+        try {
+            while(resultSet.next())
+            {
+                DbHelper.readEntry(resultSet, entry);
+                records++;
+            }
+        } finally {
+            resultSet.close();
+        }
+        
+        return records;
+    }
+
+    @Override
+    protected void afterTest(State state) {
+        
+        OperationState operationState = (OperationState)state;
+        Operation operation = operationState.getOperation();
+        
+        // the new records are added to the key space also in the warmup (they are in the table)
+        if(operation == Operation.INSERT && !operationState.isFailed())
+            maxPrimaryKeyValue.addAndGet(numOfInsertsPerBatch);
+        
+        if(state.getIterationType() == IterationType.TEST_EXECUTION)
+        {
+            operationHistograms.get(operation).recordValue(operationState.getExecutionTime());
+            
+            if(operationState.isFailed())
+                failedOperations.merge(operation, 1L, Long::sum);
+            else if(operationState.getRecords() == 0)
+                missedOperations.merge(operation, 1L, Long::sum);
+        }
+        
+        //release the connection (if the tester uses a connection pool)
+        super.afterTest(state);
+    }
+    
+    @Override
+    protected void resetStatistics() {
+        
+        super.resetStatistics();
+        
+        missedOperations.clear();
+        failedOperations.clear();
+    }
+    
+    @Override
+    protected void mergeStatistics(BaseTester other) {
+        
+        if(!(other instanceof DbWorkloadTester) || ((DbWorkloadTester)other).operationHistograms == null)
+            return;
+        
+        DbWorkloadTester otherTester = (DbWorkloadTester)other;
+        
+        // the aggregate tester of a concurrent test is not initialized
+        if(operationHistograms == null)
+            makeOperationHistograms();
+        
+        for(Operation operation : workload.getOperations())
+            operationHistograms.get(operation).add(otherTester.operationHistograms.get(operation));
+        
+        otherTester.missedOperations.forEach((operation, count) -> missedOperations.merge(operation, count, Long::sum));
+        otherTester.failedOperations.forEach((operation, count) -> failedOperations.merge(operation, count, Long::sum));
+    }
+    
+    private void makeOperationHistograms()
+    {
+        operationHistograms = new EnumMap<>(Operation.class);
+        
+        for(Operation operation : workload.getOperations())
+            operationHistograms.put(operation, getHistogram().copyEmpty());
+    }
+
+    /**
+     *
+     * @param operation An operation of the workload
+     * @return The execution times of the operation in the test iterations (null if the tester has not been executed or the operation is not in the workload).
+     */
+    public LatencyHistogram getOperationHistogram(Operation operation) {
+        return operationHistograms != null ? operationHistograms.get(operation) : null;
+    }
+
+    /**
+     *
+     * @param operation An operation of the workload
+     * @return The number of operations of the test iterations that did not find any record
+     */
+    public long getMissedOperations(Operation operation) {
+        return missedOperations.getOrDefault(operation, 0L);
+    }
+
+    /**
+     *
+     * @param operation An operation of the workload
+     * @return The number of operations of the test iterations that failed with an exception
+     */
+    public long getFailedOperations(Operation operation) {
+        return failedOperations.getOrDefault(operation, 0L);
+    }
+
+    @Override
+    public String getTestName() {
+        return "Workload " + workload.getName();
+    }
+    
+    @Override
+    public String getTestInfo() {
+        
+        String info = "Warmup Executions: " + this.getNumOfWarmupExecutions() + "\n" + 
+                      "Executions: " + this.getNumOfExecutions() + "\n" + 
+                      "Operations: " + workload + "\n" + 
+                      (workload.contains(Operation.INSERT) ? "Num of records per insert: " + numOfInsertsPerBatch + "\n" : "") + 
+                      (workload.contains(Operation.SCAN) ? "Num of records per scan: " + numOfRowsPerScan + "\n" : "") + 
+                      getKeyDistributionInfo() + 
+                      getRunModeInfo() + 
+                      getConnectionPoolInfo();
+        
+        return info;
+    }
+    
+    @Override
+    public Result getResult() {
+        Result result = new Result();
+        
+        if(this.getWarmupHistogram().getTotalCount() > 0)
+        {
+            result.put("min-warmup (per operation)", this.getWarmupMinTime());
+            result.put("max-warmup (per operation)", this.getWarmupMaxTime());
+            result.put("avg-warmup (per operation)", this.getWarmupAvgTime());
+        }
+        
+        if(this.getNumOfExecutions() > 0)
+        {
+            result.put("min (per operation)", this.getMinTime());
+            result.put("max (per operation)", this.getMaxTime());
+            result.put("avg (per operation)", this.getAvgTime());
+            putPercentiles(result, " (per operation)");
+            putRunStatistics(result, " (operations)");
+            
+            long elapsedTime = getTestElapsedTime();
+            
+            for(Operation operation : workload.getOperations())
+            {
+                LatencyHistogram operationHistogram = getOperationHistogram(operation);
+                
+                if(operationHistogram == null || operationHistogram.getTotalCount() == 0)
+                    continue;
+                
+                result.put(operation + " operations", operationHistogram.getTotalCount(), "operations");
+                result.put("avg (" + operation + ")", Math.round(operationHistogram.getMean()));
+                result.put("p50 (" + operation + ")", operationHistogram.getValueAtPercentile(50));
+                result.put("p99 (" + operation + ")", operationHistogram.getValueAtPercentile(99));
+                result.put("max (" + operation + ")", operationHistogram.getMaxValue());
+                
+                if(elapsedTime > 0)
+                    result.put("throughput (" + operation + ")", perSecond(operationHistogram.getTotalCount(), elapsedTime), Result.OPERATIONS_PER_SECOND);
+                if(getMissedOperations(operation) > 0)
+                    result.put(operation + " operations without records", getMissedOperations(operation), "operations");
+                if(getFailedOperations(operation) > 0)
+                    result.put(operation + " failed operations", getFailedOperations(operation), "operations");
+            }
+        }
+        
+        putConnectionPoolStatistics(result);
+
+        return result;
+    }
+    
+    @Override
+    public State makeState()
+    {
+        return new OperationState();
+    }
+    
+    private static class OperationState extends State
+    {
+        private Operation operation;
+        private int primaryKeyValue;
+        private int records;
+        private boolean failed;
+        private long executionTime;
+
+        public Operation getOperation() {
+            return operation;
+        }
+
+        public void setOperation(Operation operation) {
+            this.operation = operation;
+        }
+
+        public int getPrimaryKeyValue() {
+            return primaryKeyValue;
+        }
+
+        public void setPrimaryKeyValue(int primaryKeyValue) {
+            this.primaryKeyValue = primaryKeyValue;
+        }
+
+        public int getRecords() {
+            return records;
+        }
+
+        public void setRecords(int records) {
+            this.records = records;
+        }
+
+        public boolean isFailed() {
+            return failed;
+        }
+
+        public void setFailed(boolean failed) {
+            this.failed = failed;
+        }
+
+        public long getExecutionTime() {
+            return executionTime;
+        }
+
+        public void setExecutionTime(long executionTime) {
+            this.executionTime = executionTime;
+        }
+    }
+    
+}
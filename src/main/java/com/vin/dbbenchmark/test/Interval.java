@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.test;
+
+import com.vin.dbbenchmark.utils.LatencyHistogram;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The statistics of the test iterations of a tester that ended in an interval of the test execution (see {@link IntervalRecorder}). 
+ * The result of the interval contains the start and the end of the interval (in milliseconds from the start of the test iterations), 
+ * the number of executions, the throughput and, if there are executions, the percentiles and the max of their times.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class Interval {
+    
+    /**
+     * Percentiles provided in the result of an interval
+     */
+    public static final double[] INTERVAL_PERCENTILES = {50, 90, 99, 99.9};
+    
+    private final int index;
+    private final long startTime;
+    private final long endTime;
+    private final Result result;
+
+    /**
+     *
+     * @param index The position of the interval in the test (starting from 1)
+     * @param startTime The start of the interval (in nanoseconds from the start of the test iterations)
+     * @param endTime The end of the interval (in nanoseconds from the start of the test iterations)
+     * @param histogram The times of the iterations that ended in the interval
+     */
+    public Interval(int index, long startTime, long endTime, LatencyHistogram histogram) {
+        this.index = index;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        
+        long numOfExecutions = histogram.getTotalCount();
+        
+        result = new Result();
+        result.put("start", TimeUnit.NANOSECONDS.toMillis(startTime), "ms");
+        result.put("end", TimeUnit.NANOSECONDS.toMillis(endTime), "ms");
+        result.put("executions", numOfExecutions, "executions");
+        result.put("throughput", endTime > startTime ? BaseTester.perSecond(numOfExecutions, endTime - startTime) : 0L, Result.OPERATIONS_PER_SECOND);
+        
+        if(numOfExecutions > 0)
+        {
+            for(double percentile : INTERVAL_PERCENTILES)
+            {
+                String percentileName = percentile == Math.rint(percentile) ? String.valueOf((long)percentile) : String.valueOf(percentile);
+                result.put("p" + percentileName, histogram.getValueAtPercentile(percentile));
+            }
+            result.put("max", histogram.getMaxValue());
+        }
+    }
+
+    /**
+     *
+     * @return The position of the interval in the test (starting from 1)
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     *
+     * @return The start of the interval (in nanoseconds from the start of the test iterations)
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     *
+     * @return The end of the interval (in nanoseconds from the start of the test iterations). The last interval can be shorter than the others.
+     */
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public Result getResult() {
+        return result;
+    }
+    
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.test;
+
+import com.vin.dbbenchmark.utils.LatencyHistogram;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Collects the times of the test iterations of a tester in intervals of fixed length (e.g. every second) and passes the statistics 
+ * of every interval to a {@link Listener} while the test is running, so that changes of throughput and latency during the test 
+ * (e.g. stalls, garbage collections, checkpoints) are visible also when the overall result of the tester hides them.
+ * 
+ * The recorder is shared by all the threads executing the tester (see {@link BaseTester#setIntervalRecorder(IntervalRecorder) setIntervalRecorder}). 
+ * Every thread records its times in its own histogram without any synchronization: when an interval ends, the thread hands its histogram over 
+ * to a collector thread through a lock-free queue and continues with an empty histogram recycled by the collector. The collector merges the 
+ * histograms of the threads and reports an interval as soon as all the threads have moved past it, so the listener is never called by the threads 
+ * executing the test. An iteration belongs to the interval where it ended. Intervals are numbered from the start of the test iterations of the first 
+ * thread, and the last interval ends when the last thread completes its iterations.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class IntervalRecorder {
+    
+    /**
+     * Interface implemented to receive the statistics of the intervals.
+     */
+    public interface Listener {
+        
+        /**
+         * Called by the collector thread of the recorder when all the threads of the tester have completed an interval. 
+         * The intervals of a test are passed in order, without gaps (an interval without iterations has no times).
+         * 
+         * @param testName The name of the tester
+         * @param interval The interval
+         */
+        void intervalCompleted(String testName, Interval interval);
+    }
+    
+    // max time the collector waits for the histograms of the threads before checking again
+    private static final long MAX_COLLECTOR_WAIT_TIME = TimeUnit.MILLISECONDS.toNanos(100);
+    
+    private final long intervalLength;
+    private final Listener listener;
+    private final ConcurrentLinkedQueue<LatencyHistogram> freeHistograms = new ConcurrentLinkedQueue<>();
+    private Run run;
+
+    /**
+     *
+     * @param intervalLength The length of the intervals (in nanoseconds)
+     * @param listener The listener that receives the statistics of the intervals
+     */
+    public IntervalRecorder(long intervalLength, Listener listener) {
+        if(intervalLength <= 0)
+            throw new IllegalArgumentException("the length of the intervals must be positive");
+        
+        this.intervalLength = intervalLength;
+        this.listener = listener;
+    }
+
+    public long getIntervalLength() {
+        return intervalLength;
+    }
+    
+    /**
+     * Register a thread that is going to execute the test iterations. All the threads executing the tester have to register 
+     * before any of them starts its iterations: the threads that register after an execution of the tests started are part 
+     * of the next execution (e.g. the next trial).
+     * 
+     * @param testName The name of the tester
+     * @param histogramTemplate A histogram with the precision the times have to be recorded with
+     * @return The recorder of the times of the thread
+     */
+    public synchronized ThreadRecorder register(String testName, LatencyHistogram histogramTemplate)
+    {
+        if(run == null || run.isStarted())
+            run = new Run(testName, histogramTemplate);
+        
+        return new ThreadRecorder(run, run.numOfThreads++);
+    }
+    
+    private LatencyHistogram getFreeHistogram(LatencyHistogram histogramTemplate)
+    {
+        LatencyHistogram histogram = freeHistograms.poll();
+        
+        return histogram != null ? histogram : histogramTemplate.copyEmpty();
+    }
+    
+    private void recycle(LatencyHistogram histogram)
+    {
+        histogram.reset();
+        freeHistograms.offer(histogram);
+    }
+    
+    /**
+     * Records the times of a thread in the current interval. It is not thread safe: every thread has its own recorder.
+     */
+    public final class ThreadRecorder {
+        
+        private final Run run;
+        private final int threadIndex;
+        private LatencyHistogram histogram;
+        private long startTime;
+        private int intervalIndex;
+        private long nextIntervalEnd;
+
+        private ThreadRecorder(Run run, int threadIndex) {
+            this.run = run;
+            this.threadIndex = threadIndex;
+            this.histogram = getFreeHistogram(run.histogramTemplate);
+        }
+        
+        /**
+         * Called by the thread when it starts its test iterations.
+         * 
+         * @param time The start of the iterations of the thread (as returned by {@link System#nanoTime()})
+         */
+        public void start(long time)
+        {
+            startTime = run.start(time);
+            intervalIndex = 0;
+            nextIntervalEnd = startTime + intervalLength;
+        }
+        
+        /**
+         * Record the time of an iteration in the interval where the iteration ended.
+         * 
+         * @param value The time of the iteration (in nanoseconds)
+         * @param endTime The time the iteration ended (as returned by {@link System#nanoTime()})
+         */
+        public void recordValue(long value, long endTime)
+        {
+            if(endTime >= nextIntervalEnd)
+                moveTo((int)((endTime - startTime) / intervalLength), endTime);
+            
+            histogram.recordValue(value);
+        }
+        
+        /**
+         * Called by the thread when it completes its test iterations. The method returns when all the intervals 
+         * of all the threads have been reported, so that the listener is not called after the end of the test.
+         * 
+         * @param endTime The end of the iterations of the thread (as returned by {@link System#nanoTime()})
+         */
+        public void finish(long endTime)
+        {
+            moveTo(Integer.MAX_VALUE, endTime);
+            run.awaitCompletion();
+        }
+        
+        /**
+         * Hand the histogram of the current interval over to the collector, and tell it that the thread completed 
+         * all the intervals before the new one.
+         */
+        private void moveTo(int newIntervalIndex, long time)
+        {
+            LatencyHistogram intervalHistogram = null;
+            
+            if(histogram.getTotalCount() > 0)
+            {
+                intervalHistogram = histogram;
+                histogram = getFreeHistogram(run.histogramTemplate);
+            }
+            
+            run.submit(new Sample(threadIndex, intervalIndex, intervalHistogram, newIntervalIndex, time));
+            
+            intervalIndex = newIntervalIndex;
+            nextIntervalEnd = startTime + (newIntervalIndex + 1L) * intervalLength;
+        }
+    }
+    
+    /**
+     * The histogram of an interval of a thread, handed over to the collector.
+     */
+    private static class Sample {
+        
+        private final int threadIndex;
+        private final int intervalIndex;
+        private final LatencyHistogram histogram;
+        // all the intervals before this one have been completed by the thread (Integer.MAX_VALUE when the thread completed its iterations)
+        private final int nextIntervalIndex;
+        private final long time;
+
+        private Sample(int threadIndex, int intervalIndex, LatencyHistogram histogram, int nextIntervalIndex, long time) {
+            this.threadIndex = threadIndex;
+            this.intervalIndex = intervalIndex;
+            this.histogram = histogram;
+            this.nextIntervalIndex = nextIntervalIndex;
+            this.time = time;
+        }
+    }
+    
+    /**
+     * An execution of the test iterations by the registered threads, with the collector thread that merges and reports their intervals.
+     */
+    private class Run implements Runnable {
+        
+        private final String testName;
+        private final LatencyHistogram histogramTemplate;
+        private final AtomicLong startTime = new AtomicLong(Long.MIN_VALUE);
+        private final ConcurrentLinkedQueue<Sample> samples = new ConcurrentLinkedQueue<>();
+        private final CountDownLatch completion = new CountDownLatch(1);
+        private final Thread collector;
+        // updated while the threads register, before the iterations start
+        private volatile int numOfThreads;
+        
+        // used only by the collector
+        private final Map<Integer,LatencyHistogram> pendingHistograms = new HashMap<>();
+        private int[] nextIntervalIndexes;
+        private int nextReportedIndex;
+        private long endTime;
+
+        private Run(String testName, LatencyHistogram histogramTemplate) {
+            this.testName = testName;
+            this.histogramTemplate = histogramTemplate;
+            
+            collector = new Thread(this, "Interval collector of " + testName);
+            collector.setDaemon(true);
+            collector.start();
+        }
+        
+        private boolean isStarted()
+        {
+            return startTime.get() != Long.MIN_VALUE;
+        }
+        
+        /**
+         * @return The start of the iterations of the first thread that started
+         */
+        private long start(long time)
+        {
+            startTime.compareAndSet(Long.MIN_VALUE, time);
+            
+            return startTime.get();
+        }
+        
+        private void submit(Sample sample)
+        {
+            samples.offer(sample);
+            LockSupport.unpark(collector);
+        }
+        
+        private void awaitCompletion()
+        {
+            try {
+                completion.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void run() {
+            
+            boolean completed = false;
+            
+            while(!completed)
+            {
+                LockSupport.parkNanos(this, MAX_COLLECTOR_WAIT_TIME);
+                
+                Sample sample;
+                while((sample = samples.poll()) != null)
+                    collect(sample);
+                
+                completed = nextIntervalIndexes != null && reportCompletedIntervals();
+            }
+            
+            completion.countDown();
+        }
+        
+        private void collect(Sample sample)
+        {
+            // all the threads registered before the first sample
+            if(nextIntervalIndexes == null)
+                nextIntervalIndexes = new int[numOfThreads];
+            
+            if(sample.histogram != null)
+                addPendingHistogram(sample.intervalIndex, sample.histogram);
+            
+            nextIntervalIndexes[sample.threadIndex] = sample.nextIntervalIndex;
+            endTime = Math.max(endTime, sample.time - startTime.get());
+        }
+        
+        private void addPendingHistogram(int intervalIndex, LatencyHistogram histogram)
+        {
+            LatencyHistogram intervalHistogram = pendingHistograms.get(intervalIndex);
+            
+            if(intervalHistogram == null)
+            {
+                pendingHistograms.put(intervalIndex, histogram);
+            }
+            else
+            {
+                intervalHistogram.add(histogram);
+                recycle(histogram);
+            }
+        }
+        
+        /**
+         * Report the intervals completed by all the threads.
+         * 
+         * @return true if all the threads completed their iterations and all the intervals have been reported
+         */
+        private boolean reportCompletedIntervals()
+        {
+            int completedIntervals = Arrays.stream(nextIntervalIndexes).min().getAsInt();
+            
+            // when all the threads completed, the last interval is the one where the last thread completed
+            boolean finished = completedIntervals == Integer.MAX_VALUE;
+            if(finished)
+            {
+                completedIntervals = (int)Math.max(1, (endTime + intervalLength - 1) / intervalLength);
+                
+                // the iterations that ended exactly at the end of the test belong to the last interval
+                LatencyHistogram lastHistogram = pendingHistograms.remove(completedIntervals);
+                if(lastHistogram != null)
+                    addPendingHistogram(completedIntervals - 1, lastHistogram);
+            }
+            
+            for(; nextReportedIndex < completedIntervals; nextReportedIndex++)
+            {
+                LatencyHistogram intervalHistogram = pendingHistograms.remove(nextReportedIndex);
+                if(intervalHistogram == null)
+                    intervalHistogram = getFreeHistogram(histogramTemplate);
+                
+                long intervalStart = nextReportedIndex * intervalLength;
+                long intervalEnd = finished ? Math.min(intervalStart + intervalLength, endTime) : intervalStart + intervalLength;
+                
+                try {
+                    listener.intervalCompleted(testName, new Interval(nextReportedIndex + 1, intervalStart, intervalEnd, intervalHistogram));
+                } catch (RuntimeException ex) {
+                    Logger.getLogger(IntervalRecorder.class.getName()).log(Level.SEVERE, "Failed to report interval " + (nextReportedIndex + 1) + " of " + testName, ex);
+                }
+                
+                recycle(intervalHistogram);
+            }
+            
+            return finished;
+        }
+    }
+    
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.test;
+
+import com.vin.dbbenchmark.utils.Statistics;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This Tester executes the tests of another {@link Tester} several times (trials), so that the run-to-run noise of the results is visible. 
+ * The result contains the mean of every value over the trials and, for the throughputs, the avg time and the percentiles, 
+ * the standard deviation ("stddev"), the half width of the 95% confidence interval of the mean ("ci95") and the coefficient of variation 
+ * ("cv", in per mille) over the trials. 
+ * The trials with an outlier value of one of these metrics are flagged (see {@link Statistics#findOutliers(double[]) findOutliers}), 
+ * they are not excluded from the statistics. 
+ * The name of the tester is the name of the repeated tester, so that the results can be compared with the results of a single trial.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class RepeatedTrialsTester implements Tester {
+    
+    /**
+     * Unit of the coefficients of variation
+     */
+    public static final String PER_MILLE = "per mille";
+    
+    /**
+     * Unit of the numbers of trials
+     */
+    public static final String TRIALS = "trials";
+    
+    private final Tester tester;
+    private final int numOfTrials;
+    
+    private final List<Result> trialResults = new ArrayList<>();
+
+    /**
+     *
+     * @param tester The tester executed in every trial (its tests have to be repeatable, e.g. {@link BaseTester} inits its resources every time)
+     * @param numOfTrials The number of trials
+     */
+    public RepeatedTrialsTester(Tester tester, int numOfTrials) {
+        this.tester = tester;
+        this.numOfTrials = numOfTrials;
+    }
+
+    /**
+     *
+     * @return The tester executed in every trial (its histograms, if any, refer to the last trial)
+     */
+    public Tester getTester() {
+        return tester;
+    }
+
+    public int getNumOfTrials() {
+        return numOfTrials;
+    }
+
+    @Override
+    public void execTests() {
+        
+        trialResults.clear();
+        
+        for(int i = 0; i < numOfTrials; i++)
+        {
+            tester.execTests();
+            trialResults.add(tester.getResult());
+        }
+    }
+    
+    /**
+     *
+     * @return The results of the trials, in the order they have been executed
+     */
+    public List<Result> getTrialResults() {
+        return trialResults;
+    }
+    
+    /**
+     *
+     * @param key The key of a value in the results of the trials
+     * @param unit The unit of the value
+     * @return true if the statistics over the trials are computed for the value (throughputs, avg time and percentiles)
+     */
+    public static boolean isStatisticsKey(String key, String unit)
+    {
+        // the testers report the avg time with a suffix, e.g. "avg (per transaction)", the warmup avg ("avg-warmup ...") is excluded
+        return unit.endsWith("/s") || key.matches("avg( .*)?") || key.matches("p[0-9].*");
+    }
+    
+    /**
+     *
+     * @param key The key of a value in the results of the trials
+     * @return The values of the key in the trials that contain it
+     */
+    public double[] getTrialValues(String key)
+    {
+        return trialResults.stream().filter(result -> result.containsKey(key)).mapToDouble(result -> result.get(key)).toArray();
+    }
+    
+    /**
+     *
+     * @return For every trial, the keys of the values that are outliers in comparison with the other trials (empty if the trial is not an outlier)
+     */
+    public List<List<String>> getOutlierKeys()
+    {
+        List<List<String>> outlierKeys = new ArrayList<>();
+        for(int i = 0; i < trialResults.size(); i++)
+            outlierKeys.add(new ArrayList<>());
+        
+        for(Map.Entry<String,String> entry : getKeys().entrySet())
+        {
+            if(!isStatisticsKey(entry.getKey(), entry.getValue()))
+                continue;
+            
+            // the outliers are only searched among the trials that contain the key
+            List<Integer> trials = new ArrayList<>();
+            for(int i = 0; i < trialResults.size(); i++)
+            {
+                if(trialResults.get(i).containsKey(entry.getKey()))
+                    trials.add(i);
+            }
+            
+            boolean[] outliers = Statistics.findOutliers(getTrialValues(entry.getKey()));
+            for(int i = 0; i < outliers.length; i++)
+            {
+                if(outliers[i])
+                    outlierKeys.get(trials.get(i)).add(entry.getKey());
+            }
+        }
+        
+        return outlierKeys;
+    }
+    
+    /**
+     * Get the keys of the values of all the trials (with their units), in the order of the first trial that contains them.
+     */
+    private Map<String,String> getKeys()
+    {
+        Map<String,String> keys = new LinkedHashMap<>();
+        
+        for(Result trialResult : trialResults)
+        {
+            for(String key : trialResult.keySet())
+                keys.putIfAbsent(key, trialResult.getUnit(key));
+        }
+        
+        return keys;
+    }
+
+    @Override
+    public Result getResult() {
+        
+        Result result = new Result();
+        
+        if(trialResults.isEmpty())
+            return result;
+        
+        Map<String,String> keys = getKeys();
+        
+        for(Map.Entry<String,String> entry : keys.entrySet())
+            result.put(entry.getKey(), Math.round(Statistics.mean(getTrialValues(entry.getKey()))), entry.getValue());
+        
+        for(Map.Entry<String,String> entry : keys.entrySet())
+        {
+            if(!isStatisticsKey(entry.getKey(), entry.getValue()))
+                continue;
+            
+            double[] values = getTrialValues(entry.getKey());
+            
+            result.put(entry.getKey() + " stddev", Math.round(Statistics.standardDeviation(values)), entry.getValue());
+            if(values.length > 1)
+                result.put(entry.getKey() + " ci95", Math.round(Statistics.confidenceHalfWidth(values)), entry.getValue());
+            result.put(entry.getKey() + " cv", Math.round(Statistics.coefficientOfVariation(values) * 1000), PER_MILLE);
+        }
+        
+        result.put("trials", (long)trialResults.size(), TRIALS);
+        result.put("outlier trials", getOutlierKeys().stream().filter(outlierKeys -> !outlierKeys.isEmpty()).count(), TRIALS);
+        
+        return result;
+    }
+
+    @Override
+    public String getTestInfo() {
+        
+        StringBuilder info = new StringBuilder();
+        info.append("Trials: ").append(numOfTrials).append("\n");
+        info.append(tester.getTestInfo()).append("\n");
+        
+        Map<String,String> keys = getKeys();
+        
+        info.append(String.format("%-32s %16s %14s %14s %9s %16s %16s%n", "metric", "mean", "stddev", "ci95 (+/-)", "cv (%)", "min", "max"));
+        for(Map.Entry<String,String> entry : keys.entrySet())
+        {
+            if(!isStatisticsKey(entry.getKey(), entry.getValue()))
+                continue;
+            
+            double[] values = getTrialValues(entry.getKey());
+            double confidenceHalfWidth = Statistics.confidenceHalfWidth(values);
+            
+            info.append(String.format("%-32s %16.0f %14.0f %14s %9.2f %16.0f %16.0f%n", entry.getKey() + " (" + entry.getValue() + ")", 
+                                      Statistics.mean(values), Statistics.standardDeviation(values), 
+                                      Double.isNaN(confidenceHalfWidth) ? "-" : String.format("%.0f", confidenceHalfWidth), 
+                                      Statistics.coefficientOfVariation(values) * 100, 
+                                      values.length > 0 ? Arrays.stream(values).min().getAsDouble() : 0, 
+                                      values.length > 0 ? Arrays.stream(values).max().getAsDouble() : 0));
+        }
+        
+        List<List<String>> outlierKeys = getOutlierKeys();
+        for(int i = 0; i < outlierKeys.size(); i++)
+        {
+            if(!outlierKeys.get(i).isEmpty())
+                info.append("Outlier trial ").append(i + 1).append(": ").append(String.join(", ", outlierKeys.get(i))).append("\n");
+        }
+        
+        return info.toString();
+    }
+
+    @Override
+    public String getTestName() {
+        return tester.getTestName();
+    }
+    
+}
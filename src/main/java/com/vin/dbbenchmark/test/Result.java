@@ -15,6 +15,7 @@
  */
 package com.vin.dbbenchmark.test;
 
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -27,17 +28,67 @@ import java.util.Map;
  *  - max 67322<br>
  *  - avg 38099
  * 
+ * Values that are not times (e.g. a throughput) can be added with {@link #put(String, Long, String) put} specifying their unit.
+ * 
  * @author Vincenzo Micelli
  */
 public class Result extends LinkedHashMap<String,Long>{
     
+    /**
+     * Unit of the values added with {@link #put(Object, Object) put}
+     */
+    public static final String NANOSECONDS_PER_OPERATION = "ns/op";
+    
+    /**
+     * Unit for throughput values
+     */
+    public static final String OPERATIONS_PER_SECOND = "ops/s";
+    
+    /**
+     * Unit for throughput values expressed in rows
+     */
+    public static final String ROWS_PER_SECOND = "rows/s";
+    
+    /**
+     * Unit for throughput values expressed in data volume
+     */
+    public static final String MEGABYTES_PER_SECOND = "MB/s";
+    
+    private final Map<String,String> units = new HashMap<>();
+    
+    /**
+     * Add a value that is not expressed in {@code ns/op}.
+     * 
+     * @param key The description of the value
+     * @param value The value
+     * @param unit The unit of the value (e.g. {@code ops/s})
+     * @return The previous value associated with the key
+     */
+    public Long put(String key, Long value, String unit)
+    {
+        units.put(key, unit);
+        return put(key, value);
+    }
+    
+    /**
+     *
+     * @param key The description of the value
+     * @return The unit of the value associated with the key
+     */
+    public String getUnit(String key)
+    {
+        String unit = units.get(key);
+        
+        return unit != null ? unit : NANOSECONDS_PER_OPERATION;
+    }
+    
     /**
      * Print result times and their descriptions
      */
     public void print()
     {
-        for (Map.Entry entry : entrySet()) {
-            System.out.println(entry.getKey() + ": " + entry.getValue() + " ns/op");
+        for (Map.Entry<String,Long> entry : entrySet()) {
+            System.out.println(entry.getKey() + ": " + entry.getValue() + " " + getUnit(entry.getKey()));
         }
     }
     
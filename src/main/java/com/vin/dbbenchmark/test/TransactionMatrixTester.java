@@ -0,0 +1,188 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.test;
+
+import com.vin.dbbenchmark.database.CommitMode;
+import com.vin.dbbenchmark.database.IsolationLevel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This Tester executes a test for every combination of transaction isolation level and commit mode 
+ * (one {@link Tester} per combination, created by a {@link CellTesterFactory}) and compares their throughput and tail latency.
+ * The info of the tester contains a table with the statistics of every combination; the result contains the same statistics as values.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class TransactionMatrixTester implements Tester {
+    
+    private final List<IsolationLevel> isolationLevels;
+    private final List<CommitMode> commitModes;
+    private final CellTesterFactory cellTesterFactory;
+    private final String throughputKey;
+    private final String latencyKeySuffix;
+    
+    private final List<Result> cellResults = new ArrayList<>();
+    private String cellTestName = "";
+    
+    /**
+     * Factory used by the {@link TransactionMatrixTester} to create the tester of every combination.
+     */
+    public interface CellTesterFactory
+    {
+        /**
+         *
+         * @param isolationLevel The isolation level
+         * @param commitMode The commit mode
+         * @return A new tester that executes the test with the given isolation level and commit mode.
+         */
+        Tester createTester(IsolationLevel isolationLevel, CommitMode commitMode);
+    }
+
+    /**
+     *
+     * @param isolationLevels The isolation levels (the rows of the matrix)
+     * @param commitModes The commit modes (the columns of the matrix)
+     * @param cellTesterFactory The factory that creates the tester of every combination
+     * @param throughputKey The key of the throughput in the results of the testers
+     * @param latencyKeySuffix The suffix of the keys of the percentiles in the results of the testers (e.g. "" for the keys "p99", "p99.9")
+     */
+    public TransactionMatrixTester(List<IsolationLevel> isolationLevels, List<CommitMode> commitModes, CellTesterFactory cellTesterFactory, 
+                                   String throughputKey, String latencyKeySuffix) {
+        this.isolationLevels = new ArrayList<>(isolationLevels);
+        this.commitModes = new ArrayList<>(commitModes);
+        this.cellTesterFactory = cellTesterFactory;
+        this.throughputKey = throughputKey;
+        this.latencyKeySuffix = latencyKeySuffix;
+        
+        // the name of the test of the cells is part of the name of the matrix (the matrices of different tests have different names)
+        if(!this.isolationLevels.isEmpty() && !this.commitModes.isEmpty())
+            cellTestName = cellTesterFactory.createTester(this.isolationLevels.get(0), this.commitModes.get(0)).getTestName();
+    }
+
+    @Override
+    public void execTests() {
+        
+        cellResults.clear();
+        
+        for(IsolationLevel isolationLevel : isolationLevels)
+        {
+            for(CommitMode commitMode : commitModes)
+            {
+                Tester cellTester = cellTesterFactory.createTester(isolationLevel, commitMode);
+                cellTester.execTests();
+                
+                cellResults.add(cellTester.getResult());
+                cellTestName = cellTester.getTestName();
+            }
+        }
+    }
+    
+    /**
+     *
+     * @param isolationLevel The isolation level
+     * @param commitMode The commit mode
+     * @return The result of the tester of the combination, measured by the last call to {@link #execTests() execTests} (null if the combination has not been executed).
+     */
+    public Result getCellResult(IsolationLevel isolationLevel, CommitMode commitMode)
+    {
+        int row = isolationLevels.indexOf(isolationLevel);
+        int column = commitModes.indexOf(commitMode);
+        
+        if(row < 0 || column < 0)
+            return null;
+        
+        int index = row * commitModes.size() + column;
+        
+        return index < cellResults.size() ? cellResults.get(index) : null;
+    }
+    
+    private static String getCellName(IsolationLevel isolationLevel, CommitMode commitMode)
+    {
+        return isolationLevel + ", " + commitMode;
+    }
+
+    @Override
+    public Result getResult() {
+        Result result = new Result();
+        
+        for(IsolationLevel isolationLevel : isolationLevels)
+        {
+            for(CommitMode commitMode : commitModes)
+            {
+                Result cellResult = getCellResult(isolationLevel, commitMode);
+                
+                if(cellResult == null)
+                    continue;
+                
+                String cellName = " (" + getCellName(isolationLevel, commitMode) + ")";
+                
+                if(cellResult.get(throughputKey) != null)
+                    result.put("throughput" + cellName, cellResult.get(throughputKey), cellResult.getUnit(throughputKey));
+                
+                for(String percentile : new String[]{"p50", "p99", "p99.9"})
+                {
+                    if(cellResult.get(percentile + latencyKeySuffix) != null)
+                        result.put(percentile + cellName, cellResult.get(percentile + latencyKeySuffix));
+                }
+            }
+        }
+        
+        return result;
+    }
+
+    @Override
+    public String getTestInfo() {
+        
+        StringBuilder info = new StringBuilder();
+        info.append("Isolation levels: ").append(isolationLevels).append("\n");
+        info.append("Commit modes: ").append(commitModes).append("\n");
+        info.append("Test of every combination: ").append(cellTestName).append("\n\n");
+        
+        String throughputUnit = cellResults.isEmpty() ? "" : cellResults.get(0).getUnit(throughputKey);
+        
+        info.append(String.format("%-16s %-12s %16s %14s %14s %14s%n", "isolation", "commit", throughputUnit, "p50 (ns)", "p99 (ns)", "p99.9 (ns)"));
+        for(IsolationLevel isolationLevel : isolationLevels)
+        {
+            for(CommitMode commitMode : commitModes)
+            {
+                Result cellResult = getCellResult(isolationLevel, commitMode);
+                
+                if(cellResult == null)
+                    continue;
+                
+                info.append(String.format("%-16s %-12s %16s %14s %14s %14s%n", isolationLevel, commitMode, 
+                                          getValue(cellResult, throughputKey), getValue(cellResult, "p50" + latencyKeySuffix), 
+                                          getValue(cellResult, "p99" + latencyKeySuffix), getValue(cellResult, "p99.9" + latencyKeySuffix)));
+            }
+        }
+        
+        return info.toString();
+    }
+    
+    private static String getValue(Result result, String key)
+    {
+        Long value = result.get(key);
+        
+        return value != null ? value.toString() : "-";
+    }
+
+    @Override
+    public String getTestName() {
+        return "Isolation Level and Commit Mode Matrix" + (cellTestName.isEmpty() ? "" : " (" + cellTestName + ")");
+    }
+    
+}
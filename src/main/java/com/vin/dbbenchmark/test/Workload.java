@@ -0,0 +1,252 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.test;
+
+import com.vin.dbbenchmark.utils.DataGenerator;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * A workload is a mix of operations on the test table, each one with a weight: the operations executed by a {@link DbWorkloadTester} 
+ * are drawn at random in proportion to their weights (e.g. READ:80,UPDATE:15,INSERT:5).
+ * The mixes of the YCSB core workloads A-F are available through {@link #getYcsbWorkload(String) getYcsbWorkload}.
+ * 
+ * A workload is immutable and can be shared by concurrent testers.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class Workload {
+    
+    /**
+     * The operations of a workload.
+     */
+    public enum Operation {
+
+        /**
+         * Select a record by primary key and read it
+         */
+        READ,
+
+        /**
+         * Update all the columns of a record by primary key
+         */
+        UPDATE,
+
+        /**
+         * Insert a batch of new records
+         */
+        INSERT,
+
+        /**
+         * Read a range of consecutive primary keys
+         */
+        SCAN,
+
+        /**
+         * Read a record by primary key and then update it
+         */
+        READ_MODIFY_WRITE,
+
+        /**
+         * Delete a record by primary key
+         */
+        DELETE
+    }
+    
+    private final String name;
+    private final Map<Operation,Integer> weights;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    
+    /**
+     *
+     * @param name The name of the workload (used in the reports)
+     * @param weights The weights of the operations. Operations without weight (or with weight 0) are not executed
+     */
+    public Workload(String name, Map<Operation,Integer> weights) {
+        
+        this.name = name;
+        this.weights = new EnumMap<>(Operation.class);
+        
+        int totalWeight = 0;
+        for(Map.Entry<Operation,Integer> weight : weights.entrySet())
+        {
+            if(weight.getValue() < 0)
+                throw new IllegalArgumentException("the weight of operation " + weight.getKey() + " cannot be negative");
+            
+            if(weight.getValue() > 0)
+            {
+                this.weights.put(weight.getKey(), weight.getValue());
+                totalWeight += weight.getValue();
+            }
+        }
+        
+        if(totalWeight == 0)
+            throw new IllegalArgumentException("at least an operation must have a positive weight");
+        
+        operations = this.weights.keySet().toArray(new Operation[0]);
+        cumulativeWeights = new int[operations.length];
+        
+        int cumulativeWeight = 0;
+        for(int i = 0; i < operations.length; i++)
+        {
+            cumulativeWeight += this.weights.get(operations[i]);
+            cumulativeWeights[i] = cumulativeWeight;
+        }
+    }
+    
+    /**
+     * Parse a workload: either the letter of a YCSB core workload (A-F) or a comma separated list of operations with their weights 
+     * (e.g. READ:80,UPDATE:15,INSERT:5).
+     * 
+     * @param workload The string to parse
+     * @return The workload
+     * @throws IllegalArgumentException if the string is not a valid workload
+     */
+    public static Workload parse(String workload) {
+        
+        Workload ycsbWorkload = getYcsbWorkload(workload.trim());
+        if(ycsbWorkload != null)
+            return ycsbWorkload;
+        
+        Map<Operation,Integer> weights = new EnumMap<>(Operation.class);
+        
+        for(String operationWeight : workload.split(","))
+        {
+            String[] parts = operationWeight.split(":");
+            
+            if(parts.length != 2)
+                throw new IllegalArgumentException("invalid operation weight: " + operationWeight);
+            
+            try {
+                weights.merge(Operation.valueOf(parts[0].trim()), Integer.parseInt(parts[1].trim()), Integer::sum);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("invalid operation weight: " + operationWeight, ex);
+            }
+        }
+        
+        return new Workload(workload.trim(), weights);
+    }
+    
+    /**
+     * Get the operation mix of a YCSB core workload:<br>
+     *  - A (update heavy): 50% reads, 50% updates<br>
+     *  - B (read mostly): 95% reads, 5% updates<br>
+     *  - C (read only): 100% reads<br>
+     *  - D (read latest): 95% reads, 5% inserts<br>
+     *  - E (short ranges): 95% scans, 5% inserts<br>
+     *  - F (read-modify-write): 50% reads, 50% read-modify-writes
+     * 
+     * @param letter The letter of the workload (A-F)
+     * @return The workload, or null if the letter is not a YCSB core workload
+     */
+    public static Workload getYcsbWorkload(String letter) {
+        
+        Map<Operation,Integer> weights = new EnumMap<>(Operation.class);
+        
+        switch(letter.toUpperCase())
+        {
+            case "A":
+                weights.put(Operation.READ, 50);
+                weights.put(Operation.UPDATE, 50);
+                break;
+            case "B":
+                weights.put(Operation.READ, 95);
+                weights.put(Operation.UPDATE, 5);
+                break;
+            case "C":
+                weights.put(Operation.READ, 100);
+                break;
+            case "D":
+                weights.put(Operation.READ, 95);
+                weights.put(Operation.INSERT, 5);
+                break;
+            case "E":
+                weights.put(Operation.SCAN, 95);
+                weights.put(Operation.INSERT, 5);
+                break;
+            case "F":
+                weights.put(Operation.READ, 50);
+                weights.put(Operation.READ_MODIFY_WRITE, 50);
+                break;
+            default:
+                return null;
+        }
+        
+        return new Workload("YCSB " + letter.toUpperCase(), weights);
+    }
+    
+    /**
+     * Draw an operation at random in proportion to the weights.
+     * 
+     * @param dataGenerator The generator of the random values
+     * @return The operation
+     */
+    public Operation nextOperation(DataGenerator dataGenerator) {
+        
+        int value = dataGenerator.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        
+        for(int i = 0; i < cumulativeWeights.length - 1; i++)
+        {
+            if(value < cumulativeWeights[i])
+                return operations[i];
+        }
+        
+        return operations[operations.length - 1];
+    }
+    
+    /**
+     *
+     * @param operation An operation
+     * @return true if the operation can be drawn by the workload
+     */
+    public boolean contains(Operation operation) {
+        return weights.containsKey(operation);
+    }
+
+    /**
+     *
+     * @return The operations of the workload (the ones with positive weight)
+     */
+    public Operation[] getOperations() {
+        return operations.clone();
+    }
+    
+    /**
+     *
+     * @param operation An operation
+     * @return The weight of the operation (0 if the operation is not in the workload)
+     */
+    public int getWeight(Operation operation) {
+        Integer weight = weights.get(operation);
+        return weight != null ? weight : 0;
+    }
+    
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder mix = new StringBuilder();
+        
+        for(Operation operation : operations)
+            mix.append(mix.length() == 0 ? "" : ",").append(operation).append(":").append(weights.get(operation));
+        
+        return name.equals(mix.toString()) ? name : name + " (" + mix + ")";
+    }
+    
+}
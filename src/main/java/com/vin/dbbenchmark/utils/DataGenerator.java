@@ -0,0 +1,236 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.utils;
+
+import com.vin.dbbenchmark.database.DbHelper.DbEntry;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This class generates the random data used by the testers. 
+ * The random values are taken from a {@code SplittableRandom} created with a given seed, so the same sequence of values can be replayed using the same seed.
+ * To avoid allocating objects for every generated value, strings and decimals are taken from pools of random values generated at construction, 
+ * the timestamp is the same for all the entries and the entries can be reused (see {@link #nextEntry(DbEntry) nextEntry} and {@link #entries() entries}).
+ * 
+ * A generator is not thread safe: every thread (tester) has to use its own generator. 
+ * Generators of concurrent testers should use different seeds, e.g. obtained with {@link #getStreamSeed(long, int) getStreamSeed}.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class DataGenerator {
+    
+    /**
+     * Default number of strings and decimals in the pools
+     */
+    public static final int DEFAULT_POOL_SIZE = 4096;
+    
+    /**
+     * Length of the generated strings
+     */
+    public static final int STRING_LENGTH = 20;
+    
+    /**
+     * Upper bound (exclusive) of the generated integers
+     */
+    public static final int MAX_INT_VALUE = 100000;
+    
+    /**
+     * Upper bound (exclusive) of the generated decimals
+     */
+    public static final int MAX_DECIMAL_VALUE = 100000;
+    
+    /**
+     * Scale of the generated decimals
+     */
+    public static final int DECIMAL_SCALE = 2;
+    
+    private static final char[] CHARS = "abcdefghijklmnopqrstuvwxyz".toCharArray();
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    
+    private final long seed;
+    private final SplittableRandom random;
+    private final String[] stringPool;
+    private final BigDecimal[] decimalPool;
+    private final Timestamp timestamp;
+    
+    /**
+     * Create a generator with the default pool size and the current time as timestamp.
+     * 
+     * @param seed The seed of the random values
+     */
+    public DataGenerator(long seed) {
+        this(seed, DEFAULT_POOL_SIZE, System.currentTimeMillis());
+    }
+    
+    /**
+     *
+     * @param seed The seed of the random values
+     * @param poolSize The number of strings and decimals in the pools
+     * @param timeMillis The time (milliseconds since epoch) of the timestamp of the entries
+     */
+    public DataGenerator(long seed, int poolSize, long timeMillis) {
+        
+        if(poolSize <= 0)
+            throw new IllegalArgumentException("poolSize has to be a positive number: " + poolSize);
+        
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        this.timestamp = new Timestamp(timeMillis);
+        
+        stringPool = new String[poolSize];
+        decimalPool = new BigDecimal[poolSize];
+        
+        char[] chars = new char[STRING_LENGTH];
+        long decimalBound = (long)MAX_DECIMAL_VALUE * pow10(DECIMAL_SCALE);
+        
+        for(int i = 0; i < poolSize; i++)
+        {
+            for(int j = 0; j < chars.length; j++)
+                chars[j] = CHARS[random.nextInt(CHARS.length)];
+            
+            stringPool[i] = new String(chars);
+            decimalPool[i] = BigDecimal.valueOf(random.nextLong(decimalBound), DECIMAL_SCALE);
+        }
+    }
+    
+    /**
+     *
+     * @return A new random seed (to be used when a seed has not been specified).
+     */
+    public static long newSeed()
+    {
+        return ThreadLocalRandom.current().nextLong();
+    }
+    
+    /**
+     * Derive the seed of one of the independent streams of values generated from a seed (e.g. the seed of the generator of a thread).
+     * 
+     * @param seed The seed
+     * @param streamIndex The index of the stream
+     * @return The seed of the stream
+     */
+    public static long getStreamSeed(long seed, int streamIndex)
+    {
+        // mix the index as SplittableRandom does, so that near indexes give unrelated seeds
+        long z = seed + (streamIndex + 1) * GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        
+        return z ^ (z >>> 31);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+    
+    /**
+     *
+     * @param bound The upper bound (exclusive). It has to be positive
+     * @return A random integer between 0 (inclusive) and bound (exclusive).
+     */
+    public int nextInt(int bound)
+    {
+        return random.nextInt(bound);
+    }
+    
+    /**
+     *
+     * @return A random double between 0 (inclusive) and 1 (exclusive).
+     */
+    public double nextDouble()
+    {
+        return random.nextDouble();
+    }
+    
+    /**
+     *
+     * @return A random string (of {@link #STRING_LENGTH} lowercase letters) from the pool.
+     */
+    public String nextString()
+    {
+        return stringPool[random.nextInt(stringPool.length)];
+    }
+    
+    /**
+     *
+     * @return A random decimal (lower than {@link #MAX_DECIMAL_VALUE} with scale {@link #DECIMAL_SCALE}) from the pool.
+     */
+    public BigDecimal nextDecimal()
+    {
+        return decimalPool[random.nextInt(decimalPool.length)];
+    }
+
+    /**
+     *
+     * @return The timestamp of the entries. It is shared by all the entries and must not be modified.
+     */
+    public Timestamp getTimestamp() {
+        return timestamp;
+    }
+    
+    /**
+     * Set random values in an entry.
+     * 
+     * @param entry The entry to fill (it can be an entry already used, whose values are no more needed)
+     * @return The entry
+     */
+    public DbEntry nextEntry(DbEntry entry)
+    {
+        entry.setVarcharField(nextString());
+        entry.setIntField(random.nextInt(MAX_INT_VALUE));
+        entry.setDecimalField(nextDecimal());
+        entry.setDateField(timestamp);
+        
+        return entry;
+    }
+    
+    /**
+     * Get an endless source of random entries. To avoid allocations the source always returns the same entry object, 
+     * filled with new values at every call of {@code next()}: the consumer has to use the values of an entry before getting the next one.
+     * 
+     * @return The source of entries
+     */
+    public Iterator<DbEntry> entries()
+    {
+        DbEntry entry = new DbEntry();
+        
+        return new Iterator<DbEntry>() {
+            
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public DbEntry next() {
+                return nextEntry(entry);
+            }
+        };
+    }
+    
+    private static long pow10(int exponent)
+    {
+        long result = 1;
+        for(int i = 0; i < exponent; i++)
+            result *= 10;
+        
+        return result;
+    }
+    
+}
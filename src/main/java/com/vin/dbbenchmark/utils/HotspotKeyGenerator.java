@@ -0,0 +1,63 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.utils;
+
+/**
+ * This key generator draws a fraction of the keys (the hot set: the lowest keys) with a given fraction of the accesses, 
+ * e.g. 80% of the accesses on 20% of the keys. The keys inside and outside the hot set are drawn uniformly.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class HotspotKeyGenerator implements KeyGenerator {
+    
+    private final double hotKeyFraction;
+    private final double hotAccessFraction;
+
+    /**
+     *
+     * @param hotKeyFraction The fraction of the keys in the hot set (between 0 and 1)
+     * @param hotAccessFraction The fraction of the accesses on the hot set (between 0 and 1)
+     */
+    public HotspotKeyGenerator(double hotKeyFraction, double hotAccessFraction) {
+        
+        if(!(hotKeyFraction >= 0 && hotKeyFraction <= 1) || !(hotAccessFraction >= 0 && hotAccessFraction <= 1))
+            throw new IllegalArgumentException("the fractions of keys and accesses have to be between 0 and 1");
+        
+        this.hotKeyFraction = hotKeyFraction;
+        this.hotAccessFraction = hotAccessFraction;
+    }
+
+    @Override
+    public int nextKey(DataGenerator dataGenerator, int maxKey) {
+        
+        if(maxKey <= 0)
+            return 0;
+        
+        // the hot set has at least a key
+        int numOfHotKeys = Math.max(1, (int)(maxKey * hotKeyFraction));
+        
+        if(numOfHotKeys == maxKey || dataGenerator.nextDouble() < hotAccessFraction)
+            return 1 + dataGenerator.nextInt(numOfHotKeys);
+        
+        return numOfHotKeys + 1 + dataGenerator.nextInt(maxKey - numOfHotKeys);
+    }
+
+    @Override
+    public String toString() {
+        return "hotspot (" + Math.round(hotAccessFraction * 100) + "% of the accesses on " + Math.round(hotKeyFraction * 100) + "% of the keys)";
+    }
+    
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.utils;
+
+/**
+ * The distributions of the keys accessed by the testers (see {@link KeyGenerator}).
+ * 
+ * @author Vincenzo Micelli
+ */
+public enum KeyDistribution {
+
+    /**
+     * All the keys with the same probability (see {@link UniformKeyGenerator})
+     */
+    UNIFORM,
+
+    /**
+     * The lowest keys are the most popular (see {@link ZipfianKeyGenerator})
+     */
+    ZIPFIAN,
+
+    /**
+     * A fraction of the accesses on a fraction of the keys (see {@link HotspotKeyGenerator})
+     */
+    HOTSPOT,
+
+    /**
+     * The greatest (latest inserted) keys are the most popular (see {@link LatestKeyGenerator})
+     */
+    LATEST
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.utils;
+
+/**
+ * A key generator draws the primary keys accessed by the testers, from 1 to a max key, according to a distribution 
+ * (e.g. uniform, or skewed towards a small set of hot keys).
+ * 
+ * Key generators do not allocate objects for the generated keys and are thread safe: the random values are taken from the 
+ * {@link DataGenerator} passed to {@link #nextKey(DataGenerator, int) nextKey} (every thread has its own), so the same generator 
+ * can be shared by concurrent testers.
+ * 
+ * @author Vincenzo Micelli
+ */
+public interface KeyGenerator {
+
+    /**
+     * Draw a key. The max key can change between calls (e.g. when the tester inserts new records).
+     * 
+     * @param dataGenerator The generator of the random values (of the calling thread)
+     * @param maxKey The max key that can be drawn
+     * @return A key between 1 and maxKey (0 if maxKey is not positive)
+     */
+    int nextKey(DataGenerator dataGenerator, int maxKey);
+    
+}
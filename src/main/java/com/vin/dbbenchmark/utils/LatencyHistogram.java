@@ -0,0 +1,307 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.utils;
+
+import java.util.Arrays;
+
+/**
+ * A latency histogram with fixed memory footprint, in the style of HdrHistogram.
+ * Values are recorded in buckets whose size grows with powers of two, each bucket being split in a number of sub buckets 
+ * that guarantees the configured number of significant decimal digits. 
+ * The memory used by the histogram only depends on its precision and on its highest trackable value, 
+ * and recording a value never allocates objects, so the histogram can be used inside the measured loop of a test.
+ * 
+ * Values greater than the highest trackable value are recorded in the last bucket (min, max and mean are always exact).
+ * The histogram is not thread safe: concurrent testers record in their own histograms and {@link #add(LatencyHistogram) add} them at the end.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class LatencyHistogram {
+    
+    private final long highestTrackableValue;
+    private final int numberOfSignificantValueDigits;
+    
+    private final int subBucketHalfCountMagnitude;
+    private final int subBucketCount;
+    private final int subBucketHalfCount;
+    private final long subBucketMask;
+    private final int leadingZeroCountBase;
+    private final long[] counts;
+    
+    private long totalCount;
+    private long totalValue;
+    private long minValue;
+    private long maxValue;
+
+    /**
+     *
+     * @param highestTrackableValue The highest value (e.g. in nanoseconds) that can be recorded with the requested precision. It must be greater than or equal to 2.
+     * @param numberOfSignificantValueDigits The number of significant decimal digits of the recorded values. It must be between 0 and 5.
+     */
+    public LatencyHistogram(long highestTrackableValue, int numberOfSignificantValueDigits) {
+        
+        if(highestTrackableValue < 2)
+            throw new IllegalArgumentException("highestTrackableValue must be greater than or equal to 2");
+        if(numberOfSignificantValueDigits < 0 || numberOfSignificantValueDigits > 5)
+            throw new IllegalArgumentException("numberOfSignificantValueDigits must be between 0 and 5");
+        
+        this.highestTrackableValue = highestTrackableValue;
+        this.numberOfSignificantValueDigits = numberOfSignificantValueDigits;
+        
+        // the sub buckets have to give single unit resolution up to 2 * 10^digits
+        long largestValueWithSingleUnitResolution = 2 * (long)Math.pow(10, numberOfSignificantValueDigits);
+        int subBucketCountMagnitude = (int)Math.ceil(Math.log(largestValueWithSingleUnitResolution) / Math.log(2));
+        
+        this.subBucketHalfCountMagnitude = Math.max(subBucketCountMagnitude, 1) - 1;
+        this.subBucketCount = 1 << (subBucketHalfCountMagnitude + 1);
+        this.subBucketHalfCount = subBucketCount / 2;
+        this.subBucketMask = subBucketCount - 1;
+        this.leadingZeroCountBase = 64 - subBucketHalfCountMagnitude - 1;
+        
+        // every bucket doubles the range of values covered by the previous one
+        long smallestUntrackableValue = subBucketCount;
+        int bucketCount = 1;
+        while(smallestUntrackableValue <= highestTrackableValue)
+        {
+            if(smallestUntrackableValue > Long.MAX_VALUE / 2)
+            {
+                bucketCount++;
+                break;
+            }
+            smallestUntrackableValue <<= 1;
+            bucketCount++;
+        }
+        
+        this.counts = new long[(bucketCount + 1) * subBucketHalfCount];
+        
+        reset();
+    }
+    
+    /**
+     *
+     * @return A new empty histogram with the same precision and highest trackable value of this histogram.
+     */
+    public LatencyHistogram copyEmpty()
+    {
+        return new LatencyHistogram(highestTrackableValue, numberOfSignificantValueDigits);
+    }
+
+    public long getHighestTrackableValue() {
+        return highestTrackableValue;
+    }
+
+    public int getNumberOfSignificantValueDigits() {
+        return numberOfSignificantValueDigits;
+    }
+    
+    /**
+     * Record a value in the histogram. Negative values are recorded as 0.
+     * 
+     * @param value The value to record
+     */
+    public void recordValue(long value)
+    {
+        if(value < 0)
+            value = 0;
+        
+        counts[countsIndexOf(Math.min(value, highestTrackableValue))]++;
+        
+        totalCount++;
+        totalValue += value;
+        if(value < minValue)
+            minValue = value;
+        if(value > maxValue)
+            maxValue = value;
+    }
+    
+    /**
+     * Add the values recorded by another histogram to this histogram.
+     * 
+     * @param other A histogram with the same precision and highest trackable value of this histogram.
+     */
+    public void add(LatencyHistogram other)
+    {
+        if(other.counts.length != counts.length || other.subBucketCount != subBucketCount)
+            throw new IllegalArgumentException("histograms must have the same precision and highest trackable value");
+        
+        for(int i = 0; i < counts.length; i++)
+            counts[i] += other.counts[i];
+        
+        totalCount += other.totalCount;
+        totalValue += other.totalValue;
+        if(other.minValue < minValue)
+            minValue = other.minValue;
+        if(other.maxValue > maxValue)
+            maxValue = other.maxValue;
+    }
+    
+    /**
+     * Remove all the recorded values.
+     */
+    public final void reset()
+    {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        totalValue = 0;
+        minValue = Long.MAX_VALUE;
+        maxValue = 0;
+    }
+
+    /**
+     *
+     * @return The number of recorded values.
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     *
+     * @return The sum of the recorded values.
+     */
+    public long getTotalValue() {
+        return totalValue;
+    }
+    
+    /**
+     *
+     * @return The min recorded value (0 if the histogram is empty).
+     */
+    public long getMinValue() {
+        return totalCount == 0 ? 0 : minValue;
+    }
+
+    /**
+     *
+     * @return The max recorded value (0 if the histogram is empty).
+     */
+    public long getMaxValue() {
+        return maxValue;
+    }
+    
+    /**
+     *
+     * @return The mean of the recorded values (0 if the histogram is empty).
+     */
+    public double getMean() {
+        return totalCount == 0 ? 0 : (double)totalValue / totalCount;
+    }
+    
+    /**
+     * Get the value at a given percentile. 
+     * The returned value is the highest value that is equivalent (within the histogram precision) to the recorded value at the given percentile.
+     * 
+     * @param percentile The percentile (between 0 and 100)
+     * @return The value at the given percentile (0 if the histogram is empty).
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        if(totalCount == 0)
+            return 0;
+        
+        double requestedPercentile = Math.min(Math.max(percentile, 0), 100);
+        long countAtPercentile = Math.max((long)(requestedPercentile / 100 * totalCount + 0.5), 1);
+        
+        long cumulativeCount = 0;
+        for(int i = 0; i < counts.length; i++)
+        {
+            cumulativeCount += counts[i];
+            if(cumulativeCount >= countAtPercentile)
+            {
+                long value = valueFromIndex(i);
+                long highestEquivalentValue = value + sizeOfEquivalentValueRange(value) - 1;
+                
+                return Math.max(Math.min(highestEquivalentValue, maxValue), getMinValue());
+            }
+        }
+        
+        return maxValue;
+    }
+    
+    /**
+     * Callback used to iterate over the recorded values.
+     */
+    public interface RecordedValueConsumer
+    {
+        /**
+         * 
+         * @param lowestValue The lowest value of the bucket
+         * @param highestValue The highest value of the bucket
+         * @param count The number of values recorded in the bucket
+         */
+        void accept(long lowestValue, long highestValue, long count);
+    }
+    
+    /**
+     * Iterate over the non empty buckets of the histogram in ascending order of values.
+     * 
+     * @param consumer The callback called for every non empty bucket.
+     */
+    public void forEachRecordedValue(RecordedValueConsumer consumer)
+    {
+        for(int i = 0; i < counts.length; i++)
+        {
+            if(counts[i] > 0)
+            {
+                long value = valueFromIndex(i);
+                consumer.accept(value, value + sizeOfEquivalentValueRange(value) - 1, counts[i]);
+            }
+        }
+    }
+    
+    private int getBucketIndex(long value)
+    {
+        return leadingZeroCountBase - Long.numberOfLeadingZeros(value | subBucketMask);
+    }
+    
+    private int countsIndexOf(long value)
+    {
+        int bucketIndex = getBucketIndex(value);
+        int subBucketIndex = (int)(value >>> bucketIndex);
+        
+        // the lower half of the sub buckets of a bucket is already covered by the previous bucket
+        int bucketBaseIndex = (bucketIndex + 1) << subBucketHalfCountMagnitude;
+        int offsetInBucket = subBucketIndex - subBucketHalfCount;
+        
+        return bucketBaseIndex + offsetInBucket;
+    }
+    
+    private long valueFromIndex(int index)
+    {
+        int bucketIndex = (index >> subBucketHalfCountMagnitude) - 1;
+        int subBucketIndex = (index & (subBucketHalfCount - 1)) + subBucketHalfCount;
+        
+        if(bucketIndex < 0)
+        {
+            subBucketIndex -= subBucketHalfCount;
+            bucketIndex = 0;
+        }
+        
+        return ((long)subBucketIndex) << bucketIndex;
+    }
+    
+    private long sizeOfEquivalentValueRange(long value)
+    {
+        int bucketIndex = getBucketIndex(value);
+        int subBucketIndex = (int)(value >>> bucketIndex);
+        
+        if(subBucketIndex >= subBucketCount)
+            bucketIndex++;
+        
+        return 1L << bucketIndex;
+    }
+    
+}
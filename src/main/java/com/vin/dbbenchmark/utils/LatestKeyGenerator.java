@@ -0,0 +1,46 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.utils;
+
+/**
+ * This key generator draws the most recent keys (the greatest ones) more often than the old ones: the distance from the max key 
+ * has a Zipfian distribution (see {@link ZipfianKeyGenerator}). It models the accesses to the latest inserted records, as YCSB workload D.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class LatestKeyGenerator implements KeyGenerator {
+    
+    private final ZipfianKeyGenerator zipfianKeyGenerator;
+
+    /**
+     *
+     * @param theta The skew of the distribution, greater than 0 (uniform) and less than 1
+     */
+    public LatestKeyGenerator(double theta) {
+        this.zipfianKeyGenerator = new ZipfianKeyGenerator(theta);
+    }
+
+    @Override
+    public int nextKey(DataGenerator dataGenerator, int maxKey) {
+        return maxKey > 0 ? maxKey - zipfianKeyGenerator.nextRank(dataGenerator, maxKey) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "latest (theta " + zipfianKeyGenerator.getTheta() + ")";
+    }
+    
+}
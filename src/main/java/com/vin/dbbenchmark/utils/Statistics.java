@@ -0,0 +1,219 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.utils;
+
+import java.util.Arrays;
+
+/**
+ * Statistics on the samples of a measure taken in repeated runs or trials (e.g. the throughput of a tester), 
+ * used to tell a real change of performance from the run-to-run noise.
+ * The confidence intervals are computed with the Student's t distribution, so they are valid also with few samples 
+ * if the measure is approximately normally distributed.
+ * 
+ * @author Vincenzo Micelli
+ */
+public final class Statistics {
+    
+    /**
+     * The confidence level of the intervals computed by this class
+     */
+    public static final double CONFIDENCE_LEVEL = 0.95;
+    
+    /**
+     * The modified z-score above which a sample is an outlier (see {@link #findOutliers(double[]) findOutliers})
+     */
+    public static final double OUTLIER_Z_SCORE = 3.5;
+    
+    private static final double Z_95 = 1.959964;
+    
+    // two-sided critical values of the t distribution for a 95% confidence level, for 1 to 30 degrees of freedom
+    private static final double[] T_95 = {12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228, 
+                                          2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086, 
+                                          2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042};
+
+    private Statistics() {
+    }
+    
+    /**
+     *
+     * @param samples The samples (at least one)
+     * @return The arithmetic mean of the samples
+     */
+    public static double mean(double[] samples)
+    {
+        double sum = 0;
+        
+        for(double sample : samples)
+            sum += sample;
+        
+        return sum / samples.length;
+    }
+    
+    /**
+     *
+     * @param samples The samples
+     * @return The sample variance (with Bessel's correction), or 0 if there are less than two samples
+     */
+    public static double variance(double[] samples)
+    {
+        if(samples.length < 2)
+            return 0;
+        
+        double mean = mean(samples);
+        double sumOfSquares = 0;
+        
+        for(double sample : samples)
+            sumOfSquares += (sample - mean) * (sample - mean);
+        
+        return sumOfSquares / (samples.length - 1);
+    }
+    
+    /**
+     *
+     * @param samples The samples
+     * @return The sample standard deviation, or 0 if there are less than two samples
+     */
+    public static double standardDeviation(double[] samples)
+    {
+        return Math.sqrt(variance(samples));
+    }
+    
+    /**
+     *
+     * @param samples The samples
+     * @return The coefficient of variation of the samples (standard deviation divided by mean), or 0 if the mean is 0
+     */
+    public static double coefficientOfVariation(double[] samples)
+    {
+        double mean = mean(samples);
+        
+        return mean != 0 ? standardDeviation(samples) / Math.abs(mean) : 0;
+    }
+    
+    /**
+     *
+     * @param samples The samples (at least one)
+     * @return The median of the samples
+     */
+    public static double median(double[] samples)
+    {
+        double[] sortedSamples = samples.clone();
+        Arrays.sort(sortedSamples);
+        
+        int middle = sortedSamples.length / 2;
+        
+        return sortedSamples.length % 2 == 1 ? sortedSamples[middle] : (sortedSamples[middle - 1] + sortedSamples[middle]) / 2;
+    }
+    
+    /**
+     * Find the outliers with the modified z-score (Iglewicz and Hoaglin), that is based on the median and on the median absolute deviation 
+     * instead of the mean and the standard deviation, so that an outlier does not hide itself inflating the deviation of few samples. 
+     * A sample is an outlier if its modified z-score is greater than {@link #OUTLIER_Z_SCORE}. 
+     * With less than three samples, or if more than half of the samples are equal to the median, no sample is an outlier.
+     *
+     * @param samples The samples
+     * @return For every sample, true if it is an outlier
+     */
+    public static boolean[] findOutliers(double[] samples)
+    {
+        boolean[] outliers = new boolean[samples.length];
+        
+        if(samples.length < 3)
+            return outliers;
+        
+        double median = median(samples);
+        
+        double[] deviations = new double[samples.length];
+        for(int i = 0; i < samples.length; i++)
+            deviations[i] = Math.abs(samples[i] - median);
+        
+        double medianAbsoluteDeviation = median(deviations);
+        
+        if(medianAbsoluteDeviation == 0)
+            return outliers;
+        
+        for(int i = 0; i < samples.length; i++)
+            outliers[i] = 0.6745 * deviations[i] / medianAbsoluteDeviation > OUTLIER_Z_SCORE;
+        
+        return outliers;
+    }
+    
+    /**
+     *
+     * @param degreesOfFreedom The degrees of freedom (at least 1, the fractional part is ignored so that the interval is conservative)
+     * @return The two-sided critical value of the t distribution for the {@link #CONFIDENCE_LEVEL confidence level}
+     */
+    public static double tCriticalValue(double degreesOfFreedom)
+    {
+        int df = Math.max(1, (int)Math.floor(degreesOfFreedom));
+        
+        if(df <= T_95.length)
+            return T_95[df - 1];
+        
+        // first term of the Cornish-Fisher expansion, accurate to three decimals above 30 degrees of freedom
+        return Z_95 + (Z_95 * Z_95 * Z_95 + Z_95) / (4 * df);
+    }
+    
+    /**
+     *
+     * @param samples The samples
+     * @return The half width of the confidence interval of the mean of the samples, or NaN if there are less than two samples
+     */
+    public static double confidenceHalfWidth(double[] samples)
+    {
+        if(samples.length < 2)
+            return Double.NaN;
+        
+        return tCriticalValue(samples.length - 1) * standardDeviation(samples) / Math.sqrt(samples.length);
+    }
+    
+    /**
+     * Compute the half width of the confidence interval of the difference between the means of two groups of samples (Welch's t-test, 
+     * that does not assume equal variances). 
+     * If only one group has at least two samples, the other mean is considered exact (one-sample t-test).
+     *
+     * @param samples1 The first group of samples
+     * @param samples2 The second group of samples
+     * @return The half width of the confidence interval of mean(samples2) - mean(samples1), 
+     * or NaN if no group has at least two samples
+     */
+    public static double differenceConfidenceHalfWidth(double[] samples1, double[] samples2)
+    {
+        double squaredError1 = samples1.length > 1 ? variance(samples1) / samples1.length : 0;
+        double squaredError2 = samples2.length > 1 ? variance(samples2) / samples2.length : 0;
+        
+        if(samples1.length < 2 && samples2.length < 2)
+            return Double.NaN;
+        
+        if(samples1.length < 2)
+            return confidenceHalfWidth(samples2);
+        
+        if(samples2.length < 2)
+            return confidenceHalfWidth(samples1);
+        
+        double squaredError = squaredError1 + squaredError2;
+        
+        if(squaredError == 0)
+            return 0;
+        
+        // Welch-Satterthwaite degrees of freedom
+        double degreesOfFreedom = squaredError * squaredError / 
+                                  (squaredError1 * squaredError1 / (samples1.length - 1) + squaredError2 * squaredError2 / (samples2.length - 1));
+        
+        return tCriticalValue(degreesOfFreedom) * Math.sqrt(squaredError);
+    }
+    
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.utils;
+
+/**
+ * This key generator draws every key from 1 to the max key with the same probability.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class UniformKeyGenerator implements KeyGenerator {
+
+    @Override
+    public int nextKey(DataGenerator dataGenerator, int maxKey) {
+        return maxKey > 0 ? 1 + dataGenerator.nextInt(maxKey) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "uniform";
+    }
+    
+}
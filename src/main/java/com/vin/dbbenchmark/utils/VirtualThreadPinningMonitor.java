@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.utils;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records the times that virtual threads spend blocked while pinned to their carrier thread (e.g. blocking I/O inside a synchronized block of a driver), 
+ * so that the carrier threads cannot run other virtual threads. The pinning events are read from a JDK Flight Recorder stream 
+ * (event jdk.VirtualThreadPinned), accessed through reflection because the application is compiled for Java 8.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class VirtualThreadPinningMonitor {
+    
+    private static final String PINNED_EVENT_NAME = "jdk.VirtualThreadPinned";
+    
+    private final LatencyHistogram pinnedTimeHistogram;
+    private Object recordingStream;
+
+    /**
+     *
+     * @param pinnedTimeHistogram The histogram where the pinned times are recorded (in nanoseconds)
+     */
+    public VirtualThreadPinningMonitor(LatencyHistogram pinnedTimeHistogram) {
+        this.pinnedTimeHistogram = pinnedTimeHistogram;
+    }
+    
+    /**
+     * Start recording the pinning events (all of them, whatever their duration).
+     * 
+     * @return true if the recording has been started, false if the JDK does not provide the events
+     */
+    public boolean start()
+    {
+        if(!VirtualThreads.isSupported())
+            return false;
+        
+        try {
+            Class<?> recordingStreamClass = Class.forName("jdk.jfr.consumer.RecordingStream");
+            Class<?> eventSettingsClass = Class.forName("jdk.jfr.EventSettings");
+            Method getDurationMethod = Class.forName("jdk.jfr.consumer.RecordedEvent").getMethod("getDuration");
+            
+            Object stream = recordingStreamClass.getConstructor().newInstance();
+            Object eventSettings = recordingStreamClass.getMethod("enable", String.class).invoke(stream, PINNED_EVENT_NAME);
+            eventSettingsClass.getMethod("withThreshold", Duration.class).invoke(eventSettings, Duration.ZERO);
+            
+            // the events are delivered by the thread of the stream, that is the only one recording in the histogram
+            Consumer<Object> eventConsumer = event -> {
+                try {
+                    pinnedTimeHistogram.recordValue(((Duration)getDurationMethod.invoke(event)).toNanos());
+                } catch (ReflectiveOperationException ex) {
+                    Logger.getLogger(VirtualThreadPinningMonitor.class.getName()).log(Level.SEVERE, null, ex);
+                }
+            };
+            recordingStreamClass.getMethod("onEvent", String.class, Consumer.class).invoke(stream, PINNED_EVENT_NAME, eventConsumer);
+            recordingStreamClass.getMethod("startAsync").invoke(stream);
+            
+            recordingStream = stream;
+            
+            return true;
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            Logger.getLogger(VirtualThreadPinningMonitor.class.getName()).log(Level.WARNING, "The pinning of the virtual threads cannot be recorded", ex);
+            
+            return false;
+        }
+    }
+    
+    /**
+     * Stop recording, after all the recorded events have been added to the histogram.
+     */
+    public void stop()
+    {
+        if(recordingStream == null)
+            return;
+        
+        try {
+            // stop waits for the delivery of the recorded events
+            recordingStream.getClass().getMethod("stop").invoke(recordingStream);
+            recordingStream.getClass().getMethod("close").invoke(recordingStream);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            Logger.getLogger(VirtualThreadPinningMonitor.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        
+        recordingStream = null;
+    }
+
+    /**
+     *
+     * @return The times spent blocked by the pinned virtual threads (a value for each pinning event)
+     */
+    public LatencyHistogram getPinnedTimeHistogram() {
+        return pinnedTimeHistogram;
+    }
+    
+}
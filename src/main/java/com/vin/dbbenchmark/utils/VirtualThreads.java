@@ -0,0 +1,102 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Access to the virtual threads of the JDK (Java 21 or later). The application is compiled for Java 8, 
+ * so the virtual threads are created through reflection: on older JDKs {@link #isSupported() isSupported} returns false 
+ * and the callers have to use platform threads.
+ * 
+ * @author Vincenzo Micelli
+ */
+public final class VirtualThreads {
+    
+    private static final Method OF_VIRTUAL_METHOD;
+    private static final Method NAME_METHOD;
+    private static final Method FACTORY_METHOD;
+    
+    static {
+        Method ofVirtualMethod = null;
+        Method nameMethod = null;
+        Method factoryMethod = null;
+        
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ofVirtualMethod = Thread.class.getMethod("ofVirtual");
+            nameMethod = builderClass.getMethod("name", String.class, long.class);
+            factoryMethod = builderClass.getMethod("factory");
+            
+            // on Java 19 and 20 the virtual threads are a preview feature, that is available only with --enable-preview
+            ofVirtualMethod.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            ofVirtualMethod = null;
+        }
+        
+        OF_VIRTUAL_METHOD = ofVirtualMethod;
+        NAME_METHOD = nameMethod;
+        FACTORY_METHOD = factoryMethod;
+    }
+
+    private VirtualThreads() {
+    }
+    
+    /**
+     *
+     * @return true if the JDK can create virtual threads
+     */
+    public static boolean isSupported()
+    {
+        return OF_VIRTUAL_METHOD != null;
+    }
+    
+    /**
+     * Create a factory of virtual threads.
+     * 
+     * @param namePrefix The prefix of the names of the threads (followed by a counter starting from 1)
+     * @return The factory, or null if the JDK cannot create virtual threads
+     */
+    public static ThreadFactory newThreadFactory(String namePrefix)
+    {
+        if(!isSupported())
+            return null;
+        
+        try {
+            Object builder = OF_VIRTUAL_METHOD.invoke(null);
+            builder = NAME_METHOD.invoke(builder, namePrefix, 1L);
+            
+            return (ThreadFactory)FACTORY_METHOD.invoke(builder);
+        } catch (ReflectiveOperationException ex) {
+            Logger.getLogger(VirtualThreads.class.getName()).log(Level.SEVERE, null, ex);
+            
+            return null;
+        }
+    }
+    
+    /**
+     *
+     * @return The number of carrier threads that run the virtual threads (the parallelism of the default scheduler)
+     */
+    public static int getNumOfCarrierThreads()
+    {
+        return Integer.getInteger("jdk.virtualThreadScheduler.parallelism", Runtime.getRuntime().availableProcessors());
+    }
+    
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016 Vincenzo Micelli
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vin.dbbenchmark.utils;
+
+/**
+ * This key generator draws the keys with a Zipfian distribution: the probability of the key of rank i is proportional to 1/i^theta, 
+ * so a few keys get most of the accesses. The most popular key is 1, then 2 and so on.
+ * The keys are drawn with the algorithm of Gray et al. ("Quickly generating billion-record synthetic databases"), the one used by YCSB.
+ * 
+ * The algorithm needs the sum zeta(n) = 1 + 1/2^theta + ... + 1/n^theta for the number n of keys. The sum is computed at the first call 
+ * (in time proportional to n) and then updated incrementally, from the nearest number of keys already computed, when the max key changes. 
+ * The sums of the last numbers of keys are cached, since the generator is shared by testers whose max keys differ (e.g. concurrent testers 
+ * inserting records) and a tester can draw keys with more than one max key (e.g. the first keys of range scans and the keys of the reads): 
+ * alternating between numbers of keys does not recompute the sums. The cache is an immutable array replaced at every change, 
+ * so the generator is thread safe and allocates objects only when a number of keys is not in the cache.
+ * 
+ * @author Vincenzo Micelli
+ */
+public class ZipfianKeyGenerator implements KeyGenerator {
+    
+    /**
+     * The skew used by YCSB
+     */
+    public static final double DEFAULT_THETA = 0.99;
+    
+    // number of sums kept in the cache (the most recent ones)
+    private static final int ZETA_CACHE_SIZE = 16;
+    
+    private final double theta;
+    private final double alpha;
+    private final double zeta2;
+    private final double halfPowTheta;
+    
+    // the sums of the last numbers of keys, the most recent first
+    private volatile Zeta[] zetas = {new Zeta(0, 0)};
+
+    /**
+     *
+     * @param theta The skew of the distribution, greater than 0 (uniform) and less than 1
+     */
+    public ZipfianKeyGenerator(double theta) {
+        
+        if(!(theta > 0 && theta < 1))
+            throw new IllegalArgumentException("theta has to be greater than 0 and less than 1");
+        
+        this.theta = theta;
+        this.alpha = 1.0 / (1.0 - theta);
+        this.halfPowTheta = Math.pow(0.5, theta);
+        this.zeta2 = 1 + halfPowTheta;
+    }
+
+    @Override
+    public int nextKey(DataGenerator dataGenerator, int maxKey) {
+        return maxKey > 0 ? 1 + nextRank(dataGenerator, maxKey) : 0;
+    }
+    
+    /**
+     * Draw the rank of a key.
+     * 
+     * @param dataGenerator The generator of the random values
+     * @param numOfKeys The number of keys (positive)
+     * @return A rank between 0 (the most popular key) and numOfKeys - 1
+     */
+    int nextRank(DataGenerator dataGenerator, int numOfKeys) {
+        
+        Zeta currentZeta = getZeta(numOfKeys);
+        
+        double u = dataGenerator.nextDouble();
+        double uz = u * currentZeta.zetan;
+        
+        if(uz < 1.0)
+            return 0;
+        if(uz < zeta2)
+            return 1;
+        
+        int rank = (int)(numOfKeys * Math.pow(currentZeta.eta * u - currentZeta.eta + 1, alpha));
+        
+        return Math.min(rank, numOfKeys - 1);
+    }
+    
+    private Zeta getZeta(int numOfKeys) {
+        
+        Zeta[] currentZetas = zetas;
+        Zeta nearestZeta = currentZetas[0];
+        
+        for(Zeta cachedZeta : currentZetas)
+        {
+            if(cachedZeta.numOfKeys == numOfKeys)
+                return cachedZeta;
+            
+            if(Math.abs(cachedZeta.numOfKeys - numOfKeys) < Math.abs(nearestZeta.numOfKeys - numOfKeys))
+                nearestZeta = cachedZeta;
+        }
+        
+        double zetan = nearestZeta.zetan;
+        
+        // the sum is updated with the terms of the keys added to (or removed from) the nearest number of keys
+        if(numOfKeys > nearestZeta.numOfKeys)
+        {
+            for(int i = nearestZeta.numOfKeys + 1; i <= numOfKeys; i++)
+                zetan += 1 / Math.pow(i, theta);
+        }
+        else
+        {
+            for(int i = nearestZeta.numOfKeys; i > numOfKeys; i--)
+                zetan -= 1 / Math.pow(i, theta);
+        }
+        
+        Zeta newZeta = new Zeta(numOfKeys, zetan);
+        
+        // the oldest sum leaves the cache (a sum added concurrently by another thread can be lost: it is computed again when needed)
+        Zeta[] newZetas = new Zeta[Math.min(currentZetas.length + 1, ZETA_CACHE_SIZE)];
+        newZetas[0] = newZeta;
+        System.arraycopy(currentZetas, 0, newZetas, 1, newZetas.length - 1);
+        zetas = newZetas;
+        
+        return newZeta;
+    }
+
+    public double getTheta() {
+        return theta;
+    }
+
+    @Override
+    public String toString() {
+        return "zipfian (theta " + theta + ")";
+    }
+    
+    /**
+     * The values of the algorithm that depend on the number of keys
+     */
+    private class Zeta {
+        
+        private final int numOfKeys;
+        private final double zetan;
+        private final double eta;
+
+        Zeta(int numOfKeys, double zetan) {
+            this.numOfKeys = numOfKeys;
+            this.zetan = zetan;
+            this.eta = numOfKeys > 2 ? (1 - Math.pow(2.0 / numOfKeys, 1 - theta)) / (1 - zeta2 / zetan) : 0;
+        }
+    }
+    
+}
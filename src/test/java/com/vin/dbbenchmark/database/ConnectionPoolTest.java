@@ -0,0 +1,252 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.vin.dbbenchmark.database;
+
+import com.vin.dbbenchmark.test.BaseTester.State;
+import com.vin.dbbenchmark.test.ConcurrentTester;
+import com.vin.dbbenchmark.test.DbSelectTester;
+import com.vin.dbbenchmark.test.DbTester;
+import com.vin.dbbenchmark.test.RepeatedTrialsTester;
+import com.vin.dbbenchmark.test.Result;
+import com.vin.dbbenchmark.utils.VirtualThreads;
+import java.sql.Connection;
+import java.sql.SQLException;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Vin
+ */
+public class ConnectionPoolTest {
+    
+    public ConnectionPoolTest() {
+    }
+
+    /**
+     * Verifies that released connections are reused and that the pool never creates more than its max size.
+     */
+    @Test
+    public void testAcquireAndRelease() throws SQLException {
+        
+        ConnectionPool pool = new ConnectionPool(DbHelperFactory.getDbHelper(DBMSName.H2), 2);
+        
+        Connection first = pool.acquire();
+        Connection second = pool.acquire();
+        pool.release(first);
+        Connection third = pool.acquire();
+        
+        assertSame(first, third);
+        assertEquals(2, pool.getNumOfCreatedConnections());
+        assertEquals(2, pool.getMaxNumOfConnectionsInUse());
+        assertEquals(3, pool.getAcquireTimeHistogram().getTotalCount());
+        
+        pool.release(second);
+        pool.release(third);
+        pool.close();
+        
+        assertTrue(first.isClosed());
+        assertTrue(second.isClosed());
+    }
+    
+    /**
+     * Verifies that testers running concurrently share the pool and wait for a connection when all the connections are in use.
+     */
+    @Test
+    public void testConcurrentTestersShareThePool() {
+        
+        DbHelper dbHelper = DbHelperFactory.getDbHelper(DBMSName.H2);
+        dbHelper.connect();
+        dbHelper.createTable();
+        dbHelper.closeConnection();
+        
+        ConnectionPool pool = new ConnectionPool(DbHelperFactory.getDbHelper(DBMSName.H2), 2);
+        
+        ConcurrentTester tester = new ConcurrentTester(() -> {
+            // every execution holds the connection for a while, so the testers have to wait for a connection
+            DbSelectTester selectTester = new DbSelectTester(DBMSName.H2, 200, 10) {
+                @Override
+                protected void execTest(State state) {
+                    super.execTest(state);
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            selectTester.setConnectionPool(pool);
+            return selectTester;
+        }, 6);
+        
+        tester.execTests();
+        pool.close();
+        
+        assertEquals(6 * 200, tester.getAggregateTester().getHistogram().getTotalCount());
+        assertEquals(2, pool.getNumOfCreatedConnections());
+        assertEquals(2, pool.getMaxNumOfConnectionsInUse());
+        assertTrue(pool.getNumOfWaitingAcquires() > 0);
+        
+        Result result = tester.getResult();
+        assertEquals(Long.valueOf(2), result.get("pool connections created"));
+        assertTrue(result.containsKey("p99 pool acquire time"));
+        
+        // the end-to-end times include the wait for a connection
+        assertEquals(6 * 200, ((DbTester)tester.getAggregateTester()).getEndToEndHistogram().getTotalCount());
+        assertTrue(result.get("max end-to-end time (connection request to release)") >= tester.getAggregateTester().getMaxTime());
+    }
+    
+    /**
+     * Verifies that many clients on virtual threads (platform threads on JDKs without virtual threads) share a small pool. 
+     * The clients are many more than the carrier threads, so the test would hang if the clients waiting for a connection pinned their carriers.
+     */
+    @Test(timeout = 120000)
+    public void testVirtualThreadClientsShareThePool() {
+        
+        DbHelper dbHelper = DbHelperFactory.getDbHelper(DBMSName.H2);
+        dbHelper.connect();
+        dbHelper.createTable();
+        dbHelper.closeConnection();
+        
+        ConnectionPool pool = new ConnectionPool(DbHelperFactory.getDbHelper(DBMSName.H2), 2);
+        
+        ConcurrentTester tester = new ConcurrentTester(() -> {
+            DbSelectTester selectTester = new DbSelectTester(DBMSName.H2, 20, 0);
+            selectTester.setConnectionPool(pool);
+            return selectTester;
+        }, 200);
+        tester.setVirtualThreads(true);
+        
+        tester.execTests();
+        pool.close();
+        
+        assertEquals(200 * 20, tester.getAggregateTester().getHistogram().getTotalCount());
+        assertEquals(2, pool.getMaxNumOfConnectionsInUse());
+        
+        // the pinning is recorded only on virtual threads
+        assertEquals(VirtualThreads.isSupported(), tester.getPinnedTimeHistogram() != null);
+        assertEquals(VirtualThreads.isSupported(), tester.getResult().containsKey("virtual thread pinned events"));
+    }
+    
+    /**
+     * Verifies that a tester that cannot acquire a connection is aborted, instead of executing the iterations without a connection.
+     */
+    @Test(timeout = 60000)
+    public void testTesterAbortedWhenTheConnectionCannotBeAcquired() {
+        
+        DbHelper dbHelper = DbHelperFactory.getDbHelper(DBMSName.H2);
+        dbHelper.connect();
+        dbHelper.createTable();
+        dbHelper.closeConnection();
+        
+        ConnectionPool pool = new ConnectionPool(DbHelperFactory.getDbHelper(DBMSName.H2), 1);
+        
+        // the pool is closed after the warmup, so the first test iteration cannot acquire a connection
+        DbSelectTester selectTester = new DbSelectTester(DBMSName.H2, 20, 5) {
+            @Override
+            protected void beforeIterations(IterationType iterationType) {
+                super.beforeIterations(iterationType);
+                if(iterationType == IterationType.TEST_EXECUTION)
+                    pool.close();
+            }
+        };
+        selectTester.setConnectionPool(pool);
+        selectTester.execTests();
+        
+        assertTrue(selectTester.isAborted());
+        assertEquals(5, selectTester.getWarmupHistogram().getTotalCount());
+        assertEquals(0, selectTester.getHistogram().getTotalCount());
+    }
+    
+    /**
+     * Verifies that a connection whose transaction settings cannot be applied goes back to the pool.
+     */
+    @Test(timeout = 60000)
+    public void testConnectionReleasedWhenTheSettingsFail() throws SQLException {
+        
+        ConnectionPool pool = new ConnectionPool(DbHelperFactory.getDbHelper(DBMSName.H2), 1);
+        
+        // the asynchronous commits are not supported by H2
+        DbSelectTester selectTester = new DbSelectTester(DBMSName.H2, 20, 5);
+        selectTester.setConnectionPool(pool);
+        selectTester.setCommitMode(CommitMode.ASYNC);
+        selectTester.execTests();
+        
+        assertEquals(0, selectTester.getHistogram().getTotalCount());
+        
+        // the only connection of the pool is available
+        Connection connection = pool.acquire();
+        assertEquals(1, pool.getNumOfCreatedConnections());
+        assertEquals(0, pool.getNumOfWaitingAcquires());
+        
+        pool.release(connection);
+        pool.close();
+    }
+    
+    /**
+     * Verifies that every trial of a tester reports only the pool acquires of that trial, and not the cumulative ones of the previous trials.
+     */
+    @Test(timeout = 60000)
+    public void testPoolStatisticsAreResetEveryTrial() {
+        
+        DbHelper dbHelper = DbHelperFactory.getDbHelper(DBMSName.H2);
+        dbHelper.connect();
+        dbHelper.createTable();
+        dbHelper.closeConnection();
+        
+        ConnectionPool pool = new ConnectionPool(DbHelperFactory.getDbHelper(DBMSName.H2), 1);
+        
+        DbSelectTester selectTester = new DbSelectTester(DBMSName.H2, 20, 5);
+        selectTester.setConnectionPool(pool);
+        RepeatedTrialsTester tester = new RepeatedTrialsTester(selectTester, 3);
+        tester.execTests();
+        pool.close();
+        
+        // the connection of the initialization, of the warmup and of the test iterations
+        for(Result trialResult : tester.getTrialResults())
+            assertEquals(Long.valueOf(1 + 5 + 20), trialResult.get("pool acquires"));
+        
+        // the connection is created in the first trial and reused by the others
+        assertEquals(Long.valueOf(1), tester.getTrialResults().get(0).get("pool connections created"));
+        assertEquals(Long.valueOf(0), tester.getTrialResults().get(2).get("pool connections created"));
+        assertEquals(1, pool.getMaxNumOfConnectionsInUse());
+    }
+    
+    /**
+     * Verifies that a thread interrupted while waiting for a connection gives up without losing the connections released to the other waiting threads.
+     */
+    @Test(timeout = 60000)
+    public void testInterruptedAcquire() throws Exception {
+        
+        ConnectionPool pool = new ConnectionPool(DbHelperFactory.getDbHelper(DBMSName.H2), 1);
+        Connection connection = pool.acquire();
+        
+        SQLException[] error = new SQLException[1];
+        Thread waiting = new Thread(() -> {
+            try {
+                pool.acquire();
+            } catch (SQLException ex) {
+                error[0] = ex;
+            }
+        });
+        waiting.start();
+        while(pool.getNumOfWaitingAcquires() == 0)
+            Thread.sleep(1);
+        waiting.interrupt();
+        waiting.join();
+        
+        assertNotNull(error[0]);
+        
+        // the connection released goes to the next thread
+        pool.release(connection);
+        assertSame(connection, pool.acquire());
+        assertEquals(1, pool.getNumOfCreatedConnections());
+        
+        pool.release(connection);
+        pool.close();
+    }
+    
+}
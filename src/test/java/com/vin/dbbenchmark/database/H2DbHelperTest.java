@@ -0,0 +1,407 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.vin.dbbenchmark.database;
+
+import com.vin.dbbenchmark.test.ConcurrentTester;
+import com.vin.dbbenchmark.test.DbDeleteTester;
+import com.vin.dbbenchmark.test.DbInsertTester;
+import com.vin.dbbenchmark.test.DbMultiKeySelectTester;
+import com.vin.dbbenchmark.test.DbPipelinedSelectTester;
+import com.vin.dbbenchmark.test.DbRangeScanTester;
+import com.vin.dbbenchmark.test.DbSelectTester;
+import com.vin.dbbenchmark.test.DbUpdateTester;
+import com.vin.dbbenchmark.test.DbWorkloadTester;
+import com.vin.dbbenchmark.test.Result;
+import com.vin.dbbenchmark.test.TransactionMatrixTester;
+import com.vin.dbbenchmark.test.Workload;
+import com.vin.dbbenchmark.test.Workload.Operation;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Vin
+ */
+public class H2DbHelperTest {
+    
+    private DbHelper dbHelper;
+    
+    public H2DbHelperTest() {
+    }
+    
+    @Before
+    public void setUp() {
+        dbHelper = DbHelperFactory.getDbHelper(DBMSName.H2);
+        assertEquals(0, dbHelper.connect());
+        assertEquals(0, dbHelper.createTable());
+    }
+    
+    @After
+    public void tearDown() {
+        dbHelper.closeConnection();
+    }
+
+    /**
+     * Verifies that the insert and select testers can be executed on the embedded database.
+     */
+    @Test
+    public void testInsertAndSelect() {
+        
+        DbInsertTester insertTester = new DbInsertTester(DBMSName.H2, 20, 10, 5);
+        insertTester.execTests();
+        
+        assertEquals(20, insertTester.getHistogram().getTotalCount());
+        assertEquals(250, dbHelper.getMaxPrimaryKeyValue());
+        
+        // the costs per record are rounded, not truncated by an integer division
+        Result insertResult = insertTester.getResult();
+        assertEquals(Long.valueOf(Math.round(insertTester.getHistogram().getMean() / 10)), insertResult.get("avg (to insert a record)"));
+        assertEquals(Long.valueOf(Math.round(insertTester.getMinTime() / 10.0)), insertResult.get("time per record in the bacth with min time"));
+        
+        DbSelectTester selectTester = new DbSelectTester(DBMSName.H2, 100, 10);
+        selectTester.execTests();
+        
+        assertEquals(100, selectTester.getHistogram().getTotalCount());
+    }
+    
+    /**
+     * Verifies that the times of the execute, fetch and decode phases are recorded when the select results are materialized.
+     */
+    @Test
+    public void testMaterializedSelect() {
+        
+        DbInsertTester insertTester = new DbInsertTester(DBMSName.H2, 10, 10, 0);
+        insertTester.execTests();
+        
+        DbSelectTester selectTester = new DbSelectTester(DBMSName.H2, 50, 5);
+        selectTester.setMaterializeResults(true);
+        selectTester.execTests();
+        
+        assertEquals(50, selectTester.getExecuteHistogram().getTotalCount());
+        assertEquals(50, selectTester.getFetchHistogram().getTotalCount());
+        assertEquals(50, selectTester.getDecodeHistogram().getTotalCount());
+        
+        // the phases are part of the measured time
+        long phasesTime = selectTester.getExecuteHistogram().getTotalValue() + selectTester.getFetchHistogram().getTotalValue() + selectTester.getDecodeHistogram().getTotalValue();
+        assertTrue(phasesTime <= selectTester.getHistogram().getTotalValue());
+        assertTrue(selectTester.getResult().containsKey("avg (decode)"));
+    }
+    
+    /**
+     * Verifies that the insert strategies supported by the embedded database insert all the records of the batches.
+     */
+    @Test
+    public void testInsertStrategies() {
+        
+        DbInsertTester multiRowTester = new DbInsertTester(DBMSName.H2, 20, 25, InsertStrategy.MULTI_ROW_VALUES, 10, 5);
+        multiRowTester.execTests();
+        
+        assertEquals(20, multiRowTester.getHistogram().getTotalCount());
+        assertEquals(25 * 25, dbHelper.getMaxPrimaryKeyValue());
+        
+        DbInsertTester unnestTester = new DbInsertTester(DBMSName.H2, 20, 25, InsertStrategy.UNNEST_ARRAYS, 1, 5);
+        unnestTester.execTests();
+        
+        assertEquals(20, unnestTester.getHistogram().getTotalCount());
+        assertEquals(2 * 25 * 25, dbHelper.getMaxPrimaryKeyValue());
+        
+        DbInsertTester rewriteTester = new DbInsertTester(DBMSName.H2, 20, 25, InsertStrategy.REWRITE_BATCHED_INSERTS, 1, 5);
+        rewriteTester.execTests();
+        
+        // not supported: the tester is not executed
+        assertEquals(0, rewriteTester.getHistogram().getTotalCount());
+    }
+    
+    /**
+     * Verifies that every multi-key select mode reads the records of all the selected keys.
+     */
+    @Test
+    public void testMultiKeySelectModes() {
+        
+        DbInsertTester insertTester = new DbInsertTester(DBMSName.H2, 10, 10, 0);
+        insertTester.execTests();
+        
+        for(MultiKeySelectMode mode : MultiKeySelectMode.values())
+        {
+            DbMultiKeySelectTester selectTester = new DbMultiKeySelectTester(DBMSName.H2, 20, 8, mode, 5);
+            selectTester.execTests();
+            
+            // all the keys from 1 to the max key exist (a key selected twice by the IN list is read once)
+            assertEquals(20, selectTester.getHistogram().getTotalCount());
+            assertTrue(selectTester.getSelectedRecords() > 0);
+            assertTrue(selectTester.getSelectedRecords() <= 20 * 8);
+        }
+    }
+    
+    /**
+     * Verifies that the range scans read all the records of the ranges, in both cursor modes.
+     */
+    @Test
+    public void testRangeScans() {
+        
+        DbInsertTester insertTester = new DbInsertTester(DBMSName.H2, 10, 10, 0);
+        insertTester.execTests();
+        
+        for(ScanCursorMode mode : ScanCursorMode.values())
+        {
+            DbRangeScanTester scanTester = new DbRangeScanTester(DBMSName.H2, 20, 30, mode, 7, 5);
+            scanTester.execTests();
+            
+            assertEquals(20, scanTester.getHistogram().getTotalCount());
+            assertEquals(20 * 30, scanTester.getScannedRows());
+            assertEquals(20, scanTester.getFirstRowHistogram().getTotalCount());
+        }
+    }
+    
+    /**
+     * Verifies that a workload with all the operations can be executed on the embedded database and that every operation is recorded.
+     */
+    @Test
+    public void testWorkload() {
+        
+        DbInsertTester insertTester = new DbInsertTester(DBMSName.H2, 10, 10, 0);
+        insertTester.execTests();
+        
+        Workload workload = Workload.parse("READ:30,UPDATE:20,INSERT:10,SCAN:10,READ_MODIFY_WRITE:20,DELETE:10");
+        DbWorkloadTester workloadTester = new DbWorkloadTester(DBMSName.H2, 500, workload, 3, 10, 10);
+        workloadTester.execTests();
+        
+        assertEquals(500, workloadTester.getHistogram().getTotalCount());
+        
+        long numOfOperations = 0;
+        for(Operation operation : Operation.values())
+        {
+            assertTrue(workloadTester.getOperationHistogram(operation).getTotalCount() > 0);
+            assertEquals(0, workloadTester.getFailedOperations(operation));
+            numOfOperations += workloadTester.getOperationHistogram(operation).getTotalCount();
+        }
+        assertEquals(500, numOfOperations);
+        
+        // the inserted records are committed
+        assertTrue(dbHelper.getMaxPrimaryKeyValue() > 100);
+    }
+    
+    /**
+     * Verifies that the failed inserts of a workload are counted as failed operations, and that their records are not added to the key space.
+     */
+    @Test
+    public void testWorkloadFailedInserts() {
+        
+        AtomicInteger maxPrimaryKeyValue = new AtomicInteger();
+        
+        DbWorkloadTester workloadTester = new DbWorkloadTester(DBMSName.H2, 20, Workload.parse("INSERT:100"), 5, 10, 5) {
+            @Override
+            protected void beforeIterations(IterationType iterationType) {
+                super.beforeIterations(iterationType);
+                
+                // the inserts of the test iterations fail
+                if(iterationType == IterationType.TEST_EXECUTION)
+                {
+                    try (Statement statement = H2DbHelperTest.this.dbHelper.getConnection().createStatement()) {
+                        statement.execute("DROP TABLE " + DbHelper.TABLE_NAME);
+                    } catch (SQLException ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                }
+            }
+        };
+        workloadTester.setMaxPrimaryKeyValue(maxPrimaryKeyValue);
+        workloadTester.execTests();
+        
+        assertEquals(20, workloadTester.getFailedOperations(Operation.INSERT));
+        assertEquals(Long.valueOf(20), workloadTester.getResult().get("INSERT failed operations"));
+        
+        // only the records of the warmup inserts are in the key space
+        assertEquals(5 * 5, maxPrimaryKeyValue.get());
+    }
+    
+    /**
+     * Verifies that the threads of a workload that share the max primary key add the records inserted by every thread to the key space.
+     */
+    @Test
+    public void testConcurrentWorkloadSharesTheMaxPrimaryKey() {
+        
+        DbInsertTester insertTester = new DbInsertTester(DBMSName.H2, 10, 10, 0);
+        insertTester.execTests();
+        
+        AtomicInteger maxPrimaryKeyValue = new AtomicInteger();
+        
+        ConcurrentTester tester = new ConcurrentTester(() -> {
+            DbWorkloadTester workloadTester = new DbWorkloadTester(DBMSName.H2, 30, Workload.parse("INSERT:50,READ:50"), 2, 10, 10);
+            workloadTester.setMaxPrimaryKeyValue(maxPrimaryKeyValue);
+            return workloadTester;
+        }, 3);
+        tester.execTests();
+        
+        assertEquals(dbHelper.getMaxPrimaryKeyValue(), maxPrimaryKeyValue.get());
+        assertTrue(maxPrimaryKeyValue.get() > 100);
+    }
+    
+    @Test
+    public void testPipelinedSelect() {
+        
+        DbInsertTester insertTester = new DbInsertTester(DBMSName.H2, 10, 10, 0);
+        insertTester.execTests();
+        
+        // H2 executes the selects one after the other
+        assertFalse(dbHelper.supportsPipelinedSelect());
+        
+        DbPipelinedSelectTester pipelinedSelectTester = new DbPipelinedSelectTester(DBMSName.H2, 20, 4, 5);
+        pipelinedSelectTester.execTests();
+        
+        assertEquals(20, pipelinedSelectTester.getHistogram().getTotalCount());
+        assertEquals(20 * 4, pipelinedSelectTester.getSelectedRecords());
+        assertNotNull(pipelinedSelectTester.getResult().get(DbPipelinedSelectTester.THROUGHPUT_SELECTS_KEY));
+    }
+    
+    @Test
+    public void testTransactionMatrix() {
+        
+        assertFalse(dbHelper.supportsIsolationLevel(IsolationLevel.SNAPSHOT));
+        assertFalse(dbHelper.supportsCommitMode(CommitMode.ASYNC));
+        
+        List<IsolationLevel> isolationLevels = Arrays.asList(IsolationLevel.READ_COMMITTED, IsolationLevel.SERIALIZABLE);
+        List<CommitMode> commitModes = Arrays.asList(CommitMode.AUTOCOMMIT, CommitMode.EXPLICIT);
+        
+        TransactionMatrixTester insertMatrixTester = new TransactionMatrixTester(isolationLevels, commitModes, (isolationLevel, commitMode) -> {
+            DbInsertTester insertTester = new DbInsertTester(DBMSName.H2, 10, 10, 0);
+            insertTester.setIsolationLevel(isolationLevel);
+            insertTester.setCommitMode(commitMode);
+            return insertTester;
+        }, DbInsertTester.THROUGHPUT_RECORDS_KEY, " (to insert a batch of records)");
+        insertMatrixTester.execTests();
+        
+        // the records are committed with every commit mode
+        assertEquals(4 * 10 * 10, dbHelper.getMaxPrimaryKeyValue());
+        
+        TransactionMatrixTester selectMatrixTester = new TransactionMatrixTester(isolationLevels, commitModes, (isolationLevel, commitMode) -> {
+            DbSelectTester selectTester = new DbSelectTester(DBMSName.H2, 50, 0);
+            selectTester.setIsolationLevel(isolationLevel);
+            selectTester.setCommitMode(commitMode);
+            return selectTester;
+        }, "throughput", "");
+        selectMatrixTester.execTests();
+        
+        for(IsolationLevel isolationLevel : isolationLevels)
+        {
+            for(CommitMode commitMode : commitModes)
+            {
+                assertNotNull(insertMatrixTester.getCellResult(isolationLevel, commitMode).get(DbInsertTester.THROUGHPUT_RECORDS_KEY));
+                assertNotNull(selectMatrixTester.getCellResult(isolationLevel, commitMode).get("p99"));
+            }
+        }
+        assertNull(selectMatrixTester.getCellResult(IsolationLevel.REPEATABLE_READ, CommitMode.EXPLICIT));
+        
+        Result result = selectMatrixTester.getResult();
+        assertNotNull(result.get("throughput (SERIALIZABLE, EXPLICIT)"));
+        assertNotNull(result.get("p99.9 (READ_COMMITTED, AUTOCOMMIT)"));
+        
+        // the matrices of different tests have different names
+        assertEquals("Isolation Level and Commit Mode Matrix (Insert Statements)", insertMatrixTester.getTestName());
+        assertEquals("Isolation Level and Commit Mode Matrix (Select Statements by PK)", selectMatrixTester.getTestName());
+    }
+    
+    @Test
+    public void testUpdateLockingModes() {
+        
+        DbInsertTester insertTester = new DbInsertTester(DBMSName.H2, 10, 10, 0);
+        insertTester.execTests();
+        
+        for(LockingMode lockingMode : LockingMode.values())
+        {
+            DbUpdateTester updateTester = new DbUpdateTester(DBMSName.H2, 50, 3, lockingMode, 5);
+            updateTester.execTests();
+            
+            assertEquals(50, updateTester.getHistogram().getTotalCount());
+            assertEquals(50 * 3, updateTester.getWrittenRecords());
+            assertEquals(0, updateTester.getFailedTransactions());
+            assertEquals(lockingMode == LockingMode.PESSIMISTIC ? 50 * 3 : 0, updateTester.getLockHistogram().getTotalCount());
+        }
+    }
+    
+    @Test
+    public void testDelete() {
+        
+        DbInsertTester insertTester = new DbInsertTester(DBMSName.H2, 10, 10, 0);
+        insertTester.execTests();
+        
+        DbDeleteTester deleteTester = new DbDeleteTester(DBMSName.H2, 20, 2, 0);
+        deleteTester.execTests();
+        
+        assertEquals(20, deleteTester.getHistogram().getTotalCount());
+        assertEquals(0, deleteTester.getFailedTransactions());
+        assertEquals(20 * 2, deleteTester.getWrittenRecords() + deleteTester.getNotFoundRecords());
+        assertTrue(deleteTester.getWrittenRecords() > 0);
+    }
+    
+    /**
+     * Verifies that the records are committed also when the commits are decoupled from the batches.
+     */
+    @Test
+    public void testRowsPerCommit() {
+        
+        final long[] committedRecords = new long[1];
+        
+        DbInsertTester insertTester = new DbInsertTester(DBMSName.H2, 20, 10, 5) {
+            @Override
+            protected void finish() {
+                // read through the connection of the test, which sees only the committed records
+                committedRecords[0] = H2DbHelperTest.this.dbHelper.getMaxPrimaryKeyValue();
+                super.finish();
+            }
+        };
+        insertTester.setRowsPerCommit(30);
+        insertTester.execTests();
+        
+        // the records of the last (incomplete) transaction are committed at the end of the iterations, before the tester finishes
+        assertEquals(25 * 10, committedRecords[0]);
+        assertEquals(25 * 10, dbHelper.getMaxPrimaryKeyValue());
+    }
+    
+    /**
+     * Verifies that the commits cannot be decoupled from the batches when the connections are acquired from a pool for every batch.
+     */
+    @Test
+    public void testRowsPerCommitWithConnectionPool() {
+        
+        ConnectionPool pool = new ConnectionPool(DbHelperFactory.getDbHelper(DBMSName.H2), 1);
+        
+        DbInsertTester insertTester = new DbInsertTester(DBMSName.H2, 20, 10, 5);
+        insertTester.setConnectionPool(pool);
+        insertTester.setRowsPerCommit(30);
+        insertTester.execTests();
+        pool.close();
+        
+        assertEquals(0, insertTester.getHistogram().getTotalCount());
+        assertEquals(0, dbHelper.getMaxPrimaryKeyValue());
+    }
+    
+    /**
+     * Verifies that concurrent insert testers (each one with its own connection) can be executed on the embedded database.
+     */
+    @Test
+    public void testConcurrentInserts() {
+        
+        ConcurrentTester insertTester = new ConcurrentTester(() -> new DbInsertTester(DBMSName.H2, 20, 10, 5), 4);
+        insertTester.execTests();
+        
+        assertEquals(4 * 20, insertTester.getAggregateTester().getHistogram().getTotalCount());
+        assertEquals(4 * 25 * 10, dbHelper.getMaxPrimaryKeyValue());
+        
+        ConcurrentTester selectTester = new ConcurrentTester(() -> new DbSelectTester(DBMSName.H2, 50, 10), 4);
+        selectTester.execTests();
+        
+        assertEquals(4 * 50, selectTester.getAggregateTester().getHistogram().getTotalCount());
+    }
+    
+}
@@ -0,0 +1,210 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.vin.dbbenchmark.database;
+
+import com.vin.dbbenchmark.database.DbHelper.DbEntry;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Arrays;
+import org.postgresql.copy.CopyIn;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Vin
+ */
+public class PostgreSqlCopyWriterTest {
+    
+    public PostgreSqlCopyWriterTest() {
+    }
+
+    /**
+     * Verifies the text encoding of the rows (escaped strings, plain decimals and ISO dates).
+     */
+    @Test
+    public void testTextFormat() throws SQLException {
+        
+        ByteArrayCopyIn copyIn = new ByteArrayCopyIn();
+        PostgreSqlCopyWriter writer = new PostgreSqlCopyWriter(PostgreSqlDbHelper.CopyFormat.TEXT);
+        
+        writer.start(copyIn);
+        writer.writeRow(makeEntry("a\tb\\cè", -42, new BigDecimal("-1234.05"), "2016-05-04 10:20:30"));
+        writer.writeRow(makeEntry("x", 7, new BigDecimal("0.50"), "2016-05-05 00:00:00"));
+        writer.finish();
+        
+        String expected = "a\\tb\\\\cè\t-42\t-1234.05\t2016-05-04\n" + 
+                          "x\t7\t0.50\t2016-05-05\n";
+        
+        assertEquals(expected, new String(copyIn.getBytes(), StandardCharsets.UTF_8));
+        assertEquals(copyIn.getBytes().length, writer.getBytesWritten());
+        assertEquals(2, writer.getRowsWritten());
+    }
+    
+    /**
+     * Verifies the binary encoding of the rows (header, tuples with the numeric and date formats of PostgreSQL and trailer).
+     */
+    @Test
+    public void testBinaryFormat() throws SQLException, IOException {
+        
+        ByteArrayCopyIn copyIn = new ByteArrayCopyIn();
+        PostgreSqlCopyWriter writer = new PostgreSqlCopyWriter(PostgreSqlDbHelper.CopyFormat.BINARY);
+        
+        writer.start(copyIn);
+        writer.writeRow(makeEntry("ab", 5, new BigDecimal("1234.50"), "2016-05-04 10:20:30"));
+        writer.writeRow(makeEntry("c", -1, new BigDecimal("-0.05"), "2016-05-04 23:59:59"));
+        writer.writeRow(makeEntry("d", 0, new BigDecimal("1.000000000000000001"), "2016-05-04 00:00:00"));
+        writer.finish();
+        
+        int pgDate = (int)(LocalDate.of(2016, 5, 4).toEpochDay() - LocalDate.of(2000, 1, 1).toEpochDay());
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream expected = new DataOutputStream(bytes);
+        expected.write(new byte[]{'P','G','C','O','P','Y','\n',(byte)0xFF,'\r','\n',0});
+        expected.writeInt(0);
+        expected.writeInt(0);
+        
+        expected.writeShort(4);
+        expected.writeInt(2); expected.write(new byte[]{'a','b'});
+        expected.writeInt(4); expected.writeInt(5);
+        expected.writeInt(12); expected.writeShort(2); expected.writeShort(0); expected.writeShort(0); expected.writeShort(2); 
+        expected.writeShort(1234); expected.writeShort(5000);
+        expected.writeInt(4); expected.writeInt(pgDate);
+        
+        expected.writeShort(4);
+        expected.writeInt(1); expected.write('c');
+        expected.writeInt(4); expected.writeInt(-1);
+        expected.writeInt(10); expected.writeShort(1); expected.writeShort(-1); expected.writeShort(0x4000); expected.writeShort(2); 
+        expected.writeShort(500);
+        expected.writeInt(4); expected.writeInt(pgDate);
+        
+        expected.writeShort(4);
+        expected.writeInt(1); expected.write('d');
+        expected.writeInt(4); expected.writeInt(0);
+        expected.writeInt(20); expected.writeShort(6); expected.writeShort(0); expected.writeShort(0); expected.writeShort(18); 
+        expected.writeShort(1); expected.writeShort(0); expected.writeShort(0); expected.writeShort(0); expected.writeShort(0); expected.writeShort(100);
+        expected.writeInt(4); expected.writeInt(pgDate);
+        
+        expected.writeShort(-1);
+        
+        assertArrayEquals(bytes.toByteArray(), copyIn.getBytes());
+    }
+    
+    /**
+     * Verifies that rows larger than the buffer are streamed in more chunks without changing the data and that the writer can be reused.
+     */
+    @Test
+    public void testStreaming() throws SQLException {
+        
+        char[] chars = new char[1000];
+        Arrays.fill(chars, '€');
+        DbEntry entry = makeEntry(new String(chars), 123456, new BigDecimal("99999.99"), "2016-05-04 10:20:30");
+        
+        for(PostgreSqlDbHelper.CopyFormat format : PostgreSqlDbHelper.CopyFormat.values())
+        {
+            ByteArrayCopyIn largeBufferCopyIn = new ByteArrayCopyIn();
+            PostgreSqlCopyWriter largeBufferWriter = new PostgreSqlCopyWriter(format);
+            largeBufferWriter.start(largeBufferCopyIn);
+            for(int i = 0; i < 100; i++)
+                largeBufferWriter.writeRow(entry);
+            largeBufferWriter.finish();
+            
+            PostgreSqlCopyWriter smallBufferWriter = new PostgreSqlCopyWriter(format, 256);
+            for(int copy = 0; copy < 2; copy++)
+            {
+                ByteArrayCopyIn smallBufferCopyIn = new ByteArrayCopyIn();
+                smallBufferWriter.start(smallBufferCopyIn);
+                for(int i = 0; i < 100; i++)
+                    smallBufferWriter.writeRow(entry);
+                smallBufferWriter.finish();
+
+                assertTrue(smallBufferCopyIn.getNumOfWrites() > 100);
+                assertArrayEquals(largeBufferCopyIn.getBytes(), smallBufferCopyIn.getBytes());
+                assertEquals(largeBufferWriter.getBytesWritten(), smallBufferWriter.getBytesWritten());
+                assertEquals(100, smallBufferWriter.getRowsWritten());
+            }
+        }
+    }
+    
+    private static DbEntry makeEntry(String varcharValue, int intValue, BigDecimal decimalValue, String timestamp)
+    {
+        DbEntry entry = new DbEntry();
+        entry.setVarcharField(varcharValue);
+        entry.setIntField(intValue);
+        entry.setDecimalField(decimalValue);
+        entry.setDateField(Timestamp.valueOf(timestamp));
+        
+        return entry;
+    }
+    
+    /**
+     * A COPY operation that collects the data sent by the writer.
+     */
+    private static class ByteArrayCopyIn implements CopyIn {
+        
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        private int numOfWrites;
+
+        @Override
+        public void writeToCopy(byte[] buf, int off, int siz) throws SQLException {
+            data.write(buf, off, siz);
+            numOfWrites++;
+        }
+
+        @Override
+        public void flushCopy() throws SQLException {
+        }
+
+        @Override
+        public long endCopy() throws SQLException {
+            return 0;
+        }
+
+        @Override
+        public int getFieldCount() {
+            return 4;
+        }
+
+        @Override
+        public int getFormat() {
+            return 0;
+        }
+
+        @Override
+        public int getFieldFormat(int field) {
+            return 0;
+        }
+
+        @Override
+        public boolean isActive() {
+            return true;
+        }
+
+        @Override
+        public void cancelCopy() throws SQLException {
+        }
+
+        @Override
+        public long getHandledRowCount() {
+            return 0;
+        }
+        
+        public byte[] getBytes() {
+            return data.toByteArray();
+        }
+
+        public int getNumOfWrites() {
+            return numOfWrites;
+        }
+    }
+    
+}
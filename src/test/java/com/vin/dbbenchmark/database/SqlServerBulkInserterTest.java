@@ -0,0 +1,105 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.vin.dbbenchmark.database;
+
+import com.vin.dbbenchmark.database.DbHelper.DbEntry;
+import com.vin.dbbenchmark.test.ConcurrentTester;
+import com.vin.dbbenchmark.test.DbBulkInsertTester;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Vin
+ */
+public class SqlServerBulkInserterTest {
+    
+    private DbHelper dbHelper;
+    
+    public SqlServerBulkInserterTest() {
+    }
+    
+    @Before
+    public void setUp() {
+        dbHelper = DbHelperFactory.getDbHelper(DBMSName.H2);
+        assertEquals(0, dbHelper.connect());
+        assertEquals(0, dbHelper.createTable());
+    }
+    
+    @After
+    public void tearDown() {
+        dbHelper.closeConnection();
+    }
+
+    /**
+     * Verifies that multi-row INSERT statements insert all the rows, also when the last batch is smaller than the others 
+     * (the multi-row VALUES clause is standard SQL, so it is verified on the embedded database).
+     */
+    @Test
+    public void testMultiRowValues() throws SQLException {
+        
+        List<DbEntry> rows = new ArrayList<>();
+        for(int i = 0; i < 1234; i++)
+        {
+            DbEntry entry = new DbEntry();
+            entry.setVarcharField("row" + i);
+            entry.setIntField(i);
+            entry.setDecimalField(new BigDecimal("12.34"));
+            entry.setDateField(new Timestamp(System.currentTimeMillis()));
+            rows.add(entry);
+        }
+        
+        SqlServerBulkInserter bulkInserter = new SqlServerBulkInserter(dbHelper.getConnection(), SqlServerBulkInserter.Mode.MULTI_ROW_VALUES, 1000);
+        assertEquals(SqlServerBulkInserter.MAX_ROWS_PER_VALUES_STATEMENT, bulkInserter.getBatchSize());
+        
+        assertEquals(1234, bulkInserter.insert(rows.iterator(), 1234));
+        assertEquals(1234, dbHelper.getMaxPrimaryKeyValue());
+        
+        bulkInserter.close();
+    }
+    
+    /**
+     * Verifies that the bulk copy mode is rejected when the driver does not provide the bulk copy API.
+     */
+    @Test
+    public void testBulkCopyNotSupported() {
+        
+        if(SqlServerBulkInserter.isBulkCopySupported())
+            return;
+        
+        try {
+            new SqlServerBulkInserter(dbHelper.getConnection(), SqlServerBulkInserter.Mode.BULK_COPY, 1000);
+            fail("SQLException expected");
+        } catch (SQLException ex) {
+            assertTrue(ex.getMessage().contains("not supported"));
+        }
+    }
+    
+    /**
+     * Verifies that concurrent bulk insert testers count all the inserted rows.
+     */
+    @Test
+    public void testBulkInsertTester() {
+        
+        ConcurrentTester tester = new ConcurrentTester(() -> new DbBulkInsertTester(DBMSName.H2, 10, 120, 50, SqlServerBulkInserter.Mode.MULTI_ROW_VALUES, 2), 2);
+        tester.execTests();
+        
+        DbBulkInsertTester aggregateTester = (DbBulkInsertTester)tester.getAggregateTester();
+        
+        assertEquals(2 * 10, aggregateTester.getHistogram().getTotalCount());
+        assertEquals(2 * 10 * 120, aggregateTester.getInsertedRows());
+        assertEquals(2 * 12 * 120, dbHelper.getMaxPrimaryKeyValue());
+        assertTrue(tester.getResult().containsKey("throughput (rows)"));
+    }
+    
+}
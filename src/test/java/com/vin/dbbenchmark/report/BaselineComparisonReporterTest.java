@@ -0,0 +1,296 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.vin.dbbenchmark.report;
+
+import com.vin.dbbenchmark.report.BaselineComparisonReporter.Comparison;
+import com.vin.dbbenchmark.report.BaselineComparisonReporter.Verdict;
+import com.vin.dbbenchmark.test.RepeatedTrialsTester;
+import com.vin.dbbenchmark.test.Result;
+import com.vin.dbbenchmark.test.Tester;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Vin
+ */
+public class BaselineComparisonReporterTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    public BaselineComparisonReporterTest() {
+    }
+
+    /**
+     * Verifies that a baseline written by the CSV reporter is loaded with all the samples of the metrics.
+     */
+    @Test
+    public void testLoadCsvBaseline() throws IOException {
+        
+        File file = folder.newFile("baseline.csv");
+        
+        CsvResultReporter csvReporter = new CsvResultReporter(file.getPath(), false);
+        csvReporter.startRun(Collections.singletonMap("dbms", "H2"));
+        csvReporter.reportTester(new FixedTester("Select, by PK", 1000, 50000), 0, 0);
+        csvReporter.reportTester(new FixedTester("Select, by PK", 1100, 52000), 0, 0);
+        csvReporter.endRun();
+        
+        BaselineResults baseline = BaselineResults.load(file.getPath());
+        
+        assertEquals("H2", baseline.getMetadata().get("dbms"));
+        assertEquals(Arrays.asList("Select, by PK", "Select, by PK #2"), baseline.getTesterNames());
+        assertArrayEquals(new double[]{1000}, baseline.getValues("Select, by PK", "throughput"), 0);
+        assertArrayEquals(new double[]{1100}, baseline.getValues("Select, by PK #2", "throughput"), 0);
+        assertEquals(Result.OPERATIONS_PER_SECOND, baseline.getUnit("Select, by PK", "throughput"));
+        assertEquals(Result.NANOSECONDS_PER_OPERATION, baseline.getUnit("Select, by PK", "p99"));
+        assertNull(baseline.getValues("Select, by PK", "missing"));
+    }
+    
+    /**
+     * Verifies that the samples of a tester executed in repeated trials are the values of the trials, not their mean.
+     */
+    @Test
+    public void testLoadRepeatedTrialsBaseline() throws IOException {
+        
+        File file = folder.newFile("trials.csv");
+        
+        RepeatedTrialsTester repeatedTester = new RepeatedTrialsTester(new FixedTester("Insert", 1000, 50000), 3);
+        repeatedTester.execTests();
+        
+        CsvResultReporter csvReporter = new CsvResultReporter(file.getPath(), false);
+        csvReporter.startRun(Collections.emptyMap());
+        csvReporter.reportTester(repeatedTester, 0, 0);
+        csvReporter.endRun();
+        
+        BaselineResults baseline = BaselineResults.load(file.getPath());
+        
+        assertArrayEquals(new double[]{1000, 1000, 1000}, baseline.getValues("Insert", "throughput"), 0);
+        assertNull(baseline.getValues("Insert", "throughput stddev"));
+        
+        BaselineComparisonReporter reporter = compare(baseline, repeatedTester);
+        
+        assertEquals(0, getComparison(reporter, "Insert", "throughput").getChangeHalfWidth(), 0);
+        assertEquals(Verdict.OK, getComparison(reporter, "Insert", "throughput").getVerdict());
+    }
+    
+    /**
+     * Verifies that the testers with the same name are compared with the testers of the baseline in the same position, 
+     * instead of being merged.
+     */
+    @Test
+    public void testSameNameTestersAreNotMerged() throws IOException {
+        
+        File file = folder.newFile("same-name.csv");
+        
+        CsvResultReporter csvReporter = new CsvResultReporter(file.getPath(), false);
+        csvReporter.startRun(Collections.emptyMap());
+        csvReporter.reportTester(new FixedTester("Insert", 1000, 50000), 0, 0);
+        csvReporter.reportTester(new FixedTester("Insert", 100000, 500), 0, 0);
+        csvReporter.endRun();
+        
+        BaselineResults baseline = BaselineResults.load(file.getPath());
+        
+        BaselineComparisonReporter reporter = compare(baseline, new FixedTester("Insert", 1000, 50000), new FixedTester("Insert", 80000, 500));
+        
+        assertEquals(4, reporter.getComparisons().size());
+        assertEquals(Verdict.OK, getComparison(reporter, "Insert", "throughput").getVerdict());
+        assertEquals(0, getComparison(reporter, "Insert", "throughput").getChange(), 0);
+        assertEquals(Verdict.REGRESSION, getComparison(reporter, "Insert #2", "throughput").getVerdict());
+        assertEquals(-20, getComparison(reporter, "Insert #2", "throughput").getChange(), 0.001);
+        assertEquals(Verdict.OK, getComparison(reporter, "Insert #2", "p99").getVerdict());
+    }
+    
+    /**
+     * Verifies that a file without the header of the CSV result files is rejected.
+     */
+    @Test(expected = IOException.class)
+    public void testLoadInvalidBaseline() throws IOException {
+        
+        File file = folder.newFile("invalid.csv");
+        
+        BaselineResults.load(file.getPath());
+    }
+    
+    /**
+     * Verifies the verdicts with single samples: a lower throughput or a higher time beyond the threshold is a regression.
+     */
+    @Test
+    public void testSingleSampleComparison() {
+        
+        BaselineResults baseline = new BaselineResults();
+        addSample(baseline, "Insert", 1000, 50000);
+        addSample(baseline, "Select", 1000, 50000);
+        
+        BaselineComparisonReporter reporter = compare(baseline, 
+                                                      new FixedTester("Insert", 900, 51000), 
+                                                      new FixedTester("Select", 1200, 40000), 
+                                                      new FixedTester("Delete", 1000, 50000));
+        
+        assertEquals(Verdict.REGRESSION, getComparison(reporter, "Insert", "throughput").getVerdict());
+        assertEquals(-10, getComparison(reporter, "Insert", "throughput").getChange(), 0.001);
+        assertEquals(Verdict.OK, getComparison(reporter, "Insert", "p99").getVerdict());
+        assertEquals(Verdict.IMPROVED, getComparison(reporter, "Select", "throughput").getVerdict());
+        assertEquals(Verdict.IMPROVED, getComparison(reporter, "Select", "p99").getVerdict());
+        assertEquals(Verdict.NOT_IN_BASELINE, getComparison(reporter, "Delete", "throughput").getVerdict());
+        assertNull(getComparison(reporter, "Insert", "avg"));
+        assertEquals(BaselineComparisonReporter.REGRESSION_STATUS, reporter.getStatus());
+        assertTrue(reporter.getReport().contains("PERFORMANCE REGRESSION DETECTED"));
+    }
+    
+    /**
+     * Verifies that with repeated samples a change beyond the threshold is not a regression if it is within the noise.
+     */
+    @Test
+    public void testRepeatedSamplesComparison() {
+        
+        BaselineResults baseline = new BaselineResults();
+        addSample(baseline, "Noisy", 1000, 50000);
+        addSample(baseline, "Noisy", 1300, 50000);
+        addSample(baseline, "Noisy", 700, 50000);
+        addSample(baseline, "Stable", 1000, 50000);
+        addSample(baseline, "Stable", 1010, 50000);
+        addSample(baseline, "Stable", 990, 50000);
+        
+        RepeatedTrialsTester noisyTester = new RepeatedTrialsTester(new TrialsTester("Noisy", 850, 950), 2);
+        RepeatedTrialsTester stableTester = new RepeatedTrialsTester(new TrialsTester("Stable", 850, 860), 2);
+        noisyTester.execTests();
+        stableTester.execTests();
+        
+        BaselineComparisonReporter reporter = compare(baseline, noisyTester, stableTester);
+        
+        Comparison noisy = getComparison(reporter, "Noisy", "throughput");
+        Comparison stable = getComparison(reporter, "Stable", "throughput");
+        
+        assertEquals(-10, noisy.getChange(), 0.001);
+        assertFalse(Double.isNaN(noisy.getChangeHalfWidth()));
+        assertEquals(Verdict.OK, noisy.getVerdict());
+        assertEquals(Verdict.REGRESSION, stable.getVerdict());
+        assertEquals(Verdict.OK, getComparison(reporter, "Stable", "p99").getVerdict());
+    }
+    
+    /**
+     * Verifies that the run does not fail when no metric regressed.
+     */
+    @Test
+    public void testNoRegression() {
+        
+        BaselineResults baseline = new BaselineResults();
+        addSample(baseline, "Insert", 1000, 50000);
+        
+        BaselineComparisonReporter reporter = compare(baseline, new FixedTester("Insert", 980, 51000));
+        
+        assertEquals(0, reporter.getStatus());
+        assertFalse(reporter.getReport().contains("PERFORMANCE REGRESSION DETECTED"));
+    }
+    
+    private static void addSample(BaselineResults baseline, String testerName, long throughput, long p99)
+    {
+        baseline.add(testerName, "throughput", throughput, Result.OPERATIONS_PER_SECOND);
+        baseline.add(testerName, "p99", p99, Result.NANOSECONDS_PER_OPERATION);
+    }
+    
+    private static BaselineComparisonReporter compare(BaselineResults baseline, Tester... testers)
+    {
+        BaselineComparisonReporter reporter = new BaselineComparisonReporter(baseline, "baseline", 5, Arrays.asList("throughput", "p99"));
+        
+        reporter.startRun(Collections.emptyMap());
+        for(Tester tester : testers)
+            reporter.reportTester(tester, 0, 0);
+        reporter.endRun();
+        
+        return reporter;
+    }
+    
+    private static Comparison getComparison(BaselineComparisonReporter reporter, String testerName, String key)
+    {
+        List<Comparison> comparisons = reporter.getComparisons();
+        
+        for(Comparison comparison : comparisons)
+        {
+            if(comparison.getTesterName().equals(testerName) && comparison.getKey().equals(key))
+                return comparison;
+        }
+        
+        return null;
+    }
+    
+    private static class FixedTester implements Tester {
+        
+        private final String name;
+        private final Result result = new Result();
+
+        public FixedTester(String name, long throughput, long p99) {
+            this.name = name;
+            result.put("avg", p99 / 2);
+            result.put("p99", p99);
+            result.put("throughput", throughput, Result.OPERATIONS_PER_SECOND);
+        }
+
+        @Override
+        public void execTests() {
+        }
+
+        @Override
+        public Result getResult() {
+            return result;
+        }
+
+        @Override
+        public String getTestInfo() {
+            return "";
+        }
+
+        @Override
+        public String getTestName() {
+            return name;
+        }
+    }
+    
+    /**
+     * A tester whose throughput is a different value at every execution (and whose p99 is always 50000).
+     */
+    private static class TrialsTester implements Tester {
+        
+        private final String name;
+        private final long[] throughputs;
+        private int executions;
+        private Tester execution;
+
+        public TrialsTester(String name, long... throughputs) {
+            this.name = name;
+            this.throughputs = throughputs;
+        }
+
+        @Override
+        public void execTests() {
+            execution = new FixedTester(name, throughputs[executions++ % throughputs.length], 50000);
+        }
+
+        @Override
+        public Result getResult() {
+            return execution.getResult();
+        }
+
+        @Override
+        public String getTestInfo() {
+            return "";
+        }
+
+        @Override
+        public String getTestName() {
+            return name;
+        }
+    }
+    
+}
@@ -0,0 +1,168 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.vin.dbbenchmark.report;
+
+import com.vin.dbbenchmark.test.BaseTester;
+import com.vin.dbbenchmark.test.Interval;
+import com.vin.dbbenchmark.utils.LatencyHistogram;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Vin
+ */
+public class FileResultReporterTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    public FileResultReporterTest() {
+    }
+
+    /**
+     * Verifies that the JSON file has a line for the run, a line for every tester and a line for the end of the run.
+     */
+    @Test
+    public void testJsonResultReporter() throws IOException {
+        
+        File file = folder.newFile("results.jsonl");
+        
+        writeResults(new JsonResultReporter(file.getPath(), true));
+        
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(0).startsWith("{\"type\":\"run\",\"metadata\":{\"dbms\":\"H2\",\"note\":\"a \\\"quoted\\\" value\\nin two lines\"}"));
+        assertTrue(lines.get(1).startsWith("{\"type\":\"tester\",\"index\":1,\"name\":\"Test, with a comma\""));
+        assertTrue(lines.get(1).contains("{\"name\":\"avg\",\"value\":"));
+        assertTrue(lines.get(1).contains("\"unit\":\"ns/op\""));
+        assertTrue(lines.get(1).contains("\"histogram\":{\"unit\":\"ns\""));
+        assertTrue(lines.get(2).contains("\"index\":2"));
+        assertTrue(lines.get(3).startsWith("{\"type\":\"end\""));
+        assertTrue(lines.get(3).endsWith("\"testers\":2}"));
+    }
+    
+    /**
+     * Verifies that the CSV file has a row for every metadata and every value, with the fields escaped.
+     */
+    @Test
+    public void testCsvResultReporter() throws IOException {
+        
+        File file = folder.newFile("results.csv");
+        
+        writeResults(new CsvResultReporter(file.getPath(), false));
+        
+        String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        
+        assertTrue(content.startsWith(CsvResultReporter.HEADER + "\n" + "metadata,,,dbms,H2,\n" + "metadata,,,note,\"a \"\"quoted\"\" value\nin two lines\",\n"));
+        assertTrue(content.contains("metric,1,\"Test, with a comma\",avg,"));
+        assertTrue(content.contains("metric,2,\"Test, with a comma\",throughput,"));
+        assertFalse(content.contains("histogram,"));
+    }
+    
+    /**
+     * Verifies that the intervals are written with the index of the running tester, before the tester.
+     */
+    @Test
+    public void testIntervals() throws IOException {
+        
+        File jsonFile = folder.newFile("results.jsonl");
+        File csvFile = folder.newFile("results.csv");
+        
+        LatencyHistogram histogram = new LatencyHistogram(1000000, 3);
+        histogram.recordValue(1500);
+        histogram.recordValue(2500);
+        Interval interval = new Interval(1, 0, 1000000000L, histogram);
+        
+        for(ResultReporter reporter : new ResultReporter[]{new JsonResultReporter(jsonFile.getPath(), false), new CsvResultReporter(csvFile.getPath(), false)})
+        {
+            reporter.startRun(new LinkedHashMap<>());
+            reporter.reportInterval("Test", interval);
+            CountingTester tester = new CountingTester();
+            tester.execTests();
+            reporter.reportTester(tester, System.currentTimeMillis(), System.currentTimeMillis());
+            reporter.endRun();
+        }
+        
+        List<String> lines = Files.readAllLines(jsonFile.toPath(), StandardCharsets.UTF_8);
+        
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(1).startsWith("{\"type\":\"interval\",\"index\":1,\"name\":\"Test\",\"interval\":1,\"metrics\":["));
+        assertTrue(lines.get(1).contains("{\"name\":\"throughput\",\"value\":2,\"unit\":\"ops/s\"}"));
+        assertTrue(lines.get(2).startsWith("{\"type\":\"tester\",\"index\":1,"));
+        
+        String content = new String(Files.readAllBytes(csvFile.toPath()), StandardCharsets.UTF_8);
+        
+        assertTrue(content.contains("interval 1,1,Test,end,1000,ms\n"));
+        assertTrue(content.contains("interval 1,1,Test,executions,2,executions\n"));
+        assertTrue(content.indexOf("interval 1,") < content.indexOf("metric,1,"));
+    }
+    
+    private static void writeResults(ResultReporter reporter) {
+        
+        Map<String,String> metadata = new LinkedHashMap<>();
+        metadata.put("dbms", "H2");
+        metadata.put("note", "a \"quoted\" value\nin two lines");
+        
+        reporter.startRun(metadata);
+        
+        for(int i = 0; i < 2; i++)
+        {
+            CountingTester tester = new CountingTester();
+            tester.execTests();
+            reporter.reportTester(tester, System.currentTimeMillis(), System.currentTimeMillis());
+        }
+        
+        reporter.endRun();
+    }
+    
+    private static class CountingTester extends BaseTester {
+        
+        private long count;
+
+        public CountingTester() {
+            super(100, 0);
+        }
+
+        @Override
+        protected int init() {
+            return 0;
+        }
+
+        @Override
+        protected void finish() {
+        }
+
+        @Override
+        protected void beforeTest(State state) {
+        }
+
+        @Override
+        protected void execTest(State state) {
+            count++;
+        }
+
+        @Override
+        protected void afterTest(State state) {
+        }
+
+        @Override
+        public String getTestName() {
+            return "Test, with a comma";
+        }
+    }
+    
+}
@@ -5,6 +5,10 @@
  */
 package com.vin.dbbenchmark.test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import static org.junit.Assert.*;
 import org.junit.Test;
 
@@ -20,6 +24,18 @@ public class BaseTesterTest {
    
 
 
+    /**
+     * Verifies that the rates per second do not overflow with large counts.
+     */
+    @Test
+    public void testPerSecond() {
+        
+        assertEquals(1500, BaseTester.perSecond(3, TimeUnit.MILLISECONDS.toNanos(2)));
+        
+        // 20 GB in 2 seconds: the count multiplied by the nanoseconds of a second overflows a long
+        assertEquals(10000000000L, BaseTester.perSecond(20000000000L, TimeUnit.SECONDS.toNanos(2)));
+    }
+
     /**
      * This is just a sample test that verifies that BaseTester collect execution times after execTests() call.
      * It also verifies that the number of collected times is correct if the method is executed multiple times. 
@@ -34,37 +50,217 @@ public class BaseTesterTest {
         
         instance.execTests();
         
-        //assert that times arrays are not null
-        assertNotNull(instance.getWarmupExecutionTimes());
-        assertNotNull(instance.getExecutionTimes());
+        //assert that histograms are not null
+        assertNotNull(instance.getWarmupHistogram());
+        assertNotNull(instance.getHistogram());
         
         //assert that the number of collected times is equal to the number of executions
-        assertEquals(numOfWarmupExecutions, instance.getWarmupExecutionTimes().size());
-        assertEquals(numOfExecutions, instance.getExecutionTimes().size());
+        assertEquals(numOfWarmupExecutions, instance.getWarmupHistogram().getTotalCount());
+        assertEquals(numOfExecutions, instance.getHistogram().getTotalCount());
         
-        long totalWarmupTime = 0;
-        for(int i = 0; i < instance.getWarmupExecutionTimes().size(); i++)
-        {
-            totalWarmupTime += instance.getWarmupExecutionTimes().get(i);
-        }
+        long avgWarmup = Math.round((double)instance.getWarmupHistogram().getTotalValue()/numOfWarmupExecutions);
+        long avg = Math.round((double)instance.getHistogram().getTotalValue()/numOfExecutions);
+        
+        //assert that avg times have been computed correctly (rounded, not truncated)
+        assertEquals(avgWarmup,instance.getWarmupAvgTime());
+        assertEquals(avg,instance.getAvgTime());
+        
+        //exec the tests again: times of the previous execution must be discarded
+        instance.execTests();
+        
+        assertEquals(numOfWarmupExecutions, instance.getWarmupHistogram().getTotalCount());
+        assertEquals(numOfExecutions, instance.getHistogram().getTotalCount());
+        
+    }
+    
+    /**
+     * Verifies that the result contains percentiles consistent with min and max times.
+     */
+    @Test
+    public void testGetResultContainsPercentiles() {
+        
+        BaseTester instance = new BaseTesterImpl(1000,0);
+        
+        instance.execTests();
+        
+        Result result = instance.getResult();
+        
+        assertFalse(result.containsKey("min-warmup"));
+        assertTrue(result.get("min") <= result.get("p50"));
+        assertTrue(result.get("p50") <= result.get("p90"));
+        assertTrue(result.get("p90") <= result.get("p99"));
+        assertTrue(result.get("p99") <= result.get("p99.9"));
+        assertTrue(result.get("p99.9") <= result.get("p99.99"));
+        assertTrue(result.get("p99.99") <= result.get("max"));
+    }
+
+    
+    /**
+     * Verifies that in duration mode the tester executes iterations for the given time regardless of the number of executions.
+     */
+    @Test
+    public void testExecTestsForDuration() {
+        
+        BaseTester instance = new BaseTesterImpl(1,0);
+        instance.setTestDuration(TimeUnit.MILLISECONDS.toNanos(200));
+        
+        instance.execTests();
+        
+        assertTrue(instance.getHistogram().getTotalCount() > 1);
+        assertTrue(instance.getTestElapsedTime() >= TimeUnit.MILLISECONDS.toNanos(200));
+    }
+    
+    /**
+     * Verifies that in open loop a stall of the tested code is part of the times of the iterations that should have started during the stall.
+     */
+    @Test
+    public void testExecTestsOpenLoopMeasuresFromIntendedStart() {
+        
+        int numOfExecutions = 100;
+        
+        BaseTester instance = new BaseTesterImpl(numOfExecutions,0) {
+            @Override
+            public void execTest(State state) {
+                // the first iteration stalls for 50 ms
+                if(state.getIterationNumber() == 1)
+                {
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        
+        // an iteration every ms: about 50 iterations should have started during the stall
+        instance.setTargetThroughput(1000);
+        
+        instance.execTests();
+        
+        assertEquals(numOfExecutions, instance.getHistogram().getTotalCount());
+        assertTrue(instance.getTimeAtPercentile(75) >= TimeUnit.MILLISECONDS.toNanos(10));
+        assertTrue(instance.getServiceTimeHistogram().getValueAtPercentile(50) < TimeUnit.MILLISECONDS.toNanos(10));
+        assertTrue(instance.getTestElapsedTime() >= TimeUnit.MILLISECONDS.toNanos(99));
+    }
+
+    /**
+     * Verifies that the steady state is detected only when the avg times of the last windows of a warmup curve are within the tolerance.
+     * The curve is synthetic, so that the detection does not depend on the load of the machine.
+     */
+    @Test
+    public void testSteadyStateDetection() {
+        
+        // the avg time halves every window until it is stable at 500 ns
+        assertEquals(9, getFirstSteadyStateWindow(Arrays.asList(32000L, 16000L, 8000L, 4000L, 2000L, 1000L, 500L, 500L, 500L, 500L), 0.5));
+        
+        // noise within the tolerance
+        assertEquals(5, getFirstSteadyStateWindow(Arrays.asList(900L, 600L, 520L, 480L, 500L), 0.1));
         
-        long totalActualExecutionsTime = 0;
-        for(int i = 0; i < instance.getExecutionTimes().size(); i++)
+        // a single outlier window delays the steady state until it is not among the last windows
+        assertEquals(7, getFirstSteadyStateWindow(Arrays.asList(900L, 500L, 500L, 2000L, 500L, 500L, 500L), 0.1));
+        
+        // alternating windows never reach the steady state
+        assertEquals(0, getFirstSteadyStateWindow(Arrays.asList(2000L, 20L, 2000L, 20L, 2000L, 20L), 0.1));
+        
+        // fewer windows than needed
+        assertFalse(BaseTester.isSteadyState(Arrays.asList(500L, 500L), 0.5));
+    }
+    
+    /**
+     * Feed the windows of a warmup curve one at a time, as the warmup loop does.
+     * 
+     * @return The number of windows after which the steady state is detected (0 if it is never detected)
+     */
+    private static int getFirstSteadyStateWindow(List<Long> windows, double tolerance)
+    {
+        List<Long> warmupCurve = new ArrayList<>();
+        
+        for(long window : windows)
         {
-            totalActualExecutionsTime += instance.getExecutionTimes().get(i);
+            warmupCurve.add(window);
+            if(BaseTester.isSteadyState(warmupCurve, tolerance))
+                return warmupCurve.size();
         }
         
-        long avgWarmup = totalWarmupTime/numOfWarmupExecutions;
-        long avg = totalActualExecutionsTime/numOfExecutions;
+        return 0;
+    }
+
+    /**
+     * Verifies that the adaptive warmup stops at the first window in the steady state, but not before the warmup iterations passed to the constructor, 
+     * and records the warmup curve. The tolerance accepts any time, so that the windows where the warmup stops do not depend on the load of the machine.
+     */
+    @Test
+    public void testAdaptiveWarmupReachesSteadyState() {
         
-        //assert that avg times have been computed correctly
-        assertEquals(avgWarmup,instance.getWarmupAvgTime());
-        assertEquals(avg,instance.getAvgTime());
+        int windowSize = 10;
         
+        // the steady state needs 3 windows
+        BaseTester instance = new BaseTesterImpl(10,20);
+        instance.setAdaptiveWarmup(windowSize, Double.MAX_VALUE, 1000);
         
+        instance.execTests();
+        
+        assertEquals(BaseTester.STEADY_STATE_WINDOWS * windowSize, instance.getSteadyStateExecution());
+        assertEquals(instance.getSteadyStateExecution(), instance.getExecutedWarmupExecutions());
+        assertEquals(instance.getExecutedWarmupExecutions(), instance.getWarmupHistogram().getTotalCount());
+        assertEquals(BaseTester.STEADY_STATE_WINDOWS, instance.getWarmupCurve().size());
+        
+        Result result = instance.getResult();
+        assertEquals(Long.valueOf(instance.getExecutedWarmupExecutions()), result.get("warmup executions"));
+        assertEquals(Long.valueOf(1), result.get("warmup steady state"));
+        assertTrue(instance.getTestInfo().contains("Warmup curve"));
+        
+        // the steady state is not checked before the warmup iterations passed to the constructor
+        instance = new BaseTesterImpl(10,55);
+        instance.setAdaptiveWarmup(windowSize, Double.MAX_VALUE, 1000);
+        
+        instance.execTests();
+        
+        assertEquals(60, instance.getSteadyStateExecution());
+        assertEquals(6, instance.getWarmupCurve().size());
     }
-
     
+    /**
+     * Verifies that the adaptive warmup stops at the max number of executions if the times are not stable.
+     */
+    @Test
+    public void testAdaptiveWarmupStopsAtMax() {
+        
+        BaseTester instance = new BaseTesterImpl(10,0) {
+            @Override
+            public void execTest(State state) {
+                // the windows of 5 iterations alternate between slow and fast
+                boolean slow = state.getIterationType() == IterationType.WARMUP && (state.getIterationNumber() - 1) / 5 % 2 == 0;
+                spin(TimeUnit.MICROSECONDS.toNanos(slow ? 2000 : 20));
+            }
+        };
+        instance.setAdaptiveWarmup(5, 0.1, 60);
+        
+        instance.execTests();
+        
+        assertEquals(60, instance.getExecutedWarmupExecutions());
+        assertEquals(0, instance.getSteadyStateExecution());
+        assertEquals(12, instance.getWarmupCurve().size());
+        assertEquals(Long.valueOf(0), instance.getResult().get("warmup steady state"));
+        
+        //exec the tests again without adaptive warmup: the warmup statistics of the previous execution must be discarded
+        instance.setAdaptiveWarmup(0, 0, 0);
+        instance.execTests();
+        
+        assertEquals(0, instance.getExecutedWarmupExecutions());
+        assertTrue(instance.getWarmupCurve().isEmpty());
+        assertFalse(instance.getResult().containsKey("warmup executions"));
+    }
+    
+    private static void spin(long nanos)
+    {
+        long end = System.nanoTime() + nanos;
+        while(System.nanoTime() < end)
+        {
+            // busy wait, so that the time does not depend on the scheduler
+        }
+    }
 
     public class BaseTesterImpl extends BaseTester {
 
@@ -0,0 +1,102 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.vin.dbbenchmark.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Vin
+ */
+public class BatchSizeSweepTesterTest {
+    
+    public BatchSizeSweepTesterTest() {
+    }
+
+    /**
+     * Verifies the geometric range of batch sizes.
+     */
+    @Test
+    public void testGetGeometricBatchSizes() {
+        
+        assertArrayEquals(new int[]{1, 2, 4, 8, 16}, BatchSizeSweepTester.getGeometricBatchSizes(1, 16, 2));
+        assertArrayEquals(new int[]{10, 100, 1000, 5000}, BatchSizeSweepTester.getGeometricBatchSizes(10, 5000, 10));
+        assertArrayEquals(new int[]{50}, BatchSizeSweepTester.getGeometricBatchSizes(50, 10, 2));
+    }
+    
+    /**
+     * Verifies that the point of diminishing returns is the first step that is not improved enough by the following ones, 
+     * also when the throughput does not increase monotonically.
+     */
+    @Test
+    public void testFindKnee() {
+        
+        assertEquals(3, BatchSizeSweepTester.findKnee(new long[]{100, 190, 350, 600, 640, 650}, 0.1));
+        assertEquals(5, BatchSizeSweepTester.findKnee(new long[]{100, 190, 350, 600, 580, 700, 720}, 0.1));
+        assertEquals(0, BatchSizeSweepTester.findKnee(new long[]{100, 90, 80}, 0.1));
+        assertEquals(2, BatchSizeSweepTester.findKnee(new long[]{100, 200, 400}, 0.1));
+        assertEquals(-1, BatchSizeSweepTester.findKnee(new long[]{}, 0.1));
+    }
+    
+    /**
+     * Verifies that a tester is executed for every batch size and that the throughputs and the knee are reported.
+     */
+    @Test
+    public void testExecTests() {
+        
+        List<Integer> executedBatchSizes = new ArrayList<>();
+        
+        BatchSizeSweepTester instance = new BatchSizeSweepTester(new int[]{1, 10, 100, 1000}, batchSize -> {
+            executedBatchSizes.add(batchSize);
+            return new FixedResultTester(Math.min(batchSize, 100) * 1000L);
+        }, "records", 0.1);
+        
+        instance.execTests();
+        
+        assertEquals(4, executedBatchSizes.size());
+        assertArrayEquals(new long[]{1000, 10000, 100000, 100000}, instance.getThroughputs());
+        
+        Result result = instance.getResult();
+        assertEquals(Long.valueOf(100), result.get("batch size at the point of diminishing returns"));
+        assertEquals(Long.valueOf(100000), result.get("throughput (batch size 1000)"));
+        assertEquals(Result.ROWS_PER_SECOND, result.getUnit("throughput (batch size 1000)"));
+        assertTrue(instance.getTestInfo().contains("<- point of diminishing returns"));
+    }
+    
+    private static class FixedResultTester implements Tester {
+        
+        private final long throughput;
+
+        FixedResultTester(long throughput) {
+            this.throughput = throughput;
+        }
+        
+        @Override
+        public void execTests() {
+        }
+
+        @Override
+        public Result getResult() {
+            Result result = new Result();
+            result.put("records", throughput, Result.ROWS_PER_SECOND);
+            return result;
+        }
+
+        @Override
+        public String getTestInfo() {
+            return "";
+        }
+
+        @Override
+        public String getTestName() {
+            return "Fixed Result";
+        }
+    }
+    
+}
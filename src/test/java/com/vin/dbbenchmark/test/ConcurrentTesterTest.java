@@ -0,0 +1,237 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.vin.dbbenchmark.test;
+
+import com.vin.dbbenchmark.utils.VirtualThreads;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.*;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ *
+ * @author Vin
+ */
+public class ConcurrentTesterTest {
+    
+    public ConcurrentTesterTest() {
+    }
+
+    /**
+     * Verifies that the times collected by all the workers are merged in the aggregate tester 
+     * and that the aggregate throughput is reported.
+     */
+    @Test
+    public void testExecTestsMergesWorkerTimes() {
+        
+        int numOfThreads = 4;
+        int numOfWarmupExecutions = 10;
+        int numOfExecutions = 50;
+        
+        ConcurrentTester instance = new ConcurrentTester(() -> new SleepingTester(numOfExecutions, numOfWarmupExecutions), numOfThreads);
+        
+        instance.execTests();
+        
+        BaseTester aggregate = instance.getAggregateTester();
+        
+        assertEquals(numOfThreads * numOfWarmupExecutions, aggregate.getWarmupHistogram().getTotalCount());
+        assertEquals(numOfThreads * numOfExecutions, aggregate.getHistogram().getTotalCount());
+        
+        assertEquals(Math.round((double)aggregate.getHistogram().getTotalValue() / (numOfThreads * numOfExecutions)), aggregate.getAvgTime());
+        assertTrue(aggregate.getMinTime() <= aggregate.getAvgTime());
+        assertTrue(aggregate.getMaxTime() >= aggregate.getAvgTime());
+        
+        Result result = instance.getResult();
+        assertTrue(result.containsKey("throughput"));
+        assertEquals(Result.OPERATIONS_PER_SECOND, result.getUnit("throughput"));
+    }
+    
+    /**
+     * Verifies that the workers execute their iterations at the same time.
+     */
+    @Test
+    public void testExecTestsRunsWorkersConcurrently() {
+        
+        int numOfThreads = 3;
+        
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        
+        ConcurrentTester instance = new ConcurrentTester(() -> new SleepingTester(20, 0) {
+            @Override
+            public void execTest(State state) {
+                int current = running.incrementAndGet();
+                maxRunning.accumulateAndGet(current, Math::max);
+                super.execTest(state);
+                running.decrementAndGet();
+            }
+        }, numOfThreads);
+        
+        instance.execTests();
+        
+        assertTrue(maxRunning.get() > 1);
+    }
+    
+    /**
+     * Verifies that a worker whose initialization fails does not block the other workers.
+     */
+    @Test(timeout = 10000)
+    public void testExecTestsWithFailingWorker() {
+        
+        final AtomicInteger created = new AtomicInteger();
+        
+        ConcurrentTester instance = new ConcurrentTester(() -> new SleepingTester(10, 5) {
+            private final boolean failing = created.incrementAndGet() == 2;
+            
+            @Override
+            public int init() {
+                return failing ? -1 : 0;
+            }
+        }, 2);
+        
+        instance.execTests();
+        
+        assertEquals(10, instance.getAggregateTester().getHistogram().getTotalCount());
+        assertEquals(1, instance.getNumOfFailedWorkers());
+        assertEquals(Long.valueOf(1), instance.getResult().get("failed workers"));
+    }
+    
+    /**
+     * Verifies that a worker that throws an exception is counted as failed and does not block the other workers.
+     */
+    @Test(timeout = 10000)
+    public void testExecTestsWithThrowingWorker() {
+        
+        final AtomicInteger created = new AtomicInteger();
+        
+        ConcurrentTester instance = new ConcurrentTester(() -> new SleepingTester(10, 5) {
+            private final boolean failing = created.incrementAndGet() == 2;
+            
+            @Override
+            public void execTest(State state) {
+                if(failing && state.getIterationType() == IterationType.TEST_EXECUTION)
+                    throw new IllegalStateException("Test failure");
+                super.execTest(state);
+            }
+        }, 3);
+        
+        instance.execTests();
+        
+        assertEquals(2 * 10, instance.getAggregateTester().getHistogram().getTotalCount());
+        assertEquals(1, instance.getNumOfFailedWorkers());
+        assertEquals(Long.valueOf(1), instance.getResult().get("failed workers"));
+        
+        // no failed workers: the key is not reported
+        instance = new ConcurrentTester(() -> new SleepingTester(10, 5), 2);
+        instance.execTests();
+        
+        assertEquals(0, instance.getNumOfFailedWorkers());
+        assertFalse(instance.getResult().containsKey("failed workers"));
+    }
+
+    /**
+     * Verifies that the workers in closed loop do not allocate the histogram of the service times, 
+     * and that the service times of workers in open loop are still merged in the aggregate tester.
+     */
+    @Test(timeout = 10000)
+    public void testServiceTimesAllocatedOnlyInOpenLoop() {
+        
+        final BaseTester[] worker = new BaseTester[1];
+        
+        ConcurrentTester instance = new ConcurrentTester(() -> worker[0] = new SleepingTester(10, 5), 2);
+        instance.execTests();
+        
+        assertNull(worker[0].getServiceTimeHistogram());
+        assertNull(instance.getAggregateTester().getServiceTimeHistogram());
+        assertFalse(instance.getResult().containsKey("avg service time"));
+        
+        instance = new ConcurrentTester(() -> {
+            BaseTester tester = new SleepingTester(10, 5);
+            tester.setTargetThroughput(200);
+            return tester;
+        }, 2);
+        instance.execTests();
+        
+        assertEquals(2 * 10, instance.getAggregateTester().getServiceTimeHistogram().getTotalCount());
+        assertTrue(instance.getResult().containsKey("avg service time"));
+    }
+    
+    /**
+     * Verifies on Java 21 or later that the workers run on virtual threads and that the times they spend pinned to their carriers are recorded. 
+     * The workers sleep inside a synchronized block, which pins the carrier. 
+     * The test is skipped on older JDKs: it is executed running the tests with a Java 21 (or later) JDK.
+     */
+    @Test(timeout = 60000)
+    public void testWorkersOnVirtualThreadsRecordThePinning() throws Exception {
+        
+        Assume.assumeTrue("Virtual threads need Java 21 or later", VirtualThreads.isSupported());
+        
+        final AtomicInteger platformThreadIterations = new AtomicInteger();
+        
+        ConcurrentTester instance = new ConcurrentTester(() -> new SleepingTester(10, 0) {
+            @Override
+            public void execTest(State state) {
+                try {
+                    if(!(Boolean)Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()))
+                        platformThreadIterations.incrementAndGet();
+                } catch (ReflectiveOperationException ex) {
+                    throw new IllegalStateException(ex);
+                }
+                
+                synchronized(this) {
+                    super.execTest(state);
+                }
+            }
+        }, 4);
+        instance.setVirtualThreads(true);
+        
+        instance.execTests();
+        
+        assertEquals(4 * 10, instance.getAggregateTester().getHistogram().getTotalCount());
+        assertEquals(0, platformThreadIterations.get());
+        assertTrue(instance.getPinnedTimeHistogram().getTotalCount() > 0);
+        assertTrue(instance.getResult().get("virtual thread pinned events") > 0);
+    }
+
+    public class SleepingTester extends BaseTester {
+
+        public SleepingTester(int numOfExecutions,int numOfWarmupExecutions) {
+            super(numOfExecutions, numOfWarmupExecutions);
+        }
+
+        @Override
+        public int init() {
+            return 0;
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        @Override
+        public void beforeTest(State state) {
+        }
+
+        @Override
+        public void execTest(State state) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void afterTest(State state) {
+        }
+
+        @Override
+        public String getTestName() {
+            return "Test";
+        }
+    }
+    
+}
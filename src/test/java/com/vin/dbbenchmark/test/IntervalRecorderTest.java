@@ -0,0 +1,147 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.vin.dbbenchmark.test;
+
+import com.vin.dbbenchmark.utils.LatencyHistogram;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Vin
+ */
+public class IntervalRecorderTest {
+    
+    public IntervalRecorderTest() {
+    }
+
+    /**
+     * Verifies that the times of all the threads are merged in the interval where the iterations ended, 
+     * that the intervals without iterations are reported and that the last interval ends with the last thread.
+     */
+    @Test(timeout = 10000)
+    public void testIntervalsOfThreads() throws InterruptedException {
+        
+        List<Interval> intervals = Collections.synchronizedList(new ArrayList<>());
+        IntervalRecorder instance = new IntervalRecorder(100, (testName, interval) -> intervals.add(interval));
+        LatencyHistogram histogram = new LatencyHistogram(1000000, 3);
+        
+        IntervalRecorder.ThreadRecorder first = instance.register("Test", histogram);
+        IntervalRecorder.ThreadRecorder second = instance.register("Test", histogram);
+        
+        long startTime = 1000;
+        first.start(startTime);
+        second.start(startTime + 5);
+        
+        first.recordValue(5, startTime + 10);
+        second.recordValue(9, startTime + 50);
+        first.recordValue(7, startTime + 250);
+        
+        // finish blocks until all the threads completed
+        Thread secondThread = new Thread(() -> second.finish(startTime + 300));
+        secondThread.start();
+        first.finish(startTime + 260);
+        secondThread.join();
+        
+        assertEquals(3, intervals.size());
+        
+        assertEquals(1, intervals.get(0).getIndex());
+        assertEquals(0, intervals.get(0).getStartTime());
+        assertEquals(100, intervals.get(0).getEndTime());
+        assertEquals(2L, (long)intervals.get(0).getResult().get("executions"));
+        assertEquals(9L, (long)intervals.get(0).getResult().get("max"));
+        assertEquals(20000000L, (long)intervals.get(0).getResult().get("throughput"));
+        
+        assertEquals(2, intervals.get(1).getIndex());
+        assertEquals(0L, (long)intervals.get(1).getResult().get("executions"));
+        assertFalse(intervals.get(1).getResult().containsKey("p99"));
+        
+        assertEquals(3, intervals.get(2).getIndex());
+        assertEquals(200, intervals.get(2).getStartTime());
+        assertEquals(300, intervals.get(2).getEndTime());
+        assertEquals(1L, (long)intervals.get(2).getResult().get("executions"));
+        assertEquals(7L, (long)intervals.get(2).getResult().get("p50"));
+    }
+    
+    /**
+     * Verifies that the intervals of the concurrent testers are reported before the tests complete, 
+     * that they contain all the iterations and that every execution of the tests restarts the intervals.
+     */
+    @Test(timeout = 10000)
+    public void testIntervalsOfConcurrentTester() {
+        
+        List<Interval> intervals = Collections.synchronizedList(new ArrayList<>());
+        IntervalRecorder intervalRecorder = new IntervalRecorder(TimeUnit.MILLISECONDS.toNanos(20), (testName, interval) -> intervals.add(interval));
+        
+        ConcurrentTester instance = new ConcurrentTester(() -> {
+            SleepingTester tester = new SleepingTester(0, 5);
+            tester.setTestDuration(TimeUnit.MILLISECONDS.toNanos(100));
+            tester.setIntervalRecorder(intervalRecorder);
+            return tester;
+        }, 3);
+        
+        for(int execution = 0; execution < 2; execution++)
+        {
+            intervals.clear();
+            
+            instance.execTests();
+            
+            assertTrue(intervals.size() >= 5);
+            
+            long numOfExecutions = 0;
+            for(int i = 0; i < intervals.size(); i++)
+            {
+                assertEquals(i + 1, intervals.get(i).getIndex());
+                numOfExecutions += intervals.get(i).getResult().get("executions");
+            }
+            
+            assertEquals(instance.getAggregateTester().getHistogram().getTotalCount(), numOfExecutions);
+        }
+    }
+
+    public class SleepingTester extends BaseTester {
+
+        public SleepingTester(int numOfExecutions,int numOfWarmupExecutions) {
+            super(numOfExecutions, numOfWarmupExecutions);
+        }
+
+        @Override
+        public int init() {
+            return 0;
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        @Override
+        public void beforeTest(State state) {
+        }
+
+        @Override
+        public void execTest(State state) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void afterTest(State state) {
+        }
+
+        @Override
+        public String getTestName() {
+            return "Test";
+        }
+    }
+    
+}
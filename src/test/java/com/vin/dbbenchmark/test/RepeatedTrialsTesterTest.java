@@ -0,0 +1,192 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.vin.dbbenchmark.test;
+
+import com.vin.dbbenchmark.database.DBMSName;
+import com.vin.dbbenchmark.database.DbHelper;
+import com.vin.dbbenchmark.database.DbHelperFactory;
+import com.vin.dbbenchmark.database.ScanCursorMode;
+import com.vin.dbbenchmark.utils.DataGenerator;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Vin
+ */
+public class RepeatedTrialsTesterTest {
+    
+    public RepeatedTrialsTesterTest() {
+    }
+
+    /**
+     * Verifies that the result contains the mean of every value and the statistics over the trials of the throughput and of the percentiles.
+     */
+    @Test
+    public void testStatisticsOverTrials() {
+        
+        RepeatedTrialsTester instance = new RepeatedTrialsTester(new ScriptedTester(1000, 1010, 990, 1000), 4);
+        
+        instance.execTests();
+        
+        assertEquals(4, instance.getTrialResults().size());
+        assertEquals("Scripted", instance.getTestName());
+        
+        Result result = instance.getResult();
+        
+        assertEquals(Long.valueOf(1000), result.get("throughput"));
+        assertEquals(Result.OPERATIONS_PER_SECOND, result.getUnit("throughput"));
+        assertEquals(Long.valueOf(8), result.get("throughput stddev"));
+        assertEquals(Long.valueOf(13), result.get("throughput ci95"));
+        assertEquals(Long.valueOf(8), result.get("throughput cv"));
+        assertEquals(RepeatedTrialsTester.PER_MILLE, result.getUnit("throughput cv"));
+        assertTrue(result.containsKey("p99 stddev"));
+        assertEquals(Long.valueOf(5), result.get("min"));
+        assertFalse(result.containsKey("min stddev"));
+        assertEquals(Long.valueOf(4), result.get("trials"));
+        assertEquals(Long.valueOf(0), result.get("outlier trials"));
+        assertTrue(instance.getTestInfo().startsWith("Trials: 4\n"));
+    }
+    
+    /**
+     * Verifies that a trial far from the others is flagged as an outlier, and that it is not excluded from the mean.
+     */
+    @Test
+    public void testOutlierTrial() {
+        
+        RepeatedTrialsTester instance = new RepeatedTrialsTester(new ScriptedTester(1000, 1010, 990, 1005, 500), 5);
+        
+        instance.execTests();
+        
+        List<List<String>> outlierKeys = instance.getOutlierKeys();
+        
+        assertEquals(Collections.emptyList(), outlierKeys.get(0));
+        assertEquals(Arrays.asList("p99", "throughput"), outlierKeys.get(4));
+        
+        Result result = instance.getResult();
+        
+        assertEquals(Long.valueOf(901), result.get("throughput"));
+        assertEquals(Long.valueOf(1), result.get("outlier trials"));
+        assertTrue(instance.getTestInfo().contains("Outlier trial 5: p99, throughput"));
+    }
+    
+    /**
+     * Verifies that the statistics are computed for the avg time also when the key has the suffix of a database tester, 
+     * and not for the avg time of the warmup.
+     */
+    @Test
+    public void testStatisticsOfSuffixedAvgKey() {
+        
+        assertTrue(RepeatedTrialsTester.isStatisticsKey("avg", Result.NANOSECONDS_PER_OPERATION));
+        assertTrue(RepeatedTrialsTester.isStatisticsKey("avg (per transaction)", Result.NANOSECONDS_PER_OPERATION));
+        assertFalse(RepeatedTrialsTester.isStatisticsKey("avg-warmup (per transaction)", Result.NANOSECONDS_PER_OPERATION));
+        assertFalse(RepeatedTrialsTester.isStatisticsKey("average", Result.NANOSECONDS_PER_OPERATION));
+        
+        RepeatedTrialsTester instance = new RepeatedTrialsTester(new ScriptedTester(1000, 1010, 990, 1005, 500) {
+            @Override
+            public Result getResult() {
+                Result result = super.getResult();
+                result.put("avg (per transaction)", result.get("p99") / 2);
+                result.put("avg-warmup (per transaction)", 100L);
+                return result;
+            }
+        }, 5);
+        
+        instance.execTests();
+        
+        Result result = instance.getResult();
+        
+        assertTrue(result.containsKey("avg (per transaction) stddev"));
+        assertTrue(result.containsKey("avg (per transaction) ci95"));
+        assertTrue(result.containsKey("avg (per transaction) cv"));
+        assertFalse(result.containsKey("avg-warmup (per transaction) stddev"));
+        assertTrue(instance.getOutlierKeys().get(4).contains("avg (per transaction)"));
+    }
+    
+    /**
+     * Verifies that a database tester executed in more trials reports in every trial only the rows read by that trial, 
+     * so that the row throughput does not grow trial after trial.
+     */
+    @Test
+    public void testDbTesterStatisticsAreResetEveryTrial() throws SQLException {
+        
+        int numOfRowsPerScan = 100;
+        int numOfExecutions = 200;
+        
+        DbHelper dbHelper = DbHelperFactory.getDbHelper(DBMSName.H2);
+        dbHelper.connect();
+        dbHelper.createTable();
+        DataGenerator dataGenerator = new DataGenerator(1);
+        List<DbHelper.DbEntry> entries = new ArrayList<>();
+        for(int i = 0; i < 1000; i++)
+            entries.add(dataGenerator.nextEntry(new DbHelper.DbEntry()));
+        dbHelper.prepareInsertStatement();
+        dbHelper.setInsertDataBatch(entries);
+        dbHelper.execInsertDataBatch();
+        dbHelper.closeInsertStatement();
+        dbHelper.closeConnection();
+        
+        DbRangeScanTester tester = new DbRangeScanTester(DBMSName.H2, numOfExecutions, numOfRowsPerScan, ScanCursorMode.CLIENT_BUFFERED, 0, 10);
+        RepeatedTrialsTester instance = new RepeatedTrialsTester(tester, 3);
+        
+        instance.execTests();
+        
+        assertEquals((long)numOfExecutions * numOfRowsPerScan, tester.getScannedRows());
+        
+        // in every trial the rows are read in the same elapsed time of the scans
+        for(Result trialResult : instance.getTrialResults())
+        {
+            double rowsPerScan = (double)trialResult.get("throughput (rows)") / trialResult.get("throughput (scans)");
+            assertEquals(numOfRowsPerScan, rowsPerScan, 1);
+        }
+    }
+    
+    /**
+     * A tester whose result in every execution has the next throughput of a list (and a p99 time inversely proportional to it).
+     */
+    private static class ScriptedTester implements Tester {
+        
+        private final long[] throughputs;
+        private int numOfExecutions;
+
+        public ScriptedTester(long... throughputs) {
+            this.throughputs = throughputs;
+        }
+
+        @Override
+        public void execTests() {
+            numOfExecutions++;
+        }
+
+        @Override
+        public Result getResult() {
+            long throughput = throughputs[(numOfExecutions - 1) % throughputs.length];
+            
+            Result result = new Result();
+            result.put("min", 5L);
+            result.put("p99", 1000000000L / throughput);
+            result.put("throughput", throughput, Result.OPERATIONS_PER_SECOND);
+            
+            return result;
+        }
+
+        @Override
+        public String getTestInfo() {
+            return "Executions: 1\n";
+        }
+
+        @Override
+        public String getTestName() {
+            return "Scripted";
+        }
+    }
+    
+}
@@ -0,0 +1,75 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.vin.dbbenchmark.test;
+
+import com.vin.dbbenchmark.test.Workload.Operation;
+import com.vin.dbbenchmark.utils.DataGenerator;
+import java.util.EnumMap;
+import java.util.Map;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Vin
+ */
+public class WorkloadTest {
+    
+    public WorkloadTest() {
+    }
+
+    /**
+     * Verifies the parsing of the YCSB letters and of the lists of weighted operations.
+     */
+    @Test
+    public void testParse() {
+        
+        Workload ycsbA = Workload.parse("a");
+        assertEquals(50, ycsbA.getWeight(Operation.READ));
+        assertEquals(50, ycsbA.getWeight(Operation.UPDATE));
+        assertEquals(0, ycsbA.getWeight(Operation.INSERT));
+        
+        Workload mix = Workload.parse(" READ:80, UPDATE:15 ,INSERT:5,DELETE:0");
+        assertArrayEquals(new Operation[]{Operation.READ, Operation.UPDATE, Operation.INSERT}, mix.getOperations());
+        assertFalse(mix.contains(Operation.DELETE));
+        
+        for(String invalid : new String[]{"G", "READ", "READ:x", "WRITE:10", "READ:0", "READ:-1,UPDATE:2"})
+        {
+            try {
+                Workload.parse(invalid);
+                fail("invalid workload accepted: " + invalid);
+            } catch (IllegalArgumentException ex) {
+                // expected
+            }
+        }
+    }
+    
+    /**
+     * Verifies that the operations are drawn in proportion to their weights.
+     */
+    @Test
+    public void testNextOperation() {
+        
+        Map<Operation,Integer> weights = new EnumMap<>(Operation.class);
+        weights.put(Operation.READ, 80);
+        weights.put(Operation.UPDATE, 15);
+        weights.put(Operation.INSERT, 5);
+        Workload workload = new Workload("test", weights);
+        
+        DataGenerator dataGenerator = new DataGenerator(42);
+        Map<Operation,Integer> counts = new EnumMap<>(Operation.class);
+        int numOfOperations = 100000;
+        
+        for(int i = 0; i < numOfOperations; i++)
+            counts.merge(workload.nextOperation(dataGenerator), 1, Integer::sum);
+        
+        assertEquals(3, counts.size());
+        assertEquals(0.80, counts.get(Operation.READ) / (double)numOfOperations, 0.01);
+        assertEquals(0.15, counts.get(Operation.UPDATE) / (double)numOfOperations, 0.01);
+        assertEquals(0.05, counts.get(Operation.INSERT) / (double)numOfOperations, 0.01);
+    }
+    
+}
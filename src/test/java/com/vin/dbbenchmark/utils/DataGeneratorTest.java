@@ -0,0 +1,77 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.vin.dbbenchmark.utils;
+
+import com.vin.dbbenchmark.database.DbHelper.DbEntry;
+import java.math.BigDecimal;
+import java.util.Iterator;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Vin
+ */
+public class DataGeneratorTest {
+    
+    public DataGeneratorTest() {
+    }
+
+    /**
+     * Verifies that generators with the same seed generate the same data.
+     */
+    @Test
+    public void testReplay() {
+        
+        DataGenerator generator = new DataGenerator(42, 100, 0);
+        DataGenerator replayGenerator = new DataGenerator(42, 100, 0);
+        DataGenerator otherGenerator = new DataGenerator(DataGenerator.getStreamSeed(42, 1), 100, 0);
+        
+        boolean differentData = false;
+        
+        for(int i = 0; i < 1000; i++)
+        {
+            DbEntry entry = generator.nextEntry(new DbEntry());
+            DbEntry replayEntry = replayGenerator.nextEntry(new DbEntry());
+            DbEntry otherEntry = otherGenerator.nextEntry(new DbEntry());
+            
+            assertEquals(entry.getVarcharField(), replayEntry.getVarcharField());
+            assertEquals(entry.getIntField(), replayEntry.getIntField());
+            assertEquals(entry.getDecimalField(), replayEntry.getDecimalField());
+            
+            differentData |= entry.getIntField() != otherEntry.getIntField();
+        }
+        
+        assertTrue(differentData);
+        assertNotEquals(DataGenerator.getStreamSeed(42, 0), DataGenerator.getStreamSeed(42, 1));
+    }
+    
+    /**
+     * Verifies the ranges of the generated values and that the source of entries reuses the same entry.
+     */
+    @Test
+    public void testEntries() {
+        
+        DataGenerator generator = new DataGenerator(DataGenerator.newSeed());
+        Iterator<DbEntry> entries = generator.entries();
+        
+        DbEntry firstEntry = entries.next();
+        
+        for(int i = 0; i < 10000; i++)
+        {
+            DbEntry entry = entries.next();
+            
+            assertSame(firstEntry, entry);
+            assertEquals(DataGenerator.STRING_LENGTH, entry.getVarcharField().length());
+            assertTrue(entry.getIntField() >= 0 && entry.getIntField() < DataGenerator.MAX_INT_VALUE);
+            assertEquals(DataGenerator.DECIMAL_SCALE, entry.getDecimalField().scale());
+            assertTrue(entry.getDecimalField().signum() >= 0);
+            assertTrue(entry.getDecimalField().compareTo(BigDecimal.valueOf(DataGenerator.MAX_DECIMAL_VALUE)) < 0);
+            assertSame(generator.getTimestamp(), entry.getDateField());
+        }
+    }
+    
+}
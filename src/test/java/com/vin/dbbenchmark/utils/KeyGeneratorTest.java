@@ -0,0 +1,133 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.vin.dbbenchmark.utils;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Vin
+ */
+public class KeyGeneratorTest {
+    
+    private static final int NUM_OF_DRAWS = 200000;
+    
+    public KeyGeneratorTest() {
+    }
+    
+    private static int[] countKeys(KeyGenerator keyGenerator, int maxKey)
+    {
+        DataGenerator dataGenerator = new DataGenerator(7);
+        int[] counts = new int[maxKey + 1];
+        
+        for(int i = 0; i < NUM_OF_DRAWS; i++)
+        {
+            int key = keyGenerator.nextKey(dataGenerator, maxKey);
+            assertTrue(key >= 1 && key <= maxKey);
+            counts[key]++;
+        }
+        
+        return counts;
+    }
+
+    /**
+     * Verifies that the Zipfian keys follow 1/i^theta, with the lowest keys as the most popular.
+     */
+    @Test
+    public void testZipfian() {
+        
+        int[] counts = countKeys(new ZipfianKeyGenerator(0.99), 1000);
+        
+        double zetan = 0;
+        for(int i = 1; i <= 1000; i++)
+            zetan += 1 / Math.pow(i, 0.99);
+        
+        assertEquals(1 / zetan, counts[1] / (double)NUM_OF_DRAWS, 0.01);
+        assertEquals(1 / Math.pow(2, 0.99) / zetan, counts[2] / (double)NUM_OF_DRAWS, 0.01);
+        assertTrue(counts[1] > counts[10] && counts[10] > counts[500]);
+        
+        // the sum is updated when the number of keys changes
+        ZipfianKeyGenerator keyGenerator = new ZipfianKeyGenerator(0.5);
+        DataGenerator dataGenerator = new DataGenerator(7);
+        for(int maxKey : new int[]{1, 2, 100, 50, 3})
+        {
+            for(int i = 0; i < 1000; i++)
+            {
+                int key = keyGenerator.nextKey(dataGenerator, maxKey);
+                assertTrue(key >= 1 && key <= maxKey);
+            }
+        }
+        assertEquals(0, keyGenerator.nextKey(dataGenerator, 0));
+    }
+    
+    /**
+     * Verifies that alternating between numbers of keys (e.g. concurrent testers with different max keys) draws the same keys 
+     * as generators that always use the same number of keys.
+     */
+    @Test
+    public void testZipfianAlternatingNumOfKeys() {
+        
+        int[] maxKeys = {100000, 99901, 100500, 17};
+        
+        ZipfianKeyGenerator sharedKeyGenerator = new ZipfianKeyGenerator(0.99);
+        DataGenerator sharedDataGenerator = new DataGenerator(7);
+        
+        ZipfianKeyGenerator[] keyGenerators = new ZipfianKeyGenerator[maxKeys.length];
+        DataGenerator dataGenerator = new DataGenerator(7);
+        for(int i = 0; i < maxKeys.length; i++)
+            keyGenerators[i] = new ZipfianKeyGenerator(0.99);
+        
+        for(int i = 0; i < 10000; i++)
+        {
+            int index = i % maxKeys.length;
+            
+            assertEquals(keyGenerators[index].nextKey(dataGenerator, maxKeys[index]), sharedKeyGenerator.nextKey(sharedDataGenerator, maxKeys[index]));
+        }
+    }
+    
+    /**
+     * Verifies that the latest keys are the most popular.
+     */
+    @Test
+    public void testLatest() {
+        
+        int[] counts = countKeys(new LatestKeyGenerator(0.99), 1000);
+        
+        assertTrue(counts[1000] > counts[990] && counts[990] > counts[500]);
+    }
+    
+    /**
+     * Verifies the fraction of the accesses on the hot set.
+     */
+    @Test
+    public void testHotspot() {
+        
+        int[] counts = countKeys(new HotspotKeyGenerator(0.2, 0.8), 1000);
+        
+        int hotAccesses = 0;
+        for(int i = 1; i <= 200; i++)
+            hotAccesses += counts[i];
+        
+        assertEquals(0.8, hotAccesses / (double)NUM_OF_DRAWS, 0.01);
+        
+        // all the accesses on the hot set when it contains all the keys
+        assertEquals(NUM_OF_DRAWS, countKeys(new HotspotKeyGenerator(1, 0.1), 1)[1]);
+    }
+    
+    /**
+     * Verifies that uniform keys are spread evenly.
+     */
+    @Test
+    public void testUniform() {
+        
+        int[] counts = countKeys(new UniformKeyGenerator(), 10);
+        
+        for(int i = 1; i <= 10; i++)
+            assertEquals(0.1, counts[i] / (double)NUM_OF_DRAWS, 0.01);
+    }
+    
+}
@@ -0,0 +1,92 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.vin.dbbenchmark.utils;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Vin
+ */
+public class LatencyHistogramTest {
+    
+    public LatencyHistogramTest() {
+    }
+
+    /**
+     * Verifies min, max, mean and percentiles of a uniform distribution of values.
+     */
+    @Test
+    public void testPercentilesWithinPrecision() {
+        
+        LatencyHistogram histogram = new LatencyHistogram(3600L * 1000000000L, 3);
+        
+        for(long value = 1; value <= 100000; value++)
+            histogram.recordValue(value * 1000);
+        
+        assertEquals(100000, histogram.getTotalCount());
+        assertEquals(1000, histogram.getMinValue());
+        assertEquals(100000000, histogram.getMaxValue());
+        assertEquals(50000500, (long)histogram.getMean());
+        
+        assertEquals(50000000, histogram.getValueAtPercentile(50), 50000000 * 0.001);
+        assertEquals(90000000, histogram.getValueAtPercentile(90), 90000000 * 0.001);
+        assertEquals(99000000, histogram.getValueAtPercentile(99), 99000000 * 0.001);
+        assertEquals(99990000, histogram.getValueAtPercentile(99.99), 99990000 * 0.001);
+        assertEquals(100000000, histogram.getValueAtPercentile(100));
+    }
+    
+    /**
+     * Verifies that small values are recorded exactly and that values above the highest trackable value keep an exact max.
+     */
+    @Test
+    public void testSmallAndOutOfRangeValues() {
+        
+        LatencyHistogram histogram = new LatencyHistogram(1000000, 2);
+        
+        histogram.recordValue(0);
+        histogram.recordValue(7);
+        histogram.recordValue(50000000);
+        
+        assertEquals(0, histogram.getValueAtPercentile(0));
+        assertEquals(7, histogram.getValueAtPercentile(50));
+        assertEquals(50000000, histogram.getMaxValue());
+        assertTrue(histogram.getValueAtPercentile(100) >= 1000000);
+    }
+    
+    /**
+     * Verifies that adding histograms gives the same result as recording all the values in a single histogram.
+     */
+    @Test
+    public void testAdd() {
+        
+        LatencyHistogram all = new LatencyHistogram(1000000000L, 3);
+        LatencyHistogram first = all.copyEmpty();
+        LatencyHistogram second = all.copyEmpty();
+        
+        for(long value = 1; value <= 10000; value++)
+        {
+            all.recordValue(value * 37);
+            if(value % 2 == 0)
+                first.recordValue(value * 37);
+            else
+                second.recordValue(value * 37);
+        }
+        
+        first.add(second);
+        
+        assertEquals(all.getTotalCount(), first.getTotalCount());
+        assertEquals(all.getMinValue(), first.getMinValue());
+        assertEquals(all.getMaxValue(), first.getMaxValue());
+        assertEquals(all.getValueAtPercentile(99), first.getValueAtPercentile(99));
+        
+        first.reset();
+        assertEquals(0, first.getTotalCount());
+        assertEquals(0, first.getValueAtPercentile(99));
+    }
+    
+}
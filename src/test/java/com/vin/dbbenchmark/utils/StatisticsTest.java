@@ -0,0 +1,71 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.vin.dbbenchmark.utils;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Vin
+ */
+public class StatisticsTest {
+    
+    public StatisticsTest() {
+    }
+
+    /**
+     * Verifies mean, standard deviation, coefficient of variation and median of a few samples.
+     */
+    @Test
+    public void testDescriptiveStatistics() {
+        
+        double[] samples = {2, 4, 4, 4, 5, 5, 7, 9};
+        
+        assertEquals(5, Statistics.mean(samples), 1e-9);
+        assertEquals(32.0 / 7, Statistics.variance(samples), 1e-9);
+        assertEquals(Math.sqrt(32.0 / 7) / 5, Statistics.coefficientOfVariation(samples), 1e-9);
+        assertEquals(4.5, Statistics.median(samples), 1e-9);
+        assertEquals(5, Statistics.median(new double[]{9, 5, 1}), 1e-9);
+        assertEquals(0, Statistics.standardDeviation(new double[]{3}), 0);
+    }
+    
+    /**
+     * Verifies the critical values of the t distribution and the confidence intervals.
+     */
+    @Test
+    public void testConfidenceIntervals() {
+        
+        assertEquals(12.706, Statistics.tCriticalValue(1), 1e-3);
+        assertEquals(2.262, Statistics.tCriticalValue(9.7), 1e-3);
+        assertEquals(2.021, Statistics.tCriticalValue(40), 2e-3);
+        assertEquals(1.984, Statistics.tCriticalValue(100), 2e-3);
+        
+        double[] samples = {10, 12, 14};
+        assertEquals(4.303 * 2 / Math.sqrt(3), Statistics.confidenceHalfWidth(samples), 1e-9);
+        assertTrue(Double.isNaN(Statistics.confidenceHalfWidth(new double[]{10})));
+        
+        // with a single sample in a group, the other group gives the interval
+        assertEquals(Statistics.confidenceHalfWidth(samples), Statistics.differenceConfidenceHalfWidth(new double[]{11}, samples), 1e-9);
+        assertTrue(Double.isNaN(Statistics.differenceConfidenceHalfWidth(new double[]{11}, new double[]{12})));
+        
+        // equal variances and sizes: 2 * 2 degrees of freedom
+        assertEquals(2.776 * Math.sqrt(4.0 / 3 * 2), Statistics.differenceConfidenceHalfWidth(samples, new double[]{20, 22, 24}), 1e-9);
+    }
+    
+    /**
+     * Verifies that only the samples far from the others are outliers.
+     */
+    @Test
+    public void testFindOutliers() {
+        
+        assertArrayEquals(new boolean[]{false, false, false, false, true}, Statistics.findOutliers(new double[]{100, 101, 99, 100.5, 150}));
+        assertArrayEquals(new boolean[]{false, false, false, false, false}, Statistics.findOutliers(new double[]{100, 101, 99, 100.5, 102}));
+        assertArrayEquals(new boolean[]{false, false}, Statistics.findOutliers(new double[]{100, 1000}));
+        assertArrayEquals(new boolean[]{false, false, false}, Statistics.findOutliers(new double[]{100, 100, 1000}));
+    }
+    
+}